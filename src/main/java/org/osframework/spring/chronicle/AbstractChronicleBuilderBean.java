@@ -1,5 +1,6 @@
 package org.osframework.spring.chronicle;
 
+import net.openhft.chronicle.hash.ChronicleHash;
 import net.openhft.chronicle.hash.ChronicleHashBuilder;
 import net.openhft.chronicle.hash.ChronicleHashErrorListener;
 import net.openhft.lang.io.serialization.BytesMarshaller;
@@ -7,11 +8,15 @@ import net.openhft.lang.io.serialization.ObjectSerializer;
 import net.openhft.lang.model.Byteable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.config.AbstractFactoryBean;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -24,7 +29,7 @@ import java.util.concurrent.TimeUnit;
  * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
  * @since 0.0.1
  */
-public abstract class AbstractChronicleBuilderBean<K, T> extends AbstractFactoryBean<T> {
+public abstract class AbstractChronicleBuilderBean<K, T> extends AbstractFactoryBean<T> implements BeanNameAware {
 
     /**
      * Default maximum number of entries stored by collection instance created
@@ -32,8 +37,25 @@ public abstract class AbstractChronicleBuilderBean<K, T> extends AbstractFactory
      */
     protected static final long DEFAULT_ENTRIES = 1 << 20;
 
+    /**
+     * Default number of stripes of a key access profiler, if the number of segments is
+     * not configured.
+     */
+    protected static final int DEFAULT_PROFILER_STRIPES = 64;
+
+    /**
+     * Default interval in milliseconds between checkpoints of a collection instance
+     * mapped from a live directory.
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = TimeUnit.SECONDS.toMillis(1L);
+
     protected final Logger slf4jLogger;
 
+    private String beanName = null;
+    private KeyAccessProfiler keyAccessProfiler = null;
+    private ChronicleFileCheckpointer checkpointer = null;
+    private ScheduledExecutorService checkpointExecutor = null;
+
     /**
      * Default constructor. Initializes logger for use by subclasses.
      */
@@ -287,6 +309,249 @@ public abstract class AbstractChronicleBuilderBean<K, T> extends AbstractFactory
         getConfig().metaDataBytes = metaDataBytes;
     }
 
+    /**
+     * Set a directory on a RAM-backed filesystem, such as {@code /dev/shm}, from which
+     * persisted collection instances created by this object are mapped. The live file,
+     * named after the {@code persistedTo} file, is restored from {@code persistedTo} when
+     * a collection instance is created, and checkpointed back to it in the background.
+     *
+     * @param liveDirectory tmpfs directory of live collection file
+     * @see ChronicleFileCheckpointer
+     */
+    public final void setLiveDirectory(File liveDirectory) {
+        getConfig().liveDirectory = liveDirectory;
+    }
+
+    /**
+     * Set interval in milliseconds between checkpoints of a collection instance mapped
+     * from the live directory. Defaults to one second.
+     *
+     * @param checkpointInterval checkpoint interval in milliseconds
+     */
+    public final void setCheckpointInterval(long checkpointInterval) {
+        if (0L >= checkpointInterval) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive number");
+        }
+        getConfig().checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Set the maximum rate, in bytes per second, at which checkpoints are written.
+     * Defaults to unlimited.
+     *
+     * @param checkpointMaxBytesPerSecond maximum checkpoint write rate
+     */
+    public final void setCheckpointMaxBytesPerSecond(long checkpointMaxBytesPerSecond) {
+        getConfig().checkpointMaxBytesPerSecond = checkpointMaxBytesPerSecond;
+    }
+
+    /**
+     * Toggle verification of the persisted file of collection instances created by this
+     * object, before they are returned. The consistent entries of an inconsistent file
+     * are copied into a new file, which replaces it once it is quarantined. If that
+     * salvage is partial, or the file cannot be opened at all, creation fails and the
+     * file is left in place, unless {@link #setAcceptPartialSalvage(boolean)} is set.
+     * Verification reads every entry, so it delays startup in proportion to the size of
+     * the collection.
+     *
+     * @param verifyOnStartup flag indicating whether persisted file is verified
+     * @see ChronicleFileVerifier
+     */
+    public final void setVerifyOnStartup(boolean verifyOnStartup) {
+        getConfig().verifyOnStartup = verifyOnStartup;
+    }
+
+    /**
+     * Toggle acceptance of partial salvage of an inconsistent persisted file, found by
+     * verification on startup. If set, a collection created from the entries which could
+     * be salvaged, or an empty collection if the file cannot be opened, replaces the
+     * quarantined file; otherwise creation fails. Defaults to {@code false}.
+     *
+     * @param acceptPartialSalvage flag indicating whether a partially salvaged collection
+     *                             is served
+     * @see #setVerifyOnStartup(boolean)
+     */
+    public final void setAcceptPartialSalvage(boolean acceptPartialSalvage) {
+        getConfig().acceptPartialSalvage = acceptPartialSalvage;
+    }
+
+    /**
+     * Toggle sampling profiling of the key accesses of collection instances created by
+     * this object. The profiler is published via JMX under the name of this bean.
+     *
+     * @param profileKeyAccess flag indicating whether key accesses are profiled
+     * @see KeyAccessProfiler
+     */
+    public final void setProfileKeyAccess(boolean profileKeyAccess) {
+        getConfig().profileKeyAccess = profileKeyAccess;
+    }
+
+    /**
+     * Set number of key accesses per access sampled by the key access profiler.
+     *
+     * @param profileSampleInterval number of accesses per sampled access
+     */
+    public final void setProfileSampleInterval(int profileSampleInterval) {
+        getConfig().profileSampleInterval = profileSampleInterval;
+    }
+
+    /**
+     * Set number of most frequently accessed keys reported by the key access profiler.
+     *
+     * @param profileTopKeys number of top keys
+     */
+    public final void setProfileTopKeys(int profileTopKeys) {
+        getConfig().profileTopKeys = profileTopKeys;
+    }
+
+    /**
+     * Get the key access profiler of the last collection instance created by this object.
+     *
+     * @return key access profiler, or {@code null} if profiling is not enabled
+     */
+    public final KeyAccessProfiler getKeyAccessProfiler() {
+        return keyAccessProfiler;
+    }
+
+    /**
+     * Get the checkpointer of the last collection instance created by this object, from
+     * which its durability lag is read.
+     *
+     * @return checkpointer, or {@code null} if no live directory is configured
+     */
+    public final ChronicleFileCheckpointer getCheckpointer() {
+        return checkpointer;
+    }
+
+    @Override
+    public void setBeanName(String name) {
+        this.beanName = name;
+    }
+
+    /**
+     * Get the name of this bean in its BeanFactory.
+     *
+     * @return bean name, or {@code null} if not set
+     */
+    protected final String getBeanName() {
+        return beanName;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation validates the live directory settings, if any.</p>
+     *
+     * @throws Exception if any validation fails
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        AbstractBuilderConfig config = getConfig();
+        if (null != config.liveDirectory) {
+            if (null == config.persistedTo) {
+                throw new IllegalStateException("Live directory requires property 'persistedTo' to be set");
+            }
+            if (!config.liveDirectory.isDirectory() || !config.liveDirectory.canWrite()) {
+                throw new IllegalStateException("Live directory must be a writable directory");
+            }
+        }
+        super.afterPropertiesSet();
+    }
+
+    /**
+     * Get the file to which a new persisted collection instance is mapped: the
+     * {@code persistedTo} file itself or, if a live directory is configured, a file of
+     * the same name in the live directory, restored from the {@code persistedTo} file.
+     *
+     * @return file to be mapped
+     * @throws IOException if the live file cannot be restored
+     */
+    protected File mappedFile() throws IOException {
+        AbstractBuilderConfig config = getConfig();
+        if (null == config.liveDirectory) {
+            return config.persistedTo;
+        }
+        checkpointer = new ChronicleFileCheckpointer(new File(config.liveDirectory, config.persistedTo.getName()),
+                config.persistedTo);
+        checkpointer.setMaxBytesPerSecond(config.checkpointMaxBytesPerSecond);
+        checkpointer.restore();
+        return checkpointer.getLiveFile();
+    }
+
+    /**
+     * Start periodic checkpoints of the live file of a new collection instance, if a live
+     * directory is configured. Checkpoints run on a minimum priority daemon thread.
+     */
+    protected void startCheckpoints() {
+        if (null == checkpointer) {
+            return;
+        }
+        long interval = getConfig().checkpointInterval;
+        ChronicleThreadFactory threadFactory = new ChronicleThreadFactory("chronicle-checkpoint-" + instanceName());
+        threadFactory.setPriority(Thread.MIN_PRIORITY);
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        checkpointExecutor.scheduleWithFixedDelay(checkpointer, interval, interval, TimeUnit.MILLISECONDS);
+        slf4jLogger.info("Live file {} checkpointed to {} every {} ms",
+                checkpointer.getLiveFile(), getConfig().persistedTo, interval);
+    }
+
+    /**
+     * Create and register a key access profiler for a new collection instance, if profiling
+     * is enabled. Stripes of the profiler correspond to the configured segments.
+     *
+     * @return new key access profiler, or {@code null} if profiling is not enabled
+     */
+    protected KeyAccessProfiler createKeyAccessProfiler() {
+        AbstractBuilderConfig config = getConfig();
+        if (!config.profileKeyAccess) {
+            return null;
+        }
+        int stripes = (-1 != config.actualSegments) ? config.actualSegments
+                      : (-1 != config.minSegments) ? config.minSegments
+                      : DEFAULT_PROFILER_STRIPES;
+        keyAccessProfiler = new KeyAccessProfiler(stripes, config.profileSampleInterval, config.profileTopKeys);
+        keyAccessProfiler.register(instanceName());
+        slf4jLogger.info("Key accesses profiled over {} stripes, sampling 1 in {}", stripes, config.profileSampleInterval);
+        return keyAccessProfiler;
+    }
+
+    /**
+     * Register a new collection instance with the {@link ChronicleMemoryRegistry}, under
+     * the name of this bean.
+     *
+     * @param collection new collection instance
+     */
+    protected void registerMemoryUsage(ChronicleHash collection) {
+        ChronicleMemoryRegistry.getInstance().register(instanceName(), collection, getConfig().maxEntries);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation writes a final checkpoint and releases the lock of the
+     * checkpointer on the live file, if a live directory is configured, and unregisters the key access profiler, if any, and the collection's
+     * memory usage.</p>
+     */
+    @Override
+    protected void destroyInstance(T instance) throws Exception {
+        if (null != checkpointExecutor) {
+            checkpointExecutor.shutdown();
+            checkpointExecutor.awaitTermination(1L, TimeUnit.MINUTES);
+            checkpointExecutor = null;
+            checkpointer.checkpoint();
+        }
+        if (null != checkpointer) {
+            checkpointer.close();
+        }
+        if (null != keyAccessProfiler) {
+            keyAccessProfiler.unregister();
+        }
+        ChronicleMemoryRegistry.getInstance().unregister(instanceName());
+    }
+
+    private String instanceName() {
+        return (null != beanName) ? beanName
+               : getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(this));
+    }
+
     protected abstract <C extends AbstractBuilderConfig> C getConfig();
 
     /**
@@ -318,9 +583,18 @@ public abstract class AbstractChronicleBuilderBean<K, T> extends AbstractFactory
 
         private LockTimeOutParser lockTimeOutParser = null;
         public File persistedTo = null;
+        public boolean verifyOnStartup = false;
+        public boolean acceptPartialSalvage = false;
+        public File liveDirectory = null;
+        public long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+        public long checkpointMaxBytesPerSecond = 0L;
 
         public ChronicleHashErrorListener errorListener = null;
 
+        public boolean profileKeyAccess = false;
+        public int profileSampleInterval = KeyAccessProfiler.DEFAULT_SAMPLE_INTERVAL;
+        public int profileTopKeys = KeyAccessProfiler.DEFAULT_TOP_KEYS;
+
         public void checkKeySizing() {
             if (null != averageKeySize && -1.0 == Math.signum(averageKeySize)) {
                 throw new IllegalArgumentException("Average key size must be positive number");
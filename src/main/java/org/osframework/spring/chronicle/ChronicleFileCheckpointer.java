@@ -0,0 +1,382 @@
+package org.osframework.spring.chronicle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Incremental checkpointer of a live collection file, typically on a RAM-backed
+ * filesystem such as {@code /dev/shm}, to a durable checkpoint file. Collections mapped
+ * from tmpfs never stall on writeback of dirty pages to disk; the checkpointer bounds
+ * what a reboot can lose to the changes made since the start of the last checkpoint.
+ * <p>The checkpoint file is never written in place. Checkpoints alternate between it and
+ * a work file, named after it with a {@code .next} suffix, which holds the generation
+ * before it: the live file is compared with the work file block by block, by CRC32 of
+ * each block, and only the blocks which differ are written. The work file is then forced
+ * to disk and atomically renamed over the checkpoint file, whose previous generation is
+ * kept, by a hard link, as the next work file. A checkpoint thus writes the blocks changed
+ * over the last two checkpoint intervals, and a crash during a checkpoint leaves the last
+ * complete checkpoint in place. Writes are throttled to a maximum rate, so checkpointing
+ * does not saturate the disk.</p>
+ * <p>Each checkpoint is stamped with the modification time of the live file when it
+ * started. {@link #restore()} copies the checkpoint to the live file only if the live
+ * file is absent or empty, or older than that stamp, and never while another
+ * checkpointer uses the live file: checkpointers hold a shared lock on a lock file next
+ * to it, named after it with a {@code .lock} suffix, from restore until closed. A
+ * process which maps the live file without a checkpointer is not detected.</p>
+ * <p>The live file is read while the collection is being written, so a checkpoint is
+ * not a point-in-time snapshot: an entry written during a checkpoint may be torn in it.
+ * Enable startup verification of the collection to detect and repair such entries on
+ * restore.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ * @see ChronicleFileVerifier
+ */
+public class ChronicleFileCheckpointer implements Runnable, Closeable {
+
+    /**
+     * Default size in bytes of the blocks compared between checkpoints.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64 << 10;
+
+    private static final long NEVER = -1L;
+
+    private final Logger slf4jLogger;
+    private final File liveFile;
+    private final File checkpointFile;
+    private final File workFile;
+    private final File previousFile;
+    private final File lockFile;
+
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private long maxBytesPerSecond = 0L;
+
+    private long[] blockCrcs = null;
+    private long[] committedCrcs = null;
+    private FileChannel lockChannel = null;
+    private volatile long lastCheckpointStart = NEVER;
+    private volatile long lastCheckpointBytes = 0L;
+
+    /**
+     * Create a new checkpointer of the specified live file.
+     *
+     * @param liveFile file of live collection
+     * @param checkpointFile durable checkpoint file
+     */
+    public ChronicleFileCheckpointer(File liveFile, File checkpointFile) {
+        if (null == liveFile || null == checkpointFile) {
+            throw new IllegalArgumentException("Live and checkpoint files cannot be null");
+        }
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+        this.liveFile = liveFile;
+        this.checkpointFile = checkpointFile;
+        this.workFile = new File(checkpointFile.getPath() + ".next");
+        this.previousFile = new File(checkpointFile.getPath() + ".prev");
+        this.lockFile = new File(liveFile.getPath() + ".lock");
+    }
+
+    /**
+     * Set the size in bytes of the blocks compared between checkpoints. Defaults to
+     * {@value #DEFAULT_BLOCK_SIZE}.
+     *
+     * @param blockSize block size in bytes
+     */
+    public void setBlockSize(int blockSize) {
+        if (0 >= blockSize) {
+            throw new IllegalArgumentException("Block size must be positive number");
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Set the maximum rate, in bytes per second, at which checkpoints are written. Zero,
+     * the default, means unlimited.
+     *
+     * @param maxBytesPerSecond maximum checkpoint write rate
+     */
+    public void setMaxBytesPerSecond(long maxBytesPerSecond) {
+        if (0L > maxBytesPerSecond) {
+            throw new IllegalArgumentException("Checkpoint rate cannot be negative");
+        }
+        this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    /**
+     * Get the live file.
+     *
+     * @return live file
+     */
+    public File getLiveFile() {
+        return liveFile;
+    }
+
+    /**
+     * Restore the live file from the checkpoint, if the live file is absent or empty, or
+     * older than the checkpoint, and not in use by another checkpointer. An absent live
+     * file is created empty if there is no checkpoint. On return, this checkpointer holds
+     * a shared lock on the live file, until {@link #close()}.
+     *
+     * @throws IOException if the checkpoint cannot be copied
+     */
+    public synchronized void restore() throws IOException {
+        blockCrcs = null;
+        committedCrcs = null;
+        if (null == lockChannel) {
+            lockChannel = FileChannel.open(lockFile.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        }
+        FileLock exclusive;
+        try {
+            exclusive = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Locked by another checkpointer of this JVM, which keeps the lock for both
+            lockChannel.close();
+            lockChannel = null;
+            exclusive = null;
+        }
+        if (null == exclusive) {
+            if (null != lockChannel) {
+                lockChannel.lock(0L, Long.MAX_VALUE, true);
+            }
+            slf4jLogger.info("Live file {} is in use; not restored from checkpoint {}", liveFile, checkpointFile);
+            return;
+        }
+        try {
+            if (isRestoreNeeded()) {
+                File restoring = new File(liveFile.getPath() + ".restore");
+                Files.copy(checkpointFile.toPath(), restoring.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(restoring.toPath(), liveFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                slf4jLogger.info("Restored {} bytes from checkpoint {} to {}",
+                        liveFile.length(), checkpointFile, liveFile);
+            } else if (!liveFile.exists()) {
+                Files.createFile(liveFile.toPath());
+            } else {
+                slf4jLogger.info("Live file {} is newer than checkpoint {}; not restored", liveFile, checkpointFile);
+            }
+        } finally {
+            exclusive.release();
+            lockChannel.lock(0L, Long.MAX_VALUE, true);
+        }
+    }
+
+    /**
+     * Release the lock of this checkpointer on the live file.
+     *
+     * @throws IOException if the lock file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (null != lockChannel) {
+            lockChannel.close();
+            lockChannel = null;
+        }
+    }
+
+    /**
+     * Write a checkpoint of the live file, logging any failure.
+     */
+    @Override
+    public void run() {
+        try {
+            checkpoint();
+        } catch (IOException ioe) {
+            slf4jLogger.error("Checkpoint of " + liveFile + " to " + checkpointFile + " failed", ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write the blocks of the live file which differ from the work file to the work file,
+     * force it to disk, and commit it as the checkpoint file.
+     *
+     * @return number of bytes written
+     * @throws IOException if any file cannot be accessed
+     * @throws InterruptedException if interrupted while throttled
+     */
+    public synchronized long checkpoint() throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        long throttleStart = System.nanoTime();
+        long liveModified = liveFile.lastModified();
+        long written = 0L;
+        prepareWorkFile();
+        try (FileChannel live = FileChannel.open(liveFile.toPath(), StandardOpenOption.READ);
+             FileChannel durable = FileChannel.open(workFile.toPath(),
+                     StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            long size = live.size();
+            int blocks = (int)((size + blockSize - 1) / blockSize);
+            if (null == blockCrcs) {
+                blockCrcs = crcs(durable, blocks);
+            } else if (blocks != blockCrcs.length) {
+                int known = blockCrcs.length;
+                blockCrcs = Arrays.copyOf(blockCrcs, blocks);
+                Arrays.fill(blockCrcs, Math.min(known, blocks), blocks, NEVER);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+            CRC32 crc = new CRC32();
+            for (int b = 0; b < blocks; b++) {
+                long position = (long)b * blockSize;
+                read(live, buffer, position);
+                crc.reset();
+                crc.update(buffer.array(), 0, buffer.limit());
+                if (crc.getValue() != blockCrcs[b]) {
+                    while (buffer.hasRemaining()) {
+                        position += durable.write(buffer, position);
+                    }
+                    blockCrcs[b] = crc.getValue();
+                    written += buffer.limit();
+                    throttle(written, throttleStart);
+                }
+            }
+            if (durable.size() > size) {
+                durable.truncate(size);
+            }
+            durable.force(true);
+        }
+        Files.setLastModifiedTime(workFile.toPath(), FileTime.fromMillis(liveModified));
+        commit();
+        lastCheckpointStart = start;
+        lastCheckpointBytes = written;
+        slf4jLogger.debug("Checkpointed {} changed bytes of {} in {} ms",
+                written, liveFile, System.currentTimeMillis() - start);
+        return written;
+    }
+
+    /**
+     * Get the durability lag: the time since the start of the last completed checkpoint.
+     * Changes made to the live file within this time would be lost by a reboot.
+     *
+     * @return durability lag in milliseconds, or {@code -1} if no checkpoint has completed
+     */
+    public long getLagMillis() {
+        long start = lastCheckpointStart;
+        return (NEVER == start) ? NEVER : System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Get the number of bytes written by the last completed checkpoint.
+     *
+     * @return bytes written by last checkpoint
+     */
+    public long getLastCheckpointBytes() {
+        return lastCheckpointBytes;
+    }
+
+    /**
+     * Determine whether the live file should be restored from the checkpoint.
+     */
+    private boolean isRestoreNeeded() {
+        if (!checkpointFile.isFile() || 0L == checkpointFile.length()) {
+            return false;
+        }
+        return !liveFile.exists() || 0L == liveFile.length() || liveFile.lastModified() < checkpointFile.lastModified();
+    }
+
+    /**
+     * Ensure the work file exists: resume a commit interrupted before the previous
+     * generation was renamed, or else copy the checkpoint file once.
+     */
+    private void prepareWorkFile() throws IOException {
+        if (workFile.exists()) {
+            return;
+        }
+        if (previousFile.exists()) {
+            Files.move(previousFile.toPath(), workFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } else if (checkpointFile.exists()) {
+            Files.copy(checkpointFile.toPath(), workFile.toPath());
+        }
+        blockCrcs = null;
+    }
+
+    /**
+     * Rename the work file over the checkpoint file, keeping the previous generation of
+     * the checkpoint as the next work file. Until the rename, the checkpoint file is the
+     * last complete checkpoint; if the filesystem cannot link files, the next work file is
+     * copied from the checkpoint instead.
+     */
+    private void commit() throws IOException {
+        long[] workCrcs = blockCrcs;
+        boolean linked = false;
+        if (checkpointFile.exists()) {
+            Files.deleteIfExists(previousFile.toPath());
+            try {
+                Files.createLink(previousFile.toPath(), checkpointFile.toPath());
+                linked = true;
+            } catch (UnsupportedOperationException | IOException e) {
+                slf4jLogger.debug("Cannot link {}; next checkpoint copies it ({})", checkpointFile, e.toString());
+            }
+        }
+        Files.move(workFile.toPath(), checkpointFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        if (linked) {
+            Files.move(previousFile.toPath(), workFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        forceDirectory(checkpointFile.getAbsoluteFile().getParentFile());
+        blockCrcs = linked ? committedCrcs : null;
+        committedCrcs = workCrcs;
+    }
+
+    private static void forceDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; renames are then durable at the filesystem's discretion
+        }
+    }
+
+    private long[] crcs(FileChannel channel, int blocks) throws IOException {
+        long[] crcs = new long[blocks];
+        ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+        CRC32 crc = new CRC32();
+        long size = channel.size();
+        for (int b = 0; b < blocks; b++) {
+            long position = (long)b * blockSize;
+            if (position + blockSize > size) {
+                Arrays.fill(crcs, b, blocks, NEVER);
+                break;
+            }
+            read(channel, buffer, position);
+            crc.reset();
+            crc.update(buffer.array(), 0, buffer.limit());
+            crcs[b] = crc.getValue();
+        }
+        return crcs;
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (0 > n) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    private void throttle(long written, long startNanos) throws InterruptedException {
+        if (0L == maxBytesPerSecond) {
+            return;
+        }
+        long due = startNanos + (long)(1e9 * written / maxBytesPerSecond);
+        long wait = due - System.nanoTime();
+        if (0L < wait) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+}
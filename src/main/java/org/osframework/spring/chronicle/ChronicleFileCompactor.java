@@ -0,0 +1,481 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.hash.ChronicleHashBuilder;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import net.openhft.chronicle.set.ChronicleSet;
+import net.openhft.chronicle.set.ChronicleSetBuilder;
+import net.openhft.lang.collection.DirectBitSet;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Helper class for offline inspection and compaction of the persisted files of Chronicle
+ * collections. A file is <em>compacted</em> by copying its entries, in parallel, into a new
+ * file created next to it with the geometry of a builder &mdash; its segments, chunk size
+ * and entries &mdash; which is then verified, and renamed atomically over the original.
+ * Compaction removes the free chunks left between entries by removals and by entries
+ * which have grown or shrunk across chunks, and is the only way to change the geometry of
+ * an existing file: a file which already exists is always opened with the geometry stored
+ * in it, whatever the builder's configuration.
+ * <p>Compaction must only be run while no other process has the file open. Chronicle
+ * Map 2 does not expose the raw bytes of an entry, so entries are copied by reading and
+ * writing them through the builder's serializers.</p>
+ * <p>The geometry and chunk usage of a file are read from the internal fields of the
+ * Chronicle Map 2 implementation; if those are unavailable, they are reported as
+ * {@code -1}.</p>
+ * <p>This class is also a command line tool:</p>
+ * <pre>
+ * ChronicleFileCompactor report|compact &lt;file&gt; &lt;key class&gt; [&lt;value class&gt;] [name=value ...]
+ * </pre>
+ * <p>which opens a set file if no value class is given, and otherwise a map file. The
+ * {@code name=value} arguments set the geometry of the compacted file: {@code entries},
+ * {@code actualSegments}, {@code minSegments}, {@code actualChunkSize},
+ * {@code maxChunksPerEntry}, {@code entriesPerSegment}, {@code actualChunksPerSegment},
+ * {@code averageKeySize} and, for a map, {@code averageValueSize}.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ * @see ChronicleFileVerifier
+ */
+public final class ChronicleFileCompactor {
+
+    private ChronicleFileCompactor() {
+    }
+
+    /**
+     * Report the geometry, chunk usage and fragmentation of the specified map.
+     *
+     * @param map map to report on
+     * @return file report
+     */
+    public static FileReport report(ChronicleMap<?, ?> map) {
+        return report(map, map.file(), map.longSize());
+    }
+
+    /**
+     * Report the geometry, chunk usage and fragmentation of the specified set.
+     *
+     * @param set set to report on
+     * @return file report
+     */
+    public static FileReport report(ChronicleSet<?> set) {
+        return report(set, set.file(), set.longSize());
+    }
+
+    /**
+     * Compact the specified map file into a file with the geometry of the specified
+     * builder, which must also be configured with the key and value classes and
+     * serializers of the file.
+     *
+     * @param file persisted map file
+     * @param builder builder of compacted map
+     * @return compaction report
+     * @throws IOException if a file cannot be opened, created or renamed
+     * @throws IllegalStateException if the compacted map fails verification, in which
+     *                               case the original file is left in place
+     */
+    public static <K, V> CompactionReport compact(File file, ChronicleMapBuilder<K, V> builder) throws IOException {
+        checkFile(file);
+        File compacted = compactedFile(file);
+        FileReport before;
+        FileReport after;
+        try (ChronicleMap<K, V> source = builder.createPersistedTo(file);
+             ChronicleMap<K, V> target = builder.createPersistedTo(compacted)) {
+            before = report(source);
+            ChronicleStreams.parallelStream(source).forEach(e -> target.put(e.getKey(), e.getValue()));
+            LongAdder mismatches = new LongAdder();
+            ChronicleStreams.parallelStream(source).forEach(e -> {
+                if (!Objects.deepEquals(target.get(e.getKey()), e.getValue())) {
+                    mismatches.increment();
+                }
+            });
+            checkVerified(compacted, source.longSize(), mismatches.sum(), ChronicleFileVerifier.verify(target));
+            after = report(target);
+        } catch (RuntimeException | IOException e) {
+            compacted.delete();
+            throw e;
+        }
+        replace(compacted, file);
+        return new CompactionReport(before, after);
+    }
+
+    /**
+     * Compact the specified set file into a file with the geometry of the specified
+     * builder, which must also be configured with the key class and serializers of the
+     * file.
+     *
+     * @param file persisted set file
+     * @param builder builder of compacted set
+     * @return compaction report
+     * @throws IOException if a file cannot be opened, created or renamed
+     * @throws IllegalStateException if the compacted set fails verification, in which
+     *                               case the original file is left in place
+     */
+    public static <K> CompactionReport compact(File file, ChronicleSetBuilder<K> builder) throws IOException {
+        checkFile(file);
+        File compacted = compactedFile(file);
+        FileReport before;
+        FileReport after;
+        try (ChronicleSet<K> source = builder.createPersistedTo(file);
+             ChronicleSet<K> target = builder.createPersistedTo(compacted)) {
+            before = report(source);
+            ChronicleStreams.parallelStream(source).forEach(target::add);
+            LongAdder mismatches = new LongAdder();
+            ChronicleStreams.parallelStream(source).forEach(k -> {
+                if (!target.contains(k)) {
+                    mismatches.increment();
+                }
+            });
+            checkVerified(compacted, source.longSize(), mismatches.sum(), ChronicleFileVerifier.verify(target));
+            after = report(target);
+        } catch (RuntimeException | IOException e) {
+            compacted.delete();
+            throw e;
+        }
+        replace(compacted, file);
+        return new CompactionReport(before, after);
+    }
+
+    /**
+     * Run the command line tool.
+     *
+     * @param args command line arguments
+     * @throws Exception if a file cannot be reported on or compacted
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        if (3 > args.length || !("report".equals(args[0]) || "compact".equals(args[0]))) {
+            System.err.println("Usage: ChronicleFileCompactor report|compact <file> <key class> [<value class>] [name=value ...]");
+            System.exit(2);
+        }
+        boolean compact = "compact".equals(args[0]);
+        File file = new File(args[1]);
+        Class<Object> keyClass = (Class<Object>)Class.forName(args[2]);
+        int options = 3;
+        ChronicleHashBuilder<Object, ?, ?> builder;
+        if (3 < args.length && 0 > args[3].indexOf('=')) {
+            ChronicleMapBuilder<Object, Object> mapBuilder = ChronicleMapBuilder.of(keyClass, (Class<Object>)Class.forName(args[3]));
+            builder = mapBuilder;
+            options++;
+        } else {
+            builder = ChronicleSetBuilder.of(keyClass);
+        }
+        for (int i = options; i < args.length; i++) {
+            configure(builder, args[i]);
+        }
+        if (!compact) {
+            checkFile(file);
+            try (AutoCloseable collection = builder.createPersistedTo(file)) {
+                System.out.println((collection instanceof ChronicleMap)
+                        ? report((ChronicleMap<?, ?>)collection)
+                        : report((ChronicleSet<?>)collection));
+            }
+        } else if (builder instanceof ChronicleMapBuilder) {
+            System.out.println(compact(file, (ChronicleMapBuilder<Object, Object>)builder));
+        } else {
+            System.out.println(compact(file, (ChronicleSetBuilder<Object>)builder));
+        }
+        System.exit(0);
+    }
+
+    private static void configure(ChronicleHashBuilder<?, ?, ?> builder, String option) {
+        int equals = option.indexOf('=');
+        if (1 > equals) {
+            throw new IllegalArgumentException("Option '" + option + "' is not of the form name=value");
+        }
+        String name = option.substring(0, equals);
+        String value = option.substring(equals + 1);
+        switch (name) {
+            case "entries":
+                builder.entries(Long.parseLong(value));
+                break;
+            case "actualSegments":
+                builder.actualSegments(Integer.parseInt(value));
+                break;
+            case "minSegments":
+                builder.minSegments(Integer.parseInt(value));
+                break;
+            case "actualChunkSize":
+                builder.actualChunkSize(Integer.parseInt(value));
+                break;
+            case "maxChunksPerEntry":
+                builder.maxChunksPerEntry(Integer.parseInt(value));
+                break;
+            case "entriesPerSegment":
+                builder.entriesPerSegment(Long.parseLong(value));
+                break;
+            case "actualChunksPerSegment":
+                builder.actualChunksPerSegment(Long.parseLong(value));
+                break;
+            case "averageKeySize":
+                builder.averageKeySize(Double.parseDouble(value));
+                break;
+            case "averageValueSize":
+                if (!(builder instanceof ChronicleMapBuilder)) {
+                    throw new IllegalArgumentException("Option 'averageValueSize' only applies to a map");
+                }
+                ((ChronicleMapBuilder<?, ?>)builder).averageValueSize(Double.parseDouble(value));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option '" + name + "'");
+        }
+    }
+
+    private static void checkFile(File file) {
+        if (null == file) {
+            throw new IllegalArgumentException("Argument 'file' cannot be null");
+        }
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("File " + file + " does not exist");
+        }
+    }
+
+    /**
+     * Get the file into which the specified file is compacted, discarding any left by an
+     * earlier, failed compaction.
+     */
+    private static File compactedFile(File file) throws IOException {
+        File compacted = new File(file.getPath() + ".compact");
+        Files.deleteIfExists(compacted.toPath());
+        return compacted;
+    }
+
+    private static void checkVerified(File compacted, long entries, long mismatches,
+                                      ChronicleFileVerifier.VerificationReport verification) {
+        if (0L != mismatches || entries != verification.getEntries() || !verification.isConsistent()) {
+            throw new IllegalStateException("Compacted file " + compacted + " failed verification: "
+                    + verification + ", " + mismatches + " of " + entries + " entries mismatched");
+        }
+    }
+
+    private static void replace(File compacted, File file) throws IOException {
+        try {
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            compacted.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the geometry and chunk usage of a collection from its implementation: a map
+     * implementation, or the map backing a set implementation.
+     */
+    private static FileReport report(Object collection, File file, long entries) {
+        long fileBytes = (null != file) ? file.length() : 0L;
+        try {
+            Object map = collection;
+            Field backingMap = ReflectionUtils.findField(collection.getClass(), "m", ChronicleMap.class);
+            if (null != backingMap) {
+                ReflectionUtils.makeAccessible(backingMap);
+                map = backingMap.get(collection);
+            }
+            long chunkSize = ((Number)fieldValue(map, "chunkSize")).longValue();
+            long chunksPerSegment = ((Number)fieldValue(map, "actualChunksPerSegment")).longValue();
+            Object segments = fieldValue(map, "segments");
+            int segmentCount = Array.getLength(segments);
+            long usedChunks = 0L;
+            long fragmentedChunks = 0L;
+            for (int i = 0; i < segmentCount; i++) {
+                Object segment = Array.get(segments, i);
+                DirectBitSet freeList = (DirectBitSet)fieldValue(segment, "freeList");
+                long used = freeList.cardinality();
+                long span = freeList.previousSetBit(freeList.size() - 1L) + 1L;
+                usedChunks += used;
+                fragmentedChunks += span - used;
+            }
+            return new FileReport(fileBytes, entries, segmentCount, chunkSize, chunksPerSegment,
+                    usedChunks, fragmentedChunks);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return new FileReport(fileBytes, entries, -1, -1L, -1L, -1L, -1L);
+        }
+    }
+
+    private static Object fieldValue(Object target, String name) throws IllegalAccessException {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (null == field) {
+            throw new IllegalStateException("Field '" + name + "' not found in " + target.getClass().getName());
+        }
+        ReflectionUtils.makeAccessible(field);
+        return field.get(target);
+    }
+
+    /**
+     * Geometry, chunk usage and fragmentation of a persisted file.
+     */
+    public static final class FileReport {
+
+        private final long fileBytes;
+        private final long entries;
+        private final int segments;
+        private final long chunkSize;
+        private final long chunksPerSegment;
+        private final long usedChunks;
+        private final long fragmentedChunks;
+
+        FileReport(long fileBytes, long entries, int segments, long chunkSize, long chunksPerSegment,
+                   long usedChunks, long fragmentedChunks) {
+            this.fileBytes = fileBytes;
+            this.entries = entries;
+            this.segments = segments;
+            this.chunkSize = chunkSize;
+            this.chunksPerSegment = chunksPerSegment;
+            this.usedChunks = usedChunks;
+            this.fragmentedChunks = fragmentedChunks;
+        }
+
+        /**
+         * Get the length of the file.
+         *
+         * @return file length in bytes
+         */
+        public long getFileBytes() {
+            return fileBytes;
+        }
+
+        /**
+         * Get the number of entries of the collection.
+         *
+         * @return number of entries
+         */
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * Get the number of segments of the file.
+         *
+         * @return number of segments, or {@code -1} if not available
+         */
+        public int getSegments() {
+            return segments;
+        }
+
+        /**
+         * Get the size of the chunks in which entries are stored.
+         *
+         * @return chunk size in bytes, or {@code -1} if not available
+         */
+        public long getChunkSize() {
+            return chunkSize;
+        }
+
+        /**
+         * Get the number of chunks of each segment.
+         *
+         * @return chunks per segment, or {@code -1} if not available
+         */
+        public long getChunksPerSegment() {
+            return chunksPerSegment;
+        }
+
+        /**
+         * Get the number of chunks allocated to entries.
+         *
+         * @return used chunks, or {@code -1} if not available
+         */
+        public long getUsedChunks() {
+            return usedChunks;
+        }
+
+        /**
+         * Get the number of free chunks lying between the chunks allocated to entries of
+         * each segment, rather than after the last of them.
+         *
+         * @return fragmented chunks, or {@code -1} if not available
+         */
+        public long getFragmentedChunks() {
+            return fragmentedChunks;
+        }
+
+        /**
+         * Get the mean number of chunks allocated to an entry; above {@code 1.0}, some
+         * entries span several chunks.
+         *
+         * @return mean chunks per entry, or {@code NaN} if not available or empty
+         */
+        public double getChunksPerEntry() {
+            return (0L <= usedChunks && 0L < entries) ? (double)usedChunks / entries : Double.NaN;
+        }
+
+        /**
+         * Get the proportion of the chunks up to the last allocated chunk of each segment
+         * which are free.
+         *
+         * @return fragmentation in {@code [0, 1]}, or {@code NaN} if not available
+         */
+        public double getFragmentation() {
+            long span = usedChunks + fragmentedChunks;
+            if (0L > usedChunks) {
+                return Double.NaN;
+            }
+            return (0L == span) ? 0.0 : (double)fragmentedChunks / span;
+        }
+
+        /**
+         * Get the number of bytes of the file not allocated to entries: free chunks,
+         * segment headers and hash lookups.
+         *
+         * @return wasted bytes, or {@code -1} if not available
+         */
+        public long getWastedBytes() {
+            return (0L <= usedChunks) ? Math.max(0L, fileBytes - usedChunks * chunkSize) : -1L;
+        }
+
+        @Override
+        public String toString() {
+            return entries + " entries, " + fileBytes + " bytes (" + getWastedBytes() + " wasted), "
+                    + segments + " segments of " + chunksPerSegment + " chunks of " + chunkSize + " bytes, "
+                    + usedChunks + " chunks used, " + fragmentedChunks + " fragmented";
+        }
+
+    }
+
+    /**
+     * Reports of a file before and after compaction.
+     */
+    public static final class CompactionReport {
+
+        private final FileReport before;
+        private final FileReport after;
+
+        CompactionReport(FileReport before, FileReport after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        /**
+         * Get the report of the original file.
+         *
+         * @return report before compaction
+         */
+        public FileReport getBefore() {
+            return before;
+        }
+
+        /**
+         * Get the report of the compacted file.
+         *
+         * @return report after compaction
+         */
+        public FileReport getAfter() {
+            return after;
+        }
+
+        @Override
+        public String toString() {
+            return "before: " + before + "; after: " + after;
+        }
+
+    }
+
+}
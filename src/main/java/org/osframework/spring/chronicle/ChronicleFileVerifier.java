@@ -0,0 +1,295 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.set.ChronicleSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Helper class for verification and repair of the persisted files of Chronicle
+ * collections, for example after an unclean shutdown.
+ * <p>Verification reads every entry of a collection, and looks up each key read:
+ * the read checks that the entry's chunks decode, and the lookup checks that the hash
+ * lookup table leads back to the same entry, with an equal value; array values, such as
+ * {@code byte[]}, are compared by content. Entries are read in batches, and their
+ * lookups are performed in parallel on the common fork/join pool. An entry which fails
+ * either check, and any failure of the read itself (for example, a segment lock which
+ * cannot be acquired), counts as an inconsistency.</p>
+ * <p>Repair copies the consistent entries of an inconsistent collection into a new one,
+ * skipping past entries which cannot be read, and moves the inconsistent file aside, as
+ * a <em>quarantined</em> file, so that the new file can take its place. A salvage which
+ * skips any entry is <em>partial</em>: the repaired collection lacks entries of the
+ * original.</p>
+ * <p>Only runtime exceptions are treated as symptoms of corruption; errors, such as
+ * {@code OutOfMemoryError}, are propagated.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class ChronicleFileVerifier {
+
+    /**
+     * Number of consecutive failed reads after which salvage abandons a traversal, as
+     * the iterator is then presumed unable to advance.
+     */
+    static final int MAX_CONSECUTIVE_FAILURES = 1024;
+
+    private ChronicleFileVerifier() {
+    }
+
+    /**
+     * Verify the entries of the specified map.
+     *
+     * @param map map to verify
+     * @return verification report
+     */
+    public static <K, V> VerificationReport verify(final ChronicleMap<K, V> map) {
+        final LongAdder entries = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        boolean complete = true;
+        try {
+            ChronicleStreams.parallelStream(map).forEach(e -> {
+                entries.increment();
+                if (!consistent(map, e)) {
+                    failures.increment();
+                }
+            });
+        } catch (RuntimeException e) {
+            failures.increment();
+            complete = false;
+        }
+        return new VerificationReport(entries.sum(), failures.sum(), complete);
+    }
+
+    /**
+     * Verify the entries of the specified set.
+     *
+     * @param set set to verify
+     * @return verification report
+     */
+    public static <K> VerificationReport verify(final ChronicleSet<K> set) {
+        final LongAdder entries = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        boolean complete = true;
+        try {
+            ChronicleStreams.parallelStream(set).forEach(k -> {
+                entries.increment();
+                if (!consistent(set, k)) {
+                    failures.increment();
+                }
+            });
+        } catch (RuntimeException e) {
+            failures.increment();
+            complete = false;
+        }
+        return new VerificationReport(entries.sum(), failures.sum(), complete);
+    }
+
+    /**
+     * Copy the consistent entries of the specified map into another map. The map
+     * iterator advances before it reads an entry, so an entry which cannot be read is
+     * skipped, and copying resumes with the next; the traversal is abandoned only after
+     * {@value #MAX_CONSECUTIVE_FAILURES} consecutive failed reads.
+     *
+     * @param from map from which entries are salvaged
+     * @param to map into which entries are copied
+     * @return salvage report, of which the failures are the entries not copied
+     */
+    public static <K, V> VerificationReport salvage(ChronicleMap<K, V> from, Map<K, V> to) {
+        long read = 0L;
+        long failures = 0L;
+        int consecutiveFailures = 0;
+        Iterator<Map.Entry<K, V>> it;
+        try {
+            it = from.entrySet().iterator();
+        } catch (RuntimeException e) {
+            return new VerificationReport(0L, 1L, false);
+        }
+        while (it.hasNext()) {
+            Map.Entry<K, V> e;
+            try {
+                e = it.next();
+                consecutiveFailures = 0;
+            } catch (RuntimeException re) {
+                failures++;
+                if (MAX_CONSECUTIVE_FAILURES <= ++consecutiveFailures) {
+                    return new VerificationReport(read, failures, false);
+                }
+                continue;
+            }
+            read++;
+            if (consistent(from, e)) {
+                to.put(e.getKey(), e.getValue());
+            } else {
+                failures++;
+            }
+        }
+        return new VerificationReport(read, failures, true);
+    }
+
+    /**
+     * Copy the consistent keys of the specified set into another set. A key which cannot
+     * be read is skipped, as by {@link #salvage(ChronicleMap, Map)}.
+     *
+     * @param from set from which keys are salvaged
+     * @param to set into which keys are copied
+     * @return salvage report, of which the failures are the keys not copied
+     */
+    public static <K> VerificationReport salvage(ChronicleSet<K> from, Set<K> to) {
+        long read = 0L;
+        long failures = 0L;
+        int consecutiveFailures = 0;
+        Iterator<K> it;
+        try {
+            it = from.iterator();
+        } catch (RuntimeException e) {
+            return new VerificationReport(0L, 1L, false);
+        }
+        while (it.hasNext()) {
+            K k;
+            try {
+                k = it.next();
+                consecutiveFailures = 0;
+            } catch (RuntimeException re) {
+                failures++;
+                if (MAX_CONSECUTIVE_FAILURES <= ++consecutiveFailures) {
+                    return new VerificationReport(read, failures, false);
+                }
+                continue;
+            }
+            read++;
+            if (consistent(from, k)) {
+                to.add(k);
+            } else {
+                failures++;
+            }
+        }
+        return new VerificationReport(read, failures, true);
+    }
+
+    /**
+     * Get the file into which the entries of the specified file are salvaged, named
+     * after it with a {@code .salvage} suffix, in the same directory.
+     *
+     * @param file file to salvage
+     * @return salvage file
+     */
+    public static File salvageFileOf(File file) {
+        return new File(file.getPath() + ".salvage");
+    }
+
+    /**
+     * Quarantine the specified file, and move the specified salvage file into its place.
+     *
+     * @param file file to quarantine
+     * @param salvaged salvage file, closed
+     * @return quarantined file
+     * @throws IOException if either file cannot be moved
+     */
+    public static File replaceWithSalvage(File file, File salvaged) throws IOException {
+        File quarantined = quarantine(file);
+        Files.move(salvaged.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return quarantined;
+    }
+
+    /**
+     * Move the specified file aside, to a file named after it with a
+     * {@code .corrupt-<timestamp>} suffix, in the same directory.
+     *
+     * @param file file to quarantine
+     * @return quarantined file
+     * @throws IOException if the file cannot be moved
+     */
+    public static File quarantine(File file) throws IOException {
+        String timestamp = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+        File quarantined = new File(file.getPath() + ".corrupt-" + timestamp);
+        Files.move(file.toPath(), quarantined.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return quarantined;
+    }
+
+    private static <K, V> boolean consistent(ChronicleMap<K, V> map, Map.Entry<K, V> e) {
+        try {
+            return null != e.getKey() && Objects.deepEquals(map.get(e.getKey()), e.getValue());
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private static <K> boolean consistent(ChronicleSet<K> set, K k) {
+        try {
+            return null != k && set.contains(k);
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Result of verification, or salvage, of a collection.
+     */
+    public static final class VerificationReport {
+
+        private final long entries;
+        private final long failures;
+        private final boolean complete;
+
+        VerificationReport(long entries, long failures, boolean complete) {
+            this.entries = entries;
+            this.failures = failures;
+            this.complete = complete;
+        }
+
+        /**
+         * Get the number of entries read.
+         *
+         * @return entries read
+         */
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * Get the number of inconsistencies found.
+         *
+         * @return inconsistencies found
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Determine whether all entries could be read.
+         *
+         * @return {@code true} if verification read every entry, {@code false} if it was aborted
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Determine whether the collection is consistent. For a salvage, determine whether
+         * every entry read was copied.
+         *
+         * @return {@code true} if no inconsistency was found
+         */
+        public boolean isConsistent() {
+            return 0L == failures;
+        }
+
+        @Override
+        public String toString() {
+            return entries + " entries, " + failures + " inconsistencies" + (complete ? "" : " (aborted)");
+        }
+
+    }
+
+}
@@ -0,0 +1,245 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.hash.ChronicleHash;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.set.ChronicleSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ReflectionUtils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the memory usage of the Chronicle collections of a JVM, published as a
+ * single MXBean named {@code org.osframework.spring.chronicle:type=ChronicleMemoryRegistry}.
+ * Collections created by {@link AbstractChronicleBuilderBean} subclasses are registered
+ * under their bean names. Usage is computed on demand, each time it is read:
+ * <ul>
+ *     <li>entry count, and configured maximum entries</li>
+ *     <li>off-heap bytes allocated, read from the internal size accessor of the
+ *     collection implementation</li>
+ *     <li>size of the mapped file of a persisted collection</li>
+ *     <li>resident bytes of the mapped file, read from {@code /proc/self/smaps} on
+ *     Linux</li>
+ * </ul>
+ * <p>The registry holds weak references to the collections, so a collection which is
+ * never unregistered does not leak.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class ChronicleMemoryRegistry implements ChronicleMemoryRegistryMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChronicleMemoryRegistry.class);
+    private static final File SMAPS = new File("/proc/self/smaps");
+    private static final Pattern MAPPING_HEADER = Pattern.compile("[0-9a-f]+-[0-9a-f]+\\s");
+    private static final ChronicleMemoryRegistry INSTANCE = new ChronicleMemoryRegistry();
+
+    private final Map<String, Registration> registrations = new ConcurrentSkipListMap<>();
+
+    private ChronicleMemoryRegistry() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("org.osframework.spring.chronicle:type=ChronicleMemoryRegistry"));
+        } catch (JMException jme) {
+            LOGGER.warn("Chronicle memory registry could not be published via JMX: {}", jme.toString());
+        }
+    }
+
+    /**
+     * Get the registry of this JVM.
+     *
+     * @return memory registry
+     */
+    public static ChronicleMemoryRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register a collection under the specified name, replacing any collection already
+     * registered under it.
+     *
+     * @param name collection name
+     * @param collection Chronicle map or set
+     * @param maxEntries configured maximum entries of collection
+     */
+    public void register(String name, ChronicleHash collection, long maxEntries) {
+        if (null == name || null == collection) {
+            throw new IllegalArgumentException("Name and collection cannot be null");
+        }
+        registrations.put(name, new Registration(collection, maxEntries));
+    }
+
+    /**
+     * Unregister the collection registered under the specified name.
+     *
+     * @param name collection name
+     */
+    public void unregister(String name) {
+        registrations.remove(name);
+    }
+
+    /**
+     * Get the memory usage of the collection registered under the specified name.
+     *
+     * @param name collection name
+     * @return memory usage snapshot, or {@code null} if no live collection is registered under the name
+     */
+    public ChronicleMemoryUsage getUsage(String name) {
+        Registration r = registrations.get(name);
+        return (null != r) ? usage(name, r, residentBytesByPath()) : null;
+    }
+
+    @Override
+    public List<ChronicleMemoryUsage> getUsages() {
+        Map<String, Long> resident = residentBytesByPath();
+        List<ChronicleMemoryUsage> usages = new ArrayList<>(registrations.size());
+        for (Map.Entry<String, Registration> e : registrations.entrySet()) {
+            ChronicleMemoryUsage usage = usage(e.getKey(), e.getValue(), resident);
+            if (null == usage) {
+                registrations.remove(e.getKey(), e.getValue());
+            } else {
+                usages.add(usage);
+            }
+        }
+        return usages;
+    }
+
+    @Override
+    public long getTotalAllocatedBytes() {
+        long total = 0L;
+        for (ChronicleMemoryUsage usage : getUsages()) {
+            total += Math.max(0L, usage.getAllocatedBytes());
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalResidentBytes() {
+        long total = 0L;
+        for (ChronicleMemoryUsage usage : getUsages()) {
+            total += Math.max(0L, usage.getResidentBytes());
+        }
+        return total;
+    }
+
+    private static ChronicleMemoryUsage usage(String name, Registration r, Map<String, Long> resident) {
+        ChronicleHash collection = r.collection.get();
+        if (null == collection) {
+            return null;
+        }
+        long entryCount;
+        try {
+            entryCount = (collection instanceof ChronicleMap) ? ((ChronicleMap<?, ?>)collection).longSize()
+                         : (collection instanceof ChronicleSet) ? ((ChronicleSet<?>)collection).longSize()
+                         : -1L;
+        } catch (RuntimeException e) {
+            // Collection closed without being unregistered
+            return null;
+        }
+        File file = collection.file();
+        String path = null;
+        long mappedFileSize = -1L;
+        long residentBytes = -1L;
+        if (null != file) {
+            path = canonicalPath(file);
+            mappedFileSize = file.length();
+            if (null != resident) {
+                Long rss = resident.get(path);
+                residentBytes = (null != rss) ? rss : 0L;
+            }
+        }
+        return new ChronicleMemoryUsage(name, path, entryCount, r.maxEntries,
+                allocatedBytes(collection), mappedFileSize, residentBytes);
+    }
+
+    /**
+     * Read the internal allocation size of a collection: the {@code sizeInBytes} method
+     * of a map implementation, or of the map backing a set implementation.
+     */
+    private static long allocatedBytes(Object collection) {
+        try {
+            Method sizeInBytes = ReflectionUtils.findMethod(collection.getClass(), "sizeInBytes");
+            if (null != sizeInBytes) {
+                ReflectionUtils.makeAccessible(sizeInBytes);
+                return (Long)sizeInBytes.invoke(collection);
+            }
+            Field backingMap = ReflectionUtils.findField(collection.getClass(), "m", ChronicleMap.class);
+            if (null != backingMap) {
+                ReflectionUtils.makeAccessible(backingMap);
+                return allocatedBytes(backingMap.get(collection));
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Allocation size of {} unavailable: {}", collection.getClass().getName(), e.toString());
+        }
+        return -1L;
+    }
+
+    /**
+     * Sum the resident set sizes of all file mappings of this process, by path.
+     *
+     * @return resident bytes by canonical path, or {@code null} if not available
+     */
+    private static Map<String, Long> residentBytesByPath() {
+        if (!SMAPS.canRead()) {
+            return null;
+        }
+        Map<String, Long> resident = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(SMAPS))) {
+            String path = null;
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.startsWith("Rss:")) {
+                    if (null != path) {
+                        long kb = Long.parseLong(line.substring(4).trim().split("\\s+")[0]);
+                        resident.merge(path, kb << 10, Long::sum);
+                    }
+                } else if (MAPPING_HEADER.matcher(line).lookingAt()) {
+                    String[] fields = line.split("\\s+", 6);
+                    path = (6 == fields.length && fields[5].startsWith("/")) ? fields[5] : null;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.debug("Resident memory unavailable: {}", e.toString());
+            return null;
+        }
+        return Collections.unmodifiableMap(resident);
+    }
+
+    private static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException ioe) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private static final class Registration {
+
+        private final WeakReference<ChronicleHash> collection;
+        private final long maxEntries;
+
+        private Registration(ChronicleHash collection, long maxEntries) {
+            this.collection = new WeakReference<>(collection);
+            this.maxEntries = maxEntries;
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.osframework.spring.chronicle;
+
+import java.util.List;
+
+/**
+ * JMX management interface of {@link ChronicleMemoryRegistry}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public interface ChronicleMemoryRegistryMXBean {
+
+    /**
+     * Get the memory usage of each registered collection.
+     *
+     * @return memory usage snapshots, ordered by collection name
+     */
+    List<ChronicleMemoryUsage> getUsages();
+
+    /**
+     * Get the total off-heap bytes allocated to all registered collections.
+     *
+     * @return total allocated bytes
+     */
+    long getTotalAllocatedBytes();
+
+    /**
+     * Get the total resident bytes of the mapped files of all registered collections.
+     *
+     * @return total resident bytes
+     */
+    long getTotalResidentBytes();
+
+}
@@ -0,0 +1,113 @@
+package org.osframework.spring.chronicle;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the memory usage of one Chronicle collection, as reported by
+ * {@link ChronicleMemoryRegistry}. Sizes which cannot be determined are reported as
+ * {@code -1}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleMemoryUsage {
+
+    private final String name;
+    private final String file;
+    private final long entryCount;
+    private final long maxEntries;
+    private final long allocatedBytes;
+    private final long mappedFileSize;
+    private final long residentBytes;
+
+    @ConstructorProperties({ "name", "file", "entryCount", "maxEntries", "allocatedBytes", "mappedFileSize", "residentBytes" })
+    public ChronicleMemoryUsage(String name, String file, long entryCount, long maxEntries,
+                                long allocatedBytes, long mappedFileSize, long residentBytes) {
+        this.name = name;
+        this.file = file;
+        this.entryCount = entryCount;
+        this.maxEntries = maxEntries;
+        this.allocatedBytes = allocatedBytes;
+        this.mappedFileSize = mappedFileSize;
+        this.residentBytes = residentBytes;
+    }
+
+    /**
+     * Get the name under which the collection is registered.
+     *
+     * @return collection name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the path of the file to which the collection is persisted.
+     *
+     * @return persistence file path, or {@code null} if not persisted
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Get the number of entries in the collection.
+     *
+     * @return entry count
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Get the configured maximum number of entries of the collection.
+     *
+     * @return maximum entries
+     */
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Get the ratio of entry count to maximum entries.
+     *
+     * @return fill ratio, or {@code -1} if maximum entries is unknown
+     */
+    public double getFillRatio() {
+        return (0L < maxEntries) ? (double)entryCount / maxEntries : -1.0;
+    }
+
+    /**
+     * Get the number of off-heap bytes allocated to the collection.
+     *
+     * @return allocated bytes
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Get the size of the file to which the collection is persisted.
+     *
+     * @return mapped file size, or {@code -1} if not persisted
+     */
+    public long getMappedFileSize() {
+        return mappedFileSize;
+    }
+
+    /**
+     * Get the number of bytes of the mapped file of the collection resident in memory.
+     *
+     * @return resident bytes, or {@code -1} if not persisted or not reported by the platform
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[entries=" + entryCount + "/" + maxEntries + ", allocated=" + allocatedBytes
+                + ", mapped=" + mappedFileSize + ", resident=" + residentBytes + "]";
+    }
+
+}
@@ -0,0 +1,216 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.set.ChronicleSet;
+import net.openhft.lang.io.Bytes;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Static factory methods of {@code Spliterator} and {@code Stream} objects over the
+ * contents of Chronicle collections.
+ * <p>The spliterators created by this class split by <em>segment</em>: each split covers
+ * a range of whole segments of the collection, and reads, deserializes and processes
+ * their entries independently of the rest of the collection, so a parallel stream runs
+ * on as many threads as the collection has segments. A <em>key filter</em> may be
+ * applied to the serialized bytes of each key, before it is deserialized: only the
+ * entries whose keys it accepts are deserialized and streamed. The filter receives the
+ * bytes of the key between their position and limit, is called concurrently under the
+ * read lock of a segment, and must not access the collection.</p>
+ * <p>Segments are read from the implementation of a plain map or set created by
+ * Chronicle Map 2.x, including the wrapped collections of the builder beans of this
+ * library. Other collections, such as replicated or read-only maps, are streamed by a
+ * spliterator over their iterator, which splits by batch, and cannot be key filtered.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class ChronicleStreams {
+
+    private static final int CHARACTERISTICS = Spliterator.CONCURRENT | Spliterator.DISTINCT | Spliterator.NONNULL;
+
+    private ChronicleStreams() {
+    }
+
+    /**
+     * Create a spliterator over the entries of the specified map.
+     *
+     * @param map map to be traversed
+     * @param <K> Key class of map
+     * @param <V> Value class of map
+     * @return segment-splitting spliterator over the map entries
+     */
+    public static <K, V> Spliterator<Map.Entry<K, V>> spliterator(ChronicleMap<K, V> map) {
+        return spliterator(map, null);
+    }
+
+    /**
+     * Create a spliterator over the entries of the specified map whose serialized keys
+     * are accepted by the specified filter.
+     *
+     * @param map map to be traversed
+     * @param keyFilter filter of serialized keys, or {@code null} to accept all keys
+     * @param <K> Key class of map
+     * @param <V> Value class of map
+     * @return segment-splitting spliterator over the map entries
+     * @throws IllegalArgumentException if a key filter is specified, and the segments of
+     *                                  the map cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Spliterator<Map.Entry<K, V>> spliterator(ChronicleMap<K, V> map,
+                                                                  Predicate<? super Bytes> keyFilter) {
+        Spliterator<Map.Entry<K, V>> spliterator = SegmentSpliterator.of(map, map.longSize(), keyFilter,
+                e -> (Map.Entry<K, V>)e);
+        return (null != spliterator) ? spliterator : iteratorSpliterator(map.entrySet().iterator(),
+                map.longSize(), keyFilter);
+    }
+
+    /**
+     * Create a spliterator over the elements of the specified set.
+     *
+     * @param set set to be traversed
+     * @param <K> Key class of set
+     * @return segment-splitting spliterator over the set elements
+     */
+    public static <K> Spliterator<K> spliterator(ChronicleSet<K> set) {
+        return spliterator(set, null);
+    }
+
+    /**
+     * Create a spliterator over the elements of the specified set whose serialized forms
+     * are accepted by the specified filter.
+     *
+     * @param set set to be traversed
+     * @param keyFilter filter of serialized elements, or {@code null} to accept all
+     *                  elements
+     * @param <K> Key class of set
+     * @return segment-splitting spliterator over the set elements
+     * @throws IllegalArgumentException if a key filter is specified, and the segments of
+     *                                  the set cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> Spliterator<K> spliterator(ChronicleSet<K> set, Predicate<? super Bytes> keyFilter) {
+        Spliterator<K> spliterator = SegmentSpliterator.of(set, set.longSize(), keyFilter, e -> (K)e.getKey());
+        return (null != spliterator) ? spliterator : iteratorSpliterator(set.iterator(), set.longSize(), keyFilter);
+    }
+
+    /**
+     * Create a sequential stream of the entries of the specified map.
+     *
+     * @param map map to be streamed
+     * @param <K> Key class of map
+     * @param <V> Value class of map
+     * @return sequential stream of map entries
+     */
+    public static <K, V> Stream<Map.Entry<K, V>> stream(ChronicleMap<K, V> map) {
+        return StreamSupport.stream(spliterator(map), false);
+    }
+
+    /**
+     * Create a sequential stream of the entries of the specified map whose serialized
+     * keys are accepted by the specified filter.
+     *
+     * @param map map to be streamed
+     * @param keyFilter filter of serialized keys
+     * @param <K> Key class of map
+     * @param <V> Value class of map
+     * @return sequential stream of map entries
+     * @throws IllegalArgumentException if the segments of the map cannot be read
+     */
+    public static <K, V> Stream<Map.Entry<K, V>> stream(ChronicleMap<K, V> map, Predicate<? super Bytes> keyFilter) {
+        return StreamSupport.stream(spliterator(map, keyFilter), false);
+    }
+
+    /**
+     * Create a parallel stream of the entries of the specified map.
+     *
+     * @param map map to be streamed
+     * @param <K> Key class of map
+     * @param <V> Value class of map
+     * @return parallel stream of map entries
+     */
+    public static <K, V> Stream<Map.Entry<K, V>> parallelStream(ChronicleMap<K, V> map) {
+        return StreamSupport.stream(spliterator(map), true);
+    }
+
+    /**
+     * Create a parallel stream of the entries of the specified map whose serialized keys
+     * are accepted by the specified filter.
+     *
+     * @param map map to be streamed
+     * @param keyFilter filter of serialized keys
+     * @param <K> Key class of map
+     * @param <V> Value class of map
+     * @return parallel stream of map entries
+     * @throws IllegalArgumentException if the segments of the map cannot be read
+     */
+    public static <K, V> Stream<Map.Entry<K, V>> parallelStream(ChronicleMap<K, V> map,
+                                                              Predicate<? super Bytes> keyFilter) {
+        return StreamSupport.stream(spliterator(map, keyFilter), true);
+    }
+
+    /**
+     * Create a sequential stream of the elements of the specified set.
+     *
+     * @param set set to be streamed
+     * @param <K> Key class of set
+     * @return sequential stream of set elements
+     */
+    public static <K> Stream<K> stream(ChronicleSet<K> set) {
+        return StreamSupport.stream(spliterator(set), false);
+    }
+
+    /**
+     * Create a sequential stream of the elements of the specified set whose serialized
+     * forms are accepted by the specified filter.
+     *
+     * @param set set to be streamed
+     * @param keyFilter filter of serialized elements
+     * @param <K> Key class of set
+     * @return sequential stream of set elements
+     * @throws IllegalArgumentException if the segments of the set cannot be read
+     */
+    public static <K> Stream<K> stream(ChronicleSet<K> set, Predicate<? super Bytes> keyFilter) {
+        return StreamSupport.stream(spliterator(set, keyFilter), false);
+    }
+
+    /**
+     * Create a parallel stream of the elements of the specified set.
+     *
+     * @param set set to be streamed
+     * @param <K> Key class of set
+     * @return parallel stream of set elements
+     */
+    public static <K> Stream<K> parallelStream(ChronicleSet<K> set) {
+        return StreamSupport.stream(spliterator(set), true);
+    }
+
+    /**
+     * Create a parallel stream of the elements of the specified set whose serialized
+     * forms are accepted by the specified filter.
+     *
+     * @param set set to be streamed
+     * @param keyFilter filter of serialized elements
+     * @param <K> Key class of set
+     * @return parallel stream of set elements
+     * @throws IllegalArgumentException if the segments of the set cannot be read
+     */
+    public static <K> Stream<K> parallelStream(ChronicleSet<K> set, Predicate<? super Bytes> keyFilter) {
+        return StreamSupport.stream(spliterator(set, keyFilter), true);
+    }
+
+    private static <T> Spliterator<T> iteratorSpliterator(Iterator<? extends T> iterator, long size,
+                                                          Predicate<? super Bytes> keyFilter) {
+        if (null != keyFilter) {
+            throw new IllegalArgumentException("Serialized keys of collection cannot be read");
+        }
+        return Spliterators.spliterator(iterator, size, CHARACTERISTICS);
+    }
+
+}
@@ -0,0 +1,183 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.affinity.AffinitySupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code ThreadFactory} of the background threads of Chronicle beans. Threads are named
+ * with a configured prefix and a sequence number, and created with configured daemon
+ * status and priority.
+ * <p>If a CPU list is set, each new thread pins itself, on start, to the next CPU of the
+ * list in round-robin order. Pinning is only attempted on Linux; if it is unavailable or
+ * fails, the thread logs a warning and runs unpinned. The CPU each running thread landed
+ * on is available from {@link #getThreadCpus()}.</p>
+ * <h2>CPU list expression</h2>
+ * <p>A CPU list is a comma-separated list of CPU numbers and inclusive ranges, as used
+ * by {@code taskset} and {@code isolcpus}. Example: {@code 2,4-7}.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleThreadFactory implements ThreadFactory {
+
+    private static final boolean LINUX = System.getProperty("os.name", "").toLowerCase().startsWith("linux");
+
+    private final Logger slf4jLogger;
+    private final String namePrefix;
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private final Map<String, Integer> threadCpus = new ConcurrentHashMap<>();
+
+    private boolean daemon = true;
+    private int priority = Thread.NORM_PRIORITY;
+    private int[] cpus = null;
+
+    /**
+     * Create a new factory of threads named with the specified prefix.
+     *
+     * @param namePrefix thread name prefix
+     */
+    public ChronicleThreadFactory(String namePrefix) {
+        if (null == namePrefix || namePrefix.isEmpty()) {
+            throw new IllegalArgumentException("Argument 'namePrefix' cannot be null or empty");
+        }
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+        this.namePrefix = namePrefix;
+    }
+
+    /**
+     * Set daemon status of created threads. Defaults to {@code true}.
+     *
+     * @param daemon flag indicating whether created threads are daemon threads
+     */
+    public void setDaemon(boolean daemon) {
+        this.daemon = daemon;
+    }
+
+    /**
+     * Set priority of created threads. Defaults to {@link Thread#NORM_PRIORITY}.
+     *
+     * @param priority thread priority
+     */
+    public void setPriority(int priority) {
+        if (Thread.MIN_PRIORITY > priority || Thread.MAX_PRIORITY < priority) {
+            throw new IllegalArgumentException("Thread priority out of range: " + priority);
+        }
+        this.priority = priority;
+    }
+
+    /**
+     * Set CPUs to which created threads are pinned, in round-robin order.
+     *
+     * @param cpus CPU numbers
+     */
+    public void setCpus(int... cpus) {
+        for (int cpu : cpus) {
+            if (0 > cpu || Long.SIZE <= cpu) {
+                throw new IllegalArgumentException("CPU number out of range: " + cpu);
+            }
+        }
+        this.cpus = (0 < cpus.length) ? cpus.clone() : null;
+    }
+
+    /**
+     * Set CPUs to which created threads are pinned, in round-robin order.
+     * <p>This method parses the specified CPU list expression and then delegates to
+     * {@link #setCpus(int...)}.</p>
+     *
+     * @param cpuList CPU list expression
+     * @throws IllegalArgumentException if expression cannot be parsed
+     */
+    public void setCpuList(String cpuList) {
+        if (null == cpuList) {
+            throw new IllegalArgumentException("Argument 'cpuList' cannot be null");
+        }
+        List<Integer> parsed = new ArrayList<>();
+        try {
+            for (String token : cpuList.split(",")) {
+                token = token.trim();
+                if (token.isEmpty()) {
+                    continue;
+                }
+                int dash = token.indexOf('-');
+                int from = Integer.parseInt((-1 == dash) ? token : token.substring(0, dash).trim());
+                int to = (-1 == dash) ? from : Integer.parseInt(token.substring(dash + 1).trim());
+                if (from > to) {
+                    throw new IllegalArgumentException("Invalid CPU range: " + token);
+                }
+                for (int cpu = from; cpu <= to; cpu++) {
+                    parsed.add(cpu);
+                }
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid CPU list: " + cpuList, nfe);
+        }
+        int[] array = new int[parsed.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = parsed.get(i);
+        }
+        setCpus(array);
+    }
+
+    /**
+     * Get the CPU on which each running thread created by this factory landed, as
+     * reported on its start: the CPU it is pinned to, or the CPU it happened to start on
+     * if unpinned. A CPU of {@code -1} denotes a platform which cannot report it.
+     *
+     * @return unmodifiable map of thread names to CPU numbers
+     */
+    public Map<String, Integer> getThreadCpus() {
+        return Collections.unmodifiableMap(new TreeMap<>(threadCpus));
+    }
+
+    @Override
+    public Thread newThread(final Runnable r) {
+        final int n = threadNumber.getAndIncrement();
+        final String name = namePrefix + "-" + n;
+        final int cpu = (null != cpus) ? cpus[n % cpus.length] : -1;
+        Thread t = new Thread(() -> {
+            threadCpus.put(name, bind(cpu));
+            try {
+                r.run();
+            } finally {
+                threadCpus.remove(name);
+            }
+        }, name);
+        t.setDaemon(daemon);
+        t.setPriority(priority);
+        return t;
+    }
+
+    private int bind(int cpu) {
+        if (-1 != cpu) {
+            if (!LINUX) {
+                slf4jLogger.warn("CPU pinning is only supported on Linux; thread {} runs unpinned",
+                        Thread.currentThread().getName());
+            } else {
+                try {
+                    AffinitySupport.setAffinity(1L << cpu);
+                    slf4jLogger.debug("Thread {} pinned to CPU {}", Thread.currentThread().getName(), cpu);
+                    return cpu;
+                } catch (RuntimeException | LinkageError e) {
+                    slf4jLogger.warn("Thread {} could not be pinned to CPU {}; running unpinned: {}",
+                            Thread.currentThread().getName(), cpu, e.toString());
+                }
+            }
+        }
+        try {
+            return AffinitySupport.getCpu();
+        } catch (RuntimeException | LinkageError e) {
+            return -1;
+        }
+    }
+
+}
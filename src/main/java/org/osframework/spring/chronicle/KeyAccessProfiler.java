@@ -0,0 +1,337 @@
+package org.osframework.spring.chronicle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sampling profiler of the key accesses of a Chronicle collection. One access in every
+ * {@code sampleInterval} is sampled, and recorded in:
+ * <ul>
+ *     <li>a count-min sketch of key access frequency, from which the top-K keys are kept</li>
+ *     <li>per-stripe access counts, and counts of operations slower than a threshold</li>
+ * </ul>
+ * <p>Keys are assigned to stripes by a spread of their hash codes; with the number of
+ * stripes set to the number of segments of the collection, stripe skew approximates
+ * segment skew. A warning is logged, at most once a minute, when the busiest stripe, or
+ * a single key, takes a disproportionate share of the accesses.</p>
+ * <p>The profiler may be published as an MBean, through which its counts are read.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class KeyAccessProfiler implements KeyAccessProfilerMBean {
+
+    /**
+     * Value returned by {@link #start()} for an access which is not sampled.
+     */
+    public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    /**
+     * Default number of accesses per sampled access.
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+
+    /**
+     * Default number of top keys kept.
+     */
+    public static final int DEFAULT_TOP_KEYS = 16;
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1 << 14;
+    private static final int SKEW_CHECK_INTERVAL = 1 << 16;
+    private static final double HOT_KEY_SHARE = 0.1;
+    private static final long WARNING_INTERVAL = TimeUnit.MINUTES.toNanos(1L);
+
+    private final Logger slf4jLogger;
+    private final int stripes;
+    private final int sampleInterval;
+    private final int topKeys;
+
+    private final AtomicLongArray sketch = new AtomicLongArray(DEPTH * WIDTH);
+    private final AtomicLongArray stripeAccesses;
+    private final AtomicLongArray stripeSlowOperations;
+    private final AtomicLong sampledAccesses = new AtomicLong();
+    private final Map<String, Long> top = new HashMap<>();
+    private volatile long topThreshold = 0L;
+
+    private long slowOperationNanos = TimeUnit.MICROSECONDS.toNanos(10L);
+    private double skewThreshold = 4.0;
+    private volatile long lastWarning = System.nanoTime() - WARNING_INTERVAL;
+    private ObjectName objectName = null;
+
+    /**
+     * Create a new profiler.
+     *
+     * @param stripes number of stripes into which keys are grouped
+     * @param sampleInterval number of accesses per sampled access
+     * @param topKeys number of top keys kept
+     */
+    public KeyAccessProfiler(int stripes, int sampleInterval, int topKeys) {
+        if (0 >= stripes || 0 >= sampleInterval || 0 >= topKeys) {
+            throw new IllegalArgumentException("Stripes, sample interval and top keys must be positive numbers");
+        }
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+        this.stripes = stripes;
+        this.sampleInterval = sampleInterval;
+        this.topKeys = topKeys;
+        this.stripeAccesses = new AtomicLongArray(stripes);
+        this.stripeSlowOperations = new AtomicLongArray(stripes);
+    }
+
+    /**
+     * Set the duration in nanoseconds above which a sampled operation is counted as slow.
+     * Defaults to 10 microseconds.
+     *
+     * @param slowOperationNanos slow operation threshold in nanoseconds
+     */
+    public void setSlowOperationNanos(long slowOperationNanos) {
+        this.slowOperationNanos = slowOperationNanos;
+    }
+
+    /**
+     * Set the stripe skew above which a warning is logged. Defaults to 4.
+     *
+     * @param skewThreshold stripe skew warning threshold
+     * @see #getStripeSkew()
+     */
+    public void setSkewThreshold(double skewThreshold) {
+        this.skewThreshold = skewThreshold;
+    }
+
+    /**
+     * Start a key access, deciding whether it is sampled.
+     *
+     * @return start time of a sampled access, or {@link #NOT_SAMPLED}
+     */
+    public long start() {
+        return (1 == sampleInterval || 0 == ThreadLocalRandom.current().nextInt(sampleInterval))
+               ? System.nanoTime()
+               : NOT_SAMPLED;
+    }
+
+    /**
+     * End an access of the specified key, recording it if sampled.
+     *
+     * @param key accessed key
+     * @param start value returned by {@link #start()} at the start of the access
+     */
+    public void end(Object key, long start) {
+        if (NOT_SAMPLED == start || null == key) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        int h = spread(key.hashCode());
+        int stripe = (h & Integer.MAX_VALUE) % stripes;
+        stripeAccesses.incrementAndGet(stripe);
+        if (elapsed > slowOperationNanos) {
+            stripeSlowOperations.incrementAndGet(stripe);
+        }
+        long estimate = Long.MAX_VALUE;
+        int h2 = spread(h);
+        for (int i = 0; i < DEPTH; i++) {
+            int slot = i * WIDTH + ((h + i * h2) & (WIDTH - 1));
+            estimate = Math.min(estimate, sketch.incrementAndGet(slot));
+        }
+        if (estimate > topThreshold) {
+            offer(String.valueOf(key), estimate);
+        }
+        if (0L == sampledAccesses.incrementAndGet() % SKEW_CHECK_INTERVAL) {
+            checkSkew();
+        }
+    }
+
+    /**
+     * Register this profiler with the platform MBean server, under the specified name.
+     *
+     * @param name name of the profiled collection
+     */
+    public synchronized void register(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName("org.osframework.spring.chronicle:type=KeyAccessProfiler,name="
+                    + ObjectName.quote(name));
+            server.registerMBean(this, on);
+            objectName = on;
+        } catch (JMException jme) {
+            slf4jLogger.warn("Key access profiler of '{}' could not be registered: {}", name, jme.toString());
+        }
+    }
+
+    /**
+     * Unregister this profiler from the platform MBean server, if registered.
+     */
+    public synchronized void unregister() {
+        if (null == objectName) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException jme) {
+            slf4jLogger.warn("Key access profiler {} could not be unregistered: {}", objectName, jme.toString());
+        }
+        objectName = null;
+    }
+
+    /**
+     * Get the name under which this profiler is registered.
+     *
+     * @return MBean name, or {@code null} if not registered
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public long getSampledAccesses() {
+        return sampledAccesses.get();
+    }
+
+    @Override
+    public String[] getTopKeys() {
+        List<Map.Entry<String, Long>> entries;
+        synchronized (top) {
+            entries = new ArrayList<>(top.entrySet());
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        String[] result = new String[entries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = entries.get(i).getKey() + "=" + entries.get(i).getValue();
+        }
+        return result;
+    }
+
+    @Override
+    public String[] getTopStripes() {
+        long[] counts = getStripeAccessCounts();
+        List<Integer> order = new ArrayList<>(stripes);
+        for (int s = 0; s < stripes; s++) {
+            if (0L < counts[s]) {
+                order.add(s);
+            }
+        }
+        order.sort((a, b) -> Long.compare(counts[b], counts[a]));
+        int n = Math.min(topKeys, order.size());
+        String[] result = new String[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = order.get(i) + "=" + counts[order.get(i)];
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getStripeAccessCounts() {
+        return toArray(stripeAccesses);
+    }
+
+    @Override
+    public long[] getStripeSlowOperationCounts() {
+        return toArray(stripeSlowOperations);
+    }
+
+    @Override
+    public double getStripeSkew() {
+        long[] counts = getStripeAccessCounts();
+        long max = 0L;
+        long total = 0L;
+        for (long c : counts) {
+            max = Math.max(max, c);
+            total += c;
+        }
+        return (0L == total) ? 0.0 : (double)max * stripes / total;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < sketch.length(); i++) {
+            sketch.set(i, 0L);
+        }
+        for (int s = 0; s < stripes; s++) {
+            stripeAccesses.set(s, 0L);
+            stripeSlowOperations.set(s, 0L);
+        }
+        synchronized (top) {
+            top.clear();
+            topThreshold = 0L;
+        }
+        sampledAccesses.set(0L);
+    }
+
+    private void offer(String key, long estimate) {
+        synchronized (top) {
+            if (top.containsKey(key) || top.size() < topKeys) {
+                top.put(key, estimate);
+            } else {
+                String minKey = null;
+                long min = Long.MAX_VALUE;
+                for (Map.Entry<String, Long> e : top.entrySet()) {
+                    if (e.getValue() < min) {
+                        min = e.getValue();
+                        minKey = e.getKey();
+                    }
+                }
+                if (estimate > min) {
+                    top.remove(minKey);
+                    top.put(key, estimate);
+                }
+            }
+            if (top.size() >= topKeys) {
+                long min = Long.MAX_VALUE;
+                for (long v : top.values()) {
+                    min = Math.min(min, v);
+                }
+                topThreshold = min;
+            }
+        }
+    }
+
+    private void checkSkew() {
+        long now = System.nanoTime();
+        if (now - lastWarning < WARNING_INTERVAL) {
+            return;
+        }
+        double skew = getStripeSkew();
+        if (skew > skewThreshold) {
+            lastWarning = now;
+            slf4jLogger.warn("Key access skew {}: busiest stripes {}; consider more actualSegments or a better-spread key design",
+                    String.format("%.1f", skew), String.join(", ", getTopStripes()));
+        }
+        String[] keys = getTopKeys();
+        if (0 < keys.length) {
+            long count = Long.parseLong(keys[0].substring(keys[0].lastIndexOf('=') + 1));
+            if (count > HOT_KEY_SHARE * sampledAccesses.get()) {
+                lastWarning = now;
+                slf4jLogger.warn("Hot key {} takes over {}% of sampled accesses; consider splitting or caching it",
+                        keys[0], (int)(HOT_KEY_SHARE * 100));
+            }
+        }
+    }
+
+    private static int spread(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+
+    private static long[] toArray(AtomicLongArray array) {
+        long[] result = new long[array.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = array.get(i);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.osframework.spring.chronicle;
+
+/**
+ * JMX management interface of {@link KeyAccessProfiler}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public interface KeyAccessProfilerMBean {
+
+    /**
+     * Get the number of key accesses sampled since the last reset.
+     *
+     * @return sampled access count
+     */
+    long getSampledAccesses();
+
+    /**
+     * Get the most frequently accessed keys, in descending order of estimated sampled
+     * access count, formatted as {@code key=count}.
+     *
+     * @return top keys
+     */
+    String[] getTopKeys();
+
+    /**
+     * Get the most frequently accessed stripes, in descending order of sampled access
+     * count, formatted as {@code stripe=count}.
+     *
+     * @return top stripes
+     */
+    String[] getTopStripes();
+
+    /**
+     * Get the sampled access count of each stripe.
+     *
+     * @return access counts, indexed by stripe
+     */
+    long[] getStripeAccessCounts();
+
+    /**
+     * Get the count of sampled operations of each stripe slower than the slow operation
+     * threshold; a proxy for lock contention in the stripe.
+     *
+     * @return slow operation counts, indexed by stripe
+     */
+    long[] getStripeSlowOperationCounts();
+
+    /**
+     * Get the ratio of the access count of the busiest stripe to the mean access count
+     * of all stripes.
+     *
+     * @return stripe skew, or {@code 0} if nothing is sampled
+     */
+    double getStripeSkew();
+
+    /**
+     * Discard all counts.
+     */
+    void reset();
+
+}
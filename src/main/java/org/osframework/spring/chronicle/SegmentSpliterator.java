@@ -0,0 +1,285 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.hash.serialization.SizeMarshaller;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.set.ChronicleSet;
+import net.openhft.lang.collection.DirectBitSet;
+import net.openhft.lang.io.Bytes;
+import net.openhft.lang.io.MultiStoreBytes;
+import net.openhft.lang.threadlocal.ThreadLocalCopies;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Spliterator over a range of whole segments of a {@code ChronicleMap}, which splits by
+ * halving its range of segments. Entries are read as the iterators of Chronicle Map 2.x
+ * read them: each entry is read under the read lock of its segment, which is released
+ * before the entry is passed to the action, so actions may update the map. An optional
+ * filter is applied to the serialized bytes of each key, under the same lock, and only
+ * the entries it accepts are deserialized.
+ * <p>Chronicle Map 2.x keeps its segments package private, so they are driven through
+ * method handles resolved once from its implementation classes. Only plain maps are
+ * supported: replicated maps keep deleted entries in their segments, and are not.</p>
+ * <p>This class is package private; it is intended only for use by
+ * {@link ChronicleStreams}.</p>
+ *
+ * @param <T> Type of element
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class SegmentSpliterator<T> implements Spliterator<T> {
+
+    private static final String MAP_PACKAGE = "net.openhft.chronicle.map.";
+
+    private static final String[] DELEGATE_FIELDS = { "m", "map", "set" };
+
+    private static final int CHARACTERISTICS = Spliterator.CONCURRENT | Spliterator.DISTINCT | Spliterator.NONNULL;
+
+    private static final Class<?> MAP_CLASS;
+    private static final MethodHandle SEGMENTS;
+    private static final MethodHandle KEY_SIZE_MARSHALLER;
+    private static final MethodHandle HASH_LOOKUP;
+    private static final MethodHandle POSITIONS;
+    private static final MethodHandle READ_LOCK;
+    private static final MethodHandle READ_UNLOCK;
+    private static final MethodHandle GET_ENTRY;
+    private static final MethodHandle OFFSET_FROM_POS;
+    private static final MethodHandle REUSE;
+    private static final MethodHandle STATE_COPIES;
+    private static final MethodHandle STATE_GET;
+    private static final MethodHandle STATE_CLOSE;
+
+    static {
+        Class<?> mapClass = null;
+        MethodHandle[] handles = new MethodHandle[12];
+        try {
+            mapClass = Class.forName(MAP_PACKAGE + "VanillaChronicleMap");
+            Class<?> segmentClass = Class.forName(MAP_PACKAGE + "VanillaChronicleMap$Segment");
+            Class<?> stateClass = Class.forName(MAP_PACKAGE + "VanillaChronicleMap$SegmentState");
+            Class<?> multiMapClass = Class.forName(MAP_PACKAGE + "MultiMap");
+            handles[0] = getter(mapClass, "segments");
+            handles[1] = getter(mapClass, "keySizeMarshaller");
+            handles[2] = method(segmentClass, "hashLookup");
+            handles[3] = method(multiMapClass, "getPositions");
+            handles[4] = method(segmentClass, "readLock", stateClass)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            handles[5] = method(segmentClass, "readUnlock");
+            handles[6] = method(segmentClass, "getEntry", stateClass, long.class);
+            handles[7] = method(segmentClass, "offsetFromPos", long.class);
+            handles[8] = method(segmentClass, "reuse", MultiStoreBytes.class, long.class)
+                    .asType(MethodType.methodType(void.class, Object.class, MultiStoreBytes.class, long.class));
+            handles[9] = method(stateClass, "getCopies", ThreadLocalCopies.class);
+            handles[10] = method(stateClass, "get", ThreadLocalCopies.class);
+            handles[11] = method(stateClass, "close");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            mapClass = null;
+        }
+        MAP_CLASS = mapClass;
+        SEGMENTS = handles[0];
+        KEY_SIZE_MARSHALLER = handles[1];
+        HASH_LOOKUP = handles[2];
+        POSITIONS = handles[3];
+        READ_LOCK = handles[4];
+        READ_UNLOCK = handles[5];
+        GET_ENTRY = handles[6];
+        OFFSET_FROM_POS = handles[7];
+        REUSE = handles[8];
+        STATE_COPIES = handles[9];
+        STATE_GET = handles[10];
+        STATE_CLOSE = handles[11];
+    }
+
+    private final Object[] segments;
+    private final SizeMarshaller keySizeMarshaller;
+    private final Predicate<? super Bytes> keyFilter;
+    private final Function<Map.Entry<?, ?>, T> element;
+    private final MultiStoreBytes keyBytes;
+    private final long entriesPerSegment;
+    private int segment;
+    private int end;
+    private long position = 0L;
+
+    private SegmentSpliterator(Object[] segments, SizeMarshaller keySizeMarshaller, Predicate<? super Bytes> keyFilter,
+                               Function<Map.Entry<?, ?>, T> element, long entriesPerSegment, int segment, int end) {
+        this.segments = segments;
+        this.keySizeMarshaller = keySizeMarshaller;
+        this.keyFilter = keyFilter;
+        this.element = element;
+        this.keyBytes = (null != keyFilter) ? new MultiStoreBytes() : null;
+        this.entriesPerSegment = entriesPerSegment;
+        this.segment = segment;
+        this.end = end;
+    }
+
+    /**
+     * Create a spliterator over all segments of the specified map or set.
+     *
+     * @param collection {@code ChronicleMap} or {@code ChronicleSet} to be traversed
+     * @param size number of entries of the collection
+     * @param keyFilter filter of serialized keys, or {@code null} to accept all keys
+     * @param element function of each entry to the element to be traversed
+     * @param <T> Type of element
+     * @return segment spliterator, or {@code null} if the segments of the map cannot
+     *         be read
+     */
+    static <T> SegmentSpliterator<T> of(Object collection, long size, Predicate<? super Bytes> keyFilter,
+                                        Function<Map.Entry<?, ?>, T> element) {
+        Object implementation = implementation(collection);
+        if (null == implementation) {
+            return null;
+        }
+        try {
+            Object[] segments = (Object[])SEGMENTS.invokeExact(implementation);
+            SizeMarshaller keySizeMarshaller = (SizeMarshaller)KEY_SIZE_MARSHALLER.invokeExact(implementation);
+            long entriesPerSegment = (size + segments.length - 1) / Math.max(1, segments.length);
+            return new SegmentSpliterator<>(segments, keySizeMarshaller, keyFilter, element, entriesPerSegment,
+                    0, segments.length);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (segment < end) {
+            Map.Entry<?, ?> entry = next(segments[segment]);
+            if (null != entry) {
+                action.accept(element.apply(entry));
+                return true;
+            }
+            segment++;
+            position = 0L;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (2 > end - segment) {
+            return null;
+        }
+        int middle = (segment + end) >>> 1;
+        SegmentSpliterator<T> split = new SegmentSpliterator<>(segments, keySizeMarshaller, keyFilter, element,
+                entriesPerSegment, middle, end);
+        end = middle;
+        return split;
+    }
+
+    @Override
+    public long estimateSize() {
+        return (end - segment) * entriesPerSegment;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    /**
+     * Read the next entry of the specified segment accepted by the key filter, at or
+     * after the current position, under the read lock of the segment.
+     */
+    private Map.Entry<?, ?> next(Object segment) {
+        try {
+            ThreadLocalCopies copies = (ThreadLocalCopies)STATE_COPIES.invokeExact((ThreadLocalCopies)null);
+            Object state = STATE_GET.invokeExact(copies);
+            READ_LOCK.invokeExact(segment, state);
+            try {
+                DirectBitSet positions = (DirectBitSet)POSITIONS.invokeExact(HASH_LOOKUP.invokeExact(segment));
+                long pos;
+                while (DirectBitSet.NOT_FOUND != (pos = positions.nextSetBit(position))) {
+                    position = pos + 1L;
+                    if (null == keyFilter || acceptKey(segment, pos)) {
+                        return (Map.Entry<?, ?>)GET_ENTRY.invokeExact(segment, state, pos);
+                    }
+                }
+                return null;
+            } finally {
+                STATE_CLOSE.invokeExact(state);
+                READ_UNLOCK.invokeExact(segment);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Segment of map cannot be read", t);
+        }
+    }
+
+    private boolean acceptKey(Object segment, long pos) throws Throwable {
+        long offset = (long)OFFSET_FROM_POS.invokeExact(segment, pos);
+        REUSE.invokeExact(segment, keyBytes, offset);
+        long keySize = keySizeMarshaller.readSize(keyBytes);
+        keyBytes.limit(keyBytes.position() + keySize);
+        return keyFilter.test(keyBytes);
+    }
+
+    /**
+     * Find the plain map implementation behind the specified collection: the collection
+     * itself, the map backing a set, or the delegate of a wrapper of this library.
+     */
+    private static Object implementation(Object collection) {
+        if (null == MAP_CLASS) {
+            return null;
+        }
+        Object target = collection;
+        for (int depth = 0; null != target && 4 > depth; depth++) {
+            if (MAP_CLASS == target.getClass()) {
+                return target;
+            }
+            target = delegate(target);
+        }
+        return null;
+    }
+
+    private static Object delegate(Object wrapper) {
+        for (String name : DELEGATE_FIELDS) {
+            Field field = ReflectionUtils.findField(wrapper.getClass(), name);
+            if (null != field && (ChronicleMap.class == field.getType() || ChronicleSet.class == field.getType())) {
+                ReflectionUtils.makeAccessible(field);
+                return ReflectionUtils.getField(field, wrapper);
+            }
+        }
+        return null;
+    }
+
+    private static MethodHandle getter(Class<?> type, String name) throws ReflectiveOperationException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+        return handle.asType(MethodType.methodType(field.getType().isArray() ? Object[].class : field.getType(),
+                Object.class));
+    }
+
+    private static MethodHandle method(Class<?> type, String name, Class<?>... parameterTypes)
+            throws ReflectiveOperationException {
+        Method method = type.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        MethodType generic = handle.type().generic();
+        for (int i = 0; i < handle.type().parameterCount(); i++) {
+            Class<?> parameter = handle.type().parameterType(i);
+            if (parameter.isPrimitive() || ThreadLocalCopies.class == parameter
+                    || MultiStoreBytes.class == parameter) {
+                generic = generic.changeParameterType(i, parameter);
+            }
+        }
+        Class<?> returnType = handle.type().returnType();
+        if (returnType.isPrimitive() || ThreadLocalCopies.class == returnType || Map.Entry.class == returnType
+                || DirectBitSet.class == returnType) {
+            generic = generic.changeReturnType(returnType);
+        }
+        return handle.asType(generic);
+    }
+
+}
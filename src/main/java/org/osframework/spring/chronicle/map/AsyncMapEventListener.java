@@ -0,0 +1,443 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.MapEventListener;
+import org.osframework.spring.chronicle.ChronicleThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@code MapEventListener} which delivers the key events of a map to a delegate listener
+ * on a dispatcher thread, so that the cost of the delegate is not paid under the
+ * segment locks of the map. The writer thread of an event only claims a slot of a
+ * bounded, lock-free ring buffer, and fills it with the key, values and type of the
+ * event; the dispatcher drains the ring in batches of up to {@code batchSize} events,
+ * and fires them on the delegate in order.
+ * <p>When the ring is full, an event is handled according to the {@link OverflowPolicy}:
+ * dropped, waited for, or conflated by key into an overflow map, of which only the
+ * latest put or remove of each key is delivered, once the ring is drained. Events of
+ * one key are delivered in the order the map fired them, except as conflated, or
+ * dropped.</p>
+ * <p>Get events are only dispatched if the delegate overrides
+ * {@link MapEventListener#onGetFound(Object, Object)}; they are never conflated.</p>
+ * <p>The ring captures references to the key and value objects passed to this listener
+ * by the map, not the serialized bytes of the entry. The events of maps of mutable data
+ * value types, whose instances are reused by the map, should therefore not be
+ * dispatched.</p>
+ * <p>The listener is serialized as a binding to its map file, and read back as the
+ * listener bound to that file in {@link MapEventListenerRegistry}, so that a reopened
+ * persisted map dispatches through the ring and thread of its builder bean.</p>
+ *
+ * @param <K> Key class of observed map
+ * @param <V> Value class of observed map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class AsyncMapEventListener<K, V> extends MapEventListener<K, V> implements Closeable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default number of events buffered by the ring.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * Default maximum number of events delivered per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50L);
+
+    private static final int GET = 0;
+    private static final int PUT = 1;
+    private static final int REMOVE = 2;
+
+    /**
+     * Handling of an event fired when the ring is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the event.
+         */
+        DROP,
+        /**
+         * Wait, holding the segment lock of the map, until the ring has room for the
+         * event.
+         */
+        BLOCK,
+        /**
+         * Keep the event in an overflow map, replacing any earlier put or remove of its
+         * key, so that only the latest change of each key is delivered. Get events are
+         * discarded.
+         */
+        CONFLATE
+    }
+
+    private final Logger slf4jLogger;
+    private final MapEventListener<K, V> delegate;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final boolean dispatchGets;
+    private final Event<K, V>[] ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final ConcurrentMap<K, Event<K, V>> overflow;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final Thread dispatcher;
+
+    private volatile long head = 0L;
+    private volatile long delivered = 0L;
+    private volatile boolean parked = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Create a new listener dispatching to the specified delegate, with default capacity
+     * and batch size, which drops events when full.
+     *
+     * @param delegate listener to which events are dispatched
+     */
+    public AsyncMapEventListener(MapEventListener<K, V> delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, OverflowPolicy.DROP);
+    }
+
+    /**
+     * Create a new listener dispatching to the specified delegate, and start its
+     * dispatcher thread.
+     *
+     * @param delegate listener to which events are dispatched
+     * @param capacity number of events buffered, rounded up to a power of 2
+     * @param batchSize maximum number of events delivered per batch
+     * @param overflowPolicy handling of events fired when the buffer is full
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public AsyncMapEventListener(MapEventListener<K, V> delegate, int capacity, int batchSize,
+                                 OverflowPolicy overflowPolicy) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("Argument 'delegate' cannot be null");
+        }
+        if (0 >= capacity || (1 << 30) < capacity) {
+            throw new IllegalArgumentException("Capacity must be positive number, up to 2^30");
+        }
+        if (0 >= batchSize) {
+            throw new IllegalArgumentException("Batch size must be positive number");
+        }
+        if (null == overflowPolicy) {
+            throw new IllegalArgumentException("Argument 'overflowPolicy' cannot be null");
+        }
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+        this.delegate = delegate;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.dispatchGets = overridesOnGetFound(delegate);
+        int size = (1 == capacity) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.ring = new Event[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Event<>(i);
+        }
+        this.mask = size - 1;
+        this.overflow = (OverflowPolicy.CONFLATE == overflowPolicy) ? new ConcurrentHashMap<>() : null;
+        this.dispatcher = new ChronicleThreadFactory("chronicle-map-events").newThread(this::dispatch);
+        dispatcher.start();
+    }
+
+    @Override
+    public void onGetFound(K key, V value) {
+        if (dispatchGets) {
+            offer(GET, key, value, null, false);
+        }
+    }
+
+    @Override
+    public void onPut(K key, V newValue, V replacedValue, boolean replicationEvent) {
+        offer(PUT, key, newValue, replacedValue, replicationEvent);
+    }
+
+    @Override
+    public void onRemove(K key, V value, boolean replicationEvent) {
+        offer(REMOVE, key, value, null, replicationEvent);
+    }
+
+    /**
+     * Get the number of events buffered by the ring.
+     *
+     * @return ring capacity
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Get the handling of events fired when the ring is full.
+     *
+     * @return overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Get the number of events waiting in the ring, and in the overflow map.
+     *
+     * @return pending event count
+     */
+    public long getPendingCount() {
+        long pending = Math.max(0L, tail.get() - head);
+        return (null != overflow) ? pending + overflow.size() : pending;
+    }
+
+    /**
+     * Get the number of events delivered to the delegate.
+     *
+     * @return delivered event count
+     */
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * Get the number of events discarded, because the ring was full or this listener
+     * closed.
+     *
+     * @return dropped event count
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Get the number of events which replaced an earlier event of their key in the
+     * overflow map.
+     *
+     * @return conflated event count
+     */
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    /**
+     * Stop dispatching, once the pending events are delivered. Events fired after this
+     * method is called are dropped.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        if (Thread.currentThread() != dispatcher) {
+            try {
+                dispatcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void offer(int type, K key, V value, V replacedValue, boolean replicationEvent) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        // Changes of a key already in the overflow map must follow it there, to keep their order
+        if (null != overflow && GET != type && !overflow.isEmpty()) {
+            conflate(type, key, value, replacedValue, replicationEvent);
+            return;
+        }
+        while (!tryOffer(type, key, value, replacedValue, replicationEvent)) {
+            if (OverflowPolicy.CONFLATE == overflowPolicy && GET != type) {
+                conflate(type, key, value, replacedValue, replicationEvent);
+                return;
+            }
+            if (OverflowPolicy.BLOCK != overflowPolicy || closed || Thread.currentThread() == dispatcher) {
+                // The dispatcher cannot wait for itself, if the delegate writes to the map
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(dispatcher);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        if (parked) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * Claim the slot at the tail of the ring and fill it, as a producer of a bounded
+     * multi-producer queue with per-slot sequence numbers.
+     */
+    private boolean tryOffer(int type, K key, V value, V replacedValue, boolean replicationEvent) {
+        while (true) {
+            long position = tail.get();
+            Event<K, V> slot = ring[(int)position & mask];
+            long sequence = slot.sequence;
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1L)) {
+                    slot.set(type, key, value, replacedValue, replicationEvent);
+                    slot.sequence = position + 1L;
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+        }
+    }
+
+    private void conflate(int type, K key, V value, V replacedValue, boolean replicationEvent) {
+        Event<K, V> event = new Event<>(-1L);
+        event.set(type, key, value, replacedValue, replicationEvent);
+        if (null != overflow.put(key, event)) {
+            conflated.increment();
+        }
+        if (parked) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * Run loop of the dispatcher thread.
+     */
+    private void dispatch() {
+        while (true) {
+            if (0 < drainRing() || 0 < drainOverflow()) {
+                continue;
+            }
+            if (closed) {
+                if (isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            parked = true;
+            if (isEmpty() && !closed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            parked = false;
+        }
+    }
+
+    private boolean isEmpty() {
+        return ring[(int)head & mask].sequence != head + 1L && (null == overflow || overflow.isEmpty());
+    }
+
+    /**
+     * Deliver a batch of events from the head of the ring. Each slot is released to the
+     * producers before its event is delivered.
+     */
+    private int drainRing() {
+        long position = head;
+        int count = 0;
+        while (count < batchSize) {
+            Event<K, V> slot = ring[(int)position & mask];
+            if (slot.sequence != position + 1L) {
+                break;
+            }
+            int type = slot.type;
+            K key = slot.key;
+            V value = slot.value;
+            V replacedValue = slot.replacedValue;
+            boolean replicationEvent = slot.replicationEvent;
+            slot.set(GET, null, null, null, false);
+            slot.sequence = position + ring.length;
+            head = ++position;
+            deliver(type, key, value, replacedValue, replicationEvent);
+            count++;
+        }
+        if (0 < count) {
+            delivered += count;
+        }
+        return count;
+    }
+
+    /**
+     * Deliver a batch of events from the overflow map, once the ring is empty.
+     */
+    private int drainOverflow() {
+        if (null == overflow || overflow.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        Iterator<Event<K, V>> it = overflow.values().iterator();
+        while (count < batchSize && it.hasNext()) {
+            Event<K, V> event = it.next();
+            // Removed before delivery, so that a later event of its key is queued after it
+            if (overflow.remove(event.key, event)) {
+                deliver(event.type, event.key, event.value, event.replacedValue, event.replicationEvent);
+                count++;
+            }
+        }
+        if (0 < count) {
+            delivered += count;
+        }
+        return count;
+    }
+
+    private void deliver(int type, K key, V value, V replacedValue, boolean replicationEvent) {
+        try {
+            switch (type) {
+                case PUT:
+                    delegate.onPut(key, value, replacedValue, replicationEvent);
+                    break;
+                case REMOVE:
+                    delegate.onRemove(key, value, replicationEvent);
+                    break;
+                default:
+                    delegate.onGetFound(key, value);
+            }
+        } catch (RuntimeException e) {
+            slf4jLogger.warn("Map event listener {} failed on event of key {}", delegate, key, e);
+        }
+    }
+
+    private Object writeReplace() {
+        return MapEventListenerRegistry.writeReplace(this);
+    }
+
+    private static boolean overridesOnGetFound(MapEventListener<?, ?> listener) {
+        try {
+            return MapEventListener.class != listener.getClass()
+                    .getMethod("onGetFound", Object.class, Object.class).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Slot of the ring, or event of the overflow map.
+     */
+    private static final class Event<K, V> {
+
+        private volatile long sequence;
+        private int type;
+        private K key;
+        private V value;
+        private V replacedValue;
+        private boolean replicationEvent;
+
+        private Event(long sequence) {
+            this.sequence = sequence;
+        }
+
+        private void set(int type, K key, V value, V replacedValue, boolean replicationEvent) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+            this.replacedValue = replacedValue;
+            this.replicationEvent = replicationEvent;
+        }
+
+    }
+
+}
@@ -0,0 +1,175 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+
+/**
+ * Lookup facade of a {@code ChronicleMap} of {@code CharSequence} keys, which accepts
+ * reusable keys: any {@code CharSequence}, such as a {@code StringBuilder}, or a slice of
+ * a byte array holding UTF-8 encoded text, as parsed from a network buffer. The map
+ * serializes the key directly to hash and compare it with the stored key bytes, so no
+ * {@code String} is created per lookup.
+ * <p>Byte slices are decoded into a {@code StringBuilder} held per thread. Combined with
+ * {@link #getUsing(CharSequence, Object)} and a reusable value instance, a lookup then
+ * allocates nothing, once the JIT compiler has compiled the lookup path.</p>
+ * <p>The map must be created with {@code CharSequence} as its key class; maps created
+ * with {@code String} keys reject keys of other types.</p>
+ *
+ * @param <V> Value class of map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class CharSequenceKeyLookup<V> {
+
+    /**
+     * Smallest code point of a sequence of each number of continuation bytes, below which
+     * the encoding is overlong.
+     */
+    private static final int[] MIN_CODE_POINT = { 0x00, 0x80, 0x800, 0x10000 };
+
+    private final ChronicleMap<CharSequence, V> map;
+    private final ThreadLocal<StringBuilder> keys = ThreadLocal.withInitial(StringBuilder::new);
+
+    /**
+     * Create a new lookup facade of the specified map.
+     *
+     * @param map map of {@code CharSequence} keys
+     * @throws IllegalArgumentException if map is null, or its key class is not {@code CharSequence}
+     */
+    public CharSequenceKeyLookup(ChronicleMap<CharSequence, V> map) {
+        if (null == map) {
+            throw new IllegalArgumentException("Argument 'map' cannot be null");
+        }
+        if (CharSequence.class != map.keyClass()) {
+            throw new IllegalArgumentException("Map key class must be CharSequence, but is " + map.keyClass().getName());
+        }
+        this.map = map;
+    }
+
+    /**
+     * Determine whether the specified key is mapped.
+     *
+     * @param key map key
+     * @return {@code true} if mapped, {@code false} otherwise
+     */
+    public boolean containsKey(CharSequence key) {
+        return map.containsKey(key);
+    }
+
+    /**
+     * Get the value mapped to the specified key, as a new instance.
+     *
+     * @param key map key
+     * @return mapped value, or {@code null} if none
+     */
+    public V get(CharSequence key) {
+        return map.get(key);
+    }
+
+    /**
+     * Get the value mapped to the specified key, read into the specified instance if
+     * possible.
+     *
+     * @param key map key
+     * @param using instance into which value is read
+     * @return mapped value, or {@code null} if none
+     * @see ChronicleMap#getUsing(Object, Object)
+     */
+    public V getUsing(CharSequence key, V using) {
+        return map.getUsing(key, using);
+    }
+
+    /**
+     * Determine whether the key encoded in the specified byte slice is mapped.
+     *
+     * @param bytes byte array holding UTF-8 encoded key
+     * @param offset offset of key in array
+     * @param length length of key in bytes
+     * @return {@code true} if mapped, {@code false} otherwise
+     */
+    public boolean containsKey(byte[] bytes, int offset, int length) {
+        return map.containsKey(decode(bytes, offset, length));
+    }
+
+    /**
+     * Get the value mapped to the key encoded in the specified byte slice, as a new
+     * instance.
+     *
+     * @param bytes byte array holding UTF-8 encoded key
+     * @param offset offset of key in array
+     * @param length length of key in bytes
+     * @return mapped value, or {@code null} if none
+     */
+    public V get(byte[] bytes, int offset, int length) {
+        return map.get(decode(bytes, offset, length));
+    }
+
+    /**
+     * Get the value mapped to the key encoded in the specified byte slice, read into the
+     * specified instance if possible.
+     *
+     * @param bytes byte array holding UTF-8 encoded key
+     * @param offset offset of key in array
+     * @param length length of key in bytes
+     * @param using instance into which value is read
+     * @return mapped value, or {@code null} if none
+     */
+    public V getUsing(byte[] bytes, int offset, int length, V using) {
+        return map.getUsing(decode(bytes, offset, length), using);
+    }
+
+    /**
+     * Get the underlying map.
+     *
+     * @return underlying map
+     */
+    public ChronicleMap<CharSequence, V> getMap() {
+        return map;
+    }
+
+    /**
+     * Decode a UTF-8 byte slice into the key builder of the current thread. Malformed
+     * sequences are decoded as {@code U+FFFD}, one per byte which cannot start a valid
+     * sequence: invalid or truncated sequences, overlong encodings, encoded surrogates and
+     * code points above {@code U+10FFFF}.
+     */
+    private StringBuilder decode(byte[] bytes, int offset, int length) {
+        if (0 > offset || 0 > length || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("Slice [" + offset + ", " + (offset + length)
+                    + ") out of bounds of array of length " + bytes.length);
+        }
+        StringBuilder key = keys.get();
+        key.setLength(0);
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int b = bytes[i++];
+            if (0 <= b) {
+                key.append((char)b);
+                continue;
+            }
+            // Lead bytes 0xF5 to 0xF7 are excluded: they encode code points above U+10FFFF
+            int n = ((b & 0xE0) == 0xC0) ? 1 : ((b & 0xF0) == 0xE0) ? 2 : ((b & 0xFF) <= 0xF4 && (b & 0xF8) == 0xF0) ? 3 : -1;
+            if (-1 == n || i + n > end) {
+                key.append('\uFFFD');
+                continue;
+            }
+            int cp = b & (0x3F >> n);
+            boolean valid = true;
+            for (int j = 0; j < n; j++) {
+                int c = bytes[i + j];
+                valid &= ((c & 0xC0) == 0x80);
+                cp = (cp << 6) | (c & 0x3F);
+            }
+            if (!valid || cp < MIN_CODE_POINT[n] || Character.MAX_CODE_POINT < cp
+                    || (Character.MIN_SURROGATE <= cp && Character.MAX_SURROGATE >= cp)) {
+                key.append('\uFFFD');
+                continue;
+            }
+            i += n;
+            key.appendCodePoint(cp);
+        }
+        return key;
+    }
+
+}
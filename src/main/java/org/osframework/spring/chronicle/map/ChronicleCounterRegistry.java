@@ -0,0 +1,212 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.lang.model.DataValueClasses;
+import net.openhft.lang.values.LongValue;
+
+import java.io.Closeable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of named {@code long} counters and gauges, kept in a
+ * {@code ChronicleMap<String, LongValue>}. Each counter is looked up in the map once, by
+ * {@link #counter(String)}, which binds a {@link Counter} to the counter's value in
+ * off-heap memory; all operations of the counter then read and write that memory
+ * directly, with volatile and compare-and-swap semantics, taking no segment lock.
+ * <p>If the map is persisted, all processes mapping its file share the same counters.
+ * Counters of a map built by {@link ChronicleCounterRegistryBuilderBean} are at least a
+ * cache line apart, so that counters updated by different cores do not contend through
+ * false sharing.</p>
+ * <p>Counters cannot be removed: a {@code Counter} remains bound to the memory of its
+ * entry for the life of the map.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class ChronicleCounterRegistry implements Closeable {
+
+    private final ChronicleMap<String, LongValue> map;
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new registry of counters kept in the specified map.
+     *
+     * @param map map of counter names to values
+     */
+    public ChronicleCounterRegistry(ChronicleMap<String, LongValue> map) {
+        if (null == map) {
+            throw new IllegalArgumentException("Argument 'map' cannot be null");
+        }
+        this.map = map;
+    }
+
+    /**
+     * Get the counter of the specified name, creating it with value {@code 0} if it does
+     * not exist yet. The returned counter should be kept by callers on hot paths, to
+     * avoid the registry lookup of the name.
+     *
+     * @param name counter name
+     * @return counter
+     */
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (null == counter) {
+            if (null == name) {
+                throw new IllegalArgumentException("Argument 'name' cannot be null");
+            }
+            counter = counters.computeIfAbsent(name, n -> {
+                LongValue value = DataValueClasses.newDirectReference(LongValue.class);
+                map.acquireUsing(n, value);
+                return new Counter(n, value);
+            });
+        }
+        return counter;
+    }
+
+    /**
+     * Get the current value of the counter of the specified name.
+     *
+     * @param name counter name
+     * @return counter value
+     */
+    public long get(String name) {
+        return counter(name).get();
+    }
+
+    /**
+     * Atomically increment the counter of the specified name.
+     *
+     * @param name counter name
+     * @return incremented value
+     */
+    public long incrementAndGet(String name) {
+        return counter(name).incrementAndGet();
+    }
+
+    /**
+     * Atomically add the specified delta to the counter of the specified name.
+     *
+     * @param name counter name
+     * @param delta amount to add
+     * @return updated value
+     */
+    public long addAndGet(String name, long delta) {
+        return counter(name).addAndGet(delta);
+    }
+
+    /**
+     * Get the number of counters in the underlying map, including those created by other
+     * processes.
+     *
+     * @return counter count
+     */
+    public long size() {
+        return map.longSize();
+    }
+
+    /**
+     * Get the underlying map.
+     *
+     * @return underlying map
+     */
+    public ChronicleMap<String, LongValue> getMap() {
+        return map;
+    }
+
+    @Override
+    public void close() {
+        counters.clear();
+        map.close();
+    }
+
+    /**
+     * Named {@code long} counter, bound to its value in the memory of the underlying map.
+     * Counters are safe for use by multiple threads and processes. A counter must not be
+     * used after its registry is closed.
+     */
+    public static final class Counter {
+
+        private final String name;
+        private final LongValue value;
+
+        Counter(String name, LongValue value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        /**
+         * Get the name of this counter.
+         *
+         * @return counter name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the current value of this counter, with volatile read semantics.
+         *
+         * @return counter value
+         */
+        public long get() {
+            return value.getVolatileValue();
+        }
+
+        /**
+         * Set the value of this counter, with ordered write semantics; for gauges.
+         *
+         * @param newValue value to set
+         */
+        public void set(long newValue) {
+            value.setOrderedValue(newValue);
+        }
+
+        /**
+         * Atomically increment this counter.
+         *
+         * @return incremented value
+         */
+        public long incrementAndGet() {
+            return value.addAtomicValue(1L);
+        }
+
+        /**
+         * Atomically add the specified delta to this counter.
+         *
+         * @param delta amount to add
+         * @return updated value
+         */
+        public long addAndGet(long delta) {
+            return value.addAtomicValue(delta);
+        }
+
+        /**
+         * Atomically set the value of this counter if it equals the specified expected
+         * value.
+         *
+         * @param expected expected value
+         * @param newValue value to set
+         * @return {@code true} if the value was set
+         */
+        public boolean compareAndSet(long expected, long newValue) {
+            return value.compareAndSwapValue(expected, newValue);
+        }
+
+        /**
+         * Get the underlying off-heap value of this counter.
+         *
+         * @return counter value reference
+         */
+        LongValue getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return name + '=' + get();
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.Alignment;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.lang.values.LongValue;
+
+/**
+ * {@code FactoryBean} creating a {@link ChronicleCounterRegistry}: a registry of named
+ * counters kept in a {@code ChronicleMap<String, LongValue>}. Counter values are aligned
+ * to 8 bytes, so that they can be updated atomically, and each entry reserves enough
+ * metadata bytes to place consecutive counter values at least a cache line apart.
+ * <p>Set {@link #setPersistedTo(java.io.File) persistedTo} to share the counters among
+ * processes.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleCounterRegistryBuilderBean
+        extends PrimitiveChronicleMapBuilderBean<String, LongValue, ChronicleCounterRegistry> {
+
+    /**
+     * Assumed size of a CPU cache line, in bytes.
+     */
+    static final int CACHE_LINE_BYTES = 64;
+
+    /**
+     * Number of metadata bytes of each entry: with the 8 bytes of its value, and at least
+     * one byte of key, an entry occupies more than a cache line.
+     */
+    static final int PADDING_BYTES = CACHE_LINE_BYTES - 8;
+
+    /**
+     * Set average size of counter names, in bytes.
+     *
+     * @param averageNameSize average counter name size
+     */
+    public final void setAverageNameSize(double averageNameSize) {
+        getDelegate().setAverageKeySize(averageNameSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation pads and aligns the entries of the underlying map
+     * before initializing its builder bean.</p>
+     *
+     * @throws Exception if any validation fails
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        getDelegate().setMetaDataBytes(PADDING_BYTES);
+        getDelegate().setEntryAndValueAlignment(Alignment.OF_8_BYTES);
+        super.afterPropertiesSet();
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return ChronicleCounterRegistry.class;
+    }
+
+    @Override
+    protected Class<String> keyClass() {
+        return String.class;
+    }
+
+    @Override
+    protected Class<LongValue> valueClass() {
+        return LongValue.class;
+    }
+
+    @Override
+    protected ChronicleCounterRegistry wrap(ChronicleMap<String, LongValue> map) {
+        return new ChronicleCounterRegistry(map);
+    }
+
+}
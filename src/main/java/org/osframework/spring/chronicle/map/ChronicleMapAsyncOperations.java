@@ -0,0 +1,272 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.ChronicleThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Asynchronous facade of a {@code ChronicleMap}. Each segment of the map is owned by a
+ * single worker thread, to which all operations on the keys of the segment are
+ * submitted, so workers never contend with each other for a segment lock. The segment of
+ * a key is computed by the map's own key hashing and segment routing; for a map whose
+ * routing cannot be read, keys are assigned to workers by a spread of their hash codes.
+ * Operations return a {@code CompletableFuture}, so callers never block on the locks of
+ * the map, and operations on a given key are applied in submission order.
+ * <p>A worker drains up to {@code batchSize} queued operations at a time, and applies
+ * them back to back. Futures are completed on the worker thread, so dependent actions
+ * which do more than trivial work should use the {@code *Async} methods of
+ * {@code CompletableFuture}.</p>
+ * <p>The queue of each worker is bounded; an operation submitted to a full queue, or
+ * after {@link #shutdown()}, completes exceptionally with a
+ * {@code RejectedExecutionException}. If a worker thread is interrupted, the facade is
+ * shut down, and the operations still queued for that worker complete exceptionally with
+ * a {@code RejectedExecutionException}, rather than never completing.</p>
+ *
+ * @param <K> Key class of map
+ * @param <V> Value class of map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleMapAsyncOperations<K, V> {
+
+    /**
+     * Default maximum number of operations queued per worker.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+
+    /**
+     * Default maximum number of queued operations applied per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final ChronicleMap<K, V> map;
+    private final KeySegments segments;
+    private final int batchSize;
+    private final List<BlockingQueue<Operation<?>>> queues;
+    private final Thread[] workers;
+    private final Operation<Void> wakeUp = new Operation<>(m -> null);
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * Create a new facade of the specified map, with one worker per available processor.
+     *
+     * @param map map on which operations are performed
+     */
+    public ChronicleMapAsyncOperations(ChronicleMap<K, V> map) {
+        this(map, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE,
+                new ChronicleThreadFactory("chronicle-map-async"));
+    }
+
+    /**
+     * Create a new facade of the specified map.
+     *
+     * @param map map on which operations are performed
+     * @param workerCount number of worker threads, reduced to the number of segments of the
+     *                map if greater
+     * @param queueCapacity maximum number of operations queued per worker
+     * @param batchSize maximum number of queued operations applied per batch
+     * @param threadFactory factory of worker threads
+     */
+    public ChronicleMapAsyncOperations(ChronicleMap<K, V> map, int workerCount, int queueCapacity, int batchSize,
+                                       ThreadFactory threadFactory) {
+        if (null == map) {
+            throw new IllegalArgumentException("Argument 'map' cannot be null");
+        }
+        if (0 >= workerCount || 0 >= queueCapacity || 0 >= batchSize) {
+            throw new IllegalArgumentException("Workers, queue capacity and batch size must be positive numbers");
+        }
+        if (null == threadFactory) {
+            throw new IllegalArgumentException("Argument 'threadFactory' cannot be null");
+        }
+        this.map = map;
+        this.segments = KeySegments.of(map, workerCount);
+        int count = Math.min(workerCount, segments.count());
+        this.batchSize = batchSize;
+        this.queues = new ArrayList<>(count);
+        this.workers = new Thread[count];
+        for (int s = 0; s < count; s++) {
+            BlockingQueue<Operation<?>> queue = new LinkedBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            workers[s] = threadFactory.newThread(() -> work(queue));
+            workers[s].start();
+        }
+    }
+
+    /**
+     * Get the value mapped to the specified key.
+     *
+     * @param key map key
+     * @return future of mapped value, or of {@code null} if none
+     */
+    public CompletableFuture<V> get(K key) {
+        return submit(key, m -> m.get(key));
+    }
+
+    /**
+     * Map the specified key to the specified value.
+     *
+     * @param key map key
+     * @param value value to be mapped
+     * @return future of previously mapped value, as returned by the map
+     */
+    public CompletableFuture<V> put(K key, V value) {
+        return submit(key, m -> m.put(key, value));
+    }
+
+    /**
+     * Map the specified key to the specified value, if not already mapped.
+     *
+     * @param key map key
+     * @param value value to be mapped
+     * @return future of currently mapped value, or of {@code null} if none
+     */
+    public CompletableFuture<V> putIfAbsent(K key, V value) {
+        return submit(key, m -> m.putIfAbsent(key, value));
+    }
+
+    /**
+     * Remove the mapping of the specified key.
+     *
+     * @param key map key
+     * @return future of previously mapped value, as returned by the map
+     */
+    public CompletableFuture<V> remove(K key) {
+        return submit(key, m -> m.remove(key));
+    }
+
+    /**
+     * Apply an arbitrary operation on the map, on the worker owning the specified key.
+     * The operation should access only that key, for its accesses to be serialized with
+     * the other operations on it.
+     *
+     * @param key map key determining the worker
+     * @param operation operation on map
+     * @param <R> result type of operation
+     * @return future of operation result
+     */
+    public <R> CompletableFuture<R> submit(K key, Function<? super ChronicleMap<K, V>, ? extends R> operation) {
+        if (null == key || null == operation) {
+            throw new IllegalArgumentException("Key and operation cannot be null");
+        }
+        Operation<R> op = new Operation<>(operation);
+        BlockingQueue<Operation<?>> queue = queues.get(segments.segmentOf(key) % workers.length);
+        if (shutdown) {
+            op.future.completeExceptionally(new RejectedExecutionException("Async operations have been shut down"));
+        } else if (!queue.offer(op)) {
+            op.future.completeExceptionally(new RejectedExecutionException("Worker queue is full"));
+        } else if (shutdown && queue.remove(op)) {
+            // Raced with shutdown: the worker may already have stopped
+            op.future.completeExceptionally(new RejectedExecutionException("Async operations have been shut down"));
+        }
+        return op.future;
+    }
+
+    /**
+     * Get the number of operations queued for each worker.
+     *
+     * @return queue depth of each worker
+     */
+    public int[] getQueueDepths() {
+        int[] depths = new int[workers.length];
+        for (int s = 0; s < workers.length; s++) {
+            depths[s] = queues.get(s).size();
+        }
+        return depths;
+    }
+
+    /**
+     * Stop accepting operations, and wait for the workers to apply those already queued.
+     *
+     * @param timeout maximum time to wait for each worker
+     * @param unit unit of timeout
+     * @return {@code true} if all workers stopped, {@code false} if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown = true;
+        for (BlockingQueue<Operation<?>> queue : queues) {
+            queue.offer(wakeUp);
+        }
+        boolean stopped = true;
+        for (Thread worker : workers) {
+            worker.join(unit.toMillis(timeout));
+            stopped &= !worker.isAlive();
+        }
+        return stopped;
+    }
+
+    /**
+     * Stop accepting operations, and wait up to one minute for the workers to apply
+     * those already queued.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void shutdown() throws InterruptedException {
+        shutdown(1L, TimeUnit.MINUTES);
+    }
+
+    private void work(BlockingQueue<Operation<?>> queue) {
+        List<Operation<?>> batch = new ArrayList<>(batchSize);
+        while (!shutdown || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ie) {
+                reject(queue);
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            for (Operation<?> op : batch) {
+                op.apply(map);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Shut down, and complete the operations queued for an interrupted worker. An
+     * operation queued concurrently is either drained here, or removed by its submitter,
+     * which sees the shutdown.
+     */
+    private void reject(BlockingQueue<Operation<?>> queue) {
+        shutdown = true;
+        List<Operation<?>> orphans = new ArrayList<>(queue.size());
+        queue.drainTo(orphans);
+        for (Operation<?> op : orphans) {
+            op.future.completeExceptionally(new RejectedExecutionException("Worker was interrupted"));
+        }
+    }
+
+    /**
+     * Queued operation, and its future.
+     */
+    private final class Operation<R> {
+
+        private final Function<? super ChronicleMap<K, V>, ? extends R> operation;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Operation(Function<? super ChronicleMap<K, V>, ? extends R> operation) {
+            this.operation = operation;
+        }
+
+        private void apply(ChronicleMap<K, V> m) {
+            try {
+                future.complete(operation.apply(m));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+
+    }
+
+}
@@ -3,10 +3,18 @@ package org.osframework.spring.chronicle.map;
 import net.openhft.chronicle.map.*;
 import net.openhft.lang.io.serialization.BytesMarshaller;
 import org.osframework.spring.chronicle.AbstractChronicleBuilderBean;
+import org.osframework.spring.chronicle.ChronicleFileVerifier;
 import org.osframework.spring.chronicle.InetSocketAddressEditor;
+import org.osframework.spring.chronicle.KeyAccessProfiler;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Adapter implementation of {@code FactoryBean} interface to support creation of a
@@ -33,6 +41,10 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
 
     private ChronicleMapBuilder<K, V> builder = null;
 
+    private final List<AsyncMapEventListener<K, V>> asyncEventListeners = new CopyOnWriteArrayList<>();
+    private MapEventListener<K, V> mapEventListener = null;
+    private File boundFile = null;
+
     public ChronicleMapBuilderBean() {
         super();
         config = new ChronicleMapBuilderConfig();
@@ -136,6 +148,118 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
         config.bytesEventListener = bytesEventListener;
     }
 
+    /**
+     * Toggle asynchronous dispatch of the events of ChronicleMap instances created by this
+     * object to the {@link #setEventListener(MapEventListener) event listener}. Events are
+     * buffered in a bounded ring, and delivered on a dispatcher thread, so that the cost
+     * of the listener is not paid under the segment locks of the map. Secondary indexes,
+     * the journal and the change publisher are still fired synchronously, as are bytes
+     * event listeners, whose entry positions are only valid under the segment lock.
+     *
+     * @param asyncEventDispatch flag indicating whether events are dispatched asynchronously
+     * @see AsyncMapEventListener
+     */
+    public void setAsyncEventDispatch(boolean asyncEventDispatch) {
+        config.asyncEventDispatch = asyncEventDispatch;
+    }
+
+    /**
+     * Set number of events buffered for asynchronous dispatch, rounded up to a power of
+     * 2. Defaults to {@value AsyncMapEventListener#DEFAULT_CAPACITY}.
+     *
+     * @param eventBufferSize event buffer size
+     */
+    public void setEventBufferSize(int eventBufferSize) {
+        if (0 >= eventBufferSize) {
+            throw new IllegalArgumentException("Event buffer size must be positive number");
+        }
+        config.eventBufferSize = eventBufferSize;
+    }
+
+    /**
+     * Set maximum number of events delivered per batch by asynchronous dispatch. Defaults
+     * to {@value AsyncMapEventListener#DEFAULT_BATCH_SIZE}.
+     *
+     * @param eventBatchSize event batch size
+     */
+    public void setEventBatchSize(int eventBatchSize) {
+        if (0 >= eventBatchSize) {
+            throw new IllegalArgumentException("Event batch size must be positive number");
+        }
+        config.eventBatchSize = eventBatchSize;
+    }
+
+    /**
+     * Set handling of events fired when the buffer of asynchronous dispatch is full.
+     * Defaults to {@link AsyncMapEventListener.OverflowPolicy#DROP DROP}.
+     *
+     * @param eventOverflowPolicy event buffer overflow policy
+     */
+    public void setEventOverflowPolicy(AsyncMapEventListener.OverflowPolicy eventOverflowPolicy) {
+        if (null == eventOverflowPolicy) {
+            throw new IllegalArgumentException("Event overflow policy cannot be null");
+        }
+        config.eventOverflowPolicy = eventOverflowPolicy;
+    }
+
+    /**
+     * Toggle versioning of the entries of ChronicleMap instances created by this object.
+     * A versioned entry keeps a version in the first 8 bytes of its metadata, advanced by
+     * each put, on which the optimistic operations of
+     * {@link ChronicleMapVersionedOperations} are based. Unless {@code metaDataBytes} is
+     * set, 8 bytes of metadata are allocated per entry. Versions are taken from a
+     * sequence of the map which only ever increases; the sequence of a persisted map is
+     * kept in a file named after the {@code persistedTo} file with suffix
+     * {@code .version}.
+     * <p>A versioned map cannot have an event listener, secondary indexes, a journal or
+     * a change publisher.</p>
+     *
+     * @param versioned flag indicating whether map entries are versioned
+     * @see ChronicleMapVersionedOperations
+     */
+    public void setVersioned(boolean versioned) {
+        config.versioned = versioned;
+    }
+
+    /**
+     * Set secondary indexes of the values of the ChronicleMap instance created by this
+     * object. Indexes are kept in sync with the map by a listener of its key events, and
+     * are rebuilt from the existing entries of a persisted map when it is created.
+     *
+     * @param secondaryIndexes secondary indexes of map values
+     */
+    @SafeVarargs
+    public final void setSecondaryIndexes(SecondaryIndex<K, V, ?>... secondaryIndexes) {
+        // Copy element-wise: only the elements, never the generic array, are retained
+        config.secondaryIndexes = new ArrayList<>(secondaryIndexes.length);
+        for (SecondaryIndex<K, V, ?> index : secondaryIndexes) {
+            config.secondaryIndexes.add(index);
+        }
+    }
+
+    /**
+     * Set journal of the puts and removes of the ChronicleMap instance created by this
+     * object. The journal is replayed into the map when it is created, and the map's
+     * mutations are then journaled by a listener of its key events.
+     *
+     * @param journal map mutation journal
+     * @see ChronicleMapJournal
+     */
+    public void setJournal(ChronicleMapJournal<K, V> journal) {
+        config.journal = journal;
+    }
+
+    /**
+     * Set publisher of the entry changes of the ChronicleMap instance created by this
+     * object. The map's puts and removes are published by a listener of its key events.
+     *
+     * @param changePublisher map change publisher
+     * @see ChronicleMapChangePublisher
+     */
+    public void setChangePublisher(ChronicleMapChangePublisher<K, V> changePublisher) {
+        config.changePublisher = changePublisher;
+    }
+
     /**
      * Toggle behavior of ChronicleMap instances created by this object, when the
      * {@link java.util.Map#put(Object, Object)} method is called.
@@ -183,6 +307,21 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
         setPushTo(converted);
     }
 
+    /**
+     * Toggle read-only mode of ChronicleMap instances created by this object. In read-only
+     * mode, the {@code persistedTo} property must designate an existing compiled map file
+     * (or a symbolic link to one), which is mapped as a {@link ReadOnlyChronicleMap}.
+     * Switch to a newly compiled generation by calling {@link ReadOnlyChronicleMap#refresh()}.
+     * Key access profiling is not supported in read-only mode, as the profiling wrapper
+     * would hide that method.
+     *
+     * @param readOnly flag indicating whether created maps are read-only
+     * @see ChronicleMapCompiler
+     */
+    public void setReadOnly(boolean readOnly) {
+        config.readOnly = readOnly;
+    }
+
     /**
      * Get the type of object that this {@code FactoryBean} creates.
      *
@@ -199,6 +338,9 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
      * <ul>
      *     <li>Required {@code keyClass} and {@code valueClass} are set</li>
      *     <li>The {@code persistedTo} property is readable and writable (if set)</li>
+     *     <li>The {@code persistedTo} property is set and readable, and no journal, change publisher or live directory is set (if read-only)</li>
+     *     <li>At least 8 metadata bytes, and no event listener, secondary index, journal or change publisher, are set (if versioned)</li>
+     *     <li>An event listener is set (if events are dispatched asynchronously)</li>
      * </ul>
      *
      * @throws Exception if any validation fails prior to map creation
@@ -211,7 +353,38 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
         if (null == config.valueClass) {
             throw new IllegalStateException("Map value class must be specified prior to ChronicleMap construction");
         }
-        if (null != config.persistedTo) {
+        if (config.versioned) {
+            if (-1 != config.metaDataBytes && EntryVersionListener.VERSION_BYTES > config.metaDataBytes) {
+                throw new IllegalStateException("Versioned map requires at least 8 bytes of metadata per entry");
+            }
+            if (null != config.eventListener || null != config.secondaryIndexes
+                    || null != config.journal || null != config.changePublisher) {
+                throw new IllegalStateException("Versioned map cannot have event listeners");
+            }
+        }
+        if (config.asyncEventDispatch && null == config.eventListener) {
+            throw new IllegalStateException("Asynchronous event dispatch requires property 'eventListener' to be set");
+        }
+        if (config.readOnly) {
+            if (null != config.journal) {
+                throw new IllegalStateException("Read-only map cannot be journaled");
+            }
+            if (null != config.changePublisher) {
+                throw new IllegalStateException("Read-only map cannot publish changes");
+            }
+            if (null != config.liveDirectory) {
+                throw new IllegalStateException("Read-only map cannot be mapped from a live directory");
+            }
+            if (config.profileKeyAccess) {
+                throw new IllegalStateException("Read-only map cannot be profiled");
+            }
+            if (null == config.persistedTo) {
+                throw new IllegalStateException("Read-only map requires property 'persistedTo' to be set");
+            }
+            if (!config.persistedTo.isFile() || !config.persistedTo.canRead()) {
+                throw new IllegalStateException("Read-only map file must exist and be readable");
+            }
+        } else if (null != config.persistedTo) {
             if (config.persistedTo.isDirectory()) {
                 throw new IllegalArgumentException("Property 'persistedTo' cannot be a directory");
             }
@@ -300,6 +473,9 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
             builder.removeReturnsNull(config.removeReturnsNull);
             slf4jLogger.debug("Invocation of remove method will return null");
         }
+        if (config.versioned && -1 == config.metaDataBytes) {
+            config.metaDataBytes = EntryVersionListener.VERSION_BYTES;
+        }
         if (-1 != config.metaDataBytes) {
             builder.metaDataBytes(config.metaDataBytes);
             slf4jLogger.debug("Map entries will allocate {} bytes for metadata", config.metaDataBytes);
@@ -346,11 +522,39 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
             builder.errorListener(config.errorListener);
             slf4jLogger.debug("Map error listener: {}", config.errorListener.getClass().getSimpleName());
         }
-        if (null != config.eventListener) {
-            builder.eventListener(config.eventListener);
-            slf4jLogger.debug("Map event listener: {}", config.eventListener.getClass().getSimpleName());
+        MapEventListener<K, V> eventListener = config.eventListener;
+        if (config.asyncEventDispatch) {
+            AsyncMapEventListener<K, V> asyncEventListener = new AsyncMapEventListener<>(eventListener,
+                    config.eventBufferSize, config.eventBatchSize, config.eventOverflowPolicy);
+            asyncEventListeners.add(asyncEventListener);
+            eventListener = asyncEventListener;
+            slf4jLogger.debug("Map events dispatched asynchronously through buffer of {} events; {} when full",
+                    asyncEventListener.getCapacity(), config.eventOverflowPolicy);
         }
-        if (null != config.bytesEventListener) {
+        List<MapEventListener<K, V>> eventListeners = config.eventListeners(eventListener);
+        mapEventListener = null;
+        if (1 == eventListeners.size()) {
+            mapEventListener = eventListeners.get(0);
+            slf4jLogger.debug("Map event listener: {}", mapEventListener.getClass().getSimpleName());
+        } else if (1 < eventListeners.size()) {
+            mapEventListener = new CompositeMapEventListener<>(eventListeners);
+            slf4jLogger.debug("Map event listeners: {}", eventListeners.size());
+        }
+        if (null != mapEventListener) {
+            builder.eventListener(mapEventListener);
+        }
+        if (config.versioned) {
+            EntryVersionSequence sequence;
+            if (null != config.persistedTo && !config.readOnly) {
+                File file = new File(config.persistedTo.getPath() + ".version");
+                sequence = new EntryVersionSequence(file, 0L < config.persistedTo.length());
+                slf4jLogger.info("Map entry version sequence persisted at {}", file);
+            } else {
+                sequence = new EntryVersionSequence();
+            }
+            builder.bytesEventListener(new EntryVersionListener(config.bytesEventListener, sequence));
+            slf4jLogger.debug("Map entries will be versioned");
+        } else if (null != config.bytesEventListener) {
             builder.bytesEventListener(config.bytesEventListener);
             slf4jLogger.debug("Map bytes event listener: {}", config.bytesEventListener.getClass().getSimpleName());
         }
@@ -361,10 +565,104 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
             slf4jLogger.debug("Map entries will push to [{}]", Arrays.toString(config.pushToAddresses));
         }
 
-        if (null != config.persistedTo) {
+        ChronicleMap<K, V> map;
+        if (config.readOnly) {
+            slf4jLogger.info("Map entries mapped read-only from {}", config.persistedTo.toString());
+            map = new ReadOnlyChronicleMap<>(config.persistedTo, builder);
+        } else if (null != config.persistedTo) {
             slf4jLogger.info("Map entries persisted off-heap at {}", config.persistedTo.toString());
+            File file = mappedFile();
+            if (null != mapEventListener) {
+                // Reopened files use the listener read back from their header, resolved by file
+                MapEventListenerRegistry.bind(file, mapEventListener);
+                boundFile = file;
+            }
+            map = config.verifyOnStartup ? createVerifiedMap(file) : builder.createPersistedTo(file);
+        } else {
+            map = builder.create();
+        }
+
+        registerMemoryUsage(map);
+        startCheckpoints();
+
+        // 9. Journal settings
+        if (null != config.journal) {
+            long replayed = config.journal.replay(map);
+            slf4jLogger.info("Map recovered {} journal records; now holds {} entries", replayed, map.longSize());
+        }
+
+        // 10. Secondary index settings
+        if (null != config.secondaryIndexes) {
+            for (SecondaryIndex<K, V, ?> index : config.secondaryIndexes) {
+                index.rebuild(map);
+                slf4jLogger.debug("Map secondary index '{}' holds {} field values", index.getName(), index.size());
+            }
+        }
+
+        // 11. Profiling settings
+        KeyAccessProfiler profiler = createKeyAccessProfiler();
+        return (null != profiler) ? new ProfilingChronicleMap<>(map, profiler) : map;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation also stops the asynchronous dispatch of map events,
+     * once the pending events are delivered, and unbinds the event listener of a
+     * persisted map from its file.</p>
+     */
+    @Override
+    protected void destroyInstance(ChronicleMap<K, V> instance) throws Exception {
+        if (null != boundFile) {
+            MapEventListenerRegistry.unbind(boundFile, mapEventListener);
+            boundFile = null;
+        }
+        for (AsyncMapEventListener<K, V> asyncEventListener : asyncEventListeners) {
+            asyncEventListener.close();
+        }
+        asyncEventListeners.clear();
+        super.destroyInstance(instance);
+    }
+
+    /**
+     * Create a map persisted to the specified file, and verify it. The entries of an
+     * inconsistent file are salvaged into a side file, which replaces it once it is
+     * quarantined. If the salvage is partial, or the file cannot be opened, the file is
+     * left in place and creation fails, unless partial salvage is accepted.
+     */
+    private ChronicleMap<K, V> createVerifiedMap(File file) throws IOException {
+        ChronicleMap<K, V> map;
+        try {
+            map = builder.createPersistedTo(file);
+        } catch (RuntimeException | IOException e) {
+            if (!config.acceptPartialSalvage) {
+                throw new IllegalStateException("Map file " + file + " could not be opened, and partial salvage"
+                        + " is not accepted", e);
+            }
+            File quarantined = ChronicleFileVerifier.quarantine(file);
+            slf4jLogger.warn("Map file could not be opened ({}); quarantined to {}", e.toString(), quarantined);
+            return builder.createPersistedTo(file);
+        }
+        ChronicleFileVerifier.VerificationReport report = ChronicleFileVerifier.verify(map);
+        if (report.isConsistent()) {
+            slf4jLogger.info("Map file verified: {}", report);
+            return map;
+        }
+        File salvageFile = ChronicleFileVerifier.salvageFileOf(file);
+        Files.deleteIfExists(salvageFile.toPath());
+        ChronicleFileVerifier.VerificationReport salvage;
+        try (ChronicleMap<K, V> repaired = builder.createPersistedTo(salvageFile)) {
+            salvage = ChronicleFileVerifier.salvage(map, repaired);
+        } finally {
+            map.close();
+        }
+        if (!(salvage.isComplete() && salvage.isConsistent()) && !config.acceptPartialSalvage) {
+            Files.delete(salvageFile.toPath());
+            throw new IllegalStateException("Map file " + file + " inconsistent (" + report + "); salvage partial ("
+                    + salvage + "), and partial salvage is not accepted");
         }
-        return (null != config.persistedTo) ? builder.createPersistedTo(config.persistedTo) : builder.create();
+        File quarantined = ChronicleFileVerifier.replaceWithSalvage(file, salvageFile);
+        slf4jLogger.warn("Map file inconsistent ({}); quarantined to {}, salvaged {}", report, quarantined, salvage);
+        return builder.createPersistedTo(file);
     }
 
     /**
@@ -382,11 +680,26 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
 
         private Boolean putReturnsNull, removeReturnsNull;
 
+        private boolean readOnly = false;
+
         private InetSocketAddress[] pushToAddresses = null;
 
         private MapEventListener<K, V> eventListener = null;
         private BytesMapEventListener bytesEventListener = null;
 
+        private boolean asyncEventDispatch = false;
+        private int eventBufferSize = AsyncMapEventListener.DEFAULT_CAPACITY;
+        private int eventBatchSize = AsyncMapEventListener.DEFAULT_BATCH_SIZE;
+        private AsyncMapEventListener.OverflowPolicy eventOverflowPolicy = AsyncMapEventListener.OverflowPolicy.DROP;
+
+        private boolean versioned = false;
+
+        private List<SecondaryIndex<K, V, ?>> secondaryIndexes = null;
+
+        private ChronicleMapJournal<K, V> journal = null;
+
+        private ChronicleMapChangePublisher<K, V> changePublisher = null;
+
         private void checkValueSizing() {
             if (null != averageValueSize && -1.0 == Math.signum(averageValueSize)) {
                 throw new IllegalArgumentException("Average value size must be positive number");
@@ -396,6 +709,23 @@ public class ChronicleMapBuilderBean<K, V> extends AbstractChronicleBuilderBean<
             }
         }
 
+        private List<MapEventListener<K, V>> eventListeners(MapEventListener<K, V> eventListener) {
+            List<MapEventListener<K, V>> listeners = new ArrayList<>();
+            if (null != eventListener) {
+                listeners.add(eventListener);
+            }
+            if (null != secondaryIndexes && !secondaryIndexes.isEmpty()) {
+                listeners.add(new IndexingMapEventListener<>(secondaryIndexes));
+            }
+            if (null != journal) {
+                listeners.add(journal.listener());
+            }
+            if (null != changePublisher) {
+                listeners.add(changePublisher.listener());
+            }
+            return listeners;
+        }
+
     }
 
 }
@@ -0,0 +1,272 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Facade of batch operations on a {@code ChronicleMap}. A batch is processed by a plain
+ * loop on the calling thread, unless an {@link Executor} is set and the batch is large
+ * enough: the batch is then grouped by the actual segment of each key, with a single
+ * counting sort, and the segment groups are dealt to at most {@code parallelism} tasks.
+ * Each segment of the map is thus written by one task only, so the tasks of a batch never
+ * contend for a segment lock, and each task works through one segment after another.
+ * <p>Each key still takes its segment lock once per operation: the segment locks of
+ * Chronicle Map 2.x are not reentrant, so a lock cannot be held across the map's own
+ * operations. Keys of a parallel batch are hashed twice, once to group them and once by
+ * the map; batches below the parallel threshold are not grouped, so they cost no more
+ * than a loop.</p>
+ * <p>Multi-get operations read values with {@link ChronicleMap#getUsing(Object, Object)}
+ * into a caller-supplied array, so that maps of reusable value types (for example, data
+ * value interfaces) allocate nothing per key.</p>
+ *
+ * @param <K> Key class of map
+ * @param <V> Value class of map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleMapBulkOperations<K, V> {
+
+    /**
+     * Default minimum number of keys in a batch processed in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+    private final ChronicleMap<K, V> map;
+    private final int parallelism;
+    private final KeySegments segments;
+
+    private Executor executor = null;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Create a new facade of the specified map, processing parallel batches in up to one
+     * task per available processor.
+     *
+     * @param map map on which batch operations are performed
+     */
+    public ChronicleMapBulkOperations(ChronicleMap<K, V> map) {
+        this(map, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new facade of the specified map.
+     *
+     * @param map map on which batch operations are performed
+     * @param parallelism maximum number of tasks per parallel batch
+     */
+    public ChronicleMapBulkOperations(ChronicleMap<K, V> map, int parallelism) {
+        if (null == map) {
+            throw new IllegalArgumentException("Argument 'map' cannot be null");
+        }
+        if (0 >= parallelism) {
+            throw new IllegalArgumentException("Parallelism must be positive number");
+        }
+        this.map = map;
+        this.parallelism = parallelism;
+        this.segments = KeySegments.of(map, parallelism);
+    }
+
+    /**
+     * Set executor on which segment groups of large batches are processed in parallel. If
+     * not set, all batches are processed on the calling thread.
+     *
+     * @param executor executor of segment group tasks
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Set minimum number of keys in a batch processed in parallel, if an executor is set.
+     *
+     * @param parallelThreshold minimum batch size for parallel processing
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Get values of the specified keys into the specified array. Each element of
+     * {@code values} is passed as the reusable value instance of the corresponding key,
+     * and replaced by the value read, or by {@code null} if the key is absent.
+     *
+     * @param keys keys to look up
+     * @param values array of same length as {@code keys}, receiving values
+     * @return number of keys found
+     */
+    public int getAll(final K[] keys, final V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Key and value arrays must be of same length");
+        }
+        if (!isParallel(keys.length)) {
+            int found = 0;
+            for (int k = 0; k < keys.length; k++) {
+                values[k] = map.getUsing(keys[k], values[k]);
+                if (null != values[k]) {
+                    found++;
+                }
+            }
+            return found;
+        }
+        final AtomicInteger found = new AtomicInteger();
+        forEachSegmentGroup(keys, keys.length, (order, from, to) -> {
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                int k = order[i];
+                values[k] = map.getUsing(keys[k], values[k]);
+                if (null != values[k]) {
+                    n++;
+                }
+            }
+            found.addAndGet(n);
+        });
+        return found.get();
+    }
+
+    /**
+     * Get values of the specified keys into the specified map. Absent keys are skipped.
+     *
+     * @param keys keys to look up
+     * @param results map receiving found keys and values
+     * @return number of keys found
+     */
+    @SuppressWarnings("unchecked")
+    public int getAll(Collection<? extends K> keys, Map<? super K, ? super V> results) {
+        K[] keyArray = (K[])keys.toArray();
+        V[] valueArray = (V[])new Object[keyArray.length];
+        int found = getAll(keyArray, valueArray);
+        for (int i = 0; i < keyArray.length; i++) {
+            if (null != valueArray[i]) {
+                results.put(keyArray[i], valueArray[i]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Put all entries of the specified map.
+     *
+     * @param entries entries to put
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        if (!isParallel(entries.size())) {
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                map.put(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        final Object[] keys = new Object[entries.size()];
+        final Object[] values = new Object[keys.length];
+        int n = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            keys[n] = entry.getKey();
+            values[n++] = entry.getValue();
+        }
+        forEachSegmentGroup(keys, n, (order, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int k = order[i];
+                map.put((K)keys[k], (V)values[k]);
+            }
+        });
+    }
+
+    /**
+     * Remove all of the specified keys.
+     *
+     * @param keys keys to remove
+     * @return number of keys removed
+     */
+    public int removeAll(Collection<? extends K> keys) {
+        if (!isParallel(keys.size())) {
+            int removed = 0;
+            for (K key : keys) {
+                if (null != map.remove(key)) {
+                    removed++;
+                }
+            }
+            return removed;
+        }
+        final Object[] keyArray = keys.toArray();
+        final AtomicInteger removed = new AtomicInteger();
+        forEachSegmentGroup(keyArray, keyArray.length, (order, from, to) -> {
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                if (null != map.remove(keyArray[order[i]])) {
+                    n++;
+                }
+            }
+            removed.addAndGet(n);
+        });
+        return removed.get();
+    }
+
+    private boolean isParallel(int n) {
+        return null != executor && n >= parallelThreshold;
+    }
+
+    /**
+     * Group the first {@code n} keys by segment, and run the specified task on the keys
+     * of each segment, dealing the segments to at most {@code parallelism} executor
+     * tasks. A failure of any task, including an {@code Error}, is rethrown on the
+     * calling thread.
+     */
+    private void forEachSegmentGroup(Object[] keys, int n, final SegmentTask task) {
+        final int segmentCount = segments.count();
+        final int[] order = new int[n];
+        final int[] bounds = new int[segmentCount + 1];
+        segments.order(keys, n, order, bounds);
+        final int tasks = Math.min(parallelism, segmentCount);
+        final CountDownLatch done = new CountDownLatch(tasks);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < tasks; t++) {
+            final int first = t;
+            executor.execute(() -> {
+                try {
+                    for (int s = first; s < segmentCount; s += tasks) {
+                        if (bounds[s] < bounds[s + 1]) {
+                            task.run(order, bounds[s], bounds[s + 1]);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        try {
+            done.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted awaiting batch completion", ie);
+        }
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException)e;
+        }
+        if (e instanceof Error) {
+            throw (Error)e;
+        }
+        if (null != e) {
+            throw new IllegalStateException("Batch task failed", e);
+        }
+    }
+
+    /**
+     * Unit of work over the keys of one segment of a batch.
+     */
+    private interface SegmentTask {
+
+        void run(int[] order, int from, int to);
+
+    }
+
+}
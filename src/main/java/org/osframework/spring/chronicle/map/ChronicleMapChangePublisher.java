@@ -0,0 +1,352 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.MapEventListener;
+import org.osframework.spring.chronicle.ChronicleThreadFactory;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive Streams {@code Publisher} of the entry changes of a {@code ChronicleMap},
+ * observed by a listener of the key events of the map. The writer thread of a change
+ * only appends it to the buffer of each subscriber; changes are delivered to subscribers
+ * on a separate executor, honouring their demand.
+ * <p>Each subscriber has a bounded buffer. With conflation enabled, the default, a
+ * change of a key still buffered for a subscriber replaces the buffered change, so a
+ * slow subscriber receives only the latest change of each key, and its buffer is bounded
+ * by the number of distinct keys changed. A subscriber whose buffer overflows is
+ * cancelled, and signalled an {@code IllegalStateException}.</p>
+ * <p>Buffered changes are drained in batches of up to {@code batchSize}: each batch is
+ * removed from the buffer under a single lock acquisition, then delivered.</p>
+ * <p>The key and value of a change are the objects passed to the listener of the map,
+ * so maps of mutable data value types should not be published.</p>
+ *
+ * @param <K> Key class of published map
+ * @param <V> Value class of published map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleMapChangePublisher<K, V> implements Publisher<MapChangeEvent<K, V>> {
+
+    /**
+     * Default maximum number of changes buffered per subscriber.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Default maximum number of changes drained from a buffer per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Logger slf4jLogger;
+    private final MapEventListener<K, V> listener;
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean conflate = true;
+    private Executor executor = null;
+    private ExecutorService defaultExecutor = null;
+    private volatile boolean closed = false;
+
+    /**
+     * Create a new change publisher.
+     */
+    public ChronicleMapChangePublisher() {
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+        this.listener = new PublishingMapEventListener<>(this);
+    }
+
+    /**
+     * Set maximum number of changes buffered per subscriber. Defaults to
+     * {@value #DEFAULT_BUFFER_SIZE}.
+     *
+     * @param bufferSize subscriber buffer size
+     */
+    public void setBufferSize(int bufferSize) {
+        if (0 >= bufferSize) {
+            throw new IllegalArgumentException("Buffer size must be positive number");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Set maximum number of changes drained from a subscriber buffer per batch. Defaults
+     * to {@value #DEFAULT_BATCH_SIZE}.
+     *
+     * @param batchSize drain batch size
+     */
+    public void setBatchSize(int batchSize) {
+        if (0 >= batchSize) {
+            throw new IllegalArgumentException("Batch size must be positive number");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Toggle conflation by key of the changes buffered for a subscriber. Defaults to
+     * {@code true}.
+     *
+     * @param conflate flag indicating whether buffered changes are conflated
+     */
+    public void setConflate(boolean conflate) {
+        this.conflate = conflate;
+    }
+
+    /**
+     * Set executor on which changes are delivered to subscribers. Defaults to a cached
+     * pool of {@link ChronicleThreadFactory} threads.
+     *
+     * @param executor delivery executor
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Get the listener which publishes the key events of a map.
+     *
+     * @return publishing event listener
+     */
+    MapEventListener<K, V> listener() {
+        return listener;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super MapChangeEvent<K, V>> subscriber) {
+        if (null == subscriber) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        ChangeSubscription subscription = new ChangeSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Get the number of active subscribers.
+     *
+     * @return subscriber count
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Complete all subscriptions, once their buffered changes are delivered. Subscribers
+     * subscribing after the publisher is closed are completed immediately.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    void publish(MapChangeEvent<K, V> event) {
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    private synchronized Executor executor() {
+        if (null != executor) {
+            return executor;
+        }
+        if (null == defaultExecutor) {
+            defaultExecutor = Executors.newCachedThreadPool(new ChronicleThreadFactory("chronicle-map-changes"));
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Subscription of a single subscriber, holding its buffer and demand.
+     */
+    private final class ChangeSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super MapChangeEvent<K, V>> subscriber;
+        private final Map<K, MapChangeEvent<K, V>> conflated = new LinkedHashMap<>();
+        private final Queue<MapChangeEvent<K, V>> queued = new ArrayDeque<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+
+        private volatile boolean cancelled = false;
+        private volatile boolean completed = false;
+        private volatile Throwable error = null;
+
+        private ChangeSubscription(Subscriber<? super MapChangeEvent<K, V>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (0L >= n) {
+                fail(new IllegalArgumentException("Subscriber requested non-positive number of changes: " + n));
+                return;
+            }
+            long r;
+            do {
+                r = requested.get();
+            } while (!requested.compareAndSet(r, (Long.MAX_VALUE - r < n) ? Long.MAX_VALUE : r + n));
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private void offer(MapChangeEvent<K, V> event) {
+            boolean overflow;
+            synchronized (this) {
+                if (conflate) {
+                    overflow = (conflated.size() >= bufferSize && !conflated.containsKey(event.getKey()));
+                    if (!overflow) {
+                        conflated.put(event.getKey(), event);
+                    }
+                } else {
+                    overflow = (queued.size() >= bufferSize);
+                    if (!overflow) {
+                        queued.add(event);
+                    }
+                }
+            }
+            if (overflow) {
+                slf4jLogger.warn("Map change subscriber {} cancelled: buffer of {} changes overflowed",
+                        subscriber, bufferSize);
+                fail(new IllegalStateException("Subscriber buffer of " + bufferSize + " changes overflowed"));
+            } else {
+                schedule();
+            }
+        }
+
+        private void complete() {
+            completed = true;
+            schedule();
+        }
+
+        private void fail(Throwable t) {
+            error = t;
+            subscriptions.remove(this);
+            schedule();
+        }
+
+        private void schedule() {
+            if (0 == work.getAndIncrement()) {
+                executor().execute(this);
+            }
+        }
+
+        /**
+         * Drain buffered changes to the subscriber, as far as its demand allows.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            List<MapChangeEvent<K, V>> batch = new ArrayList<>(Math.min(batchSize, bufferSize));
+            do {
+                while (!cancelled) {
+                    if (null != error) {
+                        cancelled = true;
+                        subscriber.onError(error);
+                        return;
+                    }
+                    long r = requested.get();
+                    if (0L < r) {
+                        drain(batch, (int)Math.min(r, batchSize));
+                    }
+                    if (batch.isEmpty()) {
+                        if (completed && isEmpty()) {
+                            cancel();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+                    for (MapChangeEvent<K, V> event : batch) {
+                        if (cancelled) {
+                            return;
+                        }
+                        subscriber.onNext(event);
+                    }
+                    if (Long.MAX_VALUE != r) {
+                        requested.addAndGet(-batch.size());
+                    }
+                    batch.clear();
+                }
+                missed = work.addAndGet(-missed);
+            } while (0 != missed);
+        }
+
+        private synchronized boolean isEmpty() {
+            return conflated.isEmpty() && queued.isEmpty();
+        }
+
+        private synchronized void drain(List<MapChangeEvent<K, V>> batch, int max) {
+            if (conflate) {
+                Iterator<MapChangeEvent<K, V>> it = conflated.values().iterator();
+                while (batch.size() < max && it.hasNext()) {
+                    batch.add(it.next());
+                    it.remove();
+                }
+            } else {
+                while (batch.size() < max && !queued.isEmpty()) {
+                    batch.add(queued.poll());
+                }
+            }
+        }
+
+    }
+
+    /**
+     * {@code MapEventListener} which publishes each put and remove of the observed map.
+     * It is serialized as a binding to its map file, and read back as the listener bound
+     * to that file in {@link MapEventListenerRegistry}.
+     */
+    static final class PublishingMapEventListener<K, V> extends MapEventListener<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ChronicleMapChangePublisher<K, V> publisher;
+
+        PublishingMapEventListener(ChronicleMapChangePublisher<K, V> publisher) {
+            this.publisher = publisher;
+        }
+
+        @Override
+        public void onPut(K key, V newValue, V replacedValue, boolean replicationEvent) {
+            publisher.publish(new MapChangeEvent<>(MapChangeEvent.Type.PUT, key, newValue, replicationEvent));
+        }
+
+        @Override
+        public void onRemove(K key, V value, boolean replicationEvent) {
+            publisher.publish(new MapChangeEvent<>(MapChangeEvent.Type.REMOVE, key, value, replicationEvent));
+        }
+
+        private Object writeReplace() {
+            return MapEventListenerRegistry.writeReplace(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,208 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline compiler of reference data sets into immutable, densely packed
+ * {@code ChronicleMap} files. Each invocation of {@link #compile(Map)} writes a new
+ * <em>generation</em> file named {@code <name>.<generation>.dat} into the output
+ * directory, sized exactly to the compiled data set, and then atomically repoints the
+ * symbolic link {@code <name>.dat} at it.
+ * <p>Readers map the link through a {@link ReadOnlyChronicleMap} (for example, via
+ * {@link ChronicleMapBuilderBean#setReadOnly(boolean)}) and switch to the new generation
+ * on {@link ReadOnlyChronicleMap#refresh()}, without restarting.</p>
+ *
+ * @param <K> Key class of compiled map
+ * @param <V> Value class of compiled map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleMapCompiler<K, V> {
+
+    /**
+     * Default number of generation files retained in the output directory.
+     */
+    public static final int DEFAULT_RETAINED_GENERATIONS = 3;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChronicleMapCompiler.class);
+
+    private final Class<K> keyClass;
+    private final Class<V> valueClass;
+
+    private File outputDirectory = null;
+    private String name = null;
+    private Double averageKeySize = null;
+    private Double averageValueSize = null;
+    private int retainedGenerations = DEFAULT_RETAINED_GENERATIONS;
+
+    /**
+     * Create a new compiler of maps of the specified key and value types.
+     *
+     * @param keyClass class of the map key type
+     * @param valueClass class of the map value type
+     */
+    public ChronicleMapCompiler(Class<K> keyClass, Class<V> valueClass) {
+        if (null == keyClass || null == valueClass) {
+            throw new IllegalArgumentException("Key and value classes cannot be null");
+        }
+        this.keyClass = keyClass;
+        this.valueClass = valueClass;
+    }
+
+    /**
+     * Set directory into which generation files and the current generation link are written.
+     *
+     * @param outputDirectory output directory
+     */
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Set base name of generation files and the current generation link.
+     *
+     * @param name base file name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Set the average number of bytes taken by serialized form of keys.
+     *
+     * @param averageKeySize average number of bytes, taken by serialized form of keys
+     */
+    public void setAverageKeySize(double averageKeySize) {
+        this.averageKeySize = averageKeySize;
+    }
+
+    /**
+     * Set the average number of bytes taken by serialized form of values.
+     *
+     * @param averageValueSize average number of bytes, taken by serialized form of values
+     */
+    public void setAverageValueSize(double averageValueSize) {
+        this.averageValueSize = averageValueSize;
+    }
+
+    /**
+     * Set number of generation files retained in the output directory after compilation,
+     * including the new one. Older generations are deleted.
+     *
+     * @param retainedGenerations number of generations to retain; must be at least 2, so that
+     *                            readers still mapping the previous generation are unaffected
+     */
+    public void setRetainedGenerations(int retainedGenerations) {
+        if (2 > retainedGenerations) {
+            throw new IllegalArgumentException("At least 2 generations must be retained");
+        }
+        this.retainedGenerations = retainedGenerations;
+    }
+
+    /**
+     * Get the symbolic link which designates the current generation file.
+     *
+     * @return current generation link
+     */
+    public File getCurrentLink() {
+        checkConfigured();
+        return new File(outputDirectory, name + ".dat");
+    }
+
+    /**
+     * Compile the specified data set into a new generation file and make it current.
+     *
+     * @param source data set to be compiled
+     * @return new generation file
+     * @throws IOException if the generation file cannot be written or linked
+     */
+    public File compile(Map<? extends K, ? extends V> source) throws IOException {
+        checkConfigured();
+        if (null == source) {
+            throw new IllegalArgumentException("Argument 'source' cannot be null");
+        }
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Cannot create output directory " + outputDirectory);
+        }
+        SortedMap<Long, File> generations = listGenerations();
+        long generation = generations.isEmpty() ? 1L : generations.lastKey() + 1L;
+        File target = new File(outputDirectory, name + "." + generation + ".dat");
+        File staging = new File(outputDirectory, name + "." + generation + ".tmp");
+        Files.deleteIfExists(staging.toPath());
+
+        ChronicleMapBuilder<K, V> builder = ChronicleMapBuilder.of(keyClass, valueClass)
+                .entries(Math.max(1L, source.size()));
+        if (null != averageKeySize) {
+            builder.averageKeySize(averageKeySize);
+        }
+        if (null != averageValueSize) {
+            builder.averageValueSize(averageValueSize);
+        }
+        LOGGER.info("Compiling {} entries into generation {} of '{}'", source.size(), generation, name);
+        try (ChronicleMap<K, V> map = builder.createPersistedTo(staging)) {
+            map.putAll(source);
+        }
+        Files.move(staging.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        link(target);
+        generations.put(generation, target);
+        purge(generations);
+        return target;
+    }
+
+    private void link(File target) throws IOException {
+        Path link = getCurrentLink().toPath();
+        Path staging = new File(outputDirectory, name + ".dat.tmp").toPath();
+        Files.deleteIfExists(staging);
+        Files.createSymbolicLink(staging, target.toPath().getFileName());
+        Files.move(staging, link, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.info("Current generation of '{}' is {}", name, target);
+    }
+
+    private void purge(SortedMap<Long, File> generations) throws IOException {
+        while (generations.size() > retainedGenerations) {
+            File expired = generations.remove(generations.firstKey());
+            Files.deleteIfExists(expired.toPath());
+            LOGGER.debug("Deleted expired generation {}", expired);
+        }
+    }
+
+    private SortedMap<Long, File> listGenerations() {
+        SortedMap<Long, File> generations = new TreeMap<>();
+        Pattern pattern = Pattern.compile("^" + Pattern.quote(name) + "\\.(\\d+)\\.dat$");
+        File[] files = outputDirectory.listFiles();
+        if (null != files) {
+            for (File f : files) {
+                Matcher m = pattern.matcher(f.getName());
+                if (m.matches()) {
+                    generations.put(Long.parseLong(m.group(1)), f);
+                }
+            }
+        }
+        return generations;
+    }
+
+    private void checkConfigured() {
+        if (null == outputDirectory) {
+            throw new IllegalStateException("Output directory must be specified prior to compilation");
+        }
+        if (null == name || name.isEmpty()) {
+            throw new IllegalStateException("Name must be specified prior to compilation");
+        }
+    }
+
+}
@@ -0,0 +1,326 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.Chronicle;
+import net.openhft.chronicle.ExcerptAppender;
+import net.openhft.chronicle.ExcerptTailer;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.MapEventListener;
+import org.osframework.spring.chronicle.ChronicleThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change log of the puts and removes of a {@code ChronicleMap}, journaled to a Chronicle
+ * Queue. Each mutation is appended to the queue as one compact binary record by a
+ * listener of the key events of the map, and the map is recovered by replaying the
+ * journal into a new, empty map.
+ * <p>A <em>snapshot</em> writes the complete contents of the map to the journal between
+ * a pair of marker records. Replay starts from the most recent complete snapshot, so
+ * the records before it need not be retained. Writers need not be stopped while a
+ * snapshot is taken: a snapshot record of a key is ignored on replay if a mutation of
+ * the key was journaled after the start of the snapshot.</p>
+ * <p>Replay is parallel: each replay thread reads the whole journal but decodes and
+ * applies only the records of its own key stripe, so all records of a given key are
+ * applied in journal order by the same thread.</p>
+ *
+ * @param <K> Key class of journaled map
+ * @param <V> Value class of journaled map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleMapJournal<K, V> {
+
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+    static final byte SNAPSHOT_BEGIN = 3;
+    static final byte SNAPSHOT_PUT = 4;
+    static final byte SNAPSHOT_END = 5;
+
+    private static final long NO_INDEX = -1L;
+
+    private final Logger slf4jLogger;
+    private final Chronicle chronicle;
+    private final Class<K> keyClass;
+    private final Class<V> valueClass;
+    private final MapEventListener<K, V> listener;
+
+    private ExcerptAppender appender = null;
+    private int replayThreads = Runtime.getRuntime().availableProcessors();
+    private ThreadFactory threadFactory = new ChronicleThreadFactory("chronicle-journal-replay");
+    private volatile boolean suspended = false;
+
+    /**
+     * Create a new journal of maps of the specified key and value classes, written to
+     * the specified queue.
+     *
+     * @param chronicle journal queue
+     * @param keyClass key class of journaled map
+     * @param valueClass value class of journaled map
+     */
+    public ChronicleMapJournal(Chronicle chronicle, Class<K> keyClass, Class<V> valueClass) {
+        if (null == chronicle) {
+            throw new IllegalArgumentException("Argument 'chronicle' cannot be null");
+        }
+        if (null == keyClass || null == valueClass) {
+            throw new IllegalArgumentException("Key and value classes cannot be null");
+        }
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+        this.chronicle = chronicle;
+        this.keyClass = keyClass;
+        this.valueClass = valueClass;
+        this.listener = new JournalingMapEventListener<>(this);
+    }
+
+    /**
+     * Set number of threads replaying the journal. Defaults to the number of available
+     * processors.
+     *
+     * @param replayThreads number of replay threads
+     */
+    public void setReplayThreads(int replayThreads) {
+        if (0 >= replayThreads) {
+            throw new IllegalArgumentException("Number of replay threads must be positive number");
+        }
+        this.replayThreads = replayThreads;
+    }
+
+    /**
+     * Set factory of the replay threads. Defaults to a {@link ChronicleThreadFactory}.
+     *
+     * @param threadFactory replay thread factory
+     */
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        if (null == threadFactory) {
+            throw new IllegalArgumentException("Argument 'threadFactory' cannot be null");
+        }
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Get the queue to which this journal is written.
+     *
+     * @return journal queue
+     */
+    public Chronicle getChronicle() {
+        return chronicle;
+    }
+
+    /**
+     * Get the listener which journals the key events of a map.
+     *
+     * @return journaling event listener
+     */
+    MapEventListener<K, V> listener() {
+        return listener;
+    }
+
+    /**
+     * Write a snapshot of the specified map to the journal.
+     *
+     * @param map journaled map
+     * @return index of the marker record at the start of the snapshot
+     * @throws IOException if the journal cannot be written
+     */
+    public long snapshot(ChronicleMap<K, V> map) throws IOException {
+        long begin = append(SNAPSHOT_BEGIN, null, null);
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            append(SNAPSHOT_PUT, entry.getKey(), entry.getValue());
+        }
+        synchronized (this) {
+            ExcerptAppender a = appender();
+            a.startExcerpt();
+            a.writeByte(SNAPSHOT_END);
+            a.writeLong(begin);
+            a.finish();
+        }
+        slf4jLogger.info("Map snapshot of {} entries journaled at index {}", map.size(), begin);
+        return begin;
+    }
+
+    /**
+     * Replay the whole journal into the specified map, starting from its most recent
+     * complete snapshot, if any. Mutations of the map are not journaled during replay.
+     *
+     * @param map map into which journal is replayed
+     * @return number of records applied
+     * @throws IOException if the journal cannot be read
+     */
+    public long replay(ChronicleMap<K, V> map) throws IOException {
+        return replay(map, Long.MAX_VALUE);
+    }
+
+    /**
+     * Replay the journal into the specified map, up to and including the record at the
+     * specified index, starting from the most recent complete snapshot before it, if any.
+     * Mutations of the map are not journaled during replay.
+     *
+     * @param map map into which journal is replayed
+     * @param toIndex index of last record to replay
+     * @return number of records applied
+     * @throws IOException if the journal cannot be read
+     */
+    public long replay(final ChronicleMap<K, V> map, final long toIndex) throws IOException {
+        final long from = lastSnapshot(toIndex);
+        final AtomicLong applied = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(replayThreads, threadFactory);
+        suspended = true;
+        try {
+            List<Future<?>> futures = new ArrayList<>(replayThreads);
+            for (int s = 0; s < replayThreads; s++) {
+                final int stripe = s;
+                futures.add(executor.submit(() -> {
+                    applied.addAndGet(replayStripe(map, stripe, from, toIndex));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during journal replay", ie);
+        } catch (ExecutionException ee) {
+            throw new IOException("Journal replay failed", ee.getCause());
+        } finally {
+            suspended = false;
+            executor.shutdownNow();
+        }
+        slf4jLogger.info("Replayed {} journal records into map with {} threads", applied.get(), replayThreads);
+        return applied.get();
+    }
+
+    void journal(byte type, K key, V value) {
+        if (suspended) {
+            return;
+        }
+        try {
+            append(type, key, value);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Map mutation could not be journaled", ioe);
+        }
+    }
+
+    private synchronized long append(byte type, K key, V value) throws IOException {
+        ExcerptAppender a = appender();
+        a.startExcerpt();
+        a.writeByte(type);
+        if (null != key) {
+            a.writeInt(key.hashCode());
+            a.writeObject(key);
+            if (REMOVE != type) {
+                a.writeObject(value);
+            }
+        }
+        a.finish();
+        return a.lastWrittenIndex();
+    }
+
+    private ExcerptAppender appender() throws IOException {
+        if (null == appender) {
+            appender = chronicle.createAppender();
+        }
+        return appender;
+    }
+
+    private long lastSnapshot(long toIndex) throws IOException {
+        long begin = NO_INDEX;
+        ExcerptTailer tailer = chronicle.createTailer();
+        try {
+            while (tailer.nextIndex() && tailer.index() <= toIndex) {
+                if (SNAPSHOT_END == tailer.readByte()) {
+                    begin = tailer.readLong();
+                }
+                tailer.finish();
+            }
+        } finally {
+            tailer.close();
+        }
+        return begin;
+    }
+
+    private long replayStripe(ChronicleMap<K, V> map, int stripe, long from, long toIndex) throws IOException {
+        long applied = 0L;
+        boolean inSnapshot = false;
+        Set<K> mutatedInSnapshot = new HashSet<>();
+        ExcerptTailer tailer = chronicle.createTailer();
+        try {
+            if (NO_INDEX != from && tailer.index(from)) {
+                tailer.finish();
+                inSnapshot = true;
+            }
+            while (tailer.nextIndex() && tailer.index() <= toIndex) {
+                byte type = tailer.readByte();
+                if (SNAPSHOT_BEGIN == type || SNAPSHOT_END == type) {
+                    inSnapshot = (SNAPSHOT_BEGIN == type);
+                    mutatedInSnapshot.clear();
+                } else if (stripe == KeyStripes.stripeOfHash(tailer.readInt(), replayThreads)) {
+                    K key = tailer.readObject(keyClass);
+                    if (REMOVE == type) {
+                        map.remove(key);
+                    } else {
+                        V value = tailer.readObject(valueClass);
+                        if (SNAPSHOT_PUT != type) {
+                            map.put(key, value);
+                        } else if (!mutatedInSnapshot.contains(key)) {
+                            map.put(key, value);
+                        }
+                    }
+                    if (inSnapshot && SNAPSHOT_PUT != type) {
+                        mutatedInSnapshot.add(key);
+                    }
+                    applied++;
+                }
+                tailer.finish();
+            }
+        } finally {
+            tailer.close();
+        }
+        return applied;
+    }
+
+    /**
+     * {@code MapEventListener} which journals each put and remove of the observed map.
+     * It is serialized as a binding to its map file, and read back as the listener bound
+     * to that file in {@link MapEventListenerRegistry}.
+     */
+    static final class JournalingMapEventListener<K, V> extends MapEventListener<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ChronicleMapJournal<K, V> journal;
+
+        JournalingMapEventListener(ChronicleMapJournal<K, V> journal) {
+            this.journal = journal;
+        }
+
+        @Override
+        public void onPut(K key, V newValue, V replacedValue, boolean replicationEvent) {
+            journal.journal(PUT, key, newValue);
+        }
+
+        @Override
+        public void onRemove(K key, V value, boolean replicationEvent) {
+            journal.journal(REMOVE, key, null);
+        }
+
+        private Object writeReplace() {
+            return MapEventListenerRegistry.writeReplace(this);
+        }
+
+    }
+
+}
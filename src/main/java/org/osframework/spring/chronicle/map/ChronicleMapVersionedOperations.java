@@ -0,0 +1,175 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Facade of optimistic, versioned operations on a {@code ChronicleMap} configured with
+ * {@link ChronicleMapBuilderBean#setVersioned(boolean) versioned} entries. Each entry
+ * carries a version in its metadata, which is advanced by every put, so a
+ * read-modify-write can read a value with its version, compute a new value without any
+ * lock, and then set it only if the version is unchanged. The compare-and-set compares
+ * one long under the entry's segment write lock, instead of deserializing and comparing
+ * the current value as {@link ChronicleMap#replace(Object, Object, Object)} does.
+ * <p>Version {@code 0} designates an absent entry. Every put takes the next value of a
+ * sequence of the map, which only ever increases, so the versions of a key increase
+ * across removal and re-insertion, and a compare-and-set never succeeds against an entry
+ * re-inserted since its version was read. Versions are kept in the map file, and the
+ * sequence of a persisted map in a file next to it, so both are shared by all processes
+ * mapping it, and survive restarts. As the sequence is shared by all keys, the versions
+ * of a key are not consecutive, and every put takes a compare-and-swap on the sequence.
+ * Values mutated in place, through {@code acquireUsing} or data value interfaces, do not
+ * change the version.</p>
+ * <p>Values set by {@link #compareVersionAndSet(Object, long, Object)} on existing
+ * entries are written by {@link ChronicleMap#putMapped}, which Chronicle Map 2 does not
+ * report to {@code MapEventListener}s; for that reason, a versioned map cannot have an
+ * event listener, secondary indexes, a journal or a change publisher.</p>
+ *
+ * @param <K> Key class of map
+ * @param <V> Value class of map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleMapVersionedOperations<K, V> {
+
+    /**
+     * Thrown, without stack trace, to abort the {@code putMapped} of a compare-and-set
+     * which did not find its expected version.
+     */
+    private static final RuntimeException VERSION_MISMATCH = new IllegalStateException("Entry version mismatch") {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    };
+
+    private final ChronicleMap<K, V> map;
+
+    /**
+     * Create a new facade of the specified versioned map.
+     *
+     * @param map map created with versioned entries
+     */
+    public ChronicleMapVersionedOperations(ChronicleMap<K, V> map) {
+        if (null == map) {
+            throw new IllegalArgumentException("Argument 'map' cannot be null");
+        }
+        this.map = map;
+    }
+
+    /**
+     * Get the value of the specified key with its version, both read under the same
+     * segment read lock.
+     *
+     * @param key key to look up
+     * @return value and version, or {@code null} if the key is absent
+     */
+    public VersionedValue<V> getWithVersion(K key) {
+        EntryVersionListener.resetVersion();
+        V value = map.get(key);
+        return (null == value) ? null : new VersionedValue<>(value, EntryVersionListener.lastVersion());
+    }
+
+    /**
+     * Set the value of the specified key if its entry has the specified version. An
+     * expected version of {@code 0} sets the value only if the key is absent.
+     *
+     * @param key key of entry
+     * @param expectedVersion expected entry version, as returned by {@link #getWithVersion(Object)}
+     * @param newValue value to set
+     * @return {@code true} if the value was set, and the entry version advanced
+     * @throws IllegalArgumentException if expected version is negative
+     */
+    public boolean compareVersionAndSet(K key, long expectedVersion, final V newValue) {
+        if (0L > expectedVersion) {
+            throw new IllegalArgumentException("Expected version cannot be negative");
+        }
+        if (0L == expectedVersion) {
+            return null == map.putIfAbsent(key, newValue);
+        }
+        EntryVersionListener.beginCompareAndSet(expectedVersion);
+        try {
+            map.putMapped(key, v -> {
+                if (!EntryVersionListener.matched()) {
+                    throw VERSION_MISMATCH;
+                }
+                return newValue;
+            });
+            return true;
+        } catch (IllegalStateException e) {
+            // Aborted, or absent key, of which putMapped requires a default value
+            if (VERSION_MISMATCH == e || EntryVersionListener.NO_VERSION == EntryVersionListener.lastVersion()) {
+                return false;
+            }
+            throw e;
+        } finally {
+            EntryVersionListener.endCompareAndSet();
+        }
+    }
+
+    /**
+     * Update the value of the specified key optimistically: read the value and its
+     * version, apply the specified function, and set the result if the version is
+     * unchanged, repeating until it is. The function may be applied more than once, so
+     * must be free of side effects.
+     *
+     * @param key key of entry
+     * @param update function of current value, or of {@code null} if the key is absent,
+     *               to new value
+     * @return new value
+     */
+    public V update(K key, UnaryOperator<V> update) {
+        while (true) {
+            VersionedValue<V> current = getWithVersion(key);
+            V newValue = update.apply((null == current) ? null : current.getValue());
+            if (compareVersionAndSet(key, (null == current) ? 0L : current.getVersion(), newValue)) {
+                return newValue;
+            }
+        }
+    }
+
+    /**
+     * Value of a map entry, with the version of the entry when it was read.
+     *
+     * @param <V> Value class of map
+     */
+    public static final class VersionedValue<V> {
+
+        private final V value;
+        private final long version;
+
+        VersionedValue(V value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+
+        /**
+         * Get the value read.
+         *
+         * @return entry value
+         */
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * Get the version of the entry when its value was read.
+         *
+         * @return entry version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public String toString() {
+            return value + " (version " + version + ")";
+        }
+
+    }
+
+}
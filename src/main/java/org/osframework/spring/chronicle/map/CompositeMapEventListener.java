@@ -0,0 +1,62 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.MapEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code MapEventListener} which fires each event on a fixed list of delegate listeners,
+ * in order. Used by {@link ChronicleMapBuilderBean} when more than one listener must observe
+ * the events of a single map.
+ * <p>The listener is serialized as a binding to its map file, and read back as the
+ * listener bound to that file in {@link MapEventListenerRegistry}, so that the delegate
+ * listeners need not be serializable.</p>
+ *
+ * @param <K> Key class of observed map
+ * @param <V> Value class of observed map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class CompositeMapEventListener<K, V> extends MapEventListener<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<MapEventListener<K, V>> listeners;
+
+    /**
+     * Create a new composite of the specified listeners.
+     *
+     * @param listeners delegate listeners
+     */
+    public CompositeMapEventListener(List<? extends MapEventListener<K, V>> listeners) {
+        this.listeners = new ArrayList<>(listeners);
+    }
+
+    @Override
+    public void onGetFound(K key, V value) {
+        for (MapEventListener<K, V> listener : listeners) {
+            listener.onGetFound(key, value);
+        }
+    }
+
+    @Override
+    public void onPut(K key, V newValue, V replacedValue, boolean replicationEvent) {
+        for (MapEventListener<K, V> listener : listeners) {
+            listener.onPut(key, newValue, replacedValue, replicationEvent);
+        }
+    }
+
+    @Override
+    public void onRemove(K key, V value, boolean replicationEvent) {
+        for (MapEventListener<K, V> listener : listeners) {
+            listener.onRemove(key, value, replicationEvent);
+        }
+    }
+
+    private Object writeReplace() {
+        return MapEventListenerRegistry.writeReplace(this);
+    }
+
+}
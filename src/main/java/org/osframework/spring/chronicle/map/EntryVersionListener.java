@@ -0,0 +1,135 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.BytesMapEventListener;
+import net.openhft.lang.io.Bytes;
+
+/**
+ * {@code BytesMapEventListener} which keeps a version of each map entry in the first 8
+ * bytes of the entry's metadata area. Each put of an entry, under the entry's segment
+ * write lock, sets its version to the next value of the {@link EntryVersionSequence} of
+ * the map, so a key removed and put again does not restart at an earlier version.
+ * <p>The version of each entry found by a get is recorded for the calling thread, so that
+ * {@link ChronicleMapVersionedOperations} can read a value and its version under the same
+ * read lock. A compare-and-set pending on the calling thread is decided here too: the
+ * entry's version is compared with the expected version and, if equal, advanced, all
+ * under the write lock taken by {@code putMapped}.</p>
+ * <p>This class is package private; it is installed by {@link ChronicleMapBuilderBean}
+ * on maps configured as versioned.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class EntryVersionListener extends BytesMapEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of metadata bytes holding the version counter.
+     */
+    static final int VERSION_BYTES = 8;
+
+    /**
+     * Version recorded when no entry was found.
+     */
+    static final long NO_VERSION = -1L;
+
+    private static final int VERSION = 0;
+    private static final int EXPECTED = 1;
+    private static final int MATCHED = 2;
+
+    private static final ThreadLocal<long[]> STATE = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[] { NO_VERSION, NO_VERSION, 0L };
+        }
+    };
+
+    private final BytesMapEventListener delegate;
+    private final EntryVersionSequence sequence;
+
+    EntryVersionListener(BytesMapEventListener delegate, EntryVersionSequence sequence) {
+        this.delegate = delegate;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Reset the version recorded for the calling thread, before a get.
+     */
+    static void resetVersion() {
+        STATE.get()[VERSION] = NO_VERSION;
+    }
+
+    /**
+     * Get the version of the entry last found by a get on the calling thread.
+     *
+     * @return entry version, or {@link #NO_VERSION} if no entry was found
+     */
+    static long lastVersion() {
+        return STATE.get()[VERSION];
+    }
+
+    /**
+     * Begin a compare-and-set of the specified expected version on the calling thread.
+     *
+     * @param expectedVersion expected entry version
+     */
+    static void beginCompareAndSet(long expectedVersion) {
+        long[] state = STATE.get();
+        state[VERSION] = NO_VERSION;
+        state[EXPECTED] = expectedVersion;
+        state[MATCHED] = 0L;
+    }
+
+    /**
+     * Determine whether the compare-and-set pending on the calling thread found its
+     * expected version.
+     *
+     * @return {@code true} if the entry version matched, and has been advanced
+     */
+    static boolean matched() {
+        return 0L != STATE.get()[MATCHED];
+    }
+
+    /**
+     * End the compare-and-set pending on the calling thread.
+     */
+    static void endCompareAndSet() {
+        STATE.get()[EXPECTED] = NO_VERSION;
+    }
+
+    @Override
+    public void onGetFound(Bytes entry, long metaDataPos, long keyPos, long valuePos) {
+        long[] state = STATE.get();
+        long version = entry.readLong(metaDataPos);
+        if (NO_VERSION != state[EXPECTED]) {
+            // Found under the write lock of a pending compare-and-set
+            if (version == state[EXPECTED]) {
+                version = sequence.next();
+                entry.writeLong(metaDataPos, version);
+                state[MATCHED] = 1L;
+            }
+            state[EXPECTED] = NO_VERSION;
+        }
+        state[VERSION] = version;
+        if (null != delegate) {
+            delegate.onGetFound(entry, metaDataPos, keyPos, valuePos);
+        }
+    }
+
+    @Override
+    public void onPut(Bytes entry, long metaDataPos, long keyPos, long valuePos,
+                      boolean added, boolean replicationEvent) {
+        entry.writeLong(metaDataPos, sequence.next());
+        if (null != delegate) {
+            delegate.onPut(entry, metaDataPos, keyPos, valuePos, added, replicationEvent);
+        }
+    }
+
+    @Override
+    public void onRemove(Bytes entry, long metaDataPos, long keyPos, long valuePos, boolean replicationEvent) {
+        if (null != delegate) {
+            delegate.onRemove(entry, metaDataPos, keyPos, valuePos, replicationEvent);
+        }
+    }
+
+}
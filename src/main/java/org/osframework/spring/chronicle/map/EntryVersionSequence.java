@@ -0,0 +1,108 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.lang.io.Bytes;
+import net.openhft.lang.io.BytesStore;
+import net.openhft.lang.io.DirectStore;
+import net.openhft.lang.io.MappedStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequence of the entry versions of a versioned {@code ChronicleMap}, which only ever
+ * increases. Every version written to an entry is taken from the sequence of its map, so
+ * the versions of a key increase across removal and re-insertion of the key, and a
+ * version read before a removal is never found again.
+ * <p>The sequence of a persisted map is a long in a small memory-mapped file, advanced
+ * with compare-and-swap, so it is shared by all processes mapping the map, and survives
+ * restarts. A sequence file created next to an existing map file starts at the current
+ * time in microseconds, above any version the entries of the map can have reached
+ * without it. The sequence of an in-memory map starts at {@code 0}.</p>
+ * <p>Chronicle Map 2.x serializes its event listeners into the header of a persisted
+ * map file, so the sequence is serializable: it is mapped again from its file when read
+ * back.</p>
+ * <p>This class is package private; it is created by {@link ChronicleMapBuilderBean}
+ * for {@link EntryVersionListener}.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class EntryVersionSequence implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long SIZE = 8L;
+
+    private final File file;
+
+    private transient BytesStore store;
+    private transient Bytes bytes;
+
+    /**
+     * Create a new sequence in memory.
+     */
+    EntryVersionSequence() {
+        this.file = null;
+        this.store = DirectStore.allocate(SIZE);
+        this.bytes = store.bytes();
+        this.bytes.zeroOut();
+    }
+
+    /**
+     * Open a sequence persisted to the specified file, creating it if absent.
+     *
+     * @param file sequence file
+     * @param existingMap flag indicating whether the map of the sequence has entries
+     *                    already, so that a new sequence must start above their versions
+     * @throws IOException if file cannot be mapped
+     */
+    EntryVersionSequence(File file, boolean existingMap) throws IOException {
+        this.file = file.getAbsoluteFile();
+        boolean created = !file.isFile() || SIZE > file.length();
+        map();
+        if (created) {
+            bytes.writeOrderedLong(0L, existingMap ? TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) : 0L);
+        }
+    }
+
+    /**
+     * Get the file of the sequence.
+     *
+     * @return sequence file, or {@code null} if in memory
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Take the next value of the sequence.
+     *
+     * @return next version
+     */
+    long next() {
+        while (true) {
+            long version = bytes.readVolatileLong(0L);
+            if (bytes.compareAndSwapLong(0L, version, version + 1L)) {
+                return version + 1L;
+            }
+        }
+    }
+
+    private void map() throws IOException {
+        this.store = new MappedStore(file, FileChannel.MapMode.READ_WRITE, SIZE);
+        this.bytes = store.bytes();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (null == file) {
+            throw new IOException("Sequence of in-memory map cannot be read back");
+        }
+        map();
+    }
+
+}
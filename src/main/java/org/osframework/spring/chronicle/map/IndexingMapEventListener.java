@@ -0,0 +1,48 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.MapEventListener;
+
+import java.util.List;
+
+/**
+ * {@code MapEventListener} which keeps a set of {@link SecondaryIndex}es in sync with
+ * the entries of the observed map. Events for a given key are fired under the lock of
+ * its segment, so index updates for the same key never interleave.
+ * <p>The listener is serialized as a binding to its map file, and read back as the
+ * listener bound to that file in {@link MapEventListenerRegistry}.</p>
+ *
+ * @param <K> Key class of observed map
+ * @param <V> Value class of observed map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class IndexingMapEventListener<K, V> extends MapEventListener<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<SecondaryIndex<K, V, ?>> indexes;
+
+    IndexingMapEventListener(List<SecondaryIndex<K, V, ?>> indexes) {
+        this.indexes = indexes;
+    }
+
+    @Override
+    public void onPut(K key, V newValue, V replacedValue, boolean replicationEvent) {
+        for (SecondaryIndex<K, V, ?> index : indexes) {
+            index.index(key, newValue);
+        }
+    }
+
+    @Override
+    public void onRemove(K key, V value, boolean replicationEvent) {
+        for (SecondaryIndex<K, V, ?> index : indexes) {
+            index.unindex(key);
+        }
+    }
+
+    private Object writeReplace() {
+        return MapEventListenerRegistry.writeReplace(this);
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.lang.io.Bytes;
+import net.openhft.lang.model.Byteable;
+import net.openhft.lang.model.DataValueClasses;
+import net.openhft.lang.values.DoubleValue;
+import net.openhft.lang.values.IntValue;
+
+import java.io.Closeable;
+
+/**
+ * Facade of a {@code ChronicleMap<IntValue, DoubleValue>} with primitive {@code int}
+ * keys and {@code double} values. Keys and values are passed to the map through reusable
+ * data value instances held per thread, so no operation allocates once a thread has made
+ * its first call, and the JIT compiler has compiled the map's hot paths: until then, the
+ * interpreted code of the map allocates temporary objects that compiled code does not.
+ * <p>The underlying map should be built to return {@code null} from its put and remove
+ * operations, as by {@link IntDoubleChronicleMapBuilderBean}; otherwise those operations
+ * allocate the previous value.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class IntDoubleChronicleMap implements Closeable {
+
+    private final ChronicleMap<IntValue, DoubleValue> map;
+    private final ThreadLocal<Refs> refs = ThreadLocal.withInitial(Refs::new);
+
+    /**
+     * Create a new facade of the specified map.
+     *
+     * @param map map of {@code IntValue} keys to {@code DoubleValue} values
+     */
+    public IntDoubleChronicleMap(ChronicleMap<IntValue, DoubleValue> map) {
+        if (null == map) {
+            throw new IllegalArgumentException("Argument 'map' cannot be null");
+        }
+        this.map = map;
+    }
+
+    /**
+     * Get the value mapped to the specified key.
+     *
+     * @param key map key
+     * @return mapped value, or {@code 0.0} if none
+     */
+    public double getDouble(int key) {
+        return getDouble(key, 0.0);
+    }
+
+    /**
+     * Get the value mapped to the specified key.
+     *
+     * @param key map key
+     * @param defaultValue value returned if key is not mapped
+     * @return mapped value, or {@code defaultValue} if none
+     */
+    public double getDouble(int key, double defaultValue) {
+        Refs r = refs.get();
+        r.key.setValue(key);
+        DoubleValue value = map.getUsing(r.key, r.value);
+        return (null != value) ? value.getValue() : defaultValue;
+    }
+
+    /**
+     * Map the specified key to the specified value.
+     *
+     * @param key map key
+     * @param value value to be mapped
+     */
+    public void put(int key, double value) {
+        Refs r = refs.get();
+        r.key.setValue(key);
+        r.value.setValue(value);
+        map.put(r.key, r.value);
+    }
+
+    /**
+     * Atomically add the specified delta to the value mapped to the specified key,
+     * mapping the key to {@code 0.0} first if not mapped.
+     *
+     * @param key map key
+     * @param delta amount to add
+     * @return updated value
+     */
+    public double addAndGet(int key, double delta) {
+        Refs r = refs.get();
+        r.key.setValue(key);
+        map.acquireUsing(r.key, r.direct);
+        // Compare-and-swap on the raw bits: generated addAtomicValue() adds the bits as a long
+        Bytes bytes = ((Byteable)r.direct).bytes();
+        long offset = ((Byteable)r.direct).offset();
+        for (;;) {
+            long bits = bytes.readVolatileLong(offset);
+            double updated = Double.longBitsToDouble(bits) + delta;
+            if (bytes.compareAndSwapLong(offset, bits, Double.doubleToRawLongBits(updated))) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Determine whether the specified key is mapped.
+     *
+     * @param key map key
+     * @return {@code true} if mapped, {@code false} otherwise
+     */
+    public boolean containsKey(int key) {
+        Refs r = refs.get();
+        r.key.setValue(key);
+        return map.containsKey(r.key);
+    }
+
+    /**
+     * Remove the mapping of the specified key, if any.
+     *
+     * @param key map key
+     */
+    public void remove(int key) {
+        Refs r = refs.get();
+        r.key.setValue(key);
+        map.remove(r.key);
+    }
+
+    /**
+     * Get the number of mappings.
+     *
+     * @return mapping count
+     */
+    public long size() {
+        return map.longSize();
+    }
+
+    /**
+     * Get the underlying map.
+     *
+     * @return underlying map
+     */
+    public ChronicleMap<IntValue, DoubleValue> getMap() {
+        return map;
+    }
+
+    @Override
+    public void close() {
+        map.close();
+    }
+
+    /**
+     * Reusable key and value instances of a thread.
+     */
+    private static final class Refs {
+
+        private final IntValue key = DataValueClasses.newInstance(IntValue.class);
+        private final DoubleValue value = DataValueClasses.newInstance(DoubleValue.class);
+        private final DoubleValue direct = DataValueClasses.newDirectReference(DoubleValue.class);
+
+    }
+
+}
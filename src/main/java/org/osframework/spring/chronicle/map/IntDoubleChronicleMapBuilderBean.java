@@ -0,0 +1,38 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.lang.values.DoubleValue;
+import net.openhft.lang.values.IntValue;
+
+/**
+ * {@code FactoryBean} creating an {@link IntDoubleChronicleMap}: a facade with primitive
+ * {@code int} keys and {@code double} values of a
+ * {@code ChronicleMap<IntValue, DoubleValue>}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class IntDoubleChronicleMapBuilderBean
+        extends PrimitiveChronicleMapBuilderBean<IntValue, DoubleValue, IntDoubleChronicleMap> {
+
+    @Override
+    public Class<?> getObjectType() {
+        return IntDoubleChronicleMap.class;
+    }
+
+    @Override
+    protected Class<IntValue> keyClass() {
+        return IntValue.class;
+    }
+
+    @Override
+    protected Class<DoubleValue> valueClass() {
+        return DoubleValue.class;
+    }
+
+    @Override
+    protected IntDoubleChronicleMap wrap(ChronicleMap<IntValue, DoubleValue> map) {
+        return new IntDoubleChronicleMap(map);
+    }
+
+}
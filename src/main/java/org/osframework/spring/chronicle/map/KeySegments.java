@@ -0,0 +1,172 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.hash.serialization.internal.MetaBytesInterop;
+import net.openhft.chronicle.hash.serialization.internal.MetaBytesWriter;
+import net.openhft.chronicle.hash.serialization.internal.MetaProvider;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.lang.threadlocal.Provider;
+import net.openhft.lang.threadlocal.ThreadLocalCopies;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Router of keys to the segments of a {@code ChronicleMap}. The segment of a key is
+ * computed as the map computes it: the key is hashed by the map's own key serialization,
+ * and the hash is split by the map's own segment routing. Chronicle Map 2.x keeps these
+ * package-private, so they are read reflectively from the map implementation, as
+ * {@code ChronicleMemoryRegistry} and {@code ChronicleFileCompactor} read its geometry,
+ * and segment routing is resolved once into a method handle.
+ * Only the routing state is read: no segment lock is taken, and no entry is touched.
+ * <p>If the implementation cannot be read, for example of a {@link ReadOnlyChronicleMap},
+ * keys are routed to a fixed number of stripes by {@link KeyStripes} instead; see
+ * {@link #isSegmentRouted()}.</p>
+ * <p>This class is package private; it is intended only for use by the facades of this
+ * package.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class KeySegments {
+
+    private final int count;
+    private final Provider<Object> keyInteropProvider;
+    private final Object originalKeyInterop;
+    private final MetaProvider<Object, Object, MetaBytesWriter<Object, Object>> metaKeyInteropProvider;
+    private final MetaBytesWriter<Object, Object> originalMetaKeyInterop;
+    private final MethodHandle segmentIndex;
+
+    private KeySegments(int count) {
+        this.count = count;
+        this.keyInteropProvider = null;
+        this.originalKeyInterop = null;
+        this.metaKeyInteropProvider = null;
+        this.originalMetaKeyInterop = null;
+        this.segmentIndex = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private KeySegments(Object map) throws ReflectiveOperationException {
+        this.count = Array.getLength(fieldValue(map, "segments"));
+        this.keyInteropProvider = (Provider<Object>)fieldValue(map, "keyInteropProvider");
+        this.originalKeyInterop = fieldValue(map, "originalKeyInterop");
+        this.metaKeyInteropProvider = (MetaProvider<Object, Object, MetaBytesWriter<Object, Object>>)
+                fieldValue(map, "metaKeyInteropProvider");
+        this.originalMetaKeyInterop = (MetaBytesWriter<Object, Object>)fieldValue(map, "originalMetaKeyInterop");
+        Object hashSplitting = fieldValue(map, "hashSplitting");
+        Method method = ReflectionUtils.findMethod(hashSplitting.getClass(), "segmentIndex", long.class);
+        if (null == method) {
+            throw new NoSuchMethodException("segmentIndex");
+        }
+        ReflectionUtils.makeAccessible(method);
+        this.segmentIndex = MethodHandles.lookup().unreflect(method).bindTo(hashSplitting)
+                .asType(MethodType.methodType(int.class, long.class));
+    }
+
+    /**
+     * Create a router of the keys of the specified map.
+     *
+     * @param map routed map
+     * @param fallbackStripes number of stripes, if the segments of the map cannot be read
+     * @return key router
+     */
+    static KeySegments of(ChronicleMap<?, ?> map, int fallbackStripes) {
+        Object implementation = (map instanceof ProfilingChronicleMap)
+                ? ((ProfilingChronicleMap<?, ?>)map).getMap() : map;
+        try {
+            KeySegments segments = new KeySegments(implementation);
+            // Fail now, rather than on first use, if routing cannot be invoked
+            int segment = (int)segments.segmentIndex.invokeExact(0L);
+            return (0 <= segment && segment < segments.count) ? segments : new KeySegments(fallbackStripes);
+        } catch (Throwable t) {
+            return new KeySegments(fallbackStripes);
+        }
+    }
+
+    /**
+     * Get the number of segments, or of fallback stripes.
+     *
+     * @return segment count
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Determine whether keys are routed to the actual segments of the map, rather than to
+     * fallback stripes.
+     *
+     * @return {@code true} if routed to segments
+     */
+    boolean isSegmentRouted() {
+        return null != segmentIndex;
+    }
+
+    /**
+     * Get the segment of the specified key.
+     *
+     * @param key map key
+     * @return segment index in the range <em>[0..count)</em>
+     */
+    int segmentOf(Object key) {
+        if (null == segmentIndex) {
+            return KeyStripes.stripeOfHash(key.hashCode(), count);
+        }
+        ThreadLocalCopies copies = keyInteropProvider.getCopies(null);
+        Object keyInterop = keyInteropProvider.get(copies, originalKeyInterop);
+        copies = metaKeyInteropProvider.getCopies(copies);
+        @SuppressWarnings("unchecked")
+        MetaBytesInterop<Object, Object> metaKeyInterop = (MetaBytesInterop<Object, Object>)
+                metaKeyInteropProvider.get(copies, originalMetaKeyInterop, keyInterop, key);
+        long hash = metaKeyInterop.hash(keyInterop, key);
+        try {
+            return (int)segmentIndex.invokeExact(hash);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Segment routing of map failed", t);
+        }
+    }
+
+    /**
+     * Order the indexes of the first {@code n} keys of the specified array by segment,
+     * with a counting sort. On return, the indexes of the keys of segment {@code s}
+     * occupy {@code order[bounds[s]]} to {@code order[bounds[s + 1] - 1]}.
+     *
+     * @param keys map keys
+     * @param n number of keys to order
+     * @param order array receiving key indexes, of length at least {@code n}
+     * @param bounds array receiving segment bounds, of length at least {@code count() + 1}
+     */
+    void order(Object[] keys, int n, int[] order, int[] bounds) {
+        Arrays.fill(bounds, 0, count + 1, 0);
+        int[] segmentOfKey = new int[n];
+        for (int i = 0; i < n; i++) {
+            segmentOfKey[i] = segmentOf(keys[i]);
+            bounds[segmentOfKey[i] + 1]++;
+        }
+        for (int s = 0; s < count; s++) {
+            bounds[s + 1] += bounds[s];
+        }
+        int[] next = Arrays.copyOf(bounds, count);
+        for (int i = 0; i < n; i++) {
+            order[next[segmentOfKey[i]]++] = i;
+        }
+    }
+
+    private static Object fieldValue(Object target, String name) throws ReflectiveOperationException {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (null == field) {
+            throw new NoSuchFieldException(name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        return field.get(target);
+    }
+
+}
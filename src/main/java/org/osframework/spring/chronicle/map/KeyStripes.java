@@ -0,0 +1,33 @@
+package org.osframework.spring.chronicle.map;
+
+/**
+ * Helper class for assignment of map keys to a fixed number of <em>stripes</em>, by a
+ * spread of their hash codes. Used to partition keys among workers so that all operations
+ * on a given key are handled by the same worker.
+ * <p>This class is package private; it is intended only for use by the facades of this
+ * package.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class KeyStripes {
+
+    private KeyStripes() {
+    }
+
+    /**
+     * Get the stripe of a key having the specified hash code.
+     *
+     * @param hashCode hash code of map key
+     * @param stripes number of stripes
+     * @return stripe index in the range <em>[0..stripes)</em>
+     */
+    static int stripeOfHash(int hashCode, int stripes) {
+        int h = hashCode;
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return (h & Integer.MAX_VALUE) % stripes;
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.lang.values.LongValue;
+
+/**
+ * {@code FactoryBean} creating a {@link LongLongChronicleMap}: a facade with primitive
+ * {@code long} keys and values of a {@code ChronicleMap<LongValue, LongValue>}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class LongLongChronicleMapBuilderBean
+        extends PrimitiveChronicleMapBuilderBean<LongValue, LongValue, LongLongChronicleMap> {
+
+    @Override
+    public Class<?> getObjectType() {
+        return LongLongChronicleMap.class;
+    }
+
+    @Override
+    protected Class<LongValue> keyClass() {
+        return LongValue.class;
+    }
+
+    @Override
+    protected Class<LongValue> valueClass() {
+        return LongValue.class;
+    }
+
+    @Override
+    protected LongLongChronicleMap wrap(ChronicleMap<LongValue, LongValue> map) {
+        return new LongLongChronicleMap(map);
+    }
+
+}
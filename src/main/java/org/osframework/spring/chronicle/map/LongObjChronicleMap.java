@@ -0,0 +1,122 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.lang.model.DataValueClasses;
+import net.openhft.lang.values.LongValue;
+
+import java.io.Closeable;
+
+/**
+ * Facade of a {@code ChronicleMap<LongValue, V>} with primitive {@code long} keys. Keys
+ * are passed to the map through a reusable data value instance held per thread, so keys
+ * are never boxed. {@link #getUsing(long, Object)} reads values into a caller-supplied
+ * instance, so maps of reusable value types allocate nothing per lookup, once the JIT
+ * compiler has compiled the map's hot paths.
+ * <p>The underlying map should be built to return {@code null} from its put and remove
+ * operations, as by {@link LongObjChronicleMapBuilderBean}; otherwise those operations
+ * allocate the previous value.</p>
+ *
+ * @param <V> Value class of map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class LongObjChronicleMap<V> implements Closeable {
+
+    private final ChronicleMap<LongValue, V> map;
+    private final ThreadLocal<LongValue> keys = ThreadLocal.withInitial(() -> DataValueClasses.newInstance(LongValue.class));
+
+    /**
+     * Create a new facade of the specified map.
+     *
+     * @param map map of {@code LongValue} keys
+     */
+    public LongObjChronicleMap(ChronicleMap<LongValue, V> map) {
+        if (null == map) {
+            throw new IllegalArgumentException("Argument 'map' cannot be null");
+        }
+        this.map = map;
+    }
+
+    /**
+     * Get the value mapped to the specified key, as a new instance.
+     *
+     * @param key map key
+     * @return mapped value, or {@code null} if none
+     */
+    public V get(long key) {
+        return map.get(key(key));
+    }
+
+    /**
+     * Get the value mapped to the specified key, read into the specified instance if
+     * possible.
+     *
+     * @param key map key
+     * @param using instance into which value is read
+     * @return mapped value, or {@code null} if none
+     * @see ChronicleMap#getUsing(Object, Object)
+     */
+    public V getUsing(long key, V using) {
+        return map.getUsing(key(key), using);
+    }
+
+    /**
+     * Map the specified key to the specified value.
+     *
+     * @param key map key
+     * @param value value to be mapped
+     */
+    public void put(long key, V value) {
+        map.put(key(key), value);
+    }
+
+    /**
+     * Determine whether the specified key is mapped.
+     *
+     * @param key map key
+     * @return {@code true} if mapped, {@code false} otherwise
+     */
+    public boolean containsKey(long key) {
+        return map.containsKey(key(key));
+    }
+
+    /**
+     * Remove the mapping of the specified key, if any.
+     *
+     * @param key map key
+     */
+    public void remove(long key) {
+        map.remove(key(key));
+    }
+
+    /**
+     * Get the number of mappings.
+     *
+     * @return mapping count
+     */
+    public long size() {
+        return map.longSize();
+    }
+
+    /**
+     * Get the underlying map.
+     *
+     * @return underlying map
+     */
+    public ChronicleMap<LongValue, V> getMap() {
+        return map;
+    }
+
+    @Override
+    public void close() {
+        map.close();
+    }
+
+    private LongValue key(long key) {
+        LongValue k = keys.get();
+        k.setValue(key);
+        return k;
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.lang.values.LongValue;
+
+/**
+ * {@code FactoryBean} creating a {@link LongObjChronicleMap}: a facade with primitive
+ * {@code long} keys of a {@code ChronicleMap<LongValue, V>}.
+ *
+ * @param <V> Value class of map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class LongObjChronicleMapBuilderBean<V>
+        extends PrimitiveChronicleMapBuilderBean<LongValue, V, LongObjChronicleMap<V>> {
+
+    private Class<V> valueClass = null;
+
+    /**
+     * Set value class of the map.
+     *
+     * @param valueClass map value class
+     */
+    public void setValueClass(Class<V> valueClass) {
+        this.valueClass = valueClass;
+    }
+
+    /**
+     * Set the average number of bytes taken by serialized form of values.
+     *
+     * @param averageValueSize average number of bytes, taken by serialized form of values
+     * @see ChronicleMapBuilderBean#setAverageValueSize(double)
+     */
+    public void setAverageValueSize(double averageValueSize) {
+        getDelegate().setAverageValueSize(averageValueSize);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (null == valueClass) {
+            throw new IllegalStateException("Map value class must be specified prior to ChronicleMap construction");
+        }
+        super.afterPropertiesSet();
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return LongObjChronicleMap.class;
+    }
+
+    @Override
+    protected Class<LongValue> keyClass() {
+        return LongValue.class;
+    }
+
+    @Override
+    protected Class<V> valueClass() {
+        return valueClass;
+    }
+
+    @Override
+    protected LongObjChronicleMap<V> wrap(ChronicleMap<LongValue, V> map) {
+        return new LongObjChronicleMap<>(map);
+    }
+
+}
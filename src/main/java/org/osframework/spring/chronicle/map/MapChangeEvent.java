@@ -0,0 +1,83 @@
+package org.osframework.spring.chronicle.map;
+
+/**
+ * Change of an entry of a {@code ChronicleMap}, as published by a
+ * {@link ChronicleMapChangePublisher}.
+ *
+ * @param <K> Key class of changed map
+ * @param <V> Value class of changed map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class MapChangeEvent<K, V> {
+
+    /**
+     * Type of entry change.
+     */
+    public enum Type {
+        /**
+         * Entry put, either inserted or replaced.
+         */
+        PUT,
+        /**
+         * Entry removed.
+         */
+        REMOVE
+    }
+
+    private final Type type;
+    private final K key;
+    private final V value;
+    private final boolean replicated;
+
+    MapChangeEvent(Type type, K key, V value, boolean replicated) {
+        this.type = type;
+        this.key = key;
+        this.value = value;
+        this.replicated = replicated;
+    }
+
+    /**
+     * Get the type of this change.
+     *
+     * @return change type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the key of the changed entry.
+     *
+     * @return entry key
+     */
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * Get the value of the changed entry: the new value of a put, or the removed value
+     * of a remove.
+     *
+     * @return entry value
+     */
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Determine whether this change was received from a remote replica of the map.
+     *
+     * @return {@code true} if a replicated change, {@code false} if a local change
+     */
+    public boolean isReplicated() {
+        return replicated;
+    }
+
+    @Override
+    public String toString() {
+        return type + (replicated ? " (replicated) " : " ") + key + "=" + value;
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.MapEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the live event listeners of persisted maps, by map file. Chronicle Map 2.x
+ * serializes the event listener of a persisted map into the header of its file and, when
+ * the file is opened again, uses the listener read back from the header instead of the
+ * listener of the builder. The listeners of this package hold live state, such as
+ * secondary indexes, a journal, a publisher or a dispatcher thread, which cannot be
+ * serialized: each of them is therefore written as a {@link Binding} to its map file,
+ * which is read back as the listener bound to that file in this registry, by the builder
+ * bean opening it.
+ * <p>A binding read back when no listener is bound to its file, for example when the
+ * file is opened by another tool, resolves to a listener which ignores all events.</p>
+ * <p>This class is package private; it is intended only for use by
+ * {@link ChronicleMapBuilderBean} and the listeners of this package.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class MapEventListenerRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MapEventListenerRegistry.class);
+
+    private static final ConcurrentMap<String, MapEventListener<?, ?>> LISTENERS = new ConcurrentHashMap<>();
+
+    private MapEventListenerRegistry() {}
+
+    /**
+     * Bind the specified listener to the specified map file, replacing any listener bound
+     * to it.
+     *
+     * @param file map file
+     * @param listener live event listener of the map
+     * @throws IOException if the canonical path of the file cannot be resolved
+     */
+    static void bind(File file, MapEventListener<?, ?> listener) throws IOException {
+        LISTENERS.put(file.getCanonicalPath(), listener);
+    }
+
+    /**
+     * Unbind the specified listener from the specified map file, if still bound to it.
+     *
+     * @param file map file
+     * @param listener live event listener of the map
+     * @throws IOException if the canonical path of the file cannot be resolved
+     */
+    static void unbind(File file, MapEventListener<?, ?> listener) throws IOException {
+        LISTENERS.remove(file.getCanonicalPath(), listener);
+    }
+
+    /**
+     * Get the serialized form of the specified listener: a binding to the map file to
+     * which it is bound, if any.
+     *
+     * @param listener live event listener
+     * @return binding of the listener
+     */
+    static Object writeReplace(MapEventListener<?, ?> listener) {
+        for (Map.Entry<String, MapEventListener<?, ?>> entry : LISTENERS.entrySet()) {
+            if (listener == entry.getValue()) {
+                return new Binding(entry.getKey());
+            }
+        }
+        return new Binding(null);
+    }
+
+    /**
+     * Serialized form of a live event listener, read back as the listener bound to its
+     * map file.
+     */
+    private static final class Binding implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String file;
+
+        private Binding(String file) {
+            this.file = file;
+        }
+
+        private Object readResolve() {
+            MapEventListener<?, ?> listener = (null == file) ? null : LISTENERS.get(file);
+            if (null == listener) {
+                LOGGER.warn("No event listener bound to map file {}; its events are ignored", file);
+                return new UnboundMapEventListener<>();
+            }
+            return listener;
+        }
+
+    }
+
+    /**
+     * Listener of a map whose file has no bound listener, which ignores all events.
+     */
+    private static final class UnboundMapEventListener<K, V> extends MapEventListener<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+    }
+
+}
@@ -0,0 +1,146 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.config.AbstractFactoryBean;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+
+/**
+ * Abstract superclass of {@code FactoryBean} classes creating primitive-specialized
+ * facades of {@code ChronicleMap}s of data value types. The underlying map is built by a
+ * {@link ChronicleMapBuilderBean} configured by this object, with the key and value
+ * classes of the facade, and with put and remove operations returning {@code null}, so
+ * that they do not allocate.
+ *
+ * @param <K> Key class of underlying map
+ * @param <V> Value class of underlying map
+ * @param <T> Type of facade
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public abstract class PrimitiveChronicleMapBuilderBean<K, V, T> extends AbstractFactoryBean<T>
+        implements BeanNameAware {
+
+    private final ChronicleMapBuilderBean<K, V> delegate = new ChronicleMapBuilderBean<>();
+
+    /**
+     * Set maximum number of entries contained by the map.
+     *
+     * @param maxEntries maximum number of map entries
+     */
+    public final void setMaxEntries(long maxEntries) {
+        delegate.setMaxEntries(maxEntries);
+    }
+
+    /**
+     * Set minimum number of segments of the map.
+     *
+     * @param minSegments minimum number of segments
+     */
+    public final void setMinSegments(int minSegments) {
+        delegate.setMinSegments(minSegments);
+    }
+
+    /**
+     * Set actual number of segments of the map.
+     *
+     * @param actualSegments actual number of segments
+     */
+    public final void setActualSegments(int actualSegments) {
+        delegate.setActualSegments(actualSegments);
+    }
+
+    /**
+     * Set filesystem location at which the map entries are persisted off-heap.
+     *
+     * @param persistedTo off-heap entry storage filesystem location
+     */
+    public final void setPersistedTo(Resource persistedTo) {
+        delegate.setPersistedTo(persistedTo);
+    }
+
+    /**
+     * Set filesystem location at which the map entries are persisted off-heap.
+     *
+     * @param persistedTo off-heap entry storage filesystem location
+     */
+    public final void setPersistedTo(File persistedTo) {
+        delegate.setPersistedTo(persistedTo);
+    }
+
+    @Override
+    public void setBeanName(String name) {
+        delegate.setBeanName(name);
+    }
+
+    /**
+     * Get the builder bean of the underlying map, for settings not exposed by this object.
+     *
+     * @return underlying map builder bean
+     */
+    protected final ChronicleMapBuilderBean<K, V> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation configures the key and value classes of the
+     * underlying map, and initializes its builder bean.</p>
+     *
+     * @throws Exception if any validation fails
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        delegate.setKeyClass(keyClass());
+        delegate.setValueClass(valueClass());
+        delegate.setPutReturnsNull(true);
+        delegate.setRemoveReturnsNull(true);
+        delegate.afterPropertiesSet();
+        super.afterPropertiesSet();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation creates the underlying map, and wraps it in a
+     * facade.</p>
+     */
+    @Override
+    protected T createInstance() throws Exception {
+        return wrap(delegate.getObject());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation destroys the builder bean of the underlying map.</p>
+     */
+    @Override
+    protected void destroyInstance(T instance) throws Exception {
+        delegate.destroy();
+    }
+
+    /**
+     * Get the key class of the underlying map.
+     *
+     * @return map key class
+     */
+    protected abstract Class<K> keyClass();
+
+    /**
+     * Get the value class of the underlying map.
+     *
+     * @return map value class
+     */
+    protected abstract Class<V> valueClass();
+
+    /**
+     * Wrap the underlying map in a facade.
+     *
+     * @param map underlying map
+     * @return map facade
+     */
+    protected abstract T wrap(ChronicleMap<K, V> map);
+
+}
@@ -0,0 +1,280 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.*;
+import org.osframework.spring.chronicle.KeyAccessProfiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code ChronicleMap} which records the key accesses of a delegate map with a
+ * {@link KeyAccessProfiler}. Bulk and iteration methods are delegated unprofiled.
+ *
+ * @param <K> Key class of the map
+ * @param <V> Value class of the map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class ProfilingChronicleMap<K, V> implements ChronicleMap<K, V> {
+
+    private final ChronicleMap<K, V> map;
+    private final KeyAccessProfiler profiler;
+
+    ProfilingChronicleMap(ChronicleMap<K, V> map, KeyAccessProfiler profiler) {
+        this.map = map;
+        this.profiler = profiler;
+    }
+
+    KeyAccessProfiler getProfiler() {
+        return profiler;
+    }
+
+    ChronicleMap<K, V> getMap() {
+        return map;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        long start = profiler.start();
+        try {
+            return map.containsKey(key);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        long start = profiler.start();
+        try {
+            return map.get(key);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public V getUsing(K key, V usingValue) {
+        long start = profiler.start();
+        try {
+            return map.getUsing(key, usingValue);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public ReadContext<K, V> getUsingLocked(K key, V usingValue) {
+        long start = profiler.start();
+        try {
+            return map.getUsingLocked(key, usingValue);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public <R> R getMapped(K key, Function<? super V, R> function) {
+        long start = profiler.start();
+        try {
+            return map.getMapped(key, function);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        long start = profiler.start();
+        try {
+            return map.put(key, value);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        long start = profiler.start();
+        try {
+            return map.putIfAbsent(key, value);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public V putMapped(K key, UnaryOperator<V> unaryOperator) {
+        long start = profiler.start();
+        try {
+            return map.putMapped(key, unaryOperator);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public V acquireUsing(K key, V usingValue) {
+        long start = profiler.start();
+        try {
+            return map.acquireUsing(key, usingValue);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public WriteContext<K, V> acquireUsingLocked(K key, V usingValue) {
+        long start = profiler.start();
+        try {
+            return map.acquireUsingLocked(key, usingValue);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        long start = profiler.start();
+        try {
+            return map.remove(key);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        long start = profiler.start();
+        try {
+            return map.remove(key, value);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        long start = profiler.start();
+        try {
+            return map.replace(key, oldValue, newValue);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        long start = profiler.start();
+        try {
+            return map.replace(key, value);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public long longSize() {
+        return map.longSize();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return map.containsValue(value);
+    }
+
+    @Override
+    public void getAll(File toFile) throws IOException {
+        map.getAll(toFile);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        map.putAll(m);
+    }
+
+    @Override
+    public void putAll(File fromFile) throws IOException {
+        map.putAll(fromFile);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return map.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return map.values();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return map.entrySet();
+    }
+
+    @Override
+    public V newValueInstance() {
+        return map.newValueInstance();
+    }
+
+    @Override
+    public K newKeyInstance() {
+        return map.newKeyInstance();
+    }
+
+    @Override
+    public Class<K> keyClass() {
+        return map.keyClass();
+    }
+
+    @Override
+    public Class<V> valueClass() {
+        return map.valueClass();
+    }
+
+    @Override
+    public File file() {
+        return map.file();
+    }
+
+    @Override
+    public void close() {
+        map.close();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return (this == o) || map.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+
+}
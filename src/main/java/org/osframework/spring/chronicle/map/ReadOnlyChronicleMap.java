@@ -0,0 +1,494 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only view of a {@code ChronicleMap} mapped from a compiled reference data file.
+ * All mutator methods throw {@link UnsupportedOperationException}; query methods delegate
+ * to the currently mapped generation of the file.
+ * <p>The source file may be a symbolic link (or any path whose canonical location changes
+ * over time), such as the link maintained by {@link ChronicleMapCompiler}. Invoking
+ * {@link #refresh()} re-resolves the source path and, if it now designates a different
+ * file, maps the new generation and atomically switches all subsequent reads to it.</p>
+ * <p>Generations are reference counted: every query holds its generation for its
+ * duration, and a generation is unmapped only when it has been retired and no query
+ * holds it, so reads in flight during a switch never touch unmapped memory. A switch
+ * retires the generation before the one it replaces, so the iterators of the
+ * {@link #keySet()}, {@link #values()} and {@link #entrySet()} views, which read the
+ * generation current when they were created, survive one switch. An iterator whose
+ * generation has been unmapped throws {@link IllegalStateException}. A
+ * {@link ReadContext} holds its generation until it is closed.</p>
+ *
+ * @param <K> Key class of the map
+ * @param <V> Value class of the map
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ * @see ChronicleMapCompiler
+ */
+public class ReadOnlyChronicleMap<K, V> implements ChronicleMap<K, V> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadOnlyChronicleMap.class);
+
+    private final File source;
+    private final ChronicleMapBuilder<K, V> builder;
+
+    private volatile Generation<K, V> current;
+    private Generation<K, V> previous = null;
+
+    /**
+     * Create a new read-only map of the specified compiled file. The file is mapped
+     * immediately.
+     *
+     * @param source compiled map file, or symbolic link to it
+     * @param builder builder used to map each generation of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public ReadOnlyChronicleMap(File source, ChronicleMapBuilder<K, V> builder) throws IOException {
+        if (null == source) {
+            throw new IllegalArgumentException("Argument 'source' cannot be null");
+        }
+        if (null == builder) {
+            throw new IllegalArgumentException("Argument 'builder' cannot be null");
+        }
+        this.source = source;
+        this.builder = builder;
+        this.current = open(resolve());
+    }
+
+    /**
+     * Re-resolve the source path of this map and switch to the generation it now designates,
+     * if that differs from the currently mapped generation.
+     *
+     * @return true if this map switched to a new generation, false otherwise
+     * @throws IOException if the new generation cannot be mapped
+     */
+    public synchronized boolean refresh() throws IOException {
+        File resolved = resolve();
+        if (resolved.equals(current.file)) {
+            return false;
+        }
+        Generation<K, V> next = open(resolved);
+        if (null != previous) {
+            previous.release();
+        }
+        previous = current;
+        current = next;
+        LOGGER.info("Switched read-only map from {} to {}", previous.file, next.file);
+        return true;
+    }
+
+    /**
+     * Get the file currently mapped by this object.
+     *
+     * @return canonical location of the currently mapped generation
+     */
+    public File getCurrentFile() {
+        return current.file;
+    }
+
+    private File resolve() throws IOException {
+        return source.toPath().toRealPath().toFile();
+    }
+
+    private Generation<K, V> open(File file) throws IOException {
+        return new Generation<>(file, builder.createPersistedTo(file));
+    }
+
+    /**
+     * Acquire the current generation, for the duration of a query.
+     */
+    private Generation<K, V> acquire() {
+        while (true) {
+            Generation<K, V> generation = current;
+            if (generation.acquire()) {
+                return generation;
+            }
+            if (generation == current) {
+                throw new IllegalStateException("Map mapped from " + source + " is closed");
+            }
+        }
+    }
+
+    private <R> R read(java.util.function.Function<? super ChronicleMap<K, V>, R> query) {
+        Generation<K, V> generation = acquire();
+        try {
+            return query.apply(generation.map);
+        } finally {
+            generation.release();
+        }
+    }
+
+    @Override
+    public long longSize() {
+        return read(ChronicleMap::longSize);
+    }
+
+    @Override
+    public int size() {
+        return read(Map::size);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return read(Map::isEmpty);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return read(m -> m.containsKey(key));
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return read(m -> m.containsValue(value));
+    }
+
+    @Override
+    public V get(Object key) {
+        return read(m -> m.get(key));
+    }
+
+    @Override
+    public V getUsing(K key, V usingValue) {
+        return read(m -> m.getUsing(key, usingValue));
+    }
+
+    @Override
+    public ReadContext<K, V> getUsingLocked(K key, V usingValue) {
+        Generation<K, V> generation = acquire();
+        try {
+            return new GenerationReadContext<>(generation, generation.map.getUsingLocked(key, usingValue));
+        } catch (RuntimeException | Error e) {
+            generation.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public <R> R getMapped(K key, Function<? super V, R> function) {
+        return read(m -> m.getMapped(key, function));
+    }
+
+    @Override
+    public void getAll(File toFile) throws IOException {
+        Generation<K, V> generation = acquire();
+        try {
+            generation.map.getAll(toFile);
+        } finally {
+            generation.release();
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new GenerationIterator<>(acquire(), m -> m.keySet().iterator());
+            }
+
+            @Override
+            public int size() {
+                return ReadOnlyChronicleMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new GenerationIterator<>(acquire(), m -> m.values().iterator());
+            }
+
+            @Override
+            public int size() {
+                return ReadOnlyChronicleMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new GenerationIterator<Entry<K, V>, K, V>(acquire(), m -> m.entrySet().iterator()) {
+                    @Override
+                    Entry<K, V> element(Entry<K, V> entry) {
+                        return new AbstractMap.SimpleImmutableEntry<>(entry);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ReadOnlyChronicleMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public V newValueInstance() {
+        return read(ChronicleMap::newValueInstance);
+    }
+
+    @Override
+    public K newKeyInstance() {
+        return read(ChronicleMap::newKeyInstance);
+    }
+
+    @Override
+    public Class<K> keyClass() {
+        return read(ChronicleMap::keyClass);
+    }
+
+    @Override
+    public Class<V> valueClass() {
+        return read(ChronicleMap::valueClass);
+    }
+
+    @Override
+    public File file() {
+        return current.file;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (null != previous) {
+            previous.release();
+            previous = null;
+        }
+        current.release();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw readOnly();
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        throw readOnly();
+    }
+
+    @Override
+    public void putAll(File fromFile) throws IOException {
+        throw readOnly();
+    }
+
+    @Override
+    public V putMapped(K key, UnaryOperator<V> unaryOperator) {
+        throw readOnly();
+    }
+
+    @Override
+    public V acquireUsing(K key, V usingValue) {
+        throw readOnly();
+    }
+
+    @Override
+    public WriteContext<K, V> acquireUsingLocked(K key, V usingValue) {
+        throw readOnly();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        throw readOnly();
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return (this == o) || read(m -> m.equals(o));
+    }
+
+    @Override
+    public int hashCode() {
+        return read(Map::hashCode);
+    }
+
+    @Override
+    public String toString() {
+        return read(Map::toString);
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Map mapped from " + source + " is read-only");
+    }
+
+    /**
+     * Pairs a mapped map with the canonical location of the file it maps, and counts its
+     * holders: the map itself until the generation is retired, and every query and
+     * iterator reading it. The map is closed when the count drops to zero.
+     */
+    private static final class Generation<K, V> {
+
+        private final File file;
+        private final ChronicleMap<K, V> map;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Generation(File file, ChronicleMap<K, V> map) {
+            this.file = file;
+            this.map = map;
+        }
+
+        private boolean acquire() {
+            while (true) {
+                int n = references.get();
+                if (0 == n) {
+                    return false;
+                }
+                if (references.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            if (0 == references.decrementAndGet()) {
+                map.close();
+            }
+        }
+
+    }
+
+    /**
+     * Iterator of a view of a generation, which holds its generation for the duration of
+     * each step, and fails if the generation has been unmapped.
+     */
+    private static class GenerationIterator<E, K, V> implements Iterator<E> {
+
+        private final Generation<K, V> generation;
+        private final Iterator<E> iterator;
+
+        private GenerationIterator(Generation<K, V> generation,
+                                   java.util.function.Function<ChronicleMap<K, V>, Iterator<E>> view) {
+            this.generation = generation;
+            try {
+                this.iterator = view.apply(generation.map);
+            } finally {
+                generation.release();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            acquire();
+            try {
+                return iterator.hasNext();
+            } finally {
+                generation.release();
+            }
+        }
+
+        @Override
+        public E next() {
+            acquire();
+            try {
+                return element(iterator.next());
+            } finally {
+                generation.release();
+            }
+        }
+
+        E element(E e) {
+            return e;
+        }
+
+        private void acquire() {
+            if (!generation.acquire()) {
+                throw new IllegalStateException("Generation " + generation.file + " of map has been unmapped");
+            }
+        }
+
+    }
+
+    /**
+     * Read context which holds its generation until it is closed.
+     */
+    private static final class GenerationReadContext<K, V> implements ReadContext<K, V> {
+
+        private final Generation<K, V> generation;
+        private final ReadContext<K, V> context;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private GenerationReadContext(Generation<K, V> generation, ReadContext<K, V> context) {
+            this.generation = generation;
+            this.context = context;
+        }
+
+        @Override
+        public boolean present() {
+            return context.present();
+        }
+
+        @Override
+        public K key() {
+            return context.key();
+        }
+
+        @Override
+        public V value() {
+            return context.value();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                try {
+                    context.close();
+                } finally {
+                    generation.release();
+                }
+            }
+        }
+
+    }
+
+}
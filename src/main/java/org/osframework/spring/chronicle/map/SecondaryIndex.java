@@ -0,0 +1,133 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.ChronicleStreams;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index of the entries of a {@code ChronicleMap} by a field of their values.
+ * An index maps each distinct field value, as computed by its <em>extractor</em> function,
+ * to the set of keys of entries having that field value, so that queries by indexed field
+ * are lookups rather than scans of the whole map.
+ * <p>Register indexes with {@link ChronicleMapBuilderBean#setSecondaryIndexes(SecondaryIndex[])};
+ * the builder bean keeps them in sync with its map through a {@code MapEventListener},
+ * and rebuilds them in parallel from the existing entries of a persisted map at startup.
+ * An index instance should be registered with a single, singleton-scope map.</p>
+ * <p>Entries whose extracted field value is {@code null} are not indexed.</p>
+ *
+ * @param <K> Key class of indexed map
+ * @param <V> Value class of indexed map
+ * @param <F> Type of indexed field
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class SecondaryIndex<K, V, F> {
+
+    private final String name;
+    private final Function<? super V, ? extends F> extractor;
+
+    private final ConcurrentMap<F, Set<K>> keysByField = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, F> fieldsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new secondary index.
+     *
+     * @param name name of this index
+     * @param extractor function which extracts the indexed field from a map value
+     */
+    public SecondaryIndex(String name, Function<? super V, ? extends F> extractor) {
+        if (null == name || null == extractor) {
+            throw new IllegalArgumentException("Index name and extractor cannot be null");
+        }
+        this.name = name;
+        this.extractor = extractor;
+    }
+
+    /**
+     * Get name of this index.
+     *
+     * @return index name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get keys of all map entries having the specified indexed field value.
+     *
+     * @param field indexed field value
+     * @return unmodifiable view of matching keys, empty if none
+     */
+    public Set<K> lookup(F field) {
+        Set<K> keys = (null == field) ? null : keysByField.get(field);
+        return (null == keys) ? Collections.<K>emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Get number of distinct indexed field values.
+     *
+     * @return number of distinct field values
+     */
+    public int size() {
+        return keysByField.size();
+    }
+
+    /**
+     * Discard all contents of this index and rebuild them, in parallel, from the entries
+     * of the specified map.
+     *
+     * @param map indexed map
+     */
+    public void rebuild(ChronicleMap<K, V> map) {
+        clear();
+        ChronicleStreams.parallelStream(map).forEach(e -> index(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Index the specified map entry, replacing any previous indexing of its key.
+     *
+     * @param key entry key
+     * @param value entry value
+     */
+    void index(K key, V value) {
+        F field = (null == value) ? null : extractor.apply(value);
+        F previous = (null == field) ? fieldsByKey.remove(key) : fieldsByKey.put(key, field);
+        if (null != previous && !previous.equals(field)) {
+            removeKey(previous, key);
+        }
+        if (null != field) {
+            keysByField.computeIfAbsent(field, f -> ConcurrentHashMap.<K>newKeySet()).add(key);
+        }
+    }
+
+    /**
+     * Remove the specified key from this index.
+     *
+     * @param key entry key
+     */
+    void unindex(K key) {
+        F previous = fieldsByKey.remove(key);
+        if (null != previous) {
+            removeKey(previous, key);
+        }
+    }
+
+    void clear() {
+        keysByField.clear();
+        fieldsByKey.clear();
+    }
+
+    private void removeKey(F field, K key) {
+        keysByField.computeIfPresent(field, (f, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+}
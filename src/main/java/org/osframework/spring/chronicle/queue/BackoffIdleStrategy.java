@@ -0,0 +1,68 @@
+package org.osframework.spring.chronicle.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@code IdleStrategy} which progressively backs off while polls do no work: first
+ * spinning, then yielding, and finally parking for exponentially increasing periods,
+ * up to a maximum. Any poll which does work resets the backoff.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class BackoffIdleStrategy implements IdleStrategy {
+
+    private final long maxSpins;
+    private final long maxYields;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+
+    private long spins = 0L;
+    private long yields = 0L;
+    private long parkNanos;
+
+    /**
+     * Create a new strategy spinning 100 times, yielding 100 times, then parking from 1
+     * microsecond up to 1 millisecond.
+     */
+    public BackoffIdleStrategy() {
+        this(100L, 100L, 1000L, 1000000L);
+    }
+
+    /**
+     * Create a new strategy.
+     *
+     * @param maxSpins number of idle polls to spin for
+     * @param maxYields number of idle polls to yield for, after spinning
+     * @param minParkNanos initial park period, after yielding
+     * @param maxParkNanos maximum park period
+     */
+    public BackoffIdleStrategy(long maxSpins, long maxYields, long minParkNanos, long maxParkNanos) {
+        if (0L > maxSpins || 0L > maxYields || 0L >= minParkNanos || minParkNanos > maxParkNanos) {
+            throw new IllegalArgumentException("Invalid backoff parameters");
+        }
+        this.maxSpins = maxSpins;
+        this.maxYields = maxYields;
+        this.minParkNanos = minParkNanos;
+        this.maxParkNanos = maxParkNanos;
+        this.parkNanos = minParkNanos;
+    }
+
+    @Override
+    public void idle(int workCount) {
+        if (0 < workCount) {
+            spins = 0L;
+            yields = 0L;
+            parkNanos = minParkNanos;
+        } else if (spins < maxSpins) {
+            spins++;
+        } else if (yields < maxYields) {
+            yields++;
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+        }
+    }
+
+}
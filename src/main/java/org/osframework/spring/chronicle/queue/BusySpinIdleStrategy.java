@@ -0,0 +1,17 @@
+package org.osframework.spring.chronicle.queue;
+
+/**
+ * {@code IdleStrategy} which never yields the CPU. Gives the lowest possible handoff
+ * latency, at the cost of fully occupying a core; best combined with a pinned thread.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class BusySpinIdleStrategy implements IdleStrategy {
+
+    @Override
+    public void idle(int workCount) {
+        // Spin
+    }
+
+}
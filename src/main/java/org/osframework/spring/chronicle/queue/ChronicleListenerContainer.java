@@ -0,0 +1,292 @@
+package org.osframework.spring.chronicle.queue;
+
+import net.openhft.chronicle.Chronicle;
+import net.openhft.chronicle.ExcerptTailer;
+import org.osframework.spring.chronicle.ChronicleThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Container which delivers the excerpts of a Chronicle Queue to a listener, on a
+ * dedicated thread. The container polls an {@code ExcerptTailer} in a loop, delivering
+ * up to {@code batchSize} excerpts per poll, and waits between polls according to its
+ * {@link IdleStrategy}.
+ * <p>The delegate is either an {@link ExcerptListener}, or any object having a single
+ * method annotated with {@link ExcerptHandler}.</p>
+ * <p>If a {@link ReadPositionStore} is set, the index of the last excerpt of each batch
+ * is stored once the batch has been delivered, and the container resumes from the
+ * following excerpt when restarted. Delivery is <em>at least once</em>: excerpts of a
+ * batch interrupted by a crash are delivered again on restart.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleListenerContainer implements InitializingBean, DisposableBean, BeanNameAware {
+
+    /**
+     * Default maximum number of excerpts delivered per poll.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(5L);
+
+    protected final Logger slf4jLogger;
+
+    private Chronicle chronicle = null;
+    private ExcerptListener listener = null;
+    private IdleStrategy idleStrategy = null;
+    private ReadPositionStore readPositionStore = null;
+    private ThreadFactory threadFactory = null;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean autoStartup = true;
+    private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+    private String beanName = ChronicleListenerContainer.class.getSimpleName();
+
+    private volatile boolean running = false;
+    private Thread consumer = null;
+
+    public ChronicleListenerContainer() {
+        super();
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    /**
+     * Set the queue from which excerpts are consumed.
+     *
+     * @param chronicle source queue
+     */
+    public final void setChronicle(Chronicle chronicle) {
+        this.chronicle = chronicle;
+    }
+
+    /**
+     * Set the object to which excerpts are delivered: either an {@code ExcerptListener},
+     * or an object having a single {@code ExcerptHandler} method.
+     *
+     * @param delegate excerpt listener or annotated handler object
+     * @throws IllegalArgumentException if delegate is not a listener, and has no valid handler method
+     */
+    public final void setDelegate(Object delegate) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("Argument 'delegate' cannot be null");
+        }
+        this.listener = (delegate instanceof ExcerptListener)
+                        ? (ExcerptListener)delegate
+                        : new ExcerptHandlerAdapter(delegate);
+    }
+
+    /**
+     * Set the strategy by which the consumer thread waits when no excerpts are available.
+     * Idle strategies may be stateful, so an instance must not be shared between
+     * containers. Defaults to a {@link BackoffIdleStrategy}.
+     *
+     * @param idleStrategy idle strategy
+     */
+    public final void setIdleStrategy(IdleStrategy idleStrategy) {
+        this.idleStrategy = idleStrategy;
+    }
+
+    /**
+     * Set the store in which the read position of the container is persisted. If not set,
+     * the container consumes from the start of the queue each time it is started.
+     *
+     * @param readPositionStore read position store
+     */
+    public final void setReadPositionStore(ReadPositionStore readPositionStore) {
+        this.readPositionStore = readPositionStore;
+    }
+
+    /**
+     * Get the store in which the read position of the container is persisted.
+     *
+     * @return read position store, or {@code null} if none
+     */
+    public final ReadPositionStore getReadPositionStore() {
+        return readPositionStore;
+    }
+
+    /**
+     * Set the factory of the consumer thread, for example a {@link ChronicleThreadFactory}
+     * pinning it to an isolated CPU. Defaults to a {@code ChronicleThreadFactory} naming
+     * the thread after this container.
+     *
+     * @param threadFactory consumer thread factory
+     */
+    public final void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Set the maximum number of excerpts delivered per poll. Defaults to
+     * {@value #DEFAULT_BATCH_SIZE}.
+     *
+     * @param batchSize maximum batch size
+     */
+    public final void setBatchSize(int batchSize) {
+        if (1 > batchSize) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Toggle whether the container starts consuming once its properties are set.
+     * Defaults to {@code true}.
+     *
+     * @param autoStartup flag indicating whether to start automatically
+     */
+    public final void setAutoStartup(boolean autoStartup) {
+        this.autoStartup = autoStartup;
+    }
+
+    /**
+     * Set the time in milliseconds to wait for the consumer thread to finish its current
+     * batch when the container is stopped.
+     *
+     * @param shutdownTimeout shutdown timeout in milliseconds
+     */
+    public final void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public void setBeanName(String name) {
+        this.beanName = name;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation validates that the queue and delegate are set, and
+     * starts the container if so configured.</p>
+     *
+     * @throws Exception if any validation fails
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (null == chronicle) {
+            throw new IllegalStateException("Chronicle must be specified prior to container startup");
+        }
+        if (null == listener) {
+            throw new IllegalStateException("Delegate must be specified prior to container startup");
+        }
+        if (null == idleStrategy) {
+            idleStrategy = new BackoffIdleStrategy();
+        }
+        if (null == threadFactory) {
+            threadFactory = new ChronicleThreadFactory(beanName);
+        }
+        if (autoStartup) {
+            start();
+        }
+    }
+
+    /**
+     * Start consuming excerpts on a new thread, if not already running.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        consumer = threadFactory.newThread(this::consume);
+        consumer.start();
+        slf4jLogger.info("Started listener container '{}'", beanName);
+    }
+
+    /**
+     * Stop consuming excerpts, waiting for the current batch to be delivered.
+     *
+     * @throws InterruptedException if interrupted while waiting for the consumer thread
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        consumer.join(shutdownTimeout);
+        if (consumer.isAlive()) {
+            slf4jLogger.warn("Consumer thread of listener container '{}' did not stop within {} ms",
+                    beanName, shutdownTimeout);
+        }
+        consumer = null;
+        slf4jLogger.info("Stopped listener container '{}'", beanName);
+    }
+
+    /**
+     * Determine whether this container is consuming excerpts.
+     *
+     * @return {@code true} if running, {@code false} otherwise
+     */
+    public final boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        stop();
+    }
+
+    private void consume() {
+        ExcerptTailer tailer = null;
+        try {
+            tailer = createTailer();
+            while (running) {
+                int n = poll(tailer);
+                idleStrategy.idle(n);
+            }
+        } catch (Throwable t) {
+            running = false;
+            slf4jLogger.error("Listener container '" + beanName + "' stopped by failure", t);
+        } finally {
+            if (null != tailer) {
+                tailer.close();
+            }
+        }
+    }
+
+    private ExcerptTailer createTailer() throws Exception {
+        ExcerptTailer tailer = chronicle.createTailer();
+        long position = (null != readPositionStore) ? readPositionStore.read() : ReadPositionStore.NO_POSITION;
+        if (ReadPositionStore.NO_POSITION != position) {
+            if (tailer.index(position)) {
+                tailer.finish();
+                slf4jLogger.debug("Listener container '{}' resuming after index {}", beanName, position);
+            } else {
+                slf4jLogger.warn("Stored index {} not found in queue; listener container '{}' consuming from start",
+                        position, beanName);
+                tailer.toStart();
+            }
+        }
+        return tailer;
+    }
+
+    private int poll(ExcerptTailer tailer) {
+        int n = 0;
+        long last = ReadPositionStore.NO_POSITION;
+        while (n < batchSize && tailer.nextIndex()) {
+            last = tailer.index();
+            try {
+                listener.onExcerpt(tailer);
+            } catch (Exception e) {
+                slf4jLogger.error("Excerpt " + last + " could not be handled by listener container '" + beanName + "'", e);
+            } finally {
+                tailer.finish();
+            }
+            n++;
+        }
+        if (0 < n) {
+            listener.onBatchComplete(n);
+            if (null != readPositionStore) {
+                readPositionStore.write(last);
+            }
+        }
+        return n;
+    }
+
+}
@@ -0,0 +1,409 @@
+package org.osframework.spring.chronicle.queue;
+
+import net.openhft.chronicle.Chronicle;
+import net.openhft.chronicle.ChronicleQueueBuilder;
+import net.openhft.chronicle.VanillaChronicle;
+import org.osframework.spring.chronicle.ChronicleThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.AbstractFactoryBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapter implementation of {@code FactoryBean} interface to support creation of a
+ * {@code Chronicle} queue through a {@code ChronicleQueueBuilder} instance. This class
+ * adapts the <em>fluent API</em> builder methods of {@code ChronicleQueueBuilder} to the
+ * standard JavaBean API mutator style, for declarative configuration of the details of the
+ * created queue in a Spring BeanFactory.
+ * <p>Both <em>indexed</em> queues (a single data and index file pair) and <em>vanilla</em>
+ * queues (a directory per cycle, holding per-thread data files) are supported. Retention
+ * policies and pre-allocation of the next cycle may be configured for vanilla queues; they
+ * are applied periodically by a {@link ChronicleQueueRetention} task, on a low-priority
+ * background thread.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ * @see net.openhft.chronicle.Chronicle
+ * @see net.openhft.chronicle.ChronicleQueueBuilder
+ */
+public class ChronicleQueueBuilderBean extends AbstractFactoryBean<Chronicle> {
+
+    /**
+     * Supported types of Chronicle queue.
+     */
+    public enum Type {
+        INDEXED, VANILLA
+    }
+
+    /**
+     * Default interval in milliseconds between runs of the retention task.
+     */
+    public static final long DEFAULT_RETENTION_INTERVAL = TimeUnit.MINUTES.toMillis(1L);
+
+    protected final Logger slf4jLogger;
+
+    private File path = null;
+    private Type type = Type.VANILLA;
+    private Boolean synchronous;
+    private String cycleFormat = null;
+    private int cycleLength = -1;
+    private long entriesPerCycle = -1L;
+    private long dataBlockSize = -1L;
+    private long indexBlockSize = -1L;
+
+    private long retentionMaxAge = -1L;
+    private long retentionMaxTotalSize = -1L;
+    private int retentionMaxCycles = -1;
+    private boolean preallocateCycles = false;
+    private long retentionInterval = DEFAULT_RETENTION_INTERVAL;
+    private ReadPositionStore[] readPositionStores = null;
+    private ThreadFactory threadFactory = null;
+
+    private ChronicleQueueRetention retention = null;
+    private ScheduledExecutorService retentionExecutor = null;
+
+    public ChronicleQueueBuilderBean() {
+        super();
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    /**
+     * Set filesystem location of the queue. For an indexed queue this is the base path of
+     * its data and index files; for a vanilla queue, its base directory.
+     *
+     * @param path queue filesystem location
+     */
+    public final void setPath(Resource path) {
+        if (path instanceof FileSystemResource) {
+            setPath(((FileSystemResource)path).getFile());
+        } else {
+            throw new IllegalArgumentException("Resource argument must resolve to a filesystem path");
+        }
+    }
+
+    /**
+     * Set filesystem location of the queue. For an indexed queue this is the base path of
+     * its data and index files; for a vanilla queue, its base directory.
+     *
+     * @param path queue filesystem location
+     */
+    public final void setPath(File path) {
+        this.path = path;
+    }
+
+    /**
+     * Get filesystem location of the queue.
+     *
+     * @return queue filesystem location
+     */
+    public final File getPath() {
+        return path;
+    }
+
+    /**
+     * Set type of the queue created by this object. Defaults to {@link Type#VANILLA}.
+     *
+     * @param type queue type
+     */
+    public final void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Get type of the queue created by this object.
+     *
+     * @return queue type
+     */
+    public final Type getType() {
+        return type;
+    }
+
+    /**
+     * Toggle whether each excerpt written to the queue is synchronously flushed to disk.
+     *
+     * @param synchronous flag indicating whether writes are synchronous
+     */
+    public final void setSynchronous(boolean synchronous) {
+        this.synchronous = synchronous;
+    }
+
+    /**
+     * Set the {@code SimpleDateFormat} pattern of the cycle directory names of a vanilla queue.
+     *
+     * @param cycleFormat cycle directory name format
+     */
+    public final void setCycleFormat(String cycleFormat) {
+        this.cycleFormat = cycleFormat;
+    }
+
+    /**
+     * Set the length in milliseconds of each cycle of a vanilla queue.
+     *
+     * @param cycleLength cycle length in milliseconds
+     */
+    public final void setCycleLength(int cycleLength) {
+        this.cycleLength = cycleLength;
+    }
+
+    /**
+     * Set the maximum number of entries written to each cycle of a vanilla queue.
+     *
+     * @param entriesPerCycle maximum entries per cycle
+     */
+    public final void setEntriesPerCycle(long entriesPerCycle) {
+        this.entriesPerCycle = entriesPerCycle;
+    }
+
+    /**
+     * Set the size in bytes of each mapped block of the data files of the queue.
+     *
+     * @param dataBlockSize data block size
+     */
+    public final void setDataBlockSize(long dataBlockSize) {
+        this.dataBlockSize = dataBlockSize;
+    }
+
+    /**
+     * Set the size in bytes of each mapped block of the index files of the queue.
+     *
+     * @param indexBlockSize index block size
+     */
+    public final void setIndexBlockSize(long indexBlockSize) {
+        this.indexBlockSize = indexBlockSize;
+    }
+
+    /**
+     * Set maximum age in milliseconds of the cycles of a vanilla queue, measured from the
+     * end of each cycle.
+     *
+     * @param retentionMaxAge maximum cycle age in milliseconds
+     */
+    public final void setRetentionMaxAge(long retentionMaxAge) {
+        this.retentionMaxAge = retentionMaxAge;
+    }
+
+    /**
+     * Set maximum total size in bytes of the cycles of a vanilla queue.
+     *
+     * @param retentionMaxTotalSize maximum total queue size in bytes
+     */
+    public final void setRetentionMaxTotalSize(long retentionMaxTotalSize) {
+        this.retentionMaxTotalSize = retentionMaxTotalSize;
+    }
+
+    /**
+     * Set maximum number of cycles of a vanilla queue retained.
+     *
+     * @param retentionMaxCycles maximum cycle count
+     */
+    public final void setRetentionMaxCycles(int retentionMaxCycles) {
+        this.retentionMaxCycles = retentionMaxCycles;
+    }
+
+    /**
+     * Toggle pre-allocation of the next cycle of a vanilla queue ahead of rollover, so that
+     * writers do not create its directory and index file when the cycle starts.
+     *
+     * @param preallocateCycles flag indicating whether the next cycle is pre-allocated
+     */
+    public final void setPreallocateCycles(boolean preallocateCycles) {
+        this.preallocateCycles = preallocateCycles;
+    }
+
+    /**
+     * Set interval in milliseconds between runs of the retention task. Defaults to one
+     * minute.
+     *
+     * @param retentionInterval retention interval in milliseconds
+     */
+    public final void setRetentionInterval(long retentionInterval) {
+        if (0L >= retentionInterval) {
+            throw new IllegalArgumentException("Retention interval must be positive number");
+        }
+        this.retentionInterval = retentionInterval;
+    }
+
+    /**
+     * Set read positions of the consumers of the queue. Expired cycles are not deleted
+     * until every consumer has moved past them. Further consumers may be registered with
+     * the {@linkplain #getRetention() retention task} once the queue is created.
+     *
+     * @param readPositionStores read position stores of queue consumers
+     */
+    public final void setReadPositionStores(ReadPositionStore... readPositionStores) {
+        this.readPositionStores = readPositionStores;
+    }
+
+    /**
+     * Set the factory of the thread running the retention task. Defaults to a
+     * {@link ChronicleThreadFactory} of minimum priority daemon threads.
+     *
+     * @param threadFactory retention thread factory
+     */
+    public final void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Get the retention task of the created queue.
+     *
+     * @return retention task, or {@code null} if neither retention nor pre-allocation is configured
+     */
+    public final ChronicleQueueRetention getRetention() {
+        return retention;
+    }
+
+    /**
+     * Get the type of object that this {@code FactoryBean} creates.
+     *
+     * @return {@code Chronicle} class
+     */
+    @Override
+    public Class<?> getObjectType() {
+        return Chronicle.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation validates:</p>
+     * <ul>
+     *     <li>Required {@code path} is set</li>
+     *     <li>Cycle, retention and pre-allocation settings are only set for a vanilla queue</li>
+     * </ul>
+     *
+     * @throws Exception if any validation fails prior to queue creation
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (null == path) {
+            throw new IllegalStateException("Queue path must be specified prior to Chronicle construction");
+        }
+        if (Type.INDEXED == type && (null != cycleFormat || -1 != cycleLength || -1L != entriesPerCycle)) {
+            throw new IllegalStateException("Cycle settings apply only to vanilla queues");
+        }
+        if (Type.INDEXED == type && (isRetentionEnabled() || preallocateCycles)) {
+            throw new IllegalStateException("Retention and pre-allocation settings apply only to vanilla queues");
+        }
+        super.afterPropertiesSet();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation constructs and configures a
+     * {@linkplain ChronicleQueueBuilder}, from which the {@code Chronicle} object
+     * is produced.</p>
+     *
+     * @return constructed, configured {@code Chronicle} object
+     * @throws Exception if queue construction fails for any reason
+     */
+    @Override
+    protected Chronicle createInstance() throws Exception {
+        slf4jLogger.info("Constructing {} of {} Chronicle at {}",
+                (isSingleton() ? "singleton instance" : "instances"), type, path);
+        if (Type.INDEXED == type) {
+            return indexedBuilder().build();
+        }
+        ChronicleQueueBuilder.VanillaChronicleQueueBuilder builder = vanillaBuilder();
+        VanillaChronicle chronicle = (VanillaChronicle)builder.build();
+        if (isRetentionEnabled() || preallocateCycles) {
+            startRetention(builder, chronicle);
+        }
+        return chronicle;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This method implementation stops the retention task, if any, and closes the
+     * queue.</p>
+     */
+    @Override
+    protected void destroyInstance(Chronicle instance) throws Exception {
+        if (null != retentionExecutor) {
+            retentionExecutor.shutdownNow();
+            retentionExecutor = null;
+        }
+        instance.close();
+    }
+
+    private boolean isRetentionEnabled() {
+        return 0L < retentionMaxAge || 0L < retentionMaxTotalSize || 0 < retentionMaxCycles;
+    }
+
+    private void startRetention(ChronicleQueueBuilder.VanillaChronicleQueueBuilder builder, VanillaChronicle chronicle) {
+        retention = new ChronicleQueueRetention(path, builder.cycleFormat(), builder.cycleLength(),
+                chronicle.getEntriesForCycleBits());
+        retention.setMaxAge(retentionMaxAge);
+        retention.setMaxTotalSize(retentionMaxTotalSize);
+        if (0 < retentionMaxCycles) {
+            retention.setMaxCycles(retentionMaxCycles);
+        }
+        if (preallocateCycles) {
+            retention.setPreallocateSize(builder.indexBlockSize());
+        }
+        if (null != readPositionStores) {
+            for (ReadPositionStore store : readPositionStores) {
+                retention.registerReadPositionStore(store);
+            }
+        }
+        if (null == threadFactory) {
+            ChronicleThreadFactory retentionThreadFactory = new ChronicleThreadFactory("chronicle-retention-" + path.getName());
+            retentionThreadFactory.setPriority(Thread.MIN_PRIORITY);
+            threadFactory = retentionThreadFactory;
+        }
+        retentionExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        retentionExecutor.scheduleWithFixedDelay(retention, 0L, retentionInterval, TimeUnit.MILLISECONDS);
+        slf4jLogger.info("Queue retention task runs every {} ms", retentionInterval);
+    }
+
+    private ChronicleQueueBuilder.IndexedChronicleQueueBuilder indexedBuilder() {
+        ChronicleQueueBuilder.IndexedChronicleQueueBuilder builder = ChronicleQueueBuilder.indexed(path);
+        if (null != synchronous) {
+            builder.synchronous(synchronous);
+        }
+        if (-1L != dataBlockSize) {
+            builder.dataBlockSize((int)dataBlockSize);
+            slf4jLogger.debug("Queue data block size: {} bytes", dataBlockSize);
+        }
+        if (-1L != indexBlockSize) {
+            builder.indexBlockSize((int)indexBlockSize);
+            slf4jLogger.debug("Queue index block size: {} bytes", indexBlockSize);
+        }
+        return builder;
+    }
+
+    private ChronicleQueueBuilder.VanillaChronicleQueueBuilder vanillaBuilder() {
+        ChronicleQueueBuilder.VanillaChronicleQueueBuilder builder = ChronicleQueueBuilder.vanilla(path);
+        if (null != synchronous) {
+            builder.synchronous(synchronous);
+        }
+        if (null != cycleFormat) {
+            builder.cycleFormat(cycleFormat);
+            slf4jLogger.debug("Queue cycle format: {}", cycleFormat);
+        }
+        if (-1 != cycleLength) {
+            builder.cycleLength(cycleLength, false);
+            slf4jLogger.debug("Queue cycle length: {} ms", cycleLength);
+        }
+        if (-1L != entriesPerCycle) {
+            builder.entriesPerCycle(entriesPerCycle);
+            slf4jLogger.debug("Queue will hold {} entries per cycle", entriesPerCycle);
+        }
+        if (-1L != dataBlockSize) {
+            builder.dataBlockSize(dataBlockSize);
+            slf4jLogger.debug("Queue data block size: {} bytes", dataBlockSize);
+        }
+        if (-1L != indexBlockSize) {
+            builder.indexBlockSize(indexBlockSize);
+            slf4jLogger.debug("Queue index block size: {} bytes", indexBlockSize);
+        }
+        return builder;
+    }
+
+}
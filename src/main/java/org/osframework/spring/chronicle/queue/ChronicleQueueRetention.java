@@ -0,0 +1,256 @@
+package org.osframework.spring.chronicle.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Retention task of the cycle directories of a vanilla Chronicle Queue. Each run of the
+ * task deletes the cycles expired by any configured policy (maximum age, maximum total
+ * size, maximum number of cycles), and creates the directory and index file of the next
+ * cycle ahead of rollover.
+ * <p>A cycle is only deleted once every registered {@link ReadPositionStore} holds a
+ * position in a later cycle, and the current cycle is never deleted. Cycles still mapped
+ * by a tailer of this process remain readable after deletion: their files are only
+ * released by the operating system once unmapped, as the queue evicts them from its
+ * caches.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ * @see ChronicleQueueBuilderBean
+ */
+public class ChronicleQueueRetention implements Runnable {
+
+    private static final String INDEX_FILE = "index-0";
+
+    private final Logger slf4jLogger;
+    private final File path;
+    private final String cycleFormat;
+    private final long cycleLength;
+    private final int entriesForCycleBits;
+    private final List<ReadPositionStore> readPositionStores = new CopyOnWriteArrayList<>();
+
+    private long maxAge = -1L;
+    private long maxTotalSize = -1L;
+    private int maxCycles = -1;
+    private long preallocateSize = -1L;
+
+    /**
+     * Create a new retention task of the queue in the specified directory.
+     *
+     * @param path base directory of queue
+     * @param cycleFormat {@code SimpleDateFormat} pattern of cycle directory names
+     * @param cycleLength length in milliseconds of each cycle
+     * @param entriesForCycleBits number of low-order bits of an excerpt index below its cycle
+     */
+    public ChronicleQueueRetention(File path, String cycleFormat, long cycleLength, int entriesForCycleBits) {
+        if (null == path || null == cycleFormat) {
+            throw new IllegalArgumentException("Queue path and cycle format cannot be null");
+        }
+        if (0L >= cycleLength) {
+            throw new IllegalArgumentException("Cycle length must be positive number");
+        }
+        this.slf4jLogger = LoggerFactory.getLogger(this.getClass());
+        this.path = path;
+        this.cycleFormat = cycleFormat;
+        this.cycleLength = cycleLength;
+        this.entriesForCycleBits = entriesForCycleBits;
+    }
+
+    /**
+     * Set maximum age in milliseconds of a cycle, measured from its end.
+     *
+     * @param maxAge maximum cycle age in milliseconds
+     */
+    public void setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Set maximum total size in bytes of the files of all cycles.
+     *
+     * @param maxTotalSize maximum total queue size in bytes
+     */
+    public void setMaxTotalSize(long maxTotalSize) {
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /**
+     * Set maximum number of cycles retained.
+     *
+     * @param maxCycles maximum cycle count
+     */
+    public void setMaxCycles(int maxCycles) {
+        if (1 > maxCycles) {
+            throw new IllegalArgumentException("Maximum cycle count must be positive number");
+        }
+        this.maxCycles = maxCycles;
+    }
+
+    /**
+     * Set size in bytes of the index file pre-allocated for the next cycle. If not set,
+     * the next cycle is not pre-allocated.
+     *
+     * @param preallocateSize size of pre-allocated index file
+     */
+    public void setPreallocateSize(long preallocateSize) {
+        this.preallocateSize = preallocateSize;
+    }
+
+    /**
+     * Register the read position of a consumer of the queue. Cycles are not deleted until
+     * the consumer has moved past them.
+     *
+     * @param store read position store of queue consumer
+     */
+    public void registerReadPositionStore(ReadPositionStore store) {
+        if (null == store) {
+            throw new IllegalArgumentException("Argument 'store' cannot be null");
+        }
+        readPositionStores.add(store);
+    }
+
+    /**
+     * Unregister the read position of a consumer of the queue.
+     *
+     * @param store read position store of queue consumer
+     */
+    public void unregisterReadPositionStore(ReadPositionStore store) {
+        readPositionStores.remove(store);
+    }
+
+    /**
+     * Get the cycle of the specified excerpt index.
+     *
+     * @param index excerpt index
+     * @return cycle number
+     */
+    public long cycleOf(long index) {
+        return index >>> entriesForCycleBits;
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (0L < preallocateSize) {
+                preallocate(System.currentTimeMillis() / cycleLength + 1L);
+            }
+            purge(System.currentTimeMillis());
+        } catch (Exception e) {
+            slf4jLogger.warn("Retention of queue at " + path + " failed", e);
+        }
+    }
+
+    /**
+     * Delete the cycles expired at the specified time.
+     *
+     * @param now current time in milliseconds
+     * @return number of cycles deleted
+     */
+    int purge(long now) {
+        TreeMap<Long, File> cycles = cycles();
+        if (cycles.isEmpty()) {
+            return 0;
+        }
+        long current = now / cycleLength;
+        long safe = current;
+        for (ReadPositionStore store : readPositionStores) {
+            long position = store.read();
+            safe = Math.min(safe, (ReadPositionStore.NO_POSITION == position) ? Long.MIN_VALUE : cycleOf(position));
+        }
+        long totalSize = 0L;
+        if (0L < maxTotalSize) {
+            for (File dir : cycles.values()) {
+                totalSize += sizeOf(dir);
+            }
+        }
+        int remaining = cycles.size();
+        int deleted = 0;
+        for (Map.Entry<Long, File> cycle : cycles.entrySet()) {
+            long c = cycle.getKey();
+            if (c >= safe) {
+                break;
+            }
+            boolean expired = (0L < maxAge && (c + 1L) * cycleLength + maxAge <= now)
+                    || (0L < maxTotalSize && totalSize > maxTotalSize)
+                    || (0 < maxCycles && remaining > maxCycles);
+            if (!expired) {
+                break;
+            }
+            long size = sizeOf(cycle.getValue());
+            if (FileSystemUtils.deleteRecursively(cycle.getValue())) {
+                slf4jLogger.info("Deleted expired queue cycle {}", cycle.getValue());
+                totalSize -= size;
+                remaining--;
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Create the directory and index file of the specified cycle, if they do not exist.
+     *
+     * @param cycle cycle number
+     * @return cycle directory
+     * @throws IOException if the index file cannot be created
+     */
+    File preallocate(long cycle) throws IOException {
+        File dir = new File(path, formatter().format(new Date(cycle * cycleLength)));
+        File index = new File(dir, INDEX_FILE);
+        if (!index.exists() && (dir.isDirectory() || dir.mkdirs())) {
+            try (RandomAccessFile raf = new RandomAccessFile(index, "rw")) {
+                raf.setLength(preallocateSize);
+            }
+            slf4jLogger.debug("Pre-allocated queue cycle {}", dir);
+        }
+        return dir;
+    }
+
+    private TreeMap<Long, File> cycles() {
+        TreeMap<Long, File> cycles = new TreeMap<>();
+        File[] dirs = path.listFiles(File::isDirectory);
+        if (null == dirs) {
+            return cycles;
+        }
+        SimpleDateFormat formatter = formatter();
+        for (File dir : dirs) {
+            try {
+                cycles.put(formatter.parse(dir.getName()).getTime() / cycleLength, dir);
+            } catch (ParseException pe) {
+                slf4jLogger.debug("Ignoring non-cycle directory {}", dir);
+            }
+        }
+        return cycles;
+    }
+
+    private SimpleDateFormat formatter() {
+        SimpleDateFormat formatter = new SimpleDateFormat(cycleFormat);
+        formatter.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return formatter;
+    }
+
+    private static long sizeOf(File dir) {
+        long size = 0L;
+        File[] files = dir.listFiles();
+        if (null != files) {
+            for (File f : files) {
+                size += f.length();
+            }
+        }
+        return size;
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.osframework.spring.chronicle.queue;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a {@link ChronicleListenerContainer} delegate as the handler of
+ * queue excerpts. The method must take a single parameter of type
+ * {@link net.openhft.chronicle.ExcerptTailer} or {@link net.openhft.lang.io.Bytes}, to which
+ * the tailer positioned at each excerpt is passed.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ExcerptHandler {
+}
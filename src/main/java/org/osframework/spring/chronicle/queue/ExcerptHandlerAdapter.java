@@ -0,0 +1,71 @@
+package org.osframework.spring.chronicle.queue;
+
+import net.openhft.chronicle.ExcerptTailer;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * {@code ExcerptListener} which delegates each excerpt to the {@link ExcerptHandler}
+ * method of a target object. The handler method is resolved once, on construction.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ExcerptHandlerAdapter implements ExcerptListener {
+
+    private final Object target;
+    private final Method handler;
+
+    /**
+     * Create a new adapter of the specified target object.
+     *
+     * @param target object having exactly one {@code ExcerptHandler} method
+     * @throws IllegalArgumentException if target has no, or more than one, valid handler method
+     */
+    public ExcerptHandlerAdapter(Object target) {
+        if (null == target) {
+            throw new IllegalArgumentException("Argument 'target' cannot be null");
+        }
+        this.target = target;
+        this.handler = findHandler(target.getClass());
+    }
+
+    @Override
+    public void onExcerpt(ExcerptTailer excerpt) throws Exception {
+        try {
+            handler.invoke(target, excerpt);
+        } catch (InvocationTargetException ite) {
+            Throwable cause = ite.getTargetException();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw (Error)cause;
+        }
+    }
+
+    private static Method findHandler(Class<?> targetClass) {
+        Method found = null;
+        for (Method m : ReflectionUtils.getUniqueDeclaredMethods(targetClass)) {
+            if (null == m.getAnnotation(ExcerptHandler.class)) {
+                continue;
+            }
+            if (1 != m.getParameterTypes().length || !m.getParameterTypes()[0].isAssignableFrom(ExcerptTailer.class)) {
+                throw new IllegalArgumentException("Excerpt handler method " + m.getName() +
+                        " must take a single ExcerptTailer or Bytes parameter");
+            }
+            if (null != found) {
+                throw new IllegalArgumentException("Class " + targetClass.getName() +
+                        " declares more than one excerpt handler method");
+            }
+            found = m;
+        }
+        if (null == found) {
+            throw new IllegalArgumentException("Class " + targetClass.getName() + " declares no excerpt handler method");
+        }
+        ReflectionUtils.makeAccessible(found);
+        return found;
+    }
+
+}
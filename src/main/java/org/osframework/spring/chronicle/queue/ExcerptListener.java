@@ -0,0 +1,33 @@
+package org.osframework.spring.chronicle.queue;
+
+import net.openhft.chronicle.ExcerptTailer;
+
+/**
+ * Listener to which a {@link ChronicleListenerContainer} delivers the excerpts of a
+ * Chronicle Queue.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public interface ExcerptListener {
+
+    /**
+     * Handle the current excerpt of the specified tailer. The tailer is positioned at the
+     * start of the excerpt, and is only valid for the duration of this call.
+     *
+     * @param excerpt tailer positioned at the excerpt to handle
+     * @throws Exception if the excerpt cannot be handled
+     */
+    void onExcerpt(ExcerptTailer excerpt) throws Exception;
+
+    /**
+     * Handle completion of delivery of a batch of excerpts. Called after the last
+     * excerpt of each non-empty batch, before its read position is persisted.
+     * <p>The default implementation does nothing.</p>
+     *
+     * @param excerpts number of excerpts in the batch
+     */
+    default void onBatchComplete(int excerpts) {
+    }
+
+}
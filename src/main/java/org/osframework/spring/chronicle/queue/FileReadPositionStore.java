@@ -0,0 +1,71 @@
+package org.osframework.spring.chronicle.queue;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@code ReadPositionStore} which keeps the position in a small memory-mapped file.
+ * Writing a position is a single store to mapped memory, so positions can be persisted
+ * after every batch at negligible cost; the operating system writes the page back to
+ * disk, and the position survives a crash of the JVM.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class FileReadPositionStore implements ReadPositionStore, Closeable {
+
+    private static final int SIZE = 8;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Create a new store in the specified file, which is created if it does not exist.
+     *
+     * @param file position file
+     * @throws IOException if file cannot be created or mapped
+     */
+    public FileReadPositionStore(File file) throws IOException {
+        if (null == file) {
+            throw new IllegalArgumentException("Argument 'file' cannot be null");
+        }
+        this.file = file;
+        boolean created = !file.exists() || SIZE > file.length();
+        this.raf = new RandomAccessFile(file, "rw");
+        this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, SIZE);
+        if (created) {
+            write(NO_POSITION);
+        }
+    }
+
+    /**
+     * Get the file in which the position is stored.
+     *
+     * @return position file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public long read() {
+        return buffer.getLong(0);
+    }
+
+    @Override
+    public void write(long index) {
+        buffer.putLong(0, index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        raf.close();
+    }
+
+}
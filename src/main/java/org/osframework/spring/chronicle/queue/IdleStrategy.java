@@ -0,0 +1,20 @@
+package org.osframework.spring.chronicle.queue;
+
+/**
+ * Strategy for idling a polling thread between polls of a Chronicle Queue, according to
+ * the amount of work done by the last poll.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public interface IdleStrategy {
+
+    /**
+     * Idle the calling thread, if the last poll did no work. Implementations reset any
+     * backoff state when {@code workCount} is positive.
+     *
+     * @param workCount number of excerpts processed by the last poll
+     */
+    void idle(int workCount);
+
+}
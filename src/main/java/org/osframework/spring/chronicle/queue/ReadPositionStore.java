@@ -0,0 +1,32 @@
+package org.osframework.spring.chronicle.queue;
+
+/**
+ * Durable store of the index of the last excerpt of a Chronicle Queue processed by a
+ * consumer, from which the consumer resumes after a restart.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ * @see FileReadPositionStore
+ */
+public interface ReadPositionStore {
+
+    /**
+     * Value returned by {@link #read()} if no position has been stored.
+     */
+    long NO_POSITION = -1L;
+
+    /**
+     * Read the stored position.
+     *
+     * @return index of last processed excerpt, or {@link #NO_POSITION}
+     */
+    long read();
+
+    /**
+     * Store the specified position.
+     *
+     * @param index index of last processed excerpt
+     */
+    void write(long index);
+
+}
@@ -0,0 +1,19 @@
+package org.osframework.spring.chronicle.queue;
+
+/**
+ * {@code IdleStrategy} which yields the CPU to other runnable threads whenever a poll
+ * does no work.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class YieldingIdleStrategy implements IdleStrategy {
+
+    @Override
+    public void idle(int workCount) {
+        if (0 >= workCount) {
+            Thread.yield();
+        }
+    }
+
+}
@@ -0,0 +1,8 @@
+/**
+ * Classes supporting construction of Chronicle Queues in a Spring BeanFactory, and
+ * consumption of their excerpts by listener containers.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+package org.osframework.spring.chronicle.queue;
\ No newline at end of file
@@ -0,0 +1,184 @@
+package org.osframework.spring.chronicle.session;
+
+import org.springframework.session.ExpiringSession;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ExpiringSession} stored in a {@code ChronicleMap} by a
+ * {@link ChronicleSessionRepository}. Attribute values are deserialized lazily, on
+ * first access, and the session tracks which attributes have been set or removed
+ * since it was loaded, so that saving it writes only the changed attributes.
+ * <p>Instances are not thread safe.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ * @see ChronicleSessionRepository
+ */
+public final class ChronicleSession implements ExpiringSession {
+
+    private static final Object ABSENT = new Object();
+
+    private final ChronicleSessionRepository repository;
+    private final String id;
+    private final long creationTime;
+    private long lastAccessedTime;
+    private int maxInactiveIntervalInSeconds;
+
+    private final Set<String> attributeNames;
+    private final Map<String, Object> loadedAttributes = new HashMap<>();
+    private final Set<String> changedAttributes = new HashSet<>();
+    private final Set<String> removedAttributes = new HashSet<>();
+    private boolean metaDataChanged;
+
+    /**
+     * Create a new session, not yet saved.
+     */
+    ChronicleSession(ChronicleSessionRepository repository, int maxInactiveIntervalInSeconds) {
+        this(repository, UUID.randomUUID().toString(), System.currentTimeMillis(), 0L,
+                maxInactiveIntervalInSeconds, new LinkedHashSet<String>());
+        this.lastAccessedTime = creationTime;
+        this.metaDataChanged = true;
+    }
+
+    /**
+     * Create a session loaded from stored metadata.
+     */
+    ChronicleSession(ChronicleSessionRepository repository, String id, long creationTime, long lastAccessedTime,
+                     int maxInactiveIntervalInSeconds, Set<String> attributeNames) {
+        this.repository = repository;
+        this.id = id;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.maxInactiveIntervalInSeconds = maxInactiveIntervalInSeconds;
+        this.attributeNames = attributeNames;
+        this.metaDataChanged = false;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+
+    @Override
+    public void setLastAccessedTime(long lastAccessedTime) {
+        this.lastAccessedTime = lastAccessedTime;
+        this.metaDataChanged = true;
+    }
+
+    @Override
+    public int getMaxInactiveIntervalInSeconds() {
+        return maxInactiveIntervalInSeconds;
+    }
+
+    @Override
+    public void setMaxInactiveIntervalInSeconds(int interval) {
+        this.maxInactiveIntervalInSeconds = interval;
+        this.metaDataChanged = true;
+    }
+
+    @Override
+    public boolean isExpired() {
+        return isExpired(System.currentTimeMillis());
+    }
+
+    boolean isExpired(long now) {
+        if (0 > maxInactiveIntervalInSeconds) {
+            return false;
+        }
+        return now - TimeUnit.SECONDS.toMillis(maxInactiveIntervalInSeconds) >= lastAccessedTime;
+    }
+
+    /**
+     * Get value of the named attribute, deserializing it from the session store on
+     * first access.
+     *
+     * @param attributeName attribute name
+     * @param <T> attribute value type, as expected by the caller
+     * @return attribute value, or null if not set
+     */
+    @Override
+    public <T> T getAttribute(String attributeName) {
+        if (!attributeNames.contains(attributeName)) {
+            return null;
+        }
+        Object value = loadedAttributes.get(attributeName);
+        if (null == value) {
+            value = repository.loadAttribute(id, attributeName);
+            loadedAttributes.put(attributeName, (null == value) ? ABSENT : value);
+        }
+        // Unchecked as in Session: the caller knows the type of the value it stored
+        @SuppressWarnings("unchecked")
+        T attributeValue = (ABSENT == value) ? null : (T)value;
+        return attributeValue;
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        return Collections.unmodifiableSet(attributeNames);
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+        if (null == attributeValue) {
+            removeAttribute(attributeName);
+            return;
+        }
+        if (attributeNames.add(attributeName)) {
+            metaDataChanged = true;
+        }
+        loadedAttributes.put(attributeName, attributeValue);
+        changedAttributes.add(attributeName);
+        removedAttributes.remove(attributeName);
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+        if (attributeNames.remove(attributeName)) {
+            metaDataChanged = true;
+            removedAttributes.add(attributeName);
+        }
+        loadedAttributes.remove(attributeName);
+        changedAttributes.remove(attributeName);
+    }
+
+    Map<String, Object> changedAttributes() {
+        Map<String, Object> changed = new HashMap<>();
+        for (String name : changedAttributes) {
+            changed.put(name, loadedAttributes.get(name));
+        }
+        return changed;
+    }
+
+    Set<String> removedAttributes() {
+        return removedAttributes;
+    }
+
+    boolean isMetaDataChanged() {
+        return metaDataChanged;
+    }
+
+    void markSaved() {
+        changedAttributes.clear();
+        removedAttributes.clear();
+        metaDataChanged = false;
+    }
+
+}
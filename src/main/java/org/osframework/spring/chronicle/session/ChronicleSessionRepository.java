@@ -0,0 +1,210 @@
+package org.osframework.spring.chronicle.session;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+import org.springframework.util.SerializationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spring Session {@code SessionRepository} which stores sessions off-heap in a
+ * {@code ChronicleMap<String, byte[]>}, such as one created by a
+ * {@link org.osframework.spring.chronicle.map.ChronicleMapBuilderBean}. When the map is
+ * persisted to a file, co-located JVMs mapping the same file share the same sessions.
+ * <h2>Storage layout</h2>
+ * <p>Each session is stored as one <em>metadata</em> entry, keyed by session ID, holding
+ * the session timestamps and attribute names, plus one entry per attribute, keyed by
+ * session ID and attribute name, holding the serialized attribute value. Loading a session
+ * reads only its metadata; attribute values are read and deserialized on first access.
+ * Saving a session writes only the attributes set or removed since it was loaded, and its
+ * metadata.</p>
+ * <p>Saving writes the metadata of a session before its attributes, so an attribute
+ * entry without metadata belongs to a deleted session. When JVMs save the same session
+ * concurrently, the metadata written last may not name every attribute entry written;
+ * such entries, and those of sessions deleted while being saved, are removed by
+ * {@link #cleanupExpiredSessions()}, which should be invoked periodically. Expired
+ * sessions are also deleted when they are next looked up.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public class ChronicleSessionRepository implements SessionRepository<ChronicleSession> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChronicleSessionRepository.class);
+
+    private static final char ATTRIBUTE_KEY_SEPARATOR = '\u0000';
+
+    private final ChronicleMap<String, byte[]> sessions;
+
+    private int defaultMaxInactiveInterval = MapSession.DEFAULT_MAX_INACTIVE_INTERVAL_SECONDS;
+
+    /**
+     * Create a new repository storing sessions in the specified map.
+     *
+     * @param sessions map in which sessions are stored
+     */
+    public ChronicleSessionRepository(ChronicleMap<String, byte[]> sessions) {
+        if (null == sessions) {
+            throw new IllegalArgumentException("Argument 'sessions' cannot be null");
+        }
+        this.sessions = sessions;
+    }
+
+    /**
+     * Set maximum inactive interval of new sessions created by this repository.
+     *
+     * @param defaultMaxInactiveInterval maximum inactive interval in seconds; negative
+     *                                   for sessions which never expire
+     */
+    public void setDefaultMaxInactiveInterval(int defaultMaxInactiveInterval) {
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+    }
+
+    @Override
+    public ChronicleSession createSession() {
+        return new ChronicleSession(this, defaultMaxInactiveInterval);
+    }
+
+    @Override
+    public void save(ChronicleSession session) {
+        String id = session.getId();
+        if (session.isMetaDataChanged()) {
+            sessions.put(id, writeMetaData(session));
+        }
+        for (Map.Entry<String, Object> changed : session.changedAttributes().entrySet()) {
+            sessions.put(attributeKey(id, changed.getKey()), SerializationUtils.serialize(changed.getValue()));
+        }
+        for (String removed : session.removedAttributes()) {
+            sessions.remove(attributeKey(id, removed));
+        }
+        session.markSaved();
+    }
+
+    @Override
+    public ChronicleSession getSession(String id) {
+        byte[] metaData = sessions.get(id);
+        if (null == metaData) {
+            return null;
+        }
+        ChronicleSession session = readMetaData(id, metaData);
+        if (session.isExpired()) {
+            delete(session);
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void delete(String id) {
+        byte[] metaData = sessions.get(id);
+        if (null != metaData) {
+            delete(readMetaData(id, metaData));
+        }
+    }
+
+    /**
+     * Delete all expired sessions from this repository, then all attribute entries of
+     * sessions no longer stored, whether named by their metadata or not.
+     *
+     * @return number of sessions deleted
+     */
+    public int cleanupExpiredSessions() {
+        long now = System.currentTimeMillis();
+        List<ChronicleSession> expired = new ArrayList<>();
+        Set<String> live = new HashSet<>();
+        for (Map.Entry<String, byte[]> entry : sessions.entrySet()) {
+            String key = entry.getKey();
+            if (-1 == key.indexOf(ATTRIBUTE_KEY_SEPARATOR)) {
+                ChronicleSession session = readMetaData(key, entry.getValue());
+                if (session.isExpired(now)) {
+                    expired.add(session);
+                } else {
+                    live.add(key);
+                }
+            }
+        }
+        for (ChronicleSession session : expired) {
+            delete(session);
+        }
+        List<String> orphans = new ArrayList<>();
+        for (String key : sessions.keySet()) {
+            int separator = key.indexOf(ATTRIBUTE_KEY_SEPARATOR);
+            if (-1 != separator) {
+                String id = key.substring(0, separator);
+                // Sessions created since the metadata scan are stored, so not orphans
+                if (!live.contains(id) && !sessions.containsKey(id)) {
+                    orphans.add(key);
+                }
+            }
+        }
+        for (String orphan : orphans) {
+            sessions.remove(orphan);
+        }
+        LOGGER.debug("Deleted {} expired sessions and {} orphaned attributes", expired.size(), orphans.size());
+        return expired.size();
+    }
+
+    Object loadAttribute(String id, String attributeName) {
+        byte[] serialized = sessions.get(attributeKey(id, attributeName));
+        return (null == serialized) ? null : SerializationUtils.deserialize(serialized);
+    }
+
+    private void delete(ChronicleSession session) {
+        String id = session.getId();
+        for (String name : session.getAttributeNames()) {
+            sessions.remove(attributeKey(id, name));
+        }
+        sessions.remove(id);
+    }
+
+    private static String attributeKey(String id, String attributeName) {
+        return id + ATTRIBUTE_KEY_SEPARATOR + attributeName;
+    }
+
+    private static byte[] writeMetaData(ChronicleSession session) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(session.getCreationTime());
+            out.writeLong(session.getLastAccessedTime());
+            out.writeInt(session.getMaxInactiveIntervalInSeconds());
+            Set<String> names = session.getAttributeNames();
+            out.writeInt(names.size());
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Cannot write metadata of session " + session.getId(), ioe);
+        }
+        return bytes.toByteArray();
+    }
+
+    private ChronicleSession readMetaData(String id, byte[] metaData) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(metaData))) {
+            long creationTime = in.readLong();
+            long lastAccessedTime = in.readLong();
+            int maxInactiveInterval = in.readInt();
+            int count = in.readInt();
+            Set<String> names = new LinkedHashSet<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add(in.readUTF());
+            }
+            return new ChronicleSession(this, id, creationTime, lastAccessedTime, maxInactiveInterval, names);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Cannot read metadata of session " + id, ioe);
+        }
+    }
+
+}
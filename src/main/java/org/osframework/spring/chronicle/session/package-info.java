@@ -0,0 +1,8 @@
+/**
+ * Classes supporting storage of Spring Session sessions in
+ * {@link net.openhft.chronicle.map.ChronicleMap}s.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+package org.osframework.spring.chronicle.session;
\ No newline at end of file
@@ -0,0 +1,101 @@
+package org.osframework.spring.chronicle.set;
+
+import net.openhft.chronicle.set.ChronicleSet;
+
+import java.io.File;
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * {@code ChronicleSet} which checks a {@link CountingBloomFilter} of its keys before its
+ * delegate set, so that most lookups of absent keys return without taking a segment
+ * lock. The filter is incremented before a key is added, and decremented after a key is
+ * removed, so a lookup concurrent with either never misses a present key.
+ * <p>Every writer of the delegate set must go through this set, or another set checking
+ * the same filter: a key added to the delegate directly is missed by lookups. Keys
+ * removed through the iterator stay counted by the filter, which can only cause false
+ * positives. {@link #clear()} is not atomic with respect to concurrent adds.</p>
+ *
+ * @param <K> Key class of the set
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class BloomFilteredChronicleSet<K> extends AbstractSet<K> implements ChronicleSet<K> {
+
+    private final ChronicleSet<K> set;
+    private final CountingBloomFilter filter;
+
+    BloomFilteredChronicleSet(ChronicleSet<K> set, CountingBloomFilter filter) {
+        this.set = set;
+        this.filter = filter;
+    }
+
+    CountingBloomFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return filter.mightContain(key) && set.contains(key);
+    }
+
+    @Override
+    public boolean add(K key) {
+        filter.add(key);
+        boolean added = set.add(key);
+        if (!added) {
+            filter.remove(key);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean remove(Object key) {
+        if (!filter.mightContain(key)) {
+            return false;
+        }
+        boolean removed = set.remove(key);
+        if (removed) {
+            filter.remove(key);
+        }
+        return removed;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return set.iterator();
+    }
+
+    @Override
+    public int size() {
+        return set.size();
+    }
+
+    @Override
+    public long longSize() {
+        return set.longSize();
+    }
+
+    @Override
+    public void clear() {
+        set.clear();
+        filter.clear();
+    }
+
+    @Override
+    public File file() {
+        return set.file();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The filter is closed after the delegate set.</p>
+     */
+    @Override
+    public void close() {
+        set.close();
+        filter.close();
+    }
+
+}
@@ -0,0 +1,149 @@
+package org.osframework.spring.chronicle.set;
+
+import net.openhft.chronicle.set.ChronicleSet;
+import org.osframework.spring.chronicle.ChronicleStreams;
+
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Static methods computing the union, intersection and difference of two
+ * {@code ChronicleSet}s in parallel, into a target set or a streaming sink. One set is
+ * traversed by a {@linkplain ChronicleStreams#parallelStream(ChronicleSet) segment-splitting
+ * stream}, so its segments are read in parallel by the worker threads of the common
+ * fork-join pool, and each of its elements is probed in the other set and written to the
+ * result by the thread reading it.
+ * <p>Sinks are called concurrently, so must be thread-safe; a {@code ChronicleSet}
+ * target is. Elements are written in no particular order, and the sets should not be
+ * modified while an operation runs.</p>
+ * <p>Elements are deserialized to be probed: Chronicle Map 2.x looks keys up only in
+ * their deserialized form, so the serialized elements of one set cannot be looked up in
+ * the other.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class ChronicleSetAlgebra {
+
+    private ChronicleSetAlgebra() {
+    }
+
+    /**
+     * Add the union of the specified sets to the specified target set.
+     *
+     * @param a first set
+     * @param b second set
+     * @param target set to which union is added; neither {@code a} nor {@code b}
+     * @param <K> Key class of sets
+     * @return number of elements of the union
+     */
+    public static <K> long union(ChronicleSet<K> a, ChronicleSet<K> b, Set<? super K> target) {
+        checkTarget(a, b, target);
+        return union(a, b, (Consumer<K>)target::add);
+    }
+
+    /**
+     * Write the union of the specified sets to the specified sink: the elements of the
+     * larger set, then the elements of the smaller set absent from the larger.
+     *
+     * @param a first set
+     * @param b second set
+     * @param sink thread-safe consumer of union elements
+     * @param <K> Key class of sets
+     * @return number of elements of the union
+     */
+    public static <K> long union(ChronicleSet<K> a, ChronicleSet<K> b, Consumer<? super K> sink) {
+        ChronicleSet<K> larger = (a.longSize() >= b.longSize()) ? a : b;
+        ChronicleSet<K> smaller = (larger == a) ? b : a;
+        LongAdder count = new LongAdder();
+        ChronicleStreams.parallelStream(larger).forEach(key -> {
+            sink.accept(key);
+            count.increment();
+        });
+        return count.sum() + difference(smaller, larger, sink);
+    }
+
+    /**
+     * Add the intersection of the specified sets to the specified target set.
+     *
+     * @param a first set
+     * @param b second set
+     * @param target set to which intersection is added; neither {@code a} nor {@code b}
+     * @param <K> Key class of sets
+     * @return number of elements of the intersection
+     */
+    public static <K> long intersection(ChronicleSet<K> a, ChronicleSet<K> b, Set<? super K> target) {
+        checkTarget(a, b, target);
+        return intersection(a, b, (Consumer<K>)target::add);
+    }
+
+    /**
+     * Write the intersection of the specified sets to the specified sink. The smaller
+     * set is traversed, and probed in the larger.
+     *
+     * @param a first set
+     * @param b second set
+     * @param sink thread-safe consumer of intersection elements
+     * @param <K> Key class of sets
+     * @return number of elements of the intersection
+     */
+    public static <K> long intersection(ChronicleSet<K> a, ChronicleSet<K> b, Consumer<? super K> sink) {
+        ChronicleSet<K> smaller = (a.longSize() <= b.longSize()) ? a : b;
+        ChronicleSet<K> larger = (smaller == a) ? b : a;
+        LongAdder count = new LongAdder();
+        ChronicleStreams.parallelStream(smaller).forEach(key -> {
+            if (larger.contains(key)) {
+                sink.accept(key);
+                count.increment();
+            }
+        });
+        return count.sum();
+    }
+
+    /**
+     * Add the difference of the specified sets, the elements of {@code a} absent from
+     * {@code b}, to the specified target set.
+     *
+     * @param a set of candidate elements
+     * @param b set of excluded elements
+     * @param target set to which difference is added; neither {@code a} nor {@code b}
+     * @param <K> Key class of sets
+     * @return number of elements of the difference
+     */
+    public static <K> long difference(ChronicleSet<K> a, ChronicleSet<K> b, Set<? super K> target) {
+        checkTarget(a, b, target);
+        return difference(a, b, (Consumer<K>)target::add);
+    }
+
+    /**
+     * Write the difference of the specified sets, the elements of {@code a} absent from
+     * {@code b}, to the specified sink.
+     *
+     * @param a set of candidate elements
+     * @param b set of excluded elements
+     * @param sink thread-safe consumer of difference elements
+     * @param <K> Key class of sets
+     * @return number of elements of the difference
+     */
+    public static <K> long difference(ChronicleSet<K> a, ChronicleSet<K> b, Consumer<? super K> sink) {
+        LongAdder count = new LongAdder();
+        ChronicleStreams.parallelStream(a).forEach(key -> {
+            if (!b.contains(key)) {
+                sink.accept(key);
+                count.increment();
+            }
+        });
+        return count.sum();
+    }
+
+    private static void checkTarget(Set<?> a, Set<?> b, Set<?> target) {
+        if (null == target) {
+            throw new IllegalArgumentException("Argument 'target' cannot be null");
+        }
+        if (a == target || b == target) {
+            throw new IllegalArgumentException("Target set cannot be an operand set");
+        }
+    }
+
+}
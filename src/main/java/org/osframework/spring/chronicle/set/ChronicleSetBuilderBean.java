@@ -4,6 +4,8 @@ import net.openhft.chronicle.hash.ChronicleHashBuilder;
 import net.openhft.chronicle.set.ChronicleSet;
 import net.openhft.chronicle.set.ChronicleSetBuilder;
 import org.osframework.spring.chronicle.AbstractChronicleBuilderBean;
+import org.osframework.spring.chronicle.ChronicleFileVerifier;
+import org.osframework.spring.chronicle.KeyAccessProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.AbstractFactoryBean;
@@ -11,6 +13,8 @@ import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 
 /**
@@ -42,6 +46,40 @@ public class ChronicleSetBuilderBean<K> extends AbstractChronicleBuilderBean<K,
         config = new ChronicleSetBuilderConfig();
     }
 
+    /**
+     * Set the target false-positive rate of a counting Bloom filter checked before the
+     * set, sized from {@code maxEntries}. Lookups of keys absent from the filter return
+     * without touching the set. The filter is not used unless this rate is set.
+     * <p>The filter counts only the keys added through a filtered set, so every writer of
+     * the set must go through a filter. An unpersisted filter counts only the keys added
+     * through the set created by this object, so it must not be enabled for a set file
+     * written by other processes; a {@linkplain #setBloomFilterPersisted(boolean)
+     * persisted} filter is shared by all processes opening it.</p>
+     *
+     * @param falsePositiveRate target false-positive rate, in {@code (0, 1)}
+     * @throws IllegalArgumentException if rate is not in {@code (0, 1)}
+     * @see CountingBloomFilter
+     */
+    public void setBloomFilterFalsePositiveRate(double falsePositiveRate) {
+        if (!(0.0 < falsePositiveRate && 1.0 > falsePositiveRate)) {
+            throw new IllegalArgumentException("Bloom filter false-positive rate must be between 0 and 1 exclusive");
+        }
+        config.bloomFilterFalsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Toggle persistence of the Bloom filter of a persisted set, to a file named after
+     * the {@code persistedTo} file with suffix {@code .bloom}. A persisted filter is
+     * shared with the processes which have it open, and reused on restart if it was
+     * closed cleanly; otherwise, and if not persisted, the filter is rebuilt from the set
+     * keys. A filter in use by another process is never rebuilt.
+     *
+     * @param bloomFilterPersisted flag indicating whether Bloom filter is persisted
+     */
+    public void setBloomFilterPersisted(boolean bloomFilterPersisted) {
+        config.bloomFilterPersisted = bloomFilterPersisted;
+    }
+
     /**
      * Get the type of object that this {@code FactoryBean} creates.
      *
@@ -179,7 +217,92 @@ public class ChronicleSetBuilderBean<K> extends AbstractChronicleBuilderBean<K,
         if (null != config.persistedTo) {
             slf4jLogger.info("Set entries persisted off-heap at {}", config.persistedTo.toString());
         }
-        return (null != config.persistedTo) ? builder.createPersistedTo(config.persistedTo) : builder.create();
+        ChronicleSet<K> set;
+        if (null != config.persistedTo) {
+            File file = mappedFile();
+            set = config.verifyOnStartup ? createVerifiedSet(file) : builder.createPersistedTo(file);
+        } else {
+            set = builder.create();
+        }
+        registerMemoryUsage(set);
+        startCheckpoints();
+
+        // 8. Bloom filter settings
+        if (null != config.bloomFilterFalsePositiveRate) {
+            set = new BloomFilteredChronicleSet<>(set, createBloomFilter(set));
+        }
+
+        // 9. Profiling settings
+        KeyAccessProfiler profiler = createKeyAccessProfiler();
+        return (null != profiler) ? new ProfilingChronicleSet<>(set, profiler) : set;
+    }
+
+    /**
+     * Create the Bloom filter of the specified set, rebuilding it from the set keys if
+     * it has no valid contents.
+     */
+    private CountingBloomFilter createBloomFilter(ChronicleSet<K> set) throws IOException {
+        CountingBloomFilter filter;
+        if (config.bloomFilterPersisted && null != config.persistedTo) {
+            File file = new File(config.persistedTo.getPath() + ".bloom");
+            filter = new CountingBloomFilter(file, config.maxEntries, config.bloomFilterFalsePositiveRate);
+            slf4jLogger.info("Set Bloom filter persisted at {}", file);
+        } else {
+            filter = new CountingBloomFilter(config.maxEntries, config.bloomFilterFalsePositiveRate);
+        }
+        slf4jLogger.info("Set Bloom filter of {} counters and {} hashes, for false-positive rate {}",
+                filter.getCounters(), filter.getHashes(), config.bloomFilterFalsePositiveRate);
+        if (filter.needsRebuild() && !set.isEmpty()) {
+            long keys = 0L;
+            for (K key : set) {
+                filter.add(key);
+                keys++;
+            }
+            slf4jLogger.info("Set Bloom filter rebuilt from {} keys", keys);
+        }
+        return filter;
+    }
+
+    /**
+     * Create a set persisted to the specified file, and verify it. The entries of an
+     * inconsistent file are salvaged into a side file, which replaces it once it is
+     * quarantined. If the salvage is partial, or the file cannot be opened, the file is
+     * left in place and creation fails, unless partial salvage is accepted.
+     */
+    private ChronicleSet<K> createVerifiedSet(File file) throws IOException {
+        ChronicleSet<K> set;
+        try {
+            set = builder.createPersistedTo(file);
+        } catch (RuntimeException | IOException e) {
+            if (!config.acceptPartialSalvage) {
+                throw new IllegalStateException("Set file " + file + " could not be opened, and partial salvage"
+                        + " is not accepted", e);
+            }
+            File quarantined = ChronicleFileVerifier.quarantine(file);
+            slf4jLogger.warn("Set file could not be opened ({}); quarantined to {}", e.toString(), quarantined);
+            return builder.createPersistedTo(file);
+        }
+        ChronicleFileVerifier.VerificationReport report = ChronicleFileVerifier.verify(set);
+        if (report.isConsistent()) {
+            slf4jLogger.info("Set file verified: {}", report);
+            return set;
+        }
+        File salvageFile = ChronicleFileVerifier.salvageFileOf(file);
+        Files.deleteIfExists(salvageFile.toPath());
+        ChronicleFileVerifier.VerificationReport salvage;
+        try (ChronicleSet<K> repaired = builder.createPersistedTo(salvageFile)) {
+            salvage = ChronicleFileVerifier.salvage(set, repaired);
+        } finally {
+            set.close();
+        }
+        if (!(salvage.isComplete() && salvage.isConsistent()) && !config.acceptPartialSalvage) {
+            Files.delete(salvageFile.toPath());
+            throw new IllegalStateException("Set file " + file + " inconsistent (" + report + "); salvage partial ("
+                    + salvage + "), and partial salvage is not accepted");
+        }
+        File quarantined = ChronicleFileVerifier.replaceWithSalvage(file, salvageFile);
+        slf4jLogger.warn("Set file inconsistent ({}); quarantined to {}, salvaged {}", report, quarantined, salvage);
+        return builder.createPersistedTo(file);
     }
 
     /**
@@ -188,6 +311,9 @@ public class ChronicleSetBuilderBean<K> extends AbstractChronicleBuilderBean<K,
      */
     final class ChronicleSetBuilderConfig extends AbstractBuilderConfig {
 
+        private Double bloomFilterFalsePositiveRate = null;
+        private boolean bloomFilterPersisted = false;
+
     }
 
 }
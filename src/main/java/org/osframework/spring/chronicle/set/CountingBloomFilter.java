@@ -0,0 +1,380 @@
+package org.osframework.spring.chronicle.set;
+
+import net.openhft.lang.io.Bytes;
+import net.openhft.lang.io.BytesStore;
+import net.openhft.lang.io.DirectStore;
+import net.openhft.lang.io.MappedStore;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Off-heap counting Bloom filter of set keys, with 4-bit counters so that removed keys
+ * can be removed from the filter too. The filter is sized from the expected number of
+ * keys and a target false-positive rate. Counters are updated with compare-and-swap, so
+ * the filter is thread-safe without locks; a counter which reaches 15 sticks there,
+ * which can only cause false positives.
+ * <p>A filter persisted to a file is shared by all filters opening the file, in this and
+ * other processes, each of which holds a shared lock on a sibling file with suffix
+ * {@code .lock} while open. The file is marked dirty while open, and marked clean when
+ * its last filter is closed. A filter opening a file not in use reports that it
+ * {@linkplain #needsRebuild() needs rebuilding} from the keys of its set if the file was
+ * not closed cleanly, was sized differently, or is new; it is checked and rebuilt under
+ * an exclusive lock, so a filter in use is never discarded. A filter opening a file in
+ * use shares its live counters, and must be sized the same.</p>
+ * <p>Every writer of a set must go through its filter: a key added to the set, by any
+ * process, without being added to the filter is missed by lookups checking the
+ * filter.</p>
+ * <p>Keys are hashed by value for {@code CharSequence}, {@code byte[]} and integral
+ * {@code Number} keys, and by {@code hashCode()} otherwise.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+public final class CountingBloomFilter implements Closeable {
+
+    private static final long MAGIC = 0x43424C4F4F4D3031L;
+    private static final long HEADER_SIZE = 64L;
+    private static final long COUNTERS_OFFSET = 8L;
+    private static final long HASHES_OFFSET = 16L;
+    private static final long DIRTY_OFFSET = 24L;
+    private static final int MAX_COUNT = 15;
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final long GUARD_REGION = 0L;
+    private static final long IN_USE_REGION = 1L;
+
+    /**
+     * Filter files open in this process, by canonical path. File locks are held per
+     * process, so filters of this process opening the same file share its locks.
+     */
+    private static final Map<String, OpenFile> OPEN_FILES = new HashMap<>();
+
+    private final String path;
+    private final BytesStore store;
+    private final Bytes bytes;
+    private final long counters;
+    private final int hashes;
+    private final boolean rebuild;
+
+    /**
+     * Create a new filter in memory.
+     *
+     * @param expectedKeys expected number of keys
+     * @param falsePositiveRate target false-positive rate, in {@code (0, 1)}
+     */
+    public CountingBloomFilter(long expectedKeys, double falsePositiveRate) {
+        this.counters = counters(expectedKeys, falsePositiveRate);
+        this.hashes = hashes(counters, expectedKeys);
+        this.path = null;
+        this.store = DirectStore.allocate(size(counters));
+        this.bytes = store.bytes();
+        this.bytes.zeroOut();
+        writeHeader();
+        this.rebuild = true;
+    }
+
+    /**
+     * Open a filter persisted to the specified file, creating it if absent.
+     *
+     * @param file filter file
+     * @param expectedKeys expected number of keys
+     * @param falsePositiveRate target false-positive rate, in {@code (0, 1)}
+     * @throws IOException if file cannot be locked or mapped
+     * @throws IllegalStateException if file is in use by a filter sized differently
+     */
+    public CountingBloomFilter(File file, long expectedKeys, double falsePositiveRate) throws IOException {
+        this.counters = counters(expectedKeys, falsePositiveRate);
+        this.hashes = hashes(counters, expectedKeys);
+        this.path = file.getCanonicalPath();
+        long size = size(counters);
+        synchronized (OPEN_FILES) {
+            OpenFile open = OPEN_FILES.get(path);
+            if (null != open) {
+                checkInUseSize(open.size);
+                this.store = new MappedStore(file, FileChannel.MapMode.READ_WRITE, size);
+                this.bytes = store.bytes();
+                if (hashes != bytes.readInt(HASHES_OFFSET)) {
+                    store.free();
+                    throw new IllegalStateException("Bloom filter file " + path + " is in use by a filter"
+                            + " sized differently");
+                }
+                this.rebuild = false;
+                open.filters++;
+                return;
+            }
+            FileChannel channel = FileChannel.open(new File(path + LOCK_SUFFIX).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                FileLock guard = channel.lock(GUARD_REGION, 1L, false);
+                try {
+                    FileLock exclusive = channel.tryLock(IN_USE_REGION, 1L, false);
+                    boolean inUse = (null == exclusive);
+                    if (!inUse) {
+                        exclusive.release();
+                    }
+                    boolean existing = file.isFile() && size == file.length();
+                    if (inUse) {
+                        checkInUseSize(file.length());
+                    }
+                    this.store = new MappedStore(file, FileChannel.MapMode.READ_WRITE, size);
+                    this.bytes = store.bytes();
+                    boolean valid = existing
+                                    && MAGIC == bytes.readLong(0L)
+                                    && counters == bytes.readLong(COUNTERS_OFFSET)
+                                    && hashes == bytes.readInt(HASHES_OFFSET);
+                    if (inUse && !valid) {
+                        store.free();
+                        throw new IllegalStateException("Bloom filter file " + path + " is in use by a filter"
+                                + " sized differently");
+                    }
+                    this.rebuild = !inUse && (!valid || 0 != bytes.readVolatileInt(DIRTY_OFFSET));
+                    if (rebuild) {
+                        bytes.zeroOut();
+                    }
+                    writeHeader();
+                    OPEN_FILES.put(path, new OpenFile(channel, channel.lock(IN_USE_REGION, 1L, true), size));
+                } finally {
+                    guard.release();
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+
+    private void checkInUseSize(long size) {
+        if (size(counters) != size) {
+            throw new IllegalStateException("Bloom filter file " + path + " is in use by a filter sized differently");
+        }
+    }
+
+    private static long counters(long expectedKeys, double falsePositiveRate) {
+        if (1L > expectedKeys) {
+            throw new IllegalArgumentException("Expected number of keys must be positive");
+        }
+        if (!(0.0 < falsePositiveRate && 1.0 > falsePositiveRate)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1 exclusive");
+        }
+        double m = -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2.0) * Math.log(2.0));
+        // Whole longs of 16 counters each
+        return Math.max(16L, ((long)Math.ceil(m) + 15L) & ~15L);
+    }
+
+    private static int hashes(long counters, long expectedKeys) {
+        return Math.max(1, (int)Math.round((double)counters / expectedKeys * Math.log(2.0)));
+    }
+
+    private static long size(long counters) {
+        return HEADER_SIZE + counters / 2L;
+    }
+
+    private void writeHeader() {
+        bytes.writeLong(0L, MAGIC);
+        bytes.writeLong(COUNTERS_OFFSET, counters);
+        bytes.writeInt(HASHES_OFFSET, hashes);
+        bytes.writeOrderedInt(DIRTY_OFFSET, 1);
+    }
+
+    /**
+     * Determine whether the filter had no valid contents when created or opened, so that
+     * the keys of its set must be added to it.
+     *
+     * @return {@code true} if filter needs rebuilding
+     */
+    public boolean needsRebuild() {
+        return rebuild;
+    }
+
+    /**
+     * Get the number of counters of the filter.
+     *
+     * @return counter count
+     */
+    public long getCounters() {
+        return counters;
+    }
+
+    /**
+     * Get the number of hash functions of the filter.
+     *
+     * @return hash function count
+     */
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Determine whether the specified key may have been added. A {@code false} result is
+     * definite; a {@code true} result may be a false positive.
+     *
+     * @param key set key
+     * @return {@code false} if key has certainly not been added
+     */
+    public boolean mightContain(Object key) {
+        long h1 = hash(key);
+        long h2 = fmix64(h1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long counter = Long.remainderUnsigned(h1 + i * h2, counters);
+            if (0L == ((bytes.readVolatileLong(wordOffset(counter)) >>> shift(counter)) & MAX_COUNT)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the specified key, incrementing its counters.
+     *
+     * @param key set key
+     */
+    public void add(Object key) {
+        update(key, 1L);
+    }
+
+    /**
+     * Remove the specified key, decrementing its counters. Only keys which were added
+     * may be removed.
+     *
+     * @param key set key
+     */
+    public void remove(Object key) {
+        update(key, -1L);
+    }
+
+    /**
+     * Remove all keys.
+     */
+    public void clear() {
+        for (long offset = HEADER_SIZE; offset < size(counters); offset += 8L) {
+            bytes.writeOrderedLong(offset, 0L);
+        }
+    }
+
+    private void update(Object key, long delta) {
+        long h1 = hash(key);
+        long h2 = fmix64(h1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long counter = Long.remainderUnsigned(h1 + i * h2, counters);
+            long offset = wordOffset(counter);
+            int shift = shift(counter);
+            for (;;) {
+                long word = bytes.readVolatileLong(offset);
+                long count = (word >>> shift) & MAX_COUNT;
+                if (MAX_COUNT == count || (0L > delta && 0L == count)) {
+                    break;
+                }
+                if (bytes.compareAndSwapLong(offset, word, word + (delta << shift))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static long wordOffset(long counter) {
+        return HEADER_SIZE + ((counter >>> 4) << 3);
+    }
+
+    private static int shift(long counter) {
+        return (int)(counter & 15L) << 2;
+    }
+
+    static long hash(Object key) {
+        long h;
+        if (key instanceof CharSequence) {
+            CharSequence cs = (CharSequence)key;
+            h = 0xCBF29CE484222325L;
+            for (int i = 0, n = cs.length(); i < n; i++) {
+                h = (h ^ cs.charAt(i)) * 0x100000001B3L;
+            }
+        } else if (key instanceof byte[]) {
+            h = 0xCBF29CE484222325L;
+            for (byte b : (byte[])key) {
+                h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+            }
+        } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            h = ((Number)key).longValue();
+        } else {
+            h = key.hashCode();
+        }
+        return fmix64(h);
+    }
+
+    /**
+     * Finalization mix of MurmurHash3.
+     */
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A persisted filter file is marked clean when its last filter, in any process,
+     * is closed.</p>
+     *
+     * @throws IllegalStateException if the lock of a persisted filter cannot be released
+     */
+    @Override
+    public void close() {
+        if (null == path) {
+            store.free();
+            return;
+        }
+        synchronized (OPEN_FILES) {
+            OpenFile open = OPEN_FILES.get(path);
+            try {
+                if (0 < --open.filters) {
+                    return;
+                }
+                OPEN_FILES.remove(path);
+                try (FileChannel channel = open.channel) {
+                    FileLock guard = channel.lock(GUARD_REGION, 1L, false);
+                    try {
+                        open.inUse.release();
+                        FileLock exclusive = channel.tryLock(IN_USE_REGION, 1L, false);
+                        if (null != exclusive) {
+                            bytes.writeOrderedInt(DIRTY_OFFSET, 0);
+                            exclusive.release();
+                        }
+                    } finally {
+                        guard.release();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Lock of Bloom filter file " + path + " could not be released", e);
+                }
+            } finally {
+                store.free();
+            }
+        }
+    }
+
+    /**
+     * Filter file open in this process, with its shared in-use lock.
+     */
+    private static final class OpenFile {
+
+        private final FileChannel channel;
+        private final FileLock inUse;
+        private final long size;
+        private int filters = 1;
+
+        private OpenFile(FileChannel channel, FileLock inUse, long size) {
+            this.channel = channel;
+            this.inUse = inUse;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.osframework.spring.chronicle.set;
+
+import net.openhft.chronicle.set.ChronicleSet;
+import org.osframework.spring.chronicle.KeyAccessProfiler;
+
+import java.io.File;
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * {@code ChronicleSet} which records the key accesses of a delegate set with a
+ * {@link KeyAccessProfiler}. Bulk and iteration methods are delegated unprofiled.
+ *
+ * @param <K> Key class of the set
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @since 0.0.1
+ */
+final class ProfilingChronicleSet<K> extends AbstractSet<K> implements ChronicleSet<K> {
+
+    private final ChronicleSet<K> set;
+    private final KeyAccessProfiler profiler;
+
+    ProfilingChronicleSet(ChronicleSet<K> set, KeyAccessProfiler profiler) {
+        this.set = set;
+        this.profiler = profiler;
+    }
+
+    KeyAccessProfiler getProfiler() {
+        return profiler;
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        long start = profiler.start();
+        try {
+            return set.contains(key);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public boolean add(K key) {
+        long start = profiler.start();
+        try {
+            return set.add(key);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public boolean remove(Object key) {
+        long start = profiler.start();
+        try {
+            return set.remove(key);
+        } finally {
+            profiler.end(key, start);
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return set.iterator();
+    }
+
+    @Override
+    public int size() {
+        return set.size();
+    }
+
+    @Override
+    public long longSize() {
+        return set.longSize();
+    }
+
+    @Override
+    public void clear() {
+        set.clear();
+    }
+
+    @Override
+    public File file() {
+        return set.file();
+    }
+
+    @Override
+    public void close() {
+        set.close();
+    }
+
+}
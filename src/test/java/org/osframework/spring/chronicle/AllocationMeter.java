@@ -0,0 +1,57 @@
+package org.osframework.spring.chronicle;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Test helper measuring the heap bytes allocated by the current thread, through the
+ * HotSpot extension of {@code ThreadMXBean}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public final class AllocationMeter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Determine whether allocation measurement is supported and enabled by this JVM.
+     *
+     * @return {@code true} if supported
+     */
+    public static boolean isSupported() {
+        return (THREADS instanceof com.sun.management.ThreadMXBean)
+               && ((com.sun.management.ThreadMXBean)THREADS).isThreadAllocatedMemorySupported()
+               && ((com.sun.management.ThreadMXBean)THREADS).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Get the total bytes allocated by the current thread.
+     *
+     * @return allocated bytes, or {@code -1} if not supported
+     */
+    public static long allocatedBytes() {
+        return isSupported()
+               ? ((com.sun.management.ThreadMXBean)THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+               : -1L;
+    }
+
+    /**
+     * Measure the bytes allocated by the current thread while running the specified
+     * operation. The operation is run once beforehand, to warm up thread-local state.
+     *
+     * @param operation measured operation
+     * @return allocated bytes, or {@code -1} if not supported
+     */
+    public static long measure(Runnable operation) {
+        operation.run();
+        long before = allocatedBytes();
+        operation.run();
+        long after = allocatedBytes();
+        return (-1L == before) ? -1L : after - before;
+    }
+
+}
@@ -0,0 +1,219 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleFileCheckpointer}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleFileCheckpointerTest {
+
+    private File dir;
+    private File liveDirectory;
+    private File checkpointFile;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("ChronicleFileCheckpointer").toFile();
+        liveDirectory = new File(dir, "shm");
+        assertTrue(liveDirectory.mkdir());
+        checkpointFile = new File(dir, "entries.dat");
+        assertTrue(checkpointFile.createNewFile());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Test
+    public void testIncrementalCheckpoint() throws Exception {
+        File liveFile = new File(liveDirectory, "entries.dat");
+        ChronicleFileCheckpointer checkpointer = new ChronicleFileCheckpointer(liveFile, checkpointFile);
+        checkpointer.setBlockSize(4096);
+        checkpointer.restore();
+        assertEquals(checkpointer.getLagMillis(), -1L);
+
+        byte[] content = new byte[64 * 4096];
+        new Random(37L).nextBytes(content);
+        Files.write(liveFile.toPath(), content);
+        assertEquals(checkpointer.checkpoint(), content.length);
+        assertTrue(checkpointer.getLagMillis() >= 0L);
+
+        try (RandomAccessFile raf = new RandomAccessFile(liveFile, "rw")) {
+            raf.seek(10 * 4096 + 17);
+            raf.write(~content[10 * 4096 + 17]);
+            raf.seek(40 * 4096);
+            raf.write(~content[40 * 4096]);
+        }
+        // The work file holds the empty generation before the first checkpoint
+        assertEquals(checkpointer.checkpoint(), (long)content.length);
+        assertEquals(checkpointer.checkpoint(), 2L * 4096);
+        assertEquals(checkpointer.getLastCheckpointBytes(), 2L * 4096);
+        assertEquals(checkpointer.checkpoint(), 0L);
+        assertTrue(Arrays.equals(Files.readAllBytes(checkpointFile.toPath()),
+                Files.readAllBytes(liveFile.toPath())));
+        checkpointer.close();
+    }
+
+    @Test
+    public void testCheckpointCommittedByRename() throws Exception {
+        File liveFile = new File(liveDirectory, "entries.dat");
+        File workFile = new File(dir, "entries.dat.next");
+        ChronicleFileCheckpointer checkpointer = new ChronicleFileCheckpointer(liveFile, checkpointFile);
+        checkpointer.setBlockSize(4096);
+        checkpointer.restore();
+
+        byte[] first = new byte[8 * 4096];
+        new Random(43L).nextBytes(first);
+        Files.write(liveFile.toPath(), first);
+        checkpointer.checkpoint();
+        Object committed = Files.readAttributes(checkpointFile.toPath(), BasicFileAttributes.class).fileKey();
+
+        byte[] second = first.clone();
+        second[3 * 4096] = (byte)~second[3 * 4096];
+        Files.write(liveFile.toPath(), second);
+        checkpointer.checkpoint();
+        // The previous checkpoint was renamed to the work file, not overwritten
+        assertTrue(Arrays.equals(Files.readAllBytes(checkpointFile.toPath()), second));
+        assertTrue(Arrays.equals(Files.readAllBytes(workFile.toPath()), first));
+        if (null != committed) {
+            assertEquals(Files.readAttributes(workFile.toPath(), BasicFileAttributes.class).fileKey(), committed);
+        }
+        assertEquals(checkpointFile.lastModified(), liveFile.lastModified());
+        checkpointer.close();
+    }
+
+    @Test
+    public void testNewerLiveFileNotRestored() throws Exception {
+        File liveFile = new File(liveDirectory, "entries.dat");
+        byte[] content = new byte[4 * 4096];
+        new Random(47L).nextBytes(content);
+        Files.write(checkpointFile.toPath(), content);
+        assertTrue(checkpointFile.setLastModified(System.currentTimeMillis() - 60000L));
+        byte[] live = new byte[4 * 4096];
+        Files.write(liveFile.toPath(), live);
+
+        ChronicleFileCheckpointer checkpointer = new ChronicleFileCheckpointer(liveFile, checkpointFile);
+        checkpointer.restore();
+        assertTrue(Arrays.equals(Files.readAllBytes(liveFile.toPath()), live));
+        checkpointer.close();
+
+        // Once older than the checkpoint, the live file is restored
+        assertTrue(liveFile.setLastModified(checkpointFile.lastModified() - 60000L));
+        checkpointer = new ChronicleFileCheckpointer(liveFile, checkpointFile);
+        checkpointer.restore();
+        assertTrue(Arrays.equals(Files.readAllBytes(liveFile.toPath()), content));
+        checkpointer.close();
+    }
+
+    @Test
+    public void testLiveFileInUseNotRestored() throws Exception {
+        File liveFile = new File(liveDirectory, "entries.dat");
+        byte[] content = new byte[4 * 4096];
+        new Random(53L).nextBytes(content);
+        Files.write(checkpointFile.toPath(), content);
+        ChronicleFileCheckpointer user = new ChronicleFileCheckpointer(liveFile, checkpointFile);
+        user.restore();
+
+        byte[] live = new byte[4 * 4096];
+        Files.write(liveFile.toPath(), live);
+        assertTrue(liveFile.setLastModified(checkpointFile.lastModified() - 60000L));
+        ChronicleFileCheckpointer checkpointer = new ChronicleFileCheckpointer(liveFile, checkpointFile);
+        checkpointer.restore();
+        assertTrue(Arrays.equals(Files.readAllBytes(liveFile.toPath()), live));
+        checkpointer.close();
+        user.close();
+    }
+
+    @Test
+    public void testRestartDoesNotRewriteCheckpoint() throws Exception {
+        File liveFile = new File(liveDirectory, "entries.dat");
+        byte[] content = new byte[16 * 4096];
+        new Random(41L).nextBytes(content);
+        Files.write(checkpointFile.toPath(), content);
+
+        ChronicleFileCheckpointer checkpointer = new ChronicleFileCheckpointer(liveFile, checkpointFile);
+        checkpointer.setBlockSize(4096);
+        checkpointer.restore();
+        assertTrue(Arrays.equals(Files.readAllBytes(liveFile.toPath()), content));
+        assertEquals(checkpointer.checkpoint(), 0L);
+        checkpointer.close();
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        File liveFile = new File(liveDirectory, "entries.dat");
+        ChronicleFileCheckpointer checkpointer = new ChronicleFileCheckpointer(liveFile, checkpointFile);
+        checkpointer.setBlockSize(4096);
+        checkpointer.setMaxBytesPerSecond(1 << 20);
+        checkpointer.restore();
+        Files.write(liveFile.toPath(), new byte[256 << 10]);
+
+        long start = System.nanoTime();
+        assertEquals(checkpointer.checkpoint(), 256L << 10);
+        assertTrue(System.nanoTime() - start >= 200_000_000L);
+        checkpointer.close();
+    }
+
+    @Test
+    public void testLiveMapRestoredFromCheckpoint() throws Exception {
+        ChronicleMapBuilderBean<Integer, Long> builderBean = newMapBean();
+        ChronicleMap<Integer, Long> map = builderBean.getObject();
+        assertEquals(map.file(), new File(liveDirectory, "entries.dat"));
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, (long)i);
+        }
+        builderBean.destroy();
+        map.close();
+        assertTrue(builderBean.getCheckpointer().getLagMillis() >= 0L);
+
+        FileSystemUtils.deleteRecursively(liveDirectory);
+        assertTrue(liveDirectory.mkdir());
+        builderBean = newMapBean();
+        map = builderBean.getObject();
+        assertEquals(map.size(), 1000);
+        assertEquals(map.get(999).longValue(), 999L);
+        builderBean.destroy();
+        map.close();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testLiveDirectoryRequiresPersistedTo() throws Exception {
+        ChronicleMapBuilderBean<Integer, Long> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(Long.class);
+        builderBean.setLiveDirectory(liveDirectory);
+        builderBean.afterPropertiesSet();
+    }
+
+    private ChronicleMapBuilderBean<Integer, Long> newMapBean() throws Exception {
+        ChronicleMapBuilderBean<Integer, Long> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(Long.class);
+        builderBean.setMaxEntries(1000);
+        builderBean.setPersistedTo(checkpointFile);
+        builderBean.setLiveDirectory(liveDirectory);
+        builderBean.setCheckpointInterval(50L);
+        builderBean.afterPropertiesSet();
+        return builderBean;
+    }
+
+}
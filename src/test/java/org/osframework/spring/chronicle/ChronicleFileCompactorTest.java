@@ -0,0 +1,163 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import net.openhft.chronicle.set.ChronicleSet;
+import net.openhft.chronicle.set.ChronicleSetBuilder;
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleFileCompactor}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleFileCompactorTest {
+
+    private File dir;
+    private File file;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("ChronicleFileCompactor").toFile();
+        file = new File(dir, "entries.dat");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        try (ChronicleMap<Integer, String> map = fragmentedMap()) {
+            ChronicleFileCompactor.FileReport report = ChronicleFileCompactor.report(map);
+            assertEquals(report.getEntries(), 5000L);
+            assertEquals(report.getSegments(), 16);
+            assertEquals(report.getChunkSize(), 32L);
+            assertEquals(report.getFileBytes(), file.length());
+            assertTrue(report.getChunksPerEntry() > 1.0, report.toString());
+            assertTrue(report.getFragmentedChunks() > 0L, report.toString());
+            assertTrue(report.getFragmentation() > 0.0 && report.getFragmentation() < 1.0, report.toString());
+            assertTrue(report.getWastedBytes() > 0L && report.getWastedBytes() < file.length(), report.toString());
+        }
+    }
+
+    @Test
+    public void testCompactMap() throws Exception {
+        fragmentedMap().close();
+        ChronicleMapBuilder<Integer, String> builder = ChronicleMapBuilder.of(Integer.class, String.class)
+                .entries(5000L)
+                .averageValueSize(100.0)
+                .actualSegments(4)
+                .actualChunkSize(128);
+        ChronicleFileCompactor.CompactionReport report = ChronicleFileCompactor.compact(file, builder);
+        assertEquals(report.getBefore().getSegments(), 16);
+        assertEquals(report.getAfter().getSegments(), 4);
+        assertEquals(report.getAfter().getChunkSize(), 128L);
+        assertEquals(report.getAfter().getEntries(), 5000L);
+        assertEquals(report.getAfter().getFragmentedChunks(), 0L);
+        assertTrue(report.getAfter().getFileBytes() < report.getBefore().getFileBytes(), report.toString());
+        assertFalse(new File(dir, "entries.dat.compact").exists());
+
+        // Reopened with the compacted geometry, whatever the builder configuration
+        try (ChronicleMap<Integer, String> map = ChronicleMapBuilder.of(Integer.class, String.class)
+                .entries(20000L)
+                .createPersistedTo(file)) {
+            assertEquals(ChronicleFileCompactor.report(map).getSegments(), 4);
+            assertEquals(map.size(), 5000);
+            for (int k = 1; k < 10000; k += 2) {
+                assertEquals(map.get(k), value(k));
+            }
+        }
+    }
+
+    @Test
+    public void testCompactSet() throws Exception {
+        try (ChronicleSet<Long> set = ChronicleSetBuilder.of(Long.class)
+                .entries(10000L)
+                .actualSegments(8)
+                .createPersistedTo(file)) {
+            for (long k = 0; k < 10000L; k++) {
+                set.add(k);
+            }
+            for (long k = 0; k < 10000L; k += 3L) {
+                set.remove(k);
+            }
+        }
+        ChronicleFileCompactor.CompactionReport report = ChronicleFileCompactor.compact(file,
+                ChronicleSetBuilder.of(Long.class).entries(7000L).actualSegments(2));
+        assertEquals(report.getBefore().getSegments(), 8);
+        assertTrue(report.getBefore().getFragmentedChunks() > 0L, report.toString());
+        assertEquals(report.getAfter().getSegments(), 2);
+        assertEquals(report.getAfter().getEntries(), 6666L);
+        assertEquals(report.getAfter().getFragmentedChunks(), 0L);
+    }
+
+    @Test
+    public void testCompactByteArrayMap() throws Exception {
+        try (ChronicleMap<Integer, byte[]> map = ChronicleMapBuilder.of(Integer.class, byte[].class)
+                .entries(2000L)
+                .averageValueSize(64.0)
+                .actualSegments(4)
+                .createPersistedTo(file)) {
+            for (int k = 0; k < 2000; k++) {
+                map.put(k, new byte[k % 64 + 1]);
+            }
+            for (int k = 0; k < 2000; k += 2) {
+                map.remove(k);
+            }
+        }
+        ChronicleFileCompactor.CompactionReport report = ChronicleFileCompactor.compact(file,
+                ChronicleMapBuilder.of(Integer.class, byte[].class).entries(1000L).averageValueSize(64.0));
+        assertEquals(report.getAfter().getEntries(), 1000L);
+        try (ChronicleMap<Integer, byte[]> map = ChronicleMapBuilder.of(Integer.class, byte[].class)
+                .entries(1000L)
+                .createPersistedTo(file)) {
+            assertEquals(map.get(63).length, 64);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCompactMissingFile() throws Exception {
+        ChronicleFileCompactor.compact(file, ChronicleSetBuilder.of(Long.class));
+    }
+
+    /**
+     * Create a map of 10000 entries of one to six chunks, then remove every other entry.
+     */
+    private ChronicleMap<Integer, String> fragmentedMap() throws Exception {
+        ChronicleMap<Integer, String> map = ChronicleMapBuilder.of(Integer.class, String.class)
+                .entries(10000L)
+                .averageValueSize(100.0)
+                .actualSegments(16)
+                .actualChunkSize(32)
+                .createPersistedTo(file);
+        for (int k = 0; k < 10000; k++) {
+            map.put(k, value(k));
+        }
+        for (int k = 0; k < 10000; k += 2) {
+            map.remove(k);
+        }
+        return map;
+    }
+
+    private static String value(int k) {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i <= k % 6 * 30; i++) {
+            value.append((char)('a' + i % 26));
+        }
+        return value.toString();
+    }
+
+}
@@ -0,0 +1,239 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.set.ChronicleSet;
+import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
+import org.osframework.spring.chronicle.set.ChronicleSetBuilderBean;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for {@code ChronicleFileVerifier}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleFileVerifierTest {
+
+    private File dir;
+    private File file;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("ChronicleFileVerifier").toFile();
+        file = new File(dir, "entries.dat");
+        assertTrue(file.createNewFile());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Test
+    public void testConsistentMapFile() throws Exception {
+        ChronicleMap<Integer, Long> map = newMapBean(false).getObject();
+        fill(map);
+        map.close();
+
+        ChronicleMapBuilderBean<Integer, Long> builderBean = newMapBean(false);
+        map = builderBean.getObject();
+        assertEquals(map.size(), 1000);
+        assertEquals(quarantinedFiles(), 0);
+        ChronicleFileVerifier.VerificationReport report = ChronicleFileVerifier.verify(map);
+        assertEquals(report.getEntries(), 1000L);
+        assertTrue(report.isConsistent());
+        assertTrue(report.isComplete());
+        builderBean.destroy();
+    }
+
+    @Test
+    public void testCorruptedMapFileRepaired() throws Exception {
+        ChronicleMap<Integer, Long> map = newMapBean(false).getObject();
+        fill(map);
+        map.close();
+        corrupt(file.length() * 5 / 6, 13L);
+
+        ChronicleMapBuilderBean<Integer, Long> builderBean = newMapBean(true);
+        map = builderBean.getObject();
+        assertEquals(quarantinedFiles(), 1);
+        assertTrue(map.size() > 0);
+        assertTrue(map.size() < 1000);
+        assertTrue(ChronicleFileVerifier.verify(map).isConsistent());
+        builderBean.destroy();
+    }
+
+    @Test
+    public void testUnreadableMapFileQuarantined() throws Exception {
+        ChronicleMap<Integer, Long> map = newMapBean(false).getObject();
+        fill(map);
+        map.close();
+        corrupt(0L, 1L);
+
+        ChronicleMapBuilderBean<Integer, Long> builderBean = newMapBean(true);
+        map = builderBean.getObject();
+        assertEquals(quarantinedFiles(), 1);
+        assertTrue(map.isEmpty());
+        map.put(1, 1L);
+        assertEquals(map.get(1).longValue(), 1L);
+        builderBean.destroy();
+    }
+
+    @Test
+    public void testCorruptedSetFileRepaired() throws Exception {
+        ChronicleSet<Integer> set = newSetBean(false).getObject();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+        set.close();
+        corrupt(file.length() / 2, 11L);
+
+        ChronicleSetBuilderBean<Integer> builderBean = newSetBean(true);
+        set = builderBean.getObject();
+        assertEquals(quarantinedFiles(), 1);
+        assertFalse(set.isEmpty());
+        assertTrue(set.size() < 1000);
+        assertTrue(ChronicleFileVerifier.verify(set).isConsistent());
+        builderBean.destroy();
+    }
+
+    @Test
+    public void testPartialSalvageRejectedByDefault() throws Exception {
+        ChronicleMap<Integer, Long> map = newMapBean(false).getObject();
+        fill(map);
+        map.close();
+        corrupt(file.length() * 5 / 6, 13L);
+        long length = file.length();
+
+        try {
+            newMapBean(false);
+            fail("Partially salvaged map file served");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("partial"), expected.getMessage());
+        }
+        assertEquals(quarantinedFiles(), 0);
+        assertFalse(ChronicleFileVerifier.salvageFileOf(file).exists());
+        assertEquals(file.length(), length);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testUnreadableMapFileRejectedByDefault() throws Exception {
+        ChronicleMap<Integer, Long> map = newMapBean(false).getObject();
+        fill(map);
+        map.close();
+        corrupt(0L, 1L);
+        newMapBean(false);
+    }
+
+    @Test
+    public void testSalvageSkipsPastFailures() throws Exception {
+        ChronicleMap<Integer, Long> map = newMapBean(false).getObject();
+        fill(map);
+        map.close();
+        corrupt(file.length() / 2, 7L);
+
+        ChronicleMapBuilderBean<Integer, Long> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(Long.class);
+        builderBean.setMaxEntries(1000);
+        builderBean.setPersistedTo(file);
+        builderBean.afterPropertiesSet();
+        map = builderBean.getObject();
+        Map<Integer, Long> salvaged = new HashMap<>();
+        ChronicleFileVerifier.VerificationReport report = ChronicleFileVerifier.salvage(map, salvaged);
+        map.close();
+        assertTrue(report.isComplete(), report.toString());
+        assertFalse(report.isConsistent(), report.toString());
+        assertTrue(0 < salvaged.size() && salvaged.size() <= report.getEntries(), report.toString());
+    }
+
+    @Test
+    public void testConsistentByteArrayMapFile() throws Exception {
+        ChronicleMapBuilderBean<String, byte[]> builderBean = newByteArrayMapBean();
+        ChronicleMap<String, byte[]> map = builderBean.getObject();
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, new byte[] { (byte)i, (byte)(i >> 8), 7 });
+        }
+        map.close();
+
+        builderBean = newByteArrayMapBean();
+        map = builderBean.getObject();
+        assertEquals(map.size(), 100);
+        assertEquals(quarantinedFiles(), 0);
+        ChronicleFileVerifier.VerificationReport report = ChronicleFileVerifier.verify(map);
+        assertEquals(report.getEntries(), 100L);
+        assertTrue(report.isConsistent(), report.toString());
+        builderBean.destroy();
+        map.close();
+    }
+
+    private ChronicleMapBuilderBean<String, byte[]> newByteArrayMapBean() throws Exception {
+        ChronicleMapBuilderBean<String, byte[]> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(String.class);
+        builderBean.setValueClass(byte[].class);
+        builderBean.setMaxEntries(1000);
+        builderBean.setPersistedTo(file);
+        builderBean.setVerifyOnStartup(true);
+        builderBean.afterPropertiesSet();
+        return builderBean;
+    }
+
+    private ChronicleMapBuilderBean<Integer, Long> newMapBean(boolean acceptPartialSalvage) throws Exception {
+        ChronicleMapBuilderBean<Integer, Long> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(Long.class);
+        builderBean.setMaxEntries(1000);
+        builderBean.setPersistedTo(file);
+        builderBean.setVerifyOnStartup(true);
+        builderBean.setAcceptPartialSalvage(acceptPartialSalvage);
+        builderBean.afterPropertiesSet();
+        return builderBean;
+    }
+
+    private ChronicleSetBuilderBean<Integer> newSetBean(boolean acceptPartialSalvage) throws Exception {
+        ChronicleSetBuilderBean<Integer> builderBean = new ChronicleSetBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setMaxEntries(1000);
+        builderBean.setPersistedTo(file);
+        builderBean.setVerifyOnStartup(true);
+        builderBean.setAcceptPartialSalvage(acceptPartialSalvage);
+        builderBean.afterPropertiesSet();
+        return builderBean;
+    }
+
+    private static void fill(ChronicleMap<Integer, Long> map) {
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, (long)i);
+        }
+    }
+
+    /**
+     * Overwrite every {@code stride}th byte of the file from the specified offset.
+     */
+    private void corrupt(long from, long stride) throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            for (long p = from; p < raf.length(); p += stride) {
+                raf.seek(p);
+                raf.write(0x5A);
+            }
+        }
+    }
+
+    private int quarantinedFiles() {
+        return dir.list((d, name) -> name.startsWith("entries.dat.corrupt-")).length;
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
+import org.osframework.spring.chronicle.set.ChronicleSetBuilderBean;
+import org.testng.annotations.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleMemoryRegistry}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleMemoryRegistryTest {
+
+    @Test
+    public void testPersistedMapUsage() throws Exception {
+        File file = File.createTempFile("ChronicleMemoryRegistry", ".dat");
+        file.deleteOnExit();
+        ChronicleMapBuilderBean<Integer, Long> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setBeanName("persistedMap");
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(Long.class);
+        builderBean.setMaxEntries(10000);
+        builderBean.setPersistedTo(file);
+        builderBean.afterPropertiesSet();
+        ChronicleMap<Integer, Long> map = builderBean.getObject();
+        for (int i = 0; i < 2500; i++) {
+            map.put(i, (long)i);
+        }
+
+        ChronicleMemoryUsage usage = ChronicleMemoryRegistry.getInstance().getUsage("persistedMap");
+        assertNotNull(usage);
+        assertEquals(usage.getEntryCount(), 2500L);
+        assertEquals(usage.getMaxEntries(), 10000L);
+        assertEquals(usage.getFillRatio(), 0.25);
+        assertEquals(usage.getFile(), file.getCanonicalPath());
+        assertTrue(usage.getAllocatedBytes() > 0L);
+        assertEquals(usage.getMappedFileSize(), file.length());
+        if (new File("/proc/self/smaps").canRead()) {
+            assertTrue(usage.getResidentBytes() > 0L);
+        }
+
+        builderBean.destroy();
+        assertNull(ChronicleMemoryRegistry.getInstance().getUsage("persistedMap"));
+        map.close();
+    }
+
+    @Test
+    public void testInMemorySetUsage() throws Exception {
+        ChronicleSetBuilderBean<Integer> builderBean = new ChronicleSetBuilderBean<>();
+        builderBean.setBeanName("inMemorySet");
+        builderBean.setKeyClass(Integer.class);
+        builderBean.afterPropertiesSet();
+        Set<Integer> set = builderBean.getObject();
+        set.add(1);
+
+        ChronicleMemoryUsage usage = ChronicleMemoryRegistry.getInstance().getUsage("inMemorySet");
+        assertEquals(usage.getEntryCount(), 1L);
+        assertNull(usage.getFile());
+        assertTrue(usage.getAllocatedBytes() > 0L);
+        assertEquals(usage.getMappedFileSize(), -1L);
+        assertEquals(usage.getResidentBytes(), -1L);
+
+        ObjectName name = new ObjectName("org.osframework.spring.chronicle:type=ChronicleMemoryRegistry");
+        CompositeData[] usages = (CompositeData[])ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Usages");
+        boolean found = false;
+        for (CompositeData data : usages) {
+            found |= "inMemorySet".equals(data.get("name"));
+        }
+        assertTrue(found);
+        builderBean.destroy();
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import net.openhft.chronicle.set.ChronicleSet;
+import net.openhft.chronicle.set.ChronicleSetBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Unit tests for {@code ChronicleStreams}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleStreamsTest {
+
+    private static final int ENTRIES = 10000;
+    private static final int SEGMENTS = 8;
+
+    private ChronicleMap<Integer, Long> map = null;
+    private ChronicleSet<Integer> set = null;
+
+    @BeforeClass
+    public void createCollections() {
+        map = ChronicleMapBuilder.of(Integer.class, Long.class).entries(ENTRIES).actualSegments(SEGMENTS).create();
+        set = ChronicleSetBuilder.of(Integer.class).entries(ENTRIES).actualSegments(SEGMENTS).create();
+        for (int i = 0; i < ENTRIES; i++) {
+            map.put(i, (long)i);
+            set.add(i);
+        }
+    }
+
+    @AfterClass
+    public void closeCollections() {
+        map.close();
+        set.close();
+    }
+
+    @Test
+    public void testSpliteratorSplitsBySegment() {
+        Deque<Spliterator<Map.Entry<Integer, Long>>> pending = new ArrayDeque<>();
+        pending.push(ChronicleStreams.spliterator(map));
+        int splits = 0;
+        AtomicLong entries = new AtomicLong();
+        while (!pending.isEmpty()) {
+            Spliterator<Map.Entry<Integer, Long>> spliterator = pending.pop();
+            Spliterator<Map.Entry<Integer, Long>> split = spliterator.trySplit();
+            if (null != split) {
+                pending.push(split);
+                pending.push(spliterator);
+            } else {
+                splits++;
+                spliterator.forEachRemaining(e -> entries.incrementAndGet());
+                assertNull(spliterator.trySplit());
+            }
+        }
+        assertEquals(splits, SEGMENTS);
+        assertEquals(entries.get(), (long)ENTRIES);
+    }
+
+    @Test
+    public void testParallelStreamMap() {
+        long expected = (long)ENTRIES * (ENTRIES - 1) / 2;
+        long actual = ChronicleStreams.parallelStream(map).mapToLong(Map.Entry::getValue).sum();
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testParallelStreamSet() {
+        assertEquals(ChronicleStreams.parallelStream(set).filter(k -> 0 == k % 2).count(), (long)(ENTRIES / 2));
+    }
+
+    @Test
+    public void testStreamSet() {
+        assertEquals(ChronicleStreams.stream(set).distinct().count(), (long)ENTRIES);
+    }
+
+    @Test
+    public void testKeyFilteredStreamMap() {
+        long actual = ChronicleStreams.parallelStream(map, b -> 0 == b.readInt(b.position()) % 10)
+                .count();
+        assertEquals(actual, (long)(ENTRIES / 10));
+    }
+
+    @Test
+    public void testKeyFilteredStreamSet() {
+        assertEquals(ChronicleStreams.stream(set, b -> 4L == b.remaining() && 100 > b.readInt(b.position()))
+                .filter(k -> 100 > k).count(), 100L);
+    }
+
+    @Test
+    public void testReplicatedMapStreamedByIterator() {
+        try (ChronicleMap<Integer, Long> replicated = ChronicleMapBuilder.of(Integer.class, Long.class)
+                .entries(ENTRIES).replication((byte)1).create()) {
+            for (int i = 0; i < 1000; i++) {
+                replicated.put(i, (long)i);
+            }
+            assertEquals(ChronicleStreams.parallelStream(replicated).mapToLong(Map.Entry::getValue).sum(), 499500L);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReplicatedMapKeyFilterUnsupported() {
+        try (ChronicleMap<Integer, Long> replicated = ChronicleMapBuilder.of(Integer.class, Long.class)
+                .entries(ENTRIES).replication((byte)1).create()) {
+            ChronicleStreams.stream(replicated, b -> true);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.osframework.spring.chronicle;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleThreadFactory}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleThreadFactoryTest {
+
+    @DataProvider
+    public Object[][] invalidCpuLists() {
+        return new Object[][] {
+                { "a" },
+                { "3-1" },
+                { "0,64" },
+                { "-1" }
+        };
+    }
+
+    @Test(dataProvider = "invalidCpuLists", expectedExceptions = IllegalArgumentException.class)
+    public void testSetCpuListInvalid(String cpuList) {
+        new ChronicleThreadFactory("test").setCpuList(cpuList);
+    }
+
+    @Test
+    public void testNewThread() {
+        ChronicleThreadFactory factory = new ChronicleThreadFactory("worker");
+        factory.setDaemon(false);
+        factory.setPriority(Thread.MIN_PRIORITY);
+        Thread first = factory.newThread(() -> { });
+        Thread second = factory.newThread(() -> { });
+        assertEquals(first.getName(), "worker-0");
+        assertEquals(second.getName(), "worker-1");
+        assertFalse(first.isDaemon());
+        assertEquals(first.getPriority(), Thread.MIN_PRIORITY);
+    }
+
+    @Test
+    public void testPinnedThreadCpu() throws Exception {
+        ChronicleThreadFactory factory = new ChronicleThreadFactory("pinned");
+        factory.setCpuList("0");
+        Map<String, Integer> cpus = runAndCapture(factory);
+        assertEquals(cpus.size(), 1);
+        assertTrue(cpus.containsKey("pinned-0"));
+        assertTrue(factory.getThreadCpus().isEmpty());
+    }
+
+    @Test
+    public void testPinningFallsBackWhenUnavailable() throws Exception {
+        ChronicleThreadFactory factory = new ChronicleThreadFactory("unpinned");
+        factory.setCpus(Long.SIZE - 1);
+        Map<String, Integer> cpus = runAndCapture(factory);
+        assertEquals(cpus.size(), 1);
+        assertNotEquals(cpus.get("unpinned-0"), Integer.valueOf(Long.SIZE - 1));
+    }
+
+    private static Map<String, Integer> runAndCapture(final ChronicleThreadFactory factory) throws Exception {
+        final AtomicReference<Map<String, Integer>> captured = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread t = factory.newThread(() -> {
+            captured.set(factory.getThreadCpus());
+            done.countDown();
+        });
+        t.start();
+        done.await();
+        t.join();
+        return captured.get();
+    }
+
+}
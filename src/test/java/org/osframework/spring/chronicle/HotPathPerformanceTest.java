@@ -0,0 +1,187 @@
+package org.osframework.spring.chronicle;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.set.ChronicleSet;
+import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
+import org.osframework.spring.chronicle.map.LongLongChronicleMap;
+import org.osframework.spring.chronicle.map.LongLongChronicleMapBuilderBean;
+import org.osframework.spring.chronicle.set.ChronicleSetBuilderBean;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+/**
+ * Performance regression tests of the hot paths of collections built by the builder
+ * beans with production-like configurations: allocation and time per get, put and
+ * iteration step are held to the budgets of {@code performance-budgets.properties}.
+ * Exclude with {@code -DexcludedGroups=performance}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class HotPathPerformanceTest {
+
+    private static final int ENTRIES = 10000;
+    private static final int OPERATIONS = 10000;
+
+    private ChronicleMapBuilderBean<String, String> stringMapBean;
+    private ChronicleMap<String, String> stringMap;
+    private ChronicleMapBuilderBean<CharSequence, CharSequence> charSequenceMapBean;
+    private ChronicleMap<CharSequence, CharSequence> charSequenceMap;
+    private LongLongChronicleMapBuilderBean longLongMapBean;
+    private LongLongChronicleMap longLongMap;
+    private ChronicleSetBuilderBean<Long> setBean;
+    private ChronicleSet<Long> set;
+    private String[] stringKeys;
+
+    @BeforeClass(groups = PerformanceBudget.GROUP)
+    public void setUp() throws Exception {
+        stringMapBean = new ChronicleMapBuilderBean<>();
+        stringMapBean.setKeyClass(String.class);
+        stringMapBean.setValueClass(String.class);
+        stringMapBean.setAverageKeySize(10.0);
+        stringMapBean.setAverageValueSize(20.0);
+        stringMapBean.setMaxEntries(ENTRIES * 2);
+        stringMapBean.afterPropertiesSet();
+        stringMap = stringMapBean.getObject();
+
+        charSequenceMapBean = new ChronicleMapBuilderBean<>();
+        charSequenceMapBean.setKeyClass(CharSequence.class);
+        charSequenceMapBean.setValueClass(CharSequence.class);
+        charSequenceMapBean.setAverageKeySize(10.0);
+        charSequenceMapBean.setAverageValueSize(20.0);
+        charSequenceMapBean.setMaxEntries(ENTRIES * 2);
+        charSequenceMapBean.setPutReturnsNull(true);
+        charSequenceMapBean.setRemoveReturnsNull(true);
+        charSequenceMapBean.afterPropertiesSet();
+        charSequenceMap = charSequenceMapBean.getObject();
+
+        longLongMapBean = new LongLongChronicleMapBuilderBean();
+        longLongMapBean.setMaxEntries(ENTRIES * 2);
+        longLongMapBean.afterPropertiesSet();
+        longLongMap = longLongMapBean.getObject();
+
+        setBean = new ChronicleSetBuilderBean<>();
+        setBean.setKeyClass(Long.class);
+        setBean.setMaxEntries(ENTRIES * 2);
+        setBean.afterPropertiesSet();
+        set = setBean.getObject();
+
+        stringKeys = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            stringKeys[i] = "key" + i;
+            stringMap.put(stringKeys[i], "value-of-key-" + i);
+            charSequenceMap.put(stringKeys[i], "value-of-key-" + i);
+            longLongMap.put(i, i);
+            set.add((long)i);
+        }
+    }
+
+    @AfterClass(groups = PerformanceBudget.GROUP)
+    public void tearDown() throws Exception {
+        stringMapBean.destroy();
+        charSequenceMapBean.destroy();
+        longLongMapBean.destroy();
+        setBean.destroy();
+        stringMap.close();
+        charSequenceMap.close();
+        longLongMap.close();
+        set.close();
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testStringMapGet() {
+        PerformanceBudget.assertWithin("map.string.get", OPERATIONS, () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                stringMap.get(stringKeys[i % ENTRIES]);
+            }
+        });
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testStringMapPut() {
+        PerformanceBudget.assertWithin("map.string.put", OPERATIONS, () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                stringMap.put(stringKeys[i % ENTRIES], "value-of-key");
+            }
+        });
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testCharSequenceMapGetUsing() {
+        StringBuilder key = new StringBuilder();
+        StringBuilder value = new StringBuilder(32);
+        PerformanceBudget.assertWithin("map.charsequence.getUsing", OPERATIONS, () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                key.setLength(0);
+                key.append("key").append(i % ENTRIES);
+                charSequenceMap.getUsing(key, value);
+            }
+        });
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testCharSequenceMapPut() {
+        StringBuilder key = new StringBuilder();
+        StringBuilder value = new StringBuilder("value-of-key");
+        PerformanceBudget.assertWithin("map.charsequence.put", OPERATIONS, () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                key.setLength(0);
+                key.append("key").append(i % ENTRIES);
+                charSequenceMap.put(key, value);
+            }
+        });
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testLongLongMapGet() {
+        PerformanceBudget.assertWithin("map.longlong.get", OPERATIONS, () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                longLongMap.getLong(i % ENTRIES);
+            }
+        });
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testLongLongMapPut() {
+        PerformanceBudget.assertWithin("map.longlong.put", OPERATIONS, () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                longLongMap.put(i % ENTRIES, i);
+            }
+        });
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testLongLongMapAddAndGet() {
+        PerformanceBudget.assertWithin("map.longlong.addAndGet", OPERATIONS, () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                longLongMap.addAndGet(i % ENTRIES, 1L);
+            }
+        });
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testStringMapIteration() {
+        PerformanceBudget.assertWithin("map.string.iteration", ENTRIES, () -> {
+            for (Map.Entry<String, String> entry : stringMap.entrySet()) {
+                entry.getValue();
+            }
+        });
+    }
+
+    @Test(groups = PerformanceBudget.GROUP)
+    public void testSetContains() {
+        Long[] keys = new Long[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = (long)i;
+        }
+        PerformanceBudget.assertWithin("set.contains", OPERATIONS, () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                set.contains(keys[i % ENTRIES]);
+            }
+        });
+    }
+
+}
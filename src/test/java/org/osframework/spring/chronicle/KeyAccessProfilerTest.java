@@ -0,0 +1,88 @@
+package org.osframework.spring.chronicle;
+
+import org.testng.annotations.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code KeyAccessProfiler}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class KeyAccessProfilerTest {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidStripes() {
+        new KeyAccessProfiler(0, 1, 1);
+    }
+
+    @Test
+    public void testTopKeysAndStripes() {
+        KeyAccessProfiler profiler = new KeyAccessProfiler(8, 1, 3);
+        for (int i = 0; i < 1000; i++) {
+            profiler.end("hot", profiler.start());
+            profiler.end("key" + i, profiler.start());
+        }
+        for (int i = 0; i < 100; i++) {
+            profiler.end("warm", profiler.start());
+        }
+        assertEquals(profiler.getSampledAccesses(), 2100L);
+        String[] top = profiler.getTopKeys();
+        assertEquals(top.length, 3);
+        assertEquals(top[0], "hot=1000");
+        assertTrue(top[1].startsWith("warm="));
+
+        long total = 0L;
+        for (long c : profiler.getStripeAccessCounts()) {
+            total += c;
+        }
+        assertEquals(total, 2100L);
+        assertTrue(profiler.getStripeSkew() > 1.0);
+        assertNotNull(profiler.getTopStripes()[0]);
+
+        profiler.reset();
+        assertEquals(profiler.getSampledAccesses(), 0L);
+        assertEquals(profiler.getTopKeys().length, 0);
+        assertEquals(profiler.getStripeSkew(), 0.0);
+    }
+
+    @Test
+    public void testSlowOperations() throws Exception {
+        KeyAccessProfiler profiler = new KeyAccessProfiler(1, 1, 1);
+        profiler.setSlowOperationNanos(1000000L);
+        long start = profiler.start();
+        Thread.sleep(5L);
+        profiler.end(42, start);
+        profiler.end(42, profiler.start());
+        assertEquals(profiler.getStripeSlowOperationCounts()[0], 1L);
+    }
+
+    @Test
+    public void testSampling() {
+        KeyAccessProfiler profiler = new KeyAccessProfiler(1, 1000, 1);
+        for (int i = 0; i < 1000; i++) {
+            profiler.end(i, profiler.start());
+        }
+        assertTrue(profiler.getSampledAccesses() < 100L);
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        KeyAccessProfiler profiler = new KeyAccessProfiler(1, 1, 1);
+        profiler.register("testRegister");
+        ObjectName name = profiler.getObjectName();
+        assertNotNull(name);
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "SampledAccesses"), 0L);
+        profiler.unregister();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+}
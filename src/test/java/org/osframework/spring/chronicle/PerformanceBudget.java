@@ -0,0 +1,121 @@
+package org.osframework.spring.chronicle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test helper measuring hot path operations against budgets of allocated bytes and
+ * nanoseconds per operation, read from {@code performance-budgets.properties}:
+ * <pre>
+ * &lt;name&gt;.bytes = maximum heap bytes allocated per operation
+ * &lt;name&gt;.nanos = maximum nanoseconds per operation
+ * </pre>
+ * An operation is measured in batches, after warm-up batches. Allocation is measured
+ * once it reaches a steady state (see {@link #measureAllocation(Runnable)}), and time is
+ * the fastest batch, to discount pauses caused by other processes. Time budgets are multiplied by system property
+ * {@code performance.budget.scale} (default 1), for slower build machines.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public final class PerformanceBudget {
+
+    /**
+     * TestNG group of tests measured against performance budgets.
+     */
+    public static final String GROUP = "performance";
+
+    private static final String RESOURCE = "performance-budgets.properties";
+    private static final int WARM_UP_BATCHES = 20;
+    private static final int TIMED_BATCHES = 10;
+    private static final int STEADY_BATCHES = 5;
+    private static final int MAX_ALLOCATION_BATCHES = 200;
+    private static final CompilationMXBean JIT = ManagementFactory.getCompilationMXBean();
+    private static final Properties BUDGETS = load();
+
+    private PerformanceBudget() {
+    }
+
+    /**
+     * Measure the specified batch of operations, and assert that it is within the
+     * budgets of the specified name.
+     *
+     * @param name budget name
+     * @param operations number of operations per batch
+     * @param batch batch of operations
+     */
+    public static void assertWithin(String name, int operations, Runnable batch) {
+        for (int i = 0; i < WARM_UP_BATCHES; i++) {
+            batch.run();
+        }
+        String bytesBudget = BUDGETS.getProperty(name + ".bytes");
+        if (null != bytesBudget && AllocationMeter.isSupported()) {
+            double bytes = (double)measureAllocation(batch) / operations;
+            assertTrue(bytes <= Double.parseDouble(bytesBudget),
+                       name + " allocated " + bytes + " bytes per operation; budget is " + bytesBudget);
+        }
+        String nanosBudget = BUDGETS.getProperty(name + ".nanos");
+        if (null != nanosBudget) {
+            long fastest = Long.MAX_VALUE;
+            for (int i = 0; i < TIMED_BATCHES; i++) {
+                long start = System.nanoTime();
+                batch.run();
+                fastest = Math.min(fastest, System.nanoTime() - start);
+            }
+            double nanos = (double)fastest / operations;
+            double budget = Double.parseDouble(nanosBudget) * Double.parseDouble(System.getProperty("performance.budget.scale", "1"));
+            assertTrue(nanos <= budget, name + " took " + nanos + " ns per operation; budget is " + budget);
+        }
+        if (null == bytesBudget && null == nanosBudget) {
+            throw new IllegalStateException("No performance budget named '" + name + "' in " + RESOURCE);
+        }
+    }
+
+    /**
+     * Measure the heap bytes allocated by the current thread while running the specified
+     * batch, once allocation has reached a steady state. Until the JIT compiler has
+     * compiled a hot path, and eliminated allocations by escape analysis, a batch may
+     * allocate more than it does afterwards; the batch is therefore run repeatedly until
+     * it allocates nothing, or allocates the same number of bytes in consecutive runs
+     * during which nothing was compiled, up to a limit.
+     *
+     * @param batch batch of operations
+     * @return allocated bytes of last run, or {@code -1} if not supported
+     */
+    public static long measureAllocation(Runnable batch) {
+        long previous = AllocationMeter.measure(batch);
+        long compiled = compilationTime();
+        int steady = 1;
+        for (int i = 1; i < MAX_ALLOCATION_BATCHES && 0L < previous && STEADY_BATCHES > steady; i++) {
+            long allocated = AllocationMeter.measure(batch);
+            long compiledNow = compilationTime();
+            steady = (allocated == previous && compiledNow == compiled) ? steady + 1 : 1;
+            previous = allocated;
+            compiled = compiledNow;
+        }
+        return previous;
+    }
+
+    private static long compilationTime() {
+        return (null != JIT && JIT.isCompilationTimeMonitoringSupported()) ? JIT.getTotalCompilationTime() : -1L;
+    }
+
+    private static Properties load() {
+        Properties budgets = new Properties();
+        try (InputStream in = PerformanceBudget.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (null == in) {
+                throw new IllegalStateException("Performance budgets " + RESOURCE + " not found on classpath");
+            }
+            budgets.load(in);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Performance budgets " + RESOURCE + " cannot be read", ioe);
+        }
+        return budgets;
+    }
+
+}
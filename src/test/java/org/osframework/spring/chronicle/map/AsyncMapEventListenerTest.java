@@ -0,0 +1,274 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.MapEventListener;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code AsyncMapEventListener}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class AsyncMapEventListenerTest {
+
+    @Test
+    public void testEventsDeliveredInOrder() {
+        RecordingListener delegate = new RecordingListener();
+        AsyncMapEventListener<Integer, String> listener = new AsyncMapEventListener<>(delegate, 16, 4,
+                AsyncMapEventListener.OverflowPolicy.BLOCK);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            listener.onPut(i, "v" + i, null, false);
+            expected.add("put " + i + "=v" + i);
+            if (0 == i % 3) {
+                listener.onRemove(i, "v" + i, false);
+                expected.add("remove " + i + "=v" + i);
+            }
+        }
+        listener.close();
+        assertEquals(delegate.events, expected);
+        assertEquals(listener.getDeliveredCount(), (long)expected.size());
+        assertEquals(listener.getDroppedCount(), 0L);
+        assertEquals(listener.getPendingCount(), 0L);
+        assertTrue(delegate.threadName.startsWith("chronicle-map-events"), delegate.threadName);
+    }
+
+    @Test
+    public void testGetEventsDispatchedOnlyIfObserved() {
+        RecordingListener delegate = new RecordingListener();
+        AsyncMapEventListener<Integer, String> listener = new AsyncMapEventListener<>(delegate);
+        listener.onGetFound(1, "a");
+        listener.close();
+        assertTrue(delegate.events.isEmpty());
+
+        RecordingListener getDelegate = new RecordingListener() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void onGetFound(Integer key, String value) {
+                events.add("get " + key + "=" + value);
+            }
+        };
+        listener = new AsyncMapEventListener<>(getDelegate);
+        listener.onGetFound(1, "a");
+        listener.close();
+        assertEquals(getDelegate.events, Collections.singletonList("get 1=a"));
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        BlockingListener delegate = new BlockingListener();
+        AsyncMapEventListener<Integer, String> listener = new AsyncMapEventListener<>(delegate, 4, 4,
+                AsyncMapEventListener.OverflowPolicy.DROP);
+        listener.onPut(0, "first", null, false);
+        assertTrue(delegate.entered.await(10L, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            listener.onPut(i, "v" + i, null, false);
+        }
+        assertEquals(listener.getDroppedCount(), 6L);
+        assertEquals(listener.getPendingCount(), 4L);
+        delegate.release.countDown();
+        listener.close();
+        assertEquals(delegate.events, Arrays.asList("put 0=first", "put 1=v1", "put 2=v2", "put 3=v3", "put 4=v4"));
+    }
+
+    @Test
+    public void testConflateWhenFull() throws Exception {
+        BlockingListener delegate = new BlockingListener();
+        AsyncMapEventListener<Integer, String> listener = new AsyncMapEventListener<>(delegate, 2, 4,
+                AsyncMapEventListener.OverflowPolicy.CONFLATE);
+        listener.onPut(0, "first", null, false);
+        assertTrue(delegate.entered.await(10L, TimeUnit.SECONDS));
+        listener.onPut(1, "a", null, false);
+        listener.onPut(2, "a", null, false);
+        // Ring is full: the changes of keys 2 and 3 are conflated
+        listener.onPut(2, "b", "a", false);
+        listener.onPut(3, "a", null, false);
+        listener.onPut(2, "c", "b", false);
+        listener.onRemove(3, "a", false);
+        assertEquals(listener.getConflatedCount(), 2L);
+        assertEquals(listener.getDroppedCount(), 0L);
+        delegate.release.countDown();
+        listener.close();
+        List<String> events = delegate.events;
+        assertEquals(events.subList(0, 3), Arrays.asList("put 0=first", "put 1=a", "put 2=a"));
+        assertEquals(events.size(), 5);
+        assertTrue(events.contains("put 2=c"), events.toString());
+        assertTrue(events.contains("remove 3=a"), events.toString());
+    }
+
+    @Test
+    public void testBlockWhenFull() throws Exception {
+        BlockingListener delegate = new BlockingListener();
+        AsyncMapEventListener<Integer, String> listener = new AsyncMapEventListener<>(delegate, 2, 4,
+                AsyncMapEventListener.OverflowPolicy.BLOCK);
+        listener.onPut(0, "first", null, false);
+        assertTrue(delegate.entered.await(10L, TimeUnit.SECONDS));
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 5; i++) {
+                listener.onPut(i, "v" + i, null, false);
+            }
+        });
+        writer.start();
+        writer.join(200L);
+        assertTrue(writer.isAlive());
+        delegate.release.countDown();
+        writer.join(10000L);
+        assertFalse(writer.isAlive());
+        listener.close();
+        assertEquals(delegate.events.size(), 6);
+        assertEquals(listener.getDroppedCount(), 0L);
+    }
+
+    @Test
+    public void testEventsDroppedAfterClose() {
+        RecordingListener delegate = new RecordingListener();
+        AsyncMapEventListener<Integer, String> listener = new AsyncMapEventListener<>(delegate);
+        listener.close();
+        listener.onPut(1, "a", null, false);
+        assertEquals(listener.getDroppedCount(), 1L);
+        assertTrue(delegate.events.isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveCapacity() {
+        new AsyncMapEventListener<>(new RecordingListener(), 0, 1, AsyncMapEventListener.OverflowPolicy.DROP);
+    }
+
+    @Test
+    public void testBuilderBeanAsyncEventDispatch() throws Exception {
+        RecordingListener delegate = new RecordingListener();
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setMaxEntries(1000L);
+        builderBean.setEventListener(delegate);
+        builderBean.setAsyncEventDispatch(true);
+        builderBean.setEventBufferSize(100);
+        builderBean.setEventOverflowPolicy(AsyncMapEventListener.OverflowPolicy.BLOCK);
+        builderBean.afterPropertiesSet();
+        ChronicleMap<Integer, String> map = builderBean.getObject();
+        try {
+            for (int i = 0; i < 500; i++) {
+                map.put(i, "v" + i);
+            }
+            map.remove(7);
+            builderBean.destroy();
+            assertEquals(delegate.events.size(), 501);
+            assertEquals(delegate.events.get(500), "remove 7=v7");
+            assertTrue(delegate.threadName.startsWith("chronicle-map-events"), delegate.threadName);
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test
+    public void testBuilderBeanAsyncEventDispatchReopened() throws Exception {
+        File file = File.createTempFile("AsyncMapEventListener", ".dat");
+        try {
+            ChronicleMapBuilderBean<Integer, String> builderBean = newAsyncBean(new RecordingListener(), file);
+            ChronicleMap<Integer, String> map = builderBean.getObject();
+            map.put(1, "a");
+            builderBean.destroy();
+            map.close();
+
+            RecordingListener delegate = new RecordingListener();
+            builderBean = newAsyncBean(delegate, file);
+            map = builderBean.getObject();
+            try {
+                map.put(2, "b");
+                map.remove(1);
+                builderBean.destroy();
+                assertEquals(delegate.events, Arrays.asList("put 2=b", "remove 1=a"));
+                assertTrue(delegate.threadName.startsWith("chronicle-map-events"), delegate.threadName);
+            } finally {
+                map.close();
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testBuilderBeanAsyncEventDispatchWithoutListener() throws Exception {
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setAsyncEventDispatch(true);
+        builderBean.afterPropertiesSet();
+    }
+
+    private static ChronicleMapBuilderBean<Integer, String> newAsyncBean(RecordingListener delegate, File file)
+            throws Exception {
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setMaxEntries(1000L);
+        builderBean.setPersistedTo(file);
+        builderBean.setEventListener(delegate);
+        builderBean.setAsyncEventDispatch(true);
+        builderBean.afterPropertiesSet();
+        return builderBean;
+    }
+
+    /**
+     * Records the events delivered to it, and the thread delivering them.
+     */
+    private static class RecordingListener extends MapEventListener<Integer, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        volatile String threadName = null;
+
+        @Override
+        public void onPut(Integer key, String newValue, String replacedValue, boolean replicationEvent) {
+            threadName = Thread.currentThread().getName();
+            events.add("put " + key + "=" + newValue);
+        }
+
+        @Override
+        public void onRemove(Integer key, String value, boolean replicationEvent) {
+            threadName = Thread.currentThread().getName();
+            events.add("remove " + key + "=" + value);
+        }
+
+    }
+
+    /**
+     * Blocks delivery of its first event until released.
+     */
+    private static final class BlockingListener extends RecordingListener {
+
+        private static final long serialVersionUID = 1L;
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void onPut(Integer key, String newValue, String replacedValue, boolean replicationEvent) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.onPut(key, newValue, replacedValue, replicationEvent);
+        }
+
+    }
+
+}
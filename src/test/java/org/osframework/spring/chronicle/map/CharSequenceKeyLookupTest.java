@@ -0,0 +1,142 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.AllocationMeter;
+import org.osframework.spring.chronicle.PerformanceBudget;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code CharSequenceKeyLookup}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class CharSequenceKeyLookupTest {
+
+    private ChronicleMapBuilderBean<CharSequence, CharSequence> builderBean;
+    private ChronicleMap<CharSequence, CharSequence> map;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(CharSequence.class);
+        builderBean.setValueClass(CharSequence.class);
+        builderBean.setAverageKeySize(8.0);
+        builderBean.setAverageValueSize(8.0);
+        builderBean.setMaxEntries(1000);
+        builderBean.afterPropertiesSet();
+        map = builderBean.getObject();
+        map.put("alpha", "one");
+        map.put("grüße", "two");
+        map.put("€😀", "three");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        builderBean.destroy();
+        map.close();
+    }
+
+    @Test
+    public void testCharSequenceKeys() {
+        CharSequenceKeyLookup<CharSequence> lookup = new CharSequenceKeyLookup<>(map);
+        StringBuilder key = new StringBuilder("alpha");
+        assertTrue(lookup.containsKey(key));
+        assertEquals(lookup.get(key).toString(), "one");
+        StringBuilder value = new StringBuilder();
+        assertEquals(lookup.getUsing(key, value).toString(), "one");
+        key.setLength(0);
+        key.append("beta");
+        assertFalse(lookup.containsKey(key));
+        assertNull(lookup.getUsing(key, value));
+    }
+
+    @Test
+    public void testByteSliceKeys() {
+        CharSequenceKeyLookup<CharSequence> lookup = new CharSequenceKeyLookup<>(map);
+        byte[] buffer = "GET alpha grüße €😀 beta".getBytes(StandardCharsets.UTF_8);
+        assertTrue(lookup.containsKey(buffer, 4, 5));
+        assertEquals(lookup.get(buffer, 4, 5).toString(), "one");
+        assertEquals(lookup.getUsing(buffer, 10, 7, new StringBuilder()).toString(), "two");
+        assertEquals(lookup.get(buffer, 18, 7).toString(), "three");
+        assertFalse(lookup.containsKey(buffer, 26, 4));
+        // Truncated sequence does not match
+        assertFalse(lookup.containsKey(buffer, 10, 5));
+    }
+
+    @Test
+    public void testMalformedByteSliceKeys() {
+        CharSequenceKeyLookup<CharSequence> lookup = new CharSequenceKeyLookup<>(map);
+        map.put("\uFFFD\uFFFD", "two replaced");
+        map.put("\uFFFD\uFFFD\uFFFD", "three replaced");
+        map.put("\uFFFD\uFFFD\uFFFD\uFFFD", "four replaced");
+        map.put(new String(Character.toChars(Character.MAX_CODE_POINT)), "max");
+        // Above U+10FFFF
+        assertEquals(lookup.get(bytes(0xF7, 0xBF, 0xBF, 0xBF), 0, 4).toString(), "four replaced");
+        assertEquals(lookup.get(bytes(0xF4, 0x90, 0x80, 0x80), 0, 4).toString(), "four replaced");
+        // Overlong
+        assertEquals(lookup.get(bytes(0xC0, 0xAF), 0, 2).toString(), "two replaced");
+        assertEquals(lookup.get(bytes(0xE0, 0x80, 0xAF), 0, 3).toString(), "three replaced");
+        assertEquals(lookup.get(bytes(0xF0, 0x80, 0x80, 0xAF), 0, 4).toString(), "four replaced");
+        // Encoded surrogate
+        assertEquals(lookup.get(bytes(0xED, 0xA0, 0x80), 0, 3).toString(), "three replaced");
+        // Largest code point
+        assertEquals(lookup.get(bytes(0xF4, 0x8F, 0xBF, 0xBF), 0, 4).toString(), "max");
+    }
+
+    @Test
+    public void testLookupsDoNotAllocate() {
+        if (!AllocationMeter.isSupported()) {
+            return;
+        }
+        CharSequenceKeyLookup<CharSequence> lookup = new CharSequenceKeyLookup<>(map);
+        StringBuilder key = new StringBuilder();
+        StringBuilder value = new StringBuilder(16);
+        byte[] buffer = "alpha grüße".getBytes(StandardCharsets.UTF_8);
+        Runnable lookups = () -> {
+            for (int i = 0; i < 1000; i++) {
+                key.setLength(0);
+                key.append("alpha");
+                lookup.containsKey(key);
+                lookup.getUsing(key, value);
+                lookup.containsKey(buffer, 6, 7);
+                lookup.getUsing(buffer, 0, 5, value);
+            }
+        };
+        assertEquals(PerformanceBudget.measureAllocation(lookups), 0L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    @SuppressWarnings("unchecked")
+    public void testStringKeyClassRejected() throws Exception {
+        ChronicleMapBuilderBean<String, String> stringBean = new ChronicleMapBuilderBean<>();
+        stringBean.setKeyClass(String.class);
+        stringBean.setValueClass(String.class);
+        stringBean.afterPropertiesSet();
+        ChronicleMap<String, String> stringMap = stringBean.getObject();
+        try {
+            new CharSequenceKeyLookup<>((ChronicleMap<CharSequence, String>)(ChronicleMap<?, ?>)stringMap);
+        } finally {
+            stringBean.destroy();
+            stringMap.close();
+        }
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte)values[i];
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.lang.model.Byteable;
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleCounterRegistry}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleCounterRegistryTest {
+
+    private File dir;
+    private File file;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("ChronicleCounterRegistry").toFile();
+        file = new File(dir, "counters.dat");
+        assertTrue(file.createNewFile());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Test
+    public void testCounterOperations() throws Exception {
+        ChronicleCounterRegistryBuilderBean builderBean = newBuilderBean(null);
+        ChronicleCounterRegistry registry = builderBean.getObject();
+        try {
+            ChronicleCounterRegistry.Counter requests = registry.counter("requests");
+            assertSame(registry.counter("requests"), requests);
+            assertEquals(requests.getName(), "requests");
+            assertEquals(requests.get(), 0L);
+            assertEquals(requests.incrementAndGet(), 1L);
+            assertEquals(requests.addAndGet(41L), 42L);
+            assertEquals(registry.incrementAndGet("requests"), 43L);
+            assertEquals(registry.addAndGet("requests", -3L), 40L);
+            assertEquals(registry.get("requests"), 40L);
+
+            assertFalse(requests.compareAndSet(39L, 0L));
+            assertTrue(requests.compareAndSet(40L, 7L));
+            requests.set(100L);
+            assertEquals(requests.get(), 100L);
+            assertEquals(registry.get("sessions"), 0L);
+            assertEquals(registry.size(), 2L);
+        } finally {
+            builderBean.destroy();
+            registry.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentIncrements() throws Exception {
+        ChronicleCounterRegistryBuilderBean builderBean = newBuilderBean(null);
+        ChronicleCounterRegistry registry = builderBean.getObject();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    ChronicleCounterRegistry.Counter counter = registry.counter("hits");
+                    for (int i = 0; i < 100000; i++) {
+                        counter.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(registry.get("hits"), 400000L);
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10L, TimeUnit.SECONDS));
+            builderBean.destroy();
+            registry.close();
+        }
+    }
+
+    @Test
+    public void testSharedPersistedCounters() throws Exception {
+        // Two registries mapping the same file, as two processes would
+        ChronicleCounterRegistryBuilderBean firstBean = newBuilderBean(file);
+        ChronicleCounterRegistry first = firstBean.getObject();
+        ChronicleCounterRegistryBuilderBean secondBean = newBuilderBean(file);
+        ChronicleCounterRegistry second = secondBean.getObject();
+        try {
+            ChronicleCounterRegistry.Counter sequence = first.counter("sequence");
+            assertEquals(sequence.addAndGet(10L), 10L);
+            ChronicleCounterRegistry.Counter shared = second.counter("sequence");
+            assertEquals(shared.get(), 10L);
+            assertEquals(shared.incrementAndGet(), 11L);
+            assertEquals(sequence.incrementAndGet(), 12L);
+            first.counter("gauge").set(-5L);
+            assertEquals(second.get("gauge"), -5L);
+        } finally {
+            firstBean.destroy();
+            first.close();
+            secondBean.destroy();
+            second.close();
+        }
+
+        ChronicleCounterRegistryBuilderBean reopenedBean = newBuilderBean(file);
+        ChronicleCounterRegistry reopened = reopenedBean.getObject();
+        try {
+            assertEquals(reopened.size(), 2L);
+            assertEquals(reopened.get("sequence"), 12L);
+            assertEquals(reopened.get("gauge"), -5L);
+        } finally {
+            reopenedBean.destroy();
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void testCountersPaddedToCacheLine() throws Exception {
+        ChronicleCounterRegistryBuilderBean builderBean = newBuilderBean(null);
+        ChronicleCounterRegistry registry = builderBean.getObject();
+        try {
+            List<Long> addresses = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Byteable value = (Byteable) registry.counter("c" + i).getValue();
+                long address = value.bytes().address() + value.offset();
+                assertEquals(address % 8L, 0L);
+                addresses.add(address);
+            }
+            addresses.sort(null);
+            for (int i = 1; i < addresses.size(); i++) {
+                assertTrue(addresses.get(i) - addresses.get(i - 1) >= ChronicleCounterRegistryBuilderBean.CACHE_LINE_BYTES);
+            }
+        } finally {
+            builderBean.destroy();
+            registry.close();
+        }
+    }
+
+    private static ChronicleCounterRegistryBuilderBean newBuilderBean(File persistedTo) throws Exception {
+        ChronicleCounterRegistryBuilderBean builderBean = new ChronicleCounterRegistryBuilderBean();
+        builderBean.setMaxEntries(1000L);
+        builderBean.setAverageNameSize(10.0);
+        if (null != persistedTo) {
+            builderBean.setPersistedTo(persistedTo);
+        }
+        builderBean.afterPropertiesSet();
+        return builderBean;
+    }
+
+}
@@ -0,0 +1,169 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.ChronicleThreadFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for {@code ChronicleMapAsyncOperations}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleMapAsyncOperationsTest {
+
+    private ChronicleMap<Integer, Long> map;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        ChronicleMapBuilderBean<Integer, Long> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(Long.class);
+        builderBean.setMaxEntries(10000);
+        builderBean.afterPropertiesSet();
+        map = builderBean.getObject();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        map.close();
+    }
+
+    @Test
+    public void testOperationsAppliedInOrderPerKey() throws Exception {
+        ChronicleMapAsyncOperations<Integer, Long> async = new ChronicleMapAsyncOperations<>(map, 4, 1 << 12, 16,
+                new ChronicleThreadFactory("async-test"));
+        List<CompletableFuture<Long>> puts = new ArrayList<>();
+        for (long v = 0; v < 1000; v++) {
+            puts.add(async.put((int)(v % 10), v));
+        }
+        CompletableFuture.allOf(puts.toArray(new CompletableFuture<?>[puts.size()])).get(5L, TimeUnit.SECONDS);
+        for (int k = 0; k < 10; k++) {
+            assertEquals(async.get(k).get().longValue(), 990L + k);
+        }
+        assertEquals(async.putIfAbsent(0, -1L).get().longValue(), 990L);
+        assertEquals(async.remove(0).get().longValue(), 990L);
+        assertNull(async.get(0).get());
+        assertTrue(async.shutdown(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailedOperationCompletesExceptionally() throws Exception {
+        ChronicleMapAsyncOperations<Integer, Long> async = new ChronicleMapAsyncOperations<>(map);
+        CompletableFuture<Long> future = async.submit(1, m -> {
+            throw new IllegalStateException("failed");
+        });
+        try {
+            future.get(5L, TimeUnit.SECONDS);
+            fail("Failed operation completed normally");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(async.put(1, 1L).get(), null);
+        async.shutdown();
+    }
+
+    @Test
+    public void testQueueDepthAndCapacity() throws Exception {
+        ChronicleMapAsyncOperations<Integer, Long> async = new ChronicleMapAsyncOperations<>(map, 2, 2, 16,
+                new ChronicleThreadFactory("async-test"));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        async.submit(7, m -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertTrue(started.await(5L, TimeUnit.SECONDS));
+        CompletableFuture<Long> first = async.put(7, 1L);
+        CompletableFuture<Long> second = async.put(7, 2L);
+        CompletableFuture<Long> third = async.put(7, 3L);
+
+        int worker = KeySegments.of(map, 2).segmentOf(7) % 2;
+        assertEquals(async.getQueueDepths()[worker], 2);
+        assertEquals(async.getQueueDepths()[1 - worker], 0);
+        assertTrue(third.isCompletedExceptionally());
+        try {
+            third.get();
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof RejectedExecutionException);
+        }
+
+        release.countDown();
+        assertNull(first.get(5L, TimeUnit.SECONDS));
+        assertEquals(second.get(5L, TimeUnit.SECONDS).longValue(), 1L);
+        assertEquals(map.get(7).longValue(), 2L);
+        assertTrue(async.shutdown(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testInterruptedWorkerRejectsQueuedOperations() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        ChronicleMapAsyncOperations<Integer, Long> async = new ChronicleMapAsyncOperations<>(map, 1, 16, 16, r -> {
+            Thread thread = new Thread(r);
+            threads.add(thread);
+            return thread;
+        });
+        CountDownLatch started = new CountDownLatch(1);
+        async.submit(1, m -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertTrue(started.await(5L, TimeUnit.SECONDS));
+        CompletableFuture<Long> first = async.put(1, 1L);
+        CompletableFuture<Long> second = async.put(2, 2L);
+        threads.get(0).interrupt();
+        for (CompletableFuture<Long> queued : Arrays.asList(first, second)) {
+            try {
+                queued.get(5L, TimeUnit.SECONDS);
+                fail("Operation queued for interrupted worker completed normally");
+            } catch (ExecutionException ee) {
+                assertTrue(ee.getCause() instanceof RejectedExecutionException);
+            }
+        }
+        assertTrue(async.get(1).isCompletedExceptionally());
+        assertTrue(async.shutdown(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdownAppliesQueuedOperations() throws Exception {
+        ChronicleMapAsyncOperations<Integer, Long> async = new ChronicleMapAsyncOperations<>(map, 2, 1 << 12, 4,
+                new ChronicleThreadFactory("async-test"));
+        List<CompletableFuture<Long>> puts = new ArrayList<>();
+        for (int k = 0; k < 500; k++) {
+            puts.add(async.put(k, (long)k));
+        }
+        assertTrue(async.shutdown(5L, TimeUnit.SECONDS));
+        for (CompletableFuture<Long> put : puts) {
+            assertTrue(put.isDone() && !put.isCompletedExceptionally());
+        }
+        assertEquals(map.size(), 500);
+        assertTrue(async.get(1).isCompletedExceptionally());
+    }
+
+}
@@ -1,11 +1,16 @@
 package org.osframework.spring.chronicle.map;
 
+import net.openhft.chronicle.map.ChronicleMap;
 import org.springframework.core.io.FileSystemResource;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 
 /**
  * Unit tests for {@code ChronicleMapBuilderBean}.
@@ -55,4 +60,66 @@ public class ChronicleMapBuilderBeanTest {
         assertNotNull(builderBean.getObject());
     }
 
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAfterPropertiesReadOnlyWithoutPersistedTo() throws Exception {
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setReadOnly(true);
+        builderBean.afterPropertiesSet();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAfterPropertiesReadOnlyWithProfiling() throws Exception {
+        ChronicleMapCompiler<Integer, String> compiler = new ChronicleMapCompiler<>(Integer.class, String.class);
+        compiler.setOutputDirectory(Files.createTempDirectory("ChronicleMap").toFile());
+        compiler.setName("reference");
+        compiler.compile(Collections.singletonMap(1, "one"));
+
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setReadOnly(true);
+        builderBean.setPersistedTo(compiler.getCurrentLink());
+        builderBean.setProfileKeyAccess(true);
+        builderBean.afterPropertiesSet();
+    }
+
+    @Test
+    public void testAfterPropertiesReadOnly() throws Exception {
+        ChronicleMapCompiler<Integer, String> compiler = new ChronicleMapCompiler<>(Integer.class, String.class);
+        compiler.setOutputDirectory(Files.createTempDirectory("ChronicleMap").toFile());
+        compiler.setName("reference");
+        compiler.compile(Collections.singletonMap(1, "one"));
+
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setReadOnly(true);
+        builderBean.setPersistedTo(compiler.getCurrentLink());
+        builderBean.afterPropertiesSet();
+        ChronicleMap<Integer, String> map = builderBean.getObject();
+        assertTrue(map instanceof ReadOnlyChronicleMap);
+        assertEquals(map.get(1), "one");
+    }
+
+    @Test
+    public void testAfterPropertiesWithProfiling() throws Exception {
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setBeanName("profiledMap");
+        builderBean.setProfileKeyAccess(true);
+        builderBean.setProfileSampleInterval(1);
+        builderBean.setActualSegments(4);
+        builderBean.afterPropertiesSet();
+        ChronicleMap<Integer, String> map = builderBean.getObject();
+        map.put(1, "one");
+        assertEquals(map.get(1), "one");
+        assertEquals(builderBean.getKeyAccessProfiler().getSampledAccesses(), 2L);
+        assertEquals(builderBean.getKeyAccessProfiler().getStripeAccessCounts().length, 4);
+        assertTrue(builderBean.getKeyAccessProfiler().getTopKeys()[0].startsWith("1="));
+        builderBean.destroy();
+    }
+
 }
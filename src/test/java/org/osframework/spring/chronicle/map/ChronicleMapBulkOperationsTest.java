@@ -0,0 +1,142 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.springframework.util.ReflectionUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleMapBulkOperations}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleMapBulkOperationsTest {
+
+    private ChronicleMap<Integer, String> map = null;
+    private ExecutorService executor = null;
+
+    @BeforeMethod
+    public void createMap() {
+        map = ChronicleMapBuilder.of(Integer.class, String.class).entries(10000).create();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterMethod
+    public void closeMap() {
+        executor.shutdown();
+        map.close();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructBadParallelism() {
+        new ChronicleMapBulkOperations<>(map, 0);
+    }
+
+    @Test
+    public void testPutAllAndGetAllInline() {
+        ChronicleMapBulkOperations<Integer, String> bulk = new ChronicleMapBulkOperations<>(map, 8);
+        bulk.putAll(batch(500));
+        assertEquals(map.size(), 500);
+
+        Integer[] keys = { 1, 2, 999 };
+        String[] values = new String[keys.length];
+        assertEquals(bulk.getAll(keys, values), 2);
+        assertEquals(values[0], "v1");
+        assertEquals(values[1], "v2");
+        assertNull(values[2]);
+    }
+
+    @Test
+    public void testParallelBatch() {
+        ChronicleMapBulkOperations<Integer, String> bulk = new ChronicleMapBulkOperations<>(map, 8);
+        bulk.setExecutor(executor);
+        bulk.setParallelThreshold(100);
+        Map<Integer, String> entries = batch(5000);
+        bulk.putAll(entries);
+
+        Map<Integer, String> results = new HashMap<>();
+        assertEquals(bulk.getAll(entries.keySet(), results), 5000);
+        assertEquals(results, entries);
+
+        List<Integer> evens = new ArrayList<>();
+        for (int i = 0; i < 5000; i += 2) {
+            evens.add(i);
+        }
+        assertEquals(bulk.removeAll(evens), 2500);
+        assertEquals(map.size(), 2500);
+        assertTrue(map.containsKey(1));
+    }
+
+    @Test
+    public void testKeysGroupedByMapSegment() throws Exception {
+        ChronicleMap<Integer, String> segmented = ChronicleMapBuilder.of(Integer.class, String.class)
+                .entries(10000).actualSegments(16).create();
+        try {
+            KeySegments segments = KeySegments.of(segmented, 3);
+            assertTrue(segments.isSegmentRouted());
+            assertEquals(segments.count(), 16);
+
+            Map<Integer, String> entries = batch(2000);
+            segmented.putAll(entries);
+            Object[] keys = entries.keySet().toArray();
+            int[] order = new int[keys.length];
+            int[] bounds = new int[17];
+            segments.order(keys, keys.length, order, bounds);
+            Method segmentSizes = ReflectionUtils.findMethod(segmented.getClass(), "segmentSizes");
+            ReflectionUtils.makeAccessible(segmentSizes);
+            long[] sizes = (long[])segmentSizes.invoke(segmented);
+            for (int s = 0; s < 16; s++) {
+                assertEquals((long)(bounds[s + 1] - bounds[s]), sizes[s], "Segment " + s);
+            }
+        } finally {
+            segmented.close();
+        }
+    }
+
+    @Test(expectedExceptions = WorkerError.class)
+    public void testParallelBatchRethrowsError() {
+        @SuppressWarnings("unchecked")
+        ChronicleMap<Integer, String> failing = (ChronicleMap<Integer, String>)Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { ChronicleMap.class }, (proxy, method, args) -> {
+                    if ("put".equals(method.getName())) {
+                        throw new WorkerError();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        ChronicleMapBulkOperations<Integer, String> bulk = new ChronicleMapBulkOperations<>(failing, 8);
+        bulk.setExecutor(executor);
+        bulk.setParallelThreshold(100);
+        bulk.putAll(batch(500));
+    }
+
+    private Map<Integer, String> batch(int size) {
+        Map<Integer, String> entries = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            entries.put(i, "v" + i);
+        }
+        return entries;
+    }
+
+    private static final class WorkerError extends Error {
+
+        private static final long serialVersionUID = 1L;
+
+    }
+
+}
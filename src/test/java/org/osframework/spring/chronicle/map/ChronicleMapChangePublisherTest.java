@@ -0,0 +1,225 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleMapChangePublisher}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleMapChangePublisherTest {
+
+    @Test
+    public void testPublishesChangesInOrder() throws Exception {
+        ChronicleMapChangePublisher<Integer, String> publisher = new ChronicleMapChangePublisher<>();
+        publisher.setConflate(false);
+        ChronicleMap<Integer, String> map = createMap(publisher);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        subscriber.expected = new CountDownLatch(3);
+        publisher.subscribe(subscriber);
+
+        map.put(1, "one");
+        map.put(2, "two");
+        map.remove(1);
+
+        assertTrue(subscriber.expected.await(5L, TimeUnit.SECONDS));
+        assertEquals(subscriber.events.get(0).toString(), "PUT 1=one");
+        assertEquals(subscriber.events.get(1).toString(), "PUT 2=two");
+        assertEquals(subscriber.events.get(2).getType(), MapChangeEvent.Type.REMOVE);
+        assertEquals(subscriber.events.get(2).getKey().intValue(), 1);
+        assertFalse(subscriber.events.get(2).isReplicated());
+        map.close();
+    }
+
+    @Test
+    public void testDemandIsHonoured() throws Exception {
+        ChronicleMapChangePublisher<Integer, String> publisher = new ChronicleMapChangePublisher<>();
+        publisher.setConflate(false);
+        publisher.setExecutor(Runnable::run);
+        ChronicleMap<Integer, String> map = createMap(publisher);
+        RecordingSubscriber subscriber = new RecordingSubscriber(2L);
+        publisher.subscribe(subscriber);
+
+        for (int i = 0; i < 5; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        assertEquals(subscriber.events.size(), 2);
+        subscriber.subscription.request(3L);
+        assertEquals(subscriber.events.size(), 5);
+        assertEquals(subscriber.events.get(4).getValue(), "4");
+        map.close();
+    }
+
+    @Test
+    public void testSlowSubscriberConflatedByKey() throws Exception {
+        ChronicleMapChangePublisher<Integer, String> publisher = new ChronicleMapChangePublisher<>();
+        publisher.setExecutor(Runnable::run);
+        publisher.setBatchSize(1);
+        ChronicleMap<Integer, String> map = createMap(publisher);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0L);
+        publisher.subscribe(subscriber);
+
+        for (int i = 0; i < 100; i++) {
+            map.put(1, "v" + i);
+        }
+        map.put(2, "two");
+        subscriber.subscription.request(10L);
+
+        assertEquals(subscriber.events.size(), 2);
+        assertEquals(subscriber.events.get(0).toString(), "PUT 1=v99");
+        assertEquals(subscriber.events.get(1).toString(), "PUT 2=two");
+        map.close();
+    }
+
+    @Test
+    public void testBufferOverflowCancelsSubscriber() throws Exception {
+        ChronicleMapChangePublisher<Integer, String> publisher = new ChronicleMapChangePublisher<>();
+        publisher.setExecutor(Runnable::run);
+        publisher.setBufferSize(4);
+        ChronicleMap<Integer, String> map = createMap(publisher);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0L);
+        publisher.subscribe(subscriber);
+        assertEquals(publisher.getSubscriberCount(), 1);
+
+        for (int i = 0; i < 5; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertEquals(publisher.getSubscriberCount(), 0);
+        map.put(6, "six");
+        assertTrue(subscriber.events.isEmpty());
+        map.close();
+    }
+
+    @Test
+    public void testCloseCompletesSubscribers() throws Exception {
+        ChronicleMapChangePublisher<Integer, String> publisher = new ChronicleMapChangePublisher<>();
+        publisher.setExecutor(Runnable::run);
+        ChronicleMap<Integer, String> map = createMap(publisher);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0L);
+        publisher.subscribe(subscriber);
+        map.put(1, "one");
+
+        publisher.close();
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(1L);
+        assertEquals(subscriber.events.size(), 1);
+        assertTrue(subscriber.completed);
+
+        RecordingSubscriber late = new RecordingSubscriber(0L);
+        publisher.subscribe(late);
+        assertTrue(late.completed);
+        map.close();
+    }
+
+    @Test
+    public void testInvalidRequestSignalsError() throws Exception {
+        ChronicleMapChangePublisher<Integer, String> publisher = new ChronicleMapChangePublisher<>();
+        publisher.setExecutor(Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0L);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0L);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testReopenedPersistedMapPublishes() throws Exception {
+        File file = File.createTempFile("ChronicleMapChangePublisher", ".dat");
+        try {
+            ChronicleMapChangePublisher<Integer, String> publisher = new ChronicleMapChangePublisher<>();
+            ChronicleMap<Integer, String> map = createMap(publisher, file);
+            map.put(1, "one");
+            map.close();
+            publisher.close();
+
+            publisher = new ChronicleMapChangePublisher<>();
+            publisher.setConflate(false);
+            publisher.setExecutor(Runnable::run);
+            map = createMap(publisher, file);
+            RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+            publisher.subscribe(subscriber);
+            map.put(2, "two");
+            map.remove(1);
+            assertEquals(subscriber.events.size(), 2);
+            assertEquals(subscriber.events.get(0).toString(), "PUT 2=two");
+            assertEquals(subscriber.events.get(1).getType(), MapChangeEvent.Type.REMOVE);
+            map.close();
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    private static ChronicleMap<Integer, String> createMap(ChronicleMapChangePublisher<Integer, String> publisher)
+            throws Exception {
+        return createMap(publisher, null);
+    }
+
+    private static ChronicleMap<Integer, String> createMap(ChronicleMapChangePublisher<Integer, String> publisher,
+                                                          File persistedTo) throws Exception {
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setAverageValueSize(8.0);
+        builderBean.setMaxEntries(1000);
+        if (null != persistedTo) {
+            builderBean.setPersistedTo(persistedTo);
+        }
+        builderBean.setChangePublisher(publisher);
+        builderBean.afterPropertiesSet();
+        return builderBean.getObject();
+    }
+
+    private static final class RecordingSubscriber implements Subscriber<MapChangeEvent<Integer, String>> {
+
+        private final long initialDemand;
+        private final List<MapChangeEvent<Integer, String>> events = new CopyOnWriteArrayList<>();
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean completed;
+        private CountDownLatch expected = new CountDownLatch(0);
+
+        private RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            if (0L < initialDemand) {
+                s.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(MapChangeEvent<Integer, String> event) {
+            events.add(event);
+            expected.countDown();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleMapCompiler} and {@code ReadOnlyChronicleMap}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleMapCompilerTest {
+
+    private File outputDirectory = null;
+    private ChronicleMapCompiler<Integer, String> compiler = null;
+
+    @BeforeMethod
+    public void createCompiler() throws Exception {
+        outputDirectory = Files.createTempDirectory("ChronicleMapCompiler").toFile();
+        compiler = new ChronicleMapCompiler<>(Integer.class, String.class);
+        compiler.setOutputDirectory(outputDirectory);
+        compiler.setName("reference");
+        compiler.setAverageValueSize(16);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCompileNoOutputDirectory() throws Exception {
+        ChronicleMapCompiler<Integer, String> unconfigured = new ChronicleMapCompiler<>(Integer.class, String.class);
+        unconfigured.compile(new HashMap<Integer, String>());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSetRetainedGenerationsTooFew() {
+        compiler.setRetainedGenerations(1);
+    }
+
+    @Test
+    public void testCompileLinksCurrentGeneration() throws Exception {
+        File first = compiler.compile(dataSet(100, "a"));
+        File second = compiler.compile(dataSet(200, "b"));
+        assertEquals(compiler.getCurrentLink().toPath().toRealPath(), second.toPath().toRealPath());
+        assertTrue(first.exists());
+    }
+
+    @Test
+    public void testCompilePurgesExpiredGenerations() throws Exception {
+        compiler.setRetainedGenerations(2);
+        File first = compiler.compile(dataSet(10, "a"));
+        compiler.compile(dataSet(10, "b"));
+        compiler.compile(dataSet(10, "c"));
+        assertFalse(first.exists());
+    }
+
+    @Test
+    public void testReadOnlyMapRefresh() throws Exception {
+        compiler.compile(dataSet(100, "a"));
+        ReadOnlyChronicleMap<Integer, String> map =
+                new ReadOnlyChronicleMap<>(compiler.getCurrentLink(), ChronicleMapBuilder.of(Integer.class, String.class));
+        try {
+            assertEquals(map.size(), 100);
+            assertEquals(map.get(7), "a7");
+            assertFalse(map.refresh());
+
+            compiler.compile(dataSet(50, "b"));
+            assertTrue(map.refresh());
+            assertEquals(map.size(), 50);
+            assertEquals(map.get(7), "b7");
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test
+    public void testReadOnlyMapIteratorSurvivesSwitch() throws Exception {
+        compiler.compile(dataSet(100, "a"));
+        ReadOnlyChronicleMap<Integer, String> map =
+                new ReadOnlyChronicleMap<>(compiler.getCurrentLink(), ChronicleMapBuilder.of(Integer.class, String.class));
+        try {
+            Iterator<Map.Entry<Integer, String>> entries = map.entrySet().iterator();
+            compiler.compile(dataSet(50, "b"));
+            assertTrue(map.refresh());
+            int n = 0;
+            while (entries.hasNext()) {
+                assertTrue(entries.next().getValue().startsWith("a"));
+                n++;
+            }
+            assertEquals(n, 100);
+            compiler.compile(dataSet(20, "c"));
+            assertTrue(map.refresh());
+            assertEquals(map.size(), 20);
+            assertEquals(map.keySet().size(), 20);
+            assertEquals(map.values().stream().filter(v -> v.startsWith("c")).count(), 20L);
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReadOnlyMapIteratorOfUnmappedGeneration() throws Exception {
+        compiler.compile(dataSet(100, "a"));
+        ReadOnlyChronicleMap<Integer, String> map =
+                new ReadOnlyChronicleMap<>(compiler.getCurrentLink(), ChronicleMapBuilder.of(Integer.class, String.class));
+        try {
+            Iterator<Integer> keys = map.keySet().iterator();
+            keys.next();
+            compiler.compile(dataSet(50, "b"));
+            map.refresh();
+            compiler.compile(dataSet(20, "c"));
+            map.refresh();
+            keys.next();
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReadOnlyMapClosed() throws Exception {
+        compiler.compile(dataSet(10, "a"));
+        ReadOnlyChronicleMap<Integer, String> map =
+                new ReadOnlyChronicleMap<>(compiler.getCurrentLink(), ChronicleMapBuilder.of(Integer.class, String.class));
+        map.close();
+        map.get(1);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testReadOnlyMapPut() throws Exception {
+        compiler.compile(dataSet(10, "a"));
+        ChronicleMap<Integer, String> map =
+                new ReadOnlyChronicleMap<>(compiler.getCurrentLink(), ChronicleMapBuilder.of(Integer.class, String.class));
+        try {
+            map.put(1, "x");
+        } finally {
+            map.close();
+        }
+    }
+
+    private Map<Integer, String> dataSet(int size, String prefix) {
+        Map<Integer, String> data = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            data.put(i, prefix + i);
+        }
+        return data;
+    }
+
+}
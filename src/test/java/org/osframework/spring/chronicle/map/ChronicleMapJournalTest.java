@@ -0,0 +1,212 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.Chronicle;
+import net.openhft.chronicle.ChronicleQueueBuilder;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleMapJournal}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleMapJournalTest {
+
+    private File directory = null;
+    private Chronicle chronicle = null;
+
+    @BeforeMethod
+    public void createChronicle() throws Exception {
+        directory = Files.createTempDirectory("ChronicleMapJournal").toFile();
+        chronicle = ChronicleQueueBuilder.indexed(new File(directory, "journal")).build();
+    }
+
+    @AfterMethod
+    public void closeChronicle() throws Exception {
+        chronicle.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReadOnlyJournaled() throws Exception {
+        ChronicleMapBuilderBean<Integer, String> bean = new ChronicleMapBuilderBean<>();
+        bean.setKeyClass(Integer.class);
+        bean.setValueClass(String.class);
+        bean.setReadOnly(true);
+        bean.setJournal(new ChronicleMapJournal<>(chronicle, Integer.class, String.class));
+        bean.afterPropertiesSet();
+    }
+
+    @Test
+    public void testReplayRecoversMutations() throws Exception {
+        ChronicleMap<Integer, String> map = journaledMap();
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i % 300, "v" + i);
+            expected.put(i % 300, "v" + i);
+            if (0 == i % 7) {
+                map.remove(i % 300);
+                expected.remove(i % 300);
+            }
+        }
+        map.close();
+
+        ChronicleMap<Integer, String> recovered = journaledMap();
+        try {
+            assertEquals(new HashMap<>(recovered), expected);
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void testReplayStartsFromSnapshot() throws Exception {
+        ChronicleMapJournal<Integer, String> journal = new ChronicleMapJournal<>(chronicle, Integer.class, String.class);
+        ChronicleMap<Integer, String> map = ChronicleMapBuilder.of(Integer.class, String.class)
+                .eventListener(journal.listener()).create();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "old" + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+        }
+        journal.snapshot(map);
+        map.put(200, "after");
+        map.close();
+
+        ChronicleMap<Integer, String> recovered = ChronicleMapBuilder.of(Integer.class, String.class).create();
+        try {
+            assertEquals(journal.replay(recovered), 101L);
+            assertEquals(recovered.size(), 101);
+            assertEquals(recovered.get(42), "v42");
+            assertEquals(recovered.get(200), "after");
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void testReplayToIndex() throws Exception {
+        ChronicleMapJournal<Integer, String> journal = new ChronicleMapJournal<>(chronicle, Integer.class, String.class);
+        ChronicleMap<Integer, String> map = ChronicleMapBuilder.of(Integer.class, String.class)
+                .eventListener(journal.listener()).create();
+        map.put(1, "a");
+        map.put(2, "b");
+        long pointInTime = chronicle.lastWrittenIndex();
+        map.put(1, "c");
+        map.remove(2);
+        map.close();
+
+        ChronicleMap<Integer, String> recovered = ChronicleMapBuilder.of(Integer.class, String.class).create();
+        try {
+            journal.replay(recovered, pointInTime);
+            assertEquals(recovered.get(1), "a");
+            assertEquals(recovered.get(2), "b");
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void testSnapshotWithConcurrentWriter() throws Exception {
+        ChronicleMapJournal<Integer, String> journal = new ChronicleMapJournal<>(chronicle, Integer.class, String.class);
+        final ChronicleMap<Integer, String> map = ChronicleMapBuilder.of(Integer.class, String.class)
+                .eventListener(journal.listener()).create();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "0");
+        }
+        Thread writer = new Thread(() -> {
+            for (int round = 1; round <= 20; round++) {
+                for (int i = 0; i < 1000; i++) {
+                    map.put(i, Integer.toString(round));
+                }
+            }
+        });
+        writer.start();
+        journal.snapshot(map);
+        writer.join();
+        Map<Integer, String> expected = new HashMap<>(map);
+        map.close();
+
+        ChronicleMap<Integer, String> recovered = ChronicleMapBuilder.of(Integer.class, String.class).create();
+        try {
+            journal.setReplayThreads(3);
+            journal.replay(recovered);
+            assertEquals(new HashMap<>(recovered), expected);
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void testReplayIsNotJournaled() throws Exception {
+        ChronicleMap<Integer, String> map = journaledMap();
+        map.put(1, "a");
+        map.close();
+        long last = chronicle.lastWrittenIndex();
+
+        ChronicleMap<Integer, String> recovered = journaledMap();
+        try {
+            assertFalse(recovered.isEmpty());
+            assertEquals(chronicle.lastWrittenIndex(), last);
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void testReopenedPersistedMapJournaled() throws Exception {
+        File file = new File(directory, "entries.dat");
+        assertTrue(file.createNewFile());
+        ChronicleMap<Integer, String> map = journaledMap(file);
+        map.put(1, "a");
+        map.close();
+
+        map = journaledMap(file);
+        try {
+            map.put(2, "b");
+            map.remove(1);
+        } finally {
+            map.close();
+        }
+        ChronicleMap<Integer, String> recovered = journaledMap();
+        try {
+            Map<Integer, String> expected = new HashMap<>();
+            expected.put(2, "b");
+            assertEquals(new HashMap<>(recovered), expected);
+        } finally {
+            recovered.close();
+        }
+    }
+
+    private ChronicleMap<Integer, String> journaledMap() throws Exception {
+        return journaledMap(null);
+    }
+
+    private ChronicleMap<Integer, String> journaledMap(File persistedTo) throws Exception {
+        ChronicleMapBuilderBean<Integer, String> bean = new ChronicleMapBuilderBean<>();
+        bean.setKeyClass(Integer.class);
+        bean.setValueClass(String.class);
+        if (null != persistedTo) {
+            bean.setPersistedTo(persistedTo);
+        }
+        bean.setJournal(new ChronicleMapJournal<>(chronicle, Integer.class, String.class));
+        bean.afterPropertiesSet();
+        return bean.getObject();
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleMapVersionedOperations}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleMapVersionedOperationsTest {
+
+    private ChronicleMapBuilderBean<String, String> builderBean = null;
+    private ChronicleMap<String, String> map = null;
+    private ChronicleMapVersionedOperations<String, String> versioned = null;
+
+    @BeforeMethod
+    public void createMap() throws Exception {
+        builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(String.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setMaxEntries(1000L);
+        builderBean.setVersioned(true);
+        builderBean.afterPropertiesSet();
+        map = builderBean.getObject();
+        versioned = new ChronicleMapVersionedOperations<>(map);
+    }
+
+    @AfterMethod
+    public void closeMap() throws Exception {
+        builderBean.destroy();
+        map.close();
+    }
+
+    @Test
+    public void testVersionIncrementedByPut() {
+        assertNull(versioned.getWithVersion("entry"));
+        map.put("entry", "a");
+        assertEquals(versioned.getWithVersion("entry").getVersion(), 1L);
+        map.put("entry", "b");
+        map.replace("entry", "b", "c");
+        ChronicleMapVersionedOperations.VersionedValue<String> current = versioned.getWithVersion("entry");
+        assertEquals(current.getValue(), "c");
+        assertEquals(current.getVersion(), 3L);
+        // Relocated to larger chunks, with its metadata
+        map.put("entry", new String(new char[500]).replace('\0', 'x'));
+        assertEquals(versioned.getWithVersion("entry").getVersion(), 4L);
+        map.putIfAbsent("entry", "d");
+        assertEquals(versioned.getWithVersion("entry").getVersion(), 4L);
+        map.remove("entry");
+        map.put("entry", "e");
+        assertEquals(versioned.getWithVersion("entry").getVersion(), 5L);
+    }
+
+    @Test
+    public void testRemoveAndPutDoesNotReuseVersion() {
+        map.put("entry", "a");
+        map.put("other", "a");
+        ChronicleMapVersionedOperations.VersionedValue<String> read = versioned.getWithVersion("entry");
+        // Removed and put again, with the same value, between read and compare-and-set
+        map.remove("entry");
+        map.put("entry", "a");
+        ChronicleMapVersionedOperations.VersionedValue<String> current = versioned.getWithVersion("entry");
+        assertEquals(current.getValue(), read.getValue());
+        assertTrue(current.getVersion() > read.getVersion(), current + " after " + read);
+        assertFalse(versioned.compareVersionAndSet("entry", read.getVersion(), "b"));
+        assertEquals(map.get("entry"), "a");
+
+        assertTrue(versioned.compareVersionAndSet("entry", current.getVersion(), "b"));
+        map.remove("entry");
+        assertTrue(versioned.compareVersionAndSet("entry", 0L, "c"));
+        assertTrue(versioned.getWithVersion("entry").getVersion() > current.getVersion() + 1L);
+    }
+
+    @Test
+    public void testVersionsPersistedAcrossRestart() throws Exception {
+        File dir = Files.createTempDirectory("ChronicleMapVersionedOperations").toFile();
+        File file = new File(dir, "entries.dat");
+        try {
+            assertTrue(file.createNewFile());
+            ChronicleMapBuilderBean<String, String> bean = newPersistedBean(file);
+            ChronicleMap<String, String> persisted = bean.getObject();
+            ChronicleMapVersionedOperations<String, String> operations = new ChronicleMapVersionedOperations<>(persisted);
+            persisted.put("entry", "a");
+            persisted.put("entry", "b");
+            long read = operations.getWithVersion("entry").getVersion();
+            persisted.remove("entry");
+            bean.destroy();
+            persisted.close();
+            assertTrue(new File(dir, "entries.dat.version").isFile());
+
+            bean = newPersistedBean(file);
+            persisted = bean.getObject();
+            operations = new ChronicleMapVersionedOperations<>(persisted);
+            persisted.put("entry", "b");
+            assertTrue(operations.getWithVersion("entry").getVersion() > read);
+            assertFalse(operations.compareVersionAndSet("entry", read, "c"));
+            bean.destroy();
+            persisted.close();
+        } finally {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    @Test
+    public void testCompareVersionAndSet() {
+        assertFalse(versioned.compareVersionAndSet("entry", 1L, "a"));
+        assertNull(map.get("entry"));
+        assertTrue(versioned.compareVersionAndSet("entry", 0L, "a"));
+        assertFalse(versioned.compareVersionAndSet("entry", 0L, "b"));
+        assertEquals(map.get("entry"), "a");
+
+        assertTrue(versioned.compareVersionAndSet("entry", 1L, "b"));
+        assertFalse(versioned.compareVersionAndSet("entry", 1L, "c"));
+        ChronicleMapVersionedOperations.VersionedValue<String> current = versioned.getWithVersion("entry");
+        assertEquals(current.getValue(), "b");
+        assertEquals(current.getVersion(), 2L);
+
+        map.put("entry", "c");
+        assertFalse(versioned.compareVersionAndSet("entry", 2L, "d"));
+        assertTrue(versioned.compareVersionAndSet("entry", 3L, new String(new char[500]).replace('\0', 'd')));
+        assertEquals(versioned.getWithVersion("entry").getVersion(), 4L);
+        assertEquals(map.get("entry").length(), 500);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeExpectedVersion() {
+        versioned.compareVersionAndSet("entry", -1L, "a");
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2500; i++) {
+                    versioned.update("counter", v -> String.valueOf((null == v) ? 1L : Long.parseLong(v) + 1L));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10L, TimeUnit.SECONDS));
+        ChronicleMapVersionedOperations.VersionedValue<String> counter = versioned.getWithVersion("counter");
+        assertEquals(counter.getValue(), "10000");
+        assertEquals(counter.getVersion(), 10000L);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testVersionedWithEventListener() throws Exception {
+        ChronicleMapBuilderBean<String, String> bean = new ChronicleMapBuilderBean<>();
+        bean.setKeyClass(String.class);
+        bean.setValueClass(String.class);
+        bean.setVersioned(true);
+        bean.setEventListener(new CompositeMapEventListener<>(new ArrayList<>()));
+        bean.afterPropertiesSet();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testVersionedWithTooFewMetaDataBytes() throws Exception {
+        ChronicleMapBuilderBean<String, String> bean = new ChronicleMapBuilderBean<>();
+        bean.setKeyClass(String.class);
+        bean.setValueClass(String.class);
+        bean.setVersioned(true);
+        bean.setMetaDataBytes(4);
+        bean.afterPropertiesSet();
+    }
+
+    private static ChronicleMapBuilderBean<String, String> newPersistedBean(File file) throws Exception {
+        ChronicleMapBuilderBean<String, String> bean = new ChronicleMapBuilderBean<>();
+        bean.setKeyClass(String.class);
+        bean.setValueClass(String.class);
+        bean.setMaxEntries(1000L);
+        bean.setPersistedTo(file);
+        bean.setVersioned(true);
+        bean.afterPropertiesSet();
+        return bean;
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.osframework.spring.chronicle.map;
+
+import org.osframework.spring.chronicle.AllocationMeter;
+import org.osframework.spring.chronicle.PerformanceBudget;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code IntDoubleChronicleMap}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class IntDoubleChronicleMapTest {
+
+    private IntDoubleChronicleMapBuilderBean builderBean;
+    private IntDoubleChronicleMap map;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        builderBean = new IntDoubleChronicleMapBuilderBean();
+        builderBean.setMaxEntries(10000);
+        builderBean.afterPropertiesSet();
+        map = builderBean.getObject();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        builderBean.destroy();
+        map.close();
+    }
+
+    @Test
+    public void testPrimitiveOperations() {
+        assertEquals(map.getDouble(1), 0.0);
+        assertEquals(map.getDouble(1, Double.NaN), Double.NaN);
+
+        map.put(1, 1.5);
+        assertTrue(map.containsKey(1));
+        assertEquals(map.getDouble(1), 1.5);
+        assertEquals(map.addAndGet(1, 0.25), 1.75);
+        assertEquals(map.addAndGet(2, 3.0), 3.0);
+        assertEquals(map.size(), 2L);
+
+        map.remove(1);
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void testHotPathDoesNotAllocate() {
+        if (!AllocationMeter.isSupported()) {
+            return;
+        }
+        long allocated = PerformanceBudget.measureAllocation(() -> {
+            for (int i = 0; i < 10000; i++) {
+                int k = 1000 + (i % 500);
+                map.put(k, i);
+                map.getDouble(k);
+                map.addAndGet(k, 0.5);
+                map.remove(k + 500);
+            }
+        });
+        assertEquals(allocated, 0L);
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.osframework.spring.chronicle.map;
+
+import org.osframework.spring.chronicle.AllocationMeter;
+import org.osframework.spring.chronicle.PerformanceBudget;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code LongLongChronicleMap}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class LongLongChronicleMapTest {
+
+    private LongLongChronicleMapBuilderBean builderBean;
+    private LongLongChronicleMap map;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        builderBean = new LongLongChronicleMapBuilderBean();
+        builderBean.setMaxEntries(10000);
+        builderBean.afterPropertiesSet();
+        map = builderBean.getObject();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        builderBean.destroy();
+        map.close();
+    }
+
+    @Test
+    public void testPrimitiveOperations() {
+        assertFalse(map.containsKey(1L));
+        assertEquals(map.getLong(1L), 0L);
+        assertEquals(map.getLong(1L, -1L), -1L);
+
+        map.put(1L, 42L);
+        assertTrue(map.containsKey(1L));
+        assertEquals(map.getLong(1L), 42L);
+        assertEquals(map.addAndGet(1L, 8L), 50L);
+        assertEquals(map.addAndGet(2L, 5L), 5L);
+        assertEquals(map.size(), 2L);
+
+        map.remove(1L);
+        assertFalse(map.containsKey(1L));
+        assertEquals(map.size(), 1L);
+    }
+
+    @Test
+    public void testConcurrentAddAndGet() throws Exception {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    map.addAndGet(100L + (i % 10), 1L);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long k = 100L; k < 110L; k++) {
+            assertEquals(map.getLong(k), 4000L);
+        }
+    }
+
+    @Test
+    public void testHotPathDoesNotAllocate() {
+        if (!AllocationMeter.isSupported()) {
+            return;
+        }
+        long allocated = PerformanceBudget.measureAllocation(() -> {
+            for (long i = 0; i < 10000; i++) {
+                long k = 1000L + (i % 500);
+                map.put(k, i);
+                map.getLong(k);
+                map.addAndGet(k, 1L);
+                map.containsKey(k);
+                map.remove(k + 500L);
+            }
+        });
+        assertEquals(allocated, 0L);
+    }
+
+}
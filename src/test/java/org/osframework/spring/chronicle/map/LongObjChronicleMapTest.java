@@ -0,0 +1,55 @@
+package org.osframework.spring.chronicle.map;
+
+import org.osframework.spring.chronicle.AllocationMeter;
+import org.osframework.spring.chronicle.PerformanceBudget;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code LongObjChronicleMap}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class LongObjChronicleMapTest {
+
+    @Test
+    public void testPrimitiveKeys() throws Exception {
+        LongObjChronicleMapBuilderBean<String> builderBean = new LongObjChronicleMapBuilderBean<>();
+        builderBean.setValueClass(String.class);
+        builderBean.setAverageValueSize(8.0);
+        builderBean.setMaxEntries(1000);
+        builderBean.afterPropertiesSet();
+        LongObjChronicleMap<String> map = builderBean.getObject();
+
+        assertNull(map.get(1L));
+        map.put(1L, "one");
+        map.put(2L, "two");
+        assertEquals(map.get(1L), "one");
+        assertTrue(map.containsKey(2L));
+        assertEquals(map.size(), 2L);
+        map.remove(2L);
+        assertFalse(map.containsKey(2L));
+
+        if (AllocationMeter.isSupported()) {
+            assertEquals(PerformanceBudget.measureAllocation(() -> {
+                for (long k = 0; k < 1000; k++) {
+                    map.containsKey(k);
+                    map.remove(k + 1000L);
+                }
+            }), 0L);
+        }
+        builderBean.destroy();
+        map.close();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testValueClassRequired() throws Exception {
+        new LongObjChronicleMapBuilderBean<String>().afterPropertiesSet();
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.osframework.spring.chronicle.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code SecondaryIndex}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class SecondaryIndexTest {
+
+    private SecondaryIndex<Integer, String, Integer> lengthIndex = null;
+
+    @BeforeMethod
+    public void createIndex() {
+        lengthIndex = new SecondaryIndex<>("length", String::length);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructNullExtractor() {
+        new SecondaryIndex<Integer, String, Integer>("length", null);
+    }
+
+    @Test
+    public void testIndexFollowsPutAndRemove() throws Exception {
+        ChronicleMap<Integer, String> map = createMap(null);
+        map.put(1, "a");
+        map.put(2, "bb");
+        map.put(3, "cc");
+        assertEquals(lengthIndex.lookup(2), new HashSet<>(Arrays.asList(2, 3)));
+
+        map.put(3, "ddd");
+        assertEquals(lengthIndex.lookup(2), new HashSet<>(Arrays.asList(2)));
+        assertEquals(lengthIndex.lookup(3), new HashSet<>(Arrays.asList(3)));
+
+        map.remove(1);
+        assertTrue(lengthIndex.lookup(1).isEmpty());
+        assertEquals(lengthIndex.size(), 2);
+    }
+
+    @Test
+    public void testIndexRebuiltFromPersistedMap() throws Exception {
+        File tempFile = File.createTempFile("SecondaryIndex", ".dat");
+        ChronicleMap<Integer, String> map = createMap(tempFile);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, (0 == i % 2) ? "even" : "odd");
+        }
+        map.close();
+
+        lengthIndex = new SecondaryIndex<>("length", String::length);
+        createMap(tempFile);
+        assertEquals(lengthIndex.lookup(4).size(), 500);
+        assertEquals(lengthIndex.lookup(3).size(), 500);
+    }
+
+    @Test
+    public void testIndexMaintainedByReopenedPersistedMap() throws Exception {
+        File tempFile = File.createTempFile("SecondaryIndex", ".dat");
+        ChronicleMap<Integer, String> map = createMap(tempFile);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "odd");
+        }
+        map.close();
+
+        lengthIndex = new SecondaryIndex<>("length", String::length);
+        map = createMap(tempFile);
+        map.put(0, "even");
+        map.put(100, "seven");
+        map.remove(1);
+        assertEquals(lengthIndex.lookup(4), new HashSet<>(Arrays.asList(0)));
+        assertEquals(lengthIndex.lookup(5), new HashSet<>(Arrays.asList(100)));
+        assertEquals(lengthIndex.lookup(3).size(), 98);
+        map.close();
+    }
+
+    private ChronicleMap<Integer, String> createMap(File persistedTo) throws Exception {
+        ChronicleMapBuilderBean<Integer, String> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setValueClass(String.class);
+        builderBean.setMaxEntries(1000);
+        builderBean.setSecondaryIndexes(lengthIndex);
+        if (null != persistedTo) {
+            builderBean.setPersistedTo(persistedTo);
+        }
+        builderBean.afterPropertiesSet();
+        return builderBean.getObject();
+    }
+
+}
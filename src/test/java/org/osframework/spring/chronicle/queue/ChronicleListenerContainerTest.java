@@ -0,0 +1,189 @@
+package org.osframework.spring.chronicle.queue;
+
+import net.openhft.chronicle.Chronicle;
+import net.openhft.chronicle.ExcerptAppender;
+import net.openhft.chronicle.ExcerptTailer;
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleQueueBuilderBean} and {@code ChronicleListenerContainer}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleListenerContainerTest {
+
+    private File directory = null;
+
+    @BeforeMethod
+    public void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("ChronicleListenerContainer").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @DataProvider
+    public Object[][] queueTypes() {
+        return new Object[][] {
+                { ChronicleQueueBuilderBean.Type.INDEXED },
+                { ChronicleQueueBuilderBean.Type.VANILLA }
+        };
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testQueueNoPath() throws Exception {
+        new ChronicleQueueBuilderBean().afterPropertiesSet();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testIndexedQueueCycleSettings() throws Exception {
+        ChronicleQueueBuilderBean bean = new ChronicleQueueBuilderBean();
+        bean.setPath(new File(directory, "queue"));
+        bean.setType(ChronicleQueueBuilderBean.Type.INDEXED);
+        bean.setCycleLength(1000);
+        bean.afterPropertiesSet();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDelegateWithoutHandler() {
+        new ChronicleListenerContainer().setDelegate(new Object());
+    }
+
+    @Test(dataProvider = "queueTypes")
+    public void testDeliverAndResume(ChronicleQueueBuilderBean.Type type) throws Exception {
+        ChronicleQueueBuilderBean bean = new ChronicleQueueBuilderBean();
+        bean.setPath(new File(directory, "queue"));
+        bean.setType(type);
+        bean.afterPropertiesSet();
+        Chronicle chronicle = bean.getObject();
+        FileReadPositionStore store = new FileReadPositionStore(new File(directory, "position"));
+        try {
+            append(chronicle, 0L, 100L);
+            RecordingHandler first = new RecordingHandler();
+            ChronicleListenerContainer container = container(chronicle, first, store);
+            first.await(100);
+            container.destroy();
+            assertEquals(first.values.size(), 100);
+            assertEquals(first.values.get(99), Long.valueOf(99L));
+
+            append(chronicle, 100L, 150L);
+            RecordingHandler second = new RecordingHandler();
+            container = container(chronicle, second, store);
+            second.await(50);
+            container.destroy();
+            assertFalse(container.isRunning());
+            assertEquals(second.values.size(), 50);
+            assertEquals(second.values.get(0), Long.valueOf(100L));
+        } finally {
+            store.close();
+            bean.destroy();
+        }
+    }
+
+    @Test
+    public void testBatchDelivery() throws Exception {
+        ChronicleQueueBuilderBean bean = new ChronicleQueueBuilderBean();
+        bean.setPath(new File(directory, "queue"));
+        bean.setType(ChronicleQueueBuilderBean.Type.INDEXED);
+        bean.afterPropertiesSet();
+        Chronicle chronicle = bean.getObject();
+        try {
+            append(chronicle, 0L, 10L);
+            List<Integer> batches = new CopyOnWriteArrayList<>();
+            ChronicleListenerContainer container = new ChronicleListenerContainer();
+            container.setChronicle(chronicle);
+            container.setBatchSize(4);
+            container.setIdleStrategy(new YieldingIdleStrategy());
+            container.setDelegate(new ExcerptListener() {
+                @Override
+                public void onExcerpt(ExcerptTailer excerpt) {
+                }
+
+                @Override
+                public void onBatchComplete(int excerpts) {
+                    batches.add(excerpts);
+                }
+            });
+            container.afterPropertiesSet();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (3 > batches.size() && System.nanoTime() < deadline) {
+                Thread.sleep(1L);
+            }
+            container.destroy();
+            assertEquals(batches.subList(0, 3).toString(), "[4, 4, 2]");
+        } finally {
+            bean.destroy();
+        }
+    }
+
+    @Test
+    public void testBackoffResetsOnWork() {
+        BackoffIdleStrategy strategy = new BackoffIdleStrategy(1L, 1L, 1L, 4L);
+        for (int i = 0; i < 10; i++) {
+            strategy.idle(0);
+        }
+        strategy.idle(1);
+        long start = System.nanoTime();
+        strategy.idle(0);
+        assertTrue(TimeUnit.MILLISECONDS.toNanos(100L) > System.nanoTime() - start);
+    }
+
+    private static ChronicleListenerContainer container(Chronicle chronicle, Object delegate, ReadPositionStore store)
+            throws Exception {
+        ChronicleListenerContainer container = new ChronicleListenerContainer();
+        container.setBeanName("test-consumer");
+        container.setChronicle(chronicle);
+        container.setDelegate(delegate);
+        container.setReadPositionStore(store);
+        container.setBatchSize(16);
+        container.afterPropertiesSet();
+        assertTrue(container.isRunning());
+        return container;
+    }
+
+    private static void append(Chronicle chronicle, long from, long to) throws Exception {
+        ExcerptAppender appender = chronicle.createAppender();
+        for (long v = from; v < to; v++) {
+            appender.startExcerpt(8);
+            appender.writeLong(v);
+            appender.finish();
+        }
+        appender.close();
+    }
+
+    public static class RecordingHandler {
+
+        final List<Long> values = new CopyOnWriteArrayList<>();
+
+        @ExcerptHandler
+        public void handle(ExcerptTailer excerpt) {
+            values.add(excerpt.readLong());
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (values.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(1L);
+            }
+        }
+
+    }
+
+}
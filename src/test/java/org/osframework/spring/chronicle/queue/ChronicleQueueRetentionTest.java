@@ -0,0 +1,169 @@
+package org.osframework.spring.chronicle.queue;
+
+import org.springframework.util.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleQueueRetention}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleQueueRetentionTest {
+
+    private static final String FORMAT = "yyyyMMddHH";
+    private static final long LENGTH = TimeUnit.HOURS.toMillis(1L);
+    private static final int BITS = 20;
+    private static final long CURRENT = 480000L;
+    private static final long NOW = CURRENT * LENGTH + (LENGTH * 6L / 10L);
+
+    private File directory = null;
+    private ChronicleQueueRetention retention = null;
+
+    @BeforeMethod
+    public void createCycles() throws Exception {
+        directory = Files.createTempDirectory("ChronicleQueueRetention").toFile();
+        for (long c = CURRENT - 4L; c <= CURRENT; c++) {
+            File dir = cycleDir(c);
+            assertTrue(dir.mkdirs());
+            try (RandomAccessFile raf = new RandomAccessFile(new File(dir, "data-1-0"), "rw")) {
+                raf.setLength(1000L);
+            }
+        }
+        retention = new ChronicleQueueRetention(directory, FORMAT, LENGTH, BITS);
+    }
+
+    @AfterMethod
+    public void deleteCycles() {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    public void testPurgeByCycleCount() {
+        retention.setMaxCycles(2);
+        assertEquals(retention.purge(NOW), 3);
+        assertFalse(cycleDir(CURRENT - 2L).exists());
+        assertTrue(cycleDir(CURRENT - 1L).exists());
+    }
+
+    @Test
+    public void testPurgeByAge() {
+        retention.setMaxAge(LENGTH * 5L / 2L);
+        assertEquals(retention.purge(NOW), 2);
+        assertTrue(cycleDir(CURRENT - 2L).exists());
+    }
+
+    @Test
+    public void testPurgeByTotalSize() {
+        retention.setMaxTotalSize(2500L);
+        assertEquals(retention.purge(NOW), 3);
+    }
+
+    @Test
+    public void testPurgeNeverDeletesCurrentCycle() {
+        retention.setMaxCycles(1);
+        assertEquals(retention.purge(NOW), 4);
+        assertTrue(cycleDir(CURRENT).exists());
+    }
+
+    @Test
+    public void testPurgeWaitsForReaders() {
+        retention.setMaxCycles(1);
+        ReadPositionStore unread = new MemoryStore(ReadPositionStore.NO_POSITION);
+        retention.registerReadPositionStore(unread);
+        assertEquals(retention.purge(NOW), 0);
+
+        retention.unregisterReadPositionStore(unread);
+        retention.registerReadPositionStore(new MemoryStore(((CURRENT - 3L) << BITS) + 42L));
+        assertEquals(retention.cycleOf(((CURRENT - 3L) << BITS) + 42L), CURRENT - 3L);
+        assertEquals(retention.purge(NOW), 1);
+        assertTrue(cycleDir(CURRENT - 3L).exists());
+    }
+
+    @Test
+    public void testPreallocate() throws Exception {
+        retention.setPreallocateSize(4096L);
+        File dir = retention.preallocate(CURRENT + 1L);
+        assertEquals(dir, cycleDir(CURRENT + 1L));
+        assertEquals(new File(dir, "index-0").length(), 4096L);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testIndexedQueueRetention() throws Exception {
+        ChronicleQueueBuilderBean bean = new ChronicleQueueBuilderBean();
+        bean.setPath(new File(directory, "indexed"));
+        bean.setType(ChronicleQueueBuilderBean.Type.INDEXED);
+        bean.setRetentionMaxCycles(3);
+        bean.afterPropertiesSet();
+    }
+
+    @Test
+    public void testQueueBeanPreallocatesNextCycle() throws Exception {
+        ChronicleQueueBuilderBean bean = new ChronicleQueueBuilderBean();
+        File path = new File(directory, "vanilla");
+        bean.setPath(path);
+        bean.setCycleFormat(FORMAT);
+        bean.setCycleLength((int)LENGTH);
+        bean.setRetentionMaxCycles(24);
+        bean.setPreallocateCycles(true);
+        bean.afterPropertiesSet();
+        try {
+            assertNotNull(bean.getObject());
+            assertNotNull(bean.getRetention());
+            File next = new File(path, format(System.currentTimeMillis() / LENGTH + 1L));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (!new File(next, "index-0").exists() && System.nanoTime() < deadline) {
+                Thread.sleep(1L);
+            }
+            assertTrue(new File(next, "index-0").exists());
+        } finally {
+            bean.destroy();
+        }
+    }
+
+    private File cycleDir(long cycle) {
+        return new File(directory, format(cycle));
+    }
+
+    private static String format(long cycle) {
+        SimpleDateFormat formatter = new SimpleDateFormat(FORMAT);
+        formatter.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return formatter.format(new Date(cycle * LENGTH));
+    }
+
+    private static final class MemoryStore implements ReadPositionStore {
+
+        private long position;
+
+        MemoryStore(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public long read() {
+            return position;
+        }
+
+        @Override
+        public void write(long index) {
+            this.position = index;
+        }
+
+    }
+
+}
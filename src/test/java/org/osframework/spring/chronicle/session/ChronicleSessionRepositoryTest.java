@@ -0,0 +1,144 @@
+package org.osframework.spring.chronicle.session;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleSessionRepository}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleSessionRepositoryTest {
+
+    private ChronicleMap<String, byte[]> sessions = null;
+    private ChronicleSessionRepository repository = null;
+
+    @BeforeMethod
+    public void createRepository() throws Exception {
+        ChronicleMapBuilderBean<String, byte[]> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setKeyClass(String.class);
+        builderBean.setValueClass(byte[].class);
+        builderBean.setMaxEntries(1000);
+        builderBean.setAverageKeySize(48);
+        builderBean.setAverageValueSize(128);
+        builderBean.afterPropertiesSet();
+        sessions = builderBean.getObject();
+        repository = new ChronicleSessionRepository(sessions);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructNullMap() {
+        new ChronicleSessionRepository(null);
+    }
+
+    @Test
+    public void testSaveAndGetSession() {
+        ChronicleSession session = repository.createSession();
+        session.setAttribute("user", "dave");
+        repository.save(session);
+
+        ChronicleSession loaded = repository.getSession(session.getId());
+        assertNotNull(loaded);
+        assertEquals(loaded.getCreationTime(), session.getCreationTime());
+        assertTrue(loaded.getAttributeNames().contains("user"));
+        assertEquals(loaded.getAttribute("user"), "dave");
+    }
+
+    @Test
+    public void testSaveWritesChangedAttributesOnly() {
+        ChronicleSession session = repository.createSession();
+        session.setAttribute("a", 1);
+        session.setAttribute("b", 2);
+        repository.save(session);
+        assertEquals(sessions.size(), 3);
+
+        ChronicleSession loaded = repository.getSession(session.getId());
+        loaded.removeAttribute("a");
+        loaded.setAttribute("c", 3);
+        repository.save(loaded);
+        assertEquals(sessions.size(), 3);
+
+        ChronicleSession reloaded = repository.getSession(session.getId());
+        assertNull(reloaded.getAttribute("a"));
+        assertEquals(reloaded.<Integer>getAttribute("b").intValue(), 2);
+        assertEquals(reloaded.<Integer>getAttribute("c").intValue(), 3);
+    }
+
+    @Test
+    public void testExpiredSessionDeleted() {
+        ChronicleSession session = repository.createSession();
+        session.setAttribute("a", 1);
+        session.setMaxInactiveIntervalInSeconds(1);
+        session.setLastAccessedTime(System.currentTimeMillis() - 5000L);
+        repository.save(session);
+
+        assertNull(repository.getSession(session.getId()));
+        assertTrue(sessions.isEmpty());
+    }
+
+    @Test
+    public void testCleanupExpiredSessions() {
+        ChronicleSession expired = repository.createSession();
+        expired.setMaxInactiveIntervalInSeconds(1);
+        expired.setLastAccessedTime(System.currentTimeMillis() - 5000L);
+        repository.save(expired);
+        ChronicleSession active = repository.createSession();
+        repository.save(active);
+
+        assertEquals(repository.cleanupExpiredSessions(), 1);
+        assertFalse(sessions.containsKey(expired.getId()));
+        assertNotNull(repository.getSession(active.getId()));
+    }
+
+    @Test
+    public void testCleanupDeletesAttributesOfConcurrentSaves() {
+        ChronicleSession session = repository.createSession();
+        session.setMaxInactiveIntervalInSeconds(1);
+        repository.save(session);
+
+        // Two JVMs sharing the map each add an attribute to the same session
+        ChronicleSessionRepository other = new ChronicleSessionRepository(sessions);
+        ChronicleSession first = repository.getSession(session.getId());
+        ChronicleSession second = other.getSession(session.getId());
+        first.setAttribute("a", 1);
+        second.setAttribute("b", 2);
+        repository.save(first);
+        other.save(second);
+        assertEquals(sessions.size(), 3);
+        assertNull(repository.getSession(session.getId()).getAttribute("a"));
+
+        ChronicleSession expiring = repository.getSession(session.getId());
+        expiring.setLastAccessedTime(System.currentTimeMillis() - 5000L);
+        repository.save(expiring);
+        assertEquals(repository.cleanupExpiredSessions(), 1);
+        assertTrue(sessions.isEmpty());
+    }
+
+    @Test
+    public void testGetAttributeTyped() {
+        ChronicleSession session = repository.createSession();
+        session.setAttribute("count", 42);
+        repository.save(session);
+        Integer count = repository.getSession(session.getId()).getAttribute("count");
+        assertEquals(count.intValue(), 42);
+    }
+
+    @Test
+    public void testDelete() {
+        ChronicleSession session = repository.createSession();
+        session.setAttribute("a", 1);
+        repository.save(session);
+        repository.delete(session.getId());
+        assertTrue(sessions.isEmpty());
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.osframework.spring.chronicle.set;
+
+import net.openhft.chronicle.set.ChronicleSet;
+import org.osframework.spring.chronicle.ChronicleStreams;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code ChronicleSetAlgebra}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class ChronicleSetAlgebraTest {
+
+    private ChronicleSetBuilderBean<Long> builderBean;
+    private ChronicleSet<Long> a;
+    private ChronicleSet<Long> b;
+    private ChronicleSet<Long> target;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        builderBean = new ChronicleSetBuilderBean<>();
+        builderBean.setKeyClass(Long.class);
+        builderBean.setMaxEntries(100000);
+        builderBean.setSingleton(false);
+        builderBean.afterPropertiesSet();
+        a = builderBean.getObject();
+        b = builderBean.getObject();
+        target = builderBean.getObject();
+        // a: multiples of 2 below 30000; b: multiples of 3 below 30000
+        for (long k = 0; k < 30000L; k++) {
+            if (0L == k % 2L) {
+                a.add(k);
+            }
+            if (0L == k % 3L) {
+                b.add(k);
+            }
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        a.close();
+        b.close();
+        target.close();
+        builderBean.destroy();
+    }
+
+    @Test
+    public void testUnion() {
+        assertEquals(ChronicleSetAlgebra.union(a, b, target), 20000L);
+        assertEquals(target, expected(k -> 0L == k % 2L || 0L == k % 3L));
+    }
+
+    @Test
+    public void testIntersection() {
+        assertEquals(ChronicleSetAlgebra.intersection(a, b, target), 5000L);
+        assertEquals(target, expected(k -> 0L == k % 6L));
+    }
+
+    @Test
+    public void testDifference() {
+        assertEquals(ChronicleSetAlgebra.difference(a, b, target), 10000L);
+        assertEquals(target, expected(k -> 0L == k % 2L && 0L != k % 3L));
+        target.clear();
+        assertEquals(ChronicleSetAlgebra.difference(b, a, target), 5000L);
+        assertEquals(target, expected(k -> 0L == k % 3L && 0L != k % 2L));
+    }
+
+    @Test
+    public void testStreamingSink() {
+        Set<Long> sink = ConcurrentHashMap.newKeySet();
+        assertEquals(ChronicleSetAlgebra.intersection(a, b, sink::add), 5000L);
+        assertEquals(sink, expected(k -> 0L == k % 6L));
+    }
+
+    @Test
+    public void testEmptyOperand() {
+        target.clear();
+        assertEquals(ChronicleSetAlgebra.intersection(a, target, k -> { }), 0L);
+        assertEquals(ChronicleSetAlgebra.difference(target, a, k -> { }), 0L);
+        Set<Long> sink = ConcurrentHashMap.newKeySet();
+        assertEquals(ChronicleSetAlgebra.union(target, a, sink::add), 15000L);
+        assertTrue(sink.containsAll(a));
+    }
+
+    @Test
+    public void testOperandSplitBySegment() throws Exception {
+        ChronicleSetBuilderBean<Long> segmentedBean = new ChronicleSetBuilderBean<>();
+        segmentedBean.setKeyClass(Long.class);
+        segmentedBean.setMaxEntries(100000);
+        segmentedBean.setActualSegments(4);
+        segmentedBean.afterPropertiesSet();
+        ChronicleSet<Long> segmented = segmentedBean.getObject();
+        try {
+            segmented.addAll(a);
+            assertNotNull(ChronicleStreams.spliterator(segmented).trySplit());
+            assertEquals(ChronicleSetAlgebra.intersection(segmented, b, target), 5000L);
+        } finally {
+            segmented.close();
+            segmentedBean.destroy();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTargetIsOperand() {
+        ChronicleSetAlgebra.union(a, b, a);
+    }
+
+    private static Set<Long> expected(LongPredicate member) {
+        Set<Long> expected = new HashSet<>();
+        for (long k = 0; k < 30000L; k++) {
+            if (member.test(k)) {
+                expected.add(k);
+            }
+        }
+        return expected;
+    }
+
+}
@@ -1,12 +1,20 @@
 package org.osframework.spring.chronicle.set;
 
+import net.openhft.chronicle.set.ChronicleSet;
 import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
 import org.springframework.core.io.FileSystemResource;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 /**
  * Unit tests for {@code ChronicleSetBuilderBean}.
@@ -53,4 +61,127 @@ public class ChronicleSetBuilderBeanTest {
         assertNotNull(builderBean.getObject());
     }
 
+    @Test
+    public void testAfterPropertiesWithProfiling() throws Exception {
+        ChronicleSetBuilderBean<Integer> builderBean = new ChronicleSetBuilderBean<>();
+        builderBean.setKeyClass(Integer.class);
+        builderBean.setBeanName("profiledSet");
+        builderBean.setProfileKeyAccess(true);
+        builderBean.setProfileSampleInterval(1);
+        builderBean.afterPropertiesSet();
+        Set<Integer> set = builderBean.getObject();
+        set.add(7);
+        assertTrue(set.contains(7));
+        assertEquals(builderBean.getKeyAccessProfiler().getSampledAccesses(), 2L);
+        builderBean.destroy();
+        assertNull(builderBean.getKeyAccessProfiler().getObjectName());
+    }
+
+    @Test
+    public void testAfterPropertiesWithBloomFilter() throws Exception {
+        ChronicleSetBuilderBean<Long> builderBean = new ChronicleSetBuilderBean<>();
+        builderBean.setKeyClass(Long.class);
+        builderBean.setMaxEntries(10000);
+        builderBean.setBloomFilterFalsePositiveRate(0.01);
+        builderBean.afterPropertiesSet();
+        ChronicleSet<Long> set = builderBean.getObject();
+        assertTrue(set instanceof BloomFilteredChronicleSet);
+        for (long k = 0; k < 1000; k++) {
+            assertTrue(set.add(k));
+        }
+        assertFalse(set.add(7L));
+        for (long k = 0; k < 1000; k++) {
+            assertTrue(set.contains(k));
+        }
+        assertTrue(set.remove(7L));
+        assertFalse(set.contains(7L));
+        assertTrue(set.add(7L));
+        assertTrue(set.contains(7L));
+        assertEquals(set.size(), 1000);
+        builderBean.destroy();
+        set.close();
+    }
+
+    @Test
+    public void testBloomFilterSkipsSetForAbsentKeys() throws Exception {
+        ChronicleSetBuilderBean<Long> builderBean = new ChronicleSetBuilderBean<>();
+        builderBean.setKeyClass(Long.class);
+        builderBean.setMaxEntries(10000);
+        builderBean.afterPropertiesSet();
+        ChronicleSet<Long> delegate = builderBean.getObject();
+        AtomicLong lookups = new AtomicLong();
+        @SuppressWarnings("unchecked")
+        ChronicleSet<Long> counting = (ChronicleSet<Long>)Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { ChronicleSet.class }, (proxy, method, args) -> {
+                    if ("contains".equals(method.getName())) {
+                        lookups.incrementAndGet();
+                    }
+                    return method.invoke(delegate, args);
+                });
+        Set<Long> set = new BloomFilteredChronicleSet<>(counting, new CountingBloomFilter(10000L, 0.01));
+        for (long k = 0; k < 10000; k++) {
+            set.add(k);
+        }
+        for (long k = 10000; k < 110000; k++) {
+            assertFalse(set.contains(k));
+        }
+        assertTrue(lookups.get() < 2000L, "Set was looked up for " + lookups.get() + " of 100000 absent keys");
+        builderBean.destroy();
+        delegate.close();
+    }
+
+    @Test
+    public void testPersistedBloomFilter() throws Exception {
+        File tempFile = File.createTempFile("ChronicleSetBuilderBeanTest", ".dat");
+        File bloomFile = new File(tempFile.getPath() + ".bloom");
+        try {
+            ChronicleSetBuilderBean<String> builderBean = persistedBloomFilterBean(tempFile);
+            ChronicleSet<String> set = builderBean.getObject();
+            assertTrue(((BloomFilteredChronicleSet<String>)set).getFilter().needsRebuild());
+            set.add("alpha");
+            set.add("beta");
+            builderBean.destroy();
+            set.close();
+            assertTrue(bloomFile.isFile());
+
+            builderBean = persistedBloomFilterBean(tempFile);
+            set = builderBean.getObject();
+            assertFalse(((BloomFilteredChronicleSet<String>)set).getFilter().needsRebuild());
+            assertTrue(set.contains("alpha"));
+            assertTrue(set.contains("beta"));
+            assertFalse(set.contains("gamma"));
+            builderBean.destroy();
+            set.close();
+
+            // Filter file lost: rebuilt from the set keys
+            assertTrue(bloomFile.delete());
+            builderBean = persistedBloomFilterBean(tempFile);
+            set = builderBean.getObject();
+            assertTrue(((BloomFilteredChronicleSet<String>)set).getFilter().needsRebuild());
+            assertTrue(set.contains("alpha"));
+            assertTrue(set.contains("beta"));
+            builderBean.destroy();
+            set.close();
+        } finally {
+            tempFile.delete();
+            bloomFile.delete();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBloomFilterFalsePositiveRate() {
+        new ChronicleSetBuilderBean<Long>().setBloomFilterFalsePositiveRate(1.0);
+    }
+
+    private static ChronicleSetBuilderBean<String> persistedBloomFilterBean(File persistedTo) throws Exception {
+        ChronicleSetBuilderBean<String> builderBean = new ChronicleSetBuilderBean<>();
+        builderBean.setKeyClass(String.class);
+        builderBean.setMaxEntries(1000);
+        builderBean.setPersistedTo(persistedTo);
+        builderBean.setBloomFilterFalsePositiveRate(0.01);
+        builderBean.setBloomFilterPersisted(true);
+        builderBean.afterPropertiesSet();
+        return builderBean;
+    }
+
 }
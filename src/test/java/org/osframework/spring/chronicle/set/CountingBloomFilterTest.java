@@ -0,0 +1,138 @@
+package org.osframework.spring.chronicle.set;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for {@code CountingBloomFilter}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class CountingBloomFilterTest {
+
+    @Test
+    public void testSizing() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000000L, 0.01);
+        // About 9.6 counters and 7 hashes per key
+        assertTrue(filter.getCounters() >= 9585059L && filter.getCounters() < 9585059L + 16L);
+        assertEquals(filter.getHashes(), 7);
+        assertTrue(filter.needsRebuild());
+        filter.close();
+    }
+
+    @Test
+    public void testAddRemove() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000L, 0.01);
+        assertFalse(filter.mightContain("alpha"));
+        filter.add("alpha");
+        filter.add("alpha");
+        filter.add(42L);
+        assertTrue(filter.mightContain("alpha"));
+        assertTrue(filter.mightContain(new StringBuilder("alpha")));
+        assertTrue(filter.mightContain(42L));
+        filter.remove("alpha");
+        assertTrue(filter.mightContain("alpha"));
+        filter.remove("alpha");
+        assertFalse(filter.mightContain("alpha"));
+        assertTrue(filter.mightContain(42L));
+        filter.clear();
+        assertFalse(filter.mightContain(42L));
+        filter.close();
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(100000L, 0.01);
+        for (long k = 0; k < 100000L; k++) {
+            filter.add(k);
+        }
+        for (long k = 0; k < 100000L; k++) {
+            assertTrue(filter.mightContain(k));
+        }
+        long falsePositives = 0L;
+        for (long k = 100000L; k < 1100000L; k++) {
+            if (filter.mightContain(k)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 15000L, falsePositives + " false positives of 1000000");
+        filter.close();
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        File file = File.createTempFile("CountingBloomFilterTest", ".bloom");
+        file.delete();
+        try {
+            CountingBloomFilter filter = new CountingBloomFilter(file, 1000L, 0.01);
+            assertTrue(filter.needsRebuild());
+            filter.add("alpha");
+            filter.close();
+
+            filter = new CountingBloomFilter(file, 1000L, 0.01);
+            assertFalse(filter.needsRebuild());
+            assertTrue(filter.mightContain("alpha"));
+            assertFalse(filter.mightContain("beta"));
+
+            // Opened again while still open: shared, never discarded
+            CountingBloomFilter reopened = new CountingBloomFilter(file, 1000L, 0.01);
+            assertFalse(reopened.needsRebuild());
+            assertTrue(reopened.mightContain("alpha"));
+            reopened.add("beta");
+            assertTrue(filter.mightContain("beta"));
+            reopened.close();
+            assertTrue(filter.mightContain("alpha"));
+            filter.close();
+
+            // Left dirty, as after a crash: discarded
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.seek(24L);
+                raw.write(1);
+            }
+            filter = new CountingBloomFilter(file, 1000L, 0.01);
+            assertTrue(filter.needsRebuild());
+            assertFalse(filter.mightContain("alpha"));
+            filter.close();
+
+            // Sized differently: discarded
+            filter = new CountingBloomFilter(file, 2000L, 0.01);
+            assertTrue(filter.needsRebuild());
+            filter.close();
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".lock").delete();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testInUseSizedDifferently() throws Exception {
+        File file = File.createTempFile("CountingBloomFilterTest", ".bloom");
+        file.delete();
+        CountingBloomFilter filter = new CountingBloomFilter(file, 1000L, 0.01);
+        try {
+            new CountingBloomFilter(file, 2000L, 0.01);
+        } finally {
+            filter.close();
+            file.delete();
+            new File(file.getPath() + ".lock").delete();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidFalsePositiveRate() {
+        new CountingBloomFilter(1000L, 0.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidExpectedKeys() {
+        new CountingBloomFilter(0L, 0.01);
+    }
+
+}
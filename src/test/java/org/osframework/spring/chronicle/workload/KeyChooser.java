@@ -0,0 +1,106 @@
+package org.osframework.spring.chronicle.workload;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooser of record numbers in {@code [0, items)}, uniformly or by a scrambled Zipfian
+ * distribution. The Zipfian chooser follows the YCSB generator of Gray et al., "Quickly
+ * Generating Billion-Record Synthetic Databases", with the popular records scattered
+ * over the key space by an FNV hash.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public abstract class KeyChooser {
+
+    /**
+     * Zipfian constant of YCSB workloads.
+     */
+    public static final double ZIPFIAN_CONSTANT = 0.99;
+
+    protected final long items;
+
+    private KeyChooser(long items) {
+        this.items = items;
+    }
+
+    /**
+     * Create a chooser of the specified distribution.
+     *
+     * @param distribution key distribution
+     * @param items number of records
+     * @return key chooser
+     */
+    public static KeyChooser of(Workload.Distribution distribution, long items) {
+        return (Workload.Distribution.ZIPFIAN == distribution) ? new Zipfian(items) : new Uniform(items);
+    }
+
+    /**
+     * Choose the next record number.
+     *
+     * @return record number in {@code [0, items)}
+     */
+    public abstract long next();
+
+    static long fnvHash64(long value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < 8; i++) {
+            hash ^= value & 0xFF;
+            hash *= 0x100000001B3L;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    private static final class Uniform extends KeyChooser {
+
+        private Uniform(long items) {
+            super(items);
+        }
+
+        @Override
+        public long next() {
+            return ThreadLocalRandom.current().nextLong(items);
+        }
+
+    }
+
+    private static final class Zipfian extends KeyChooser {
+
+        private final double theta = ZIPFIAN_CONSTANT;
+        private final double zetaN;
+        private final double alpha;
+        private final double eta;
+        private final double half;
+
+        private Zipfian(long items) {
+            super(items);
+            double zeta2 = 1.0 + Math.pow(0.5, theta);
+            double zeta = 0.0;
+            for (long i = 1; i <= items; i++) {
+                zeta += 1.0 / Math.pow(i, theta);
+            }
+            this.zetaN = zeta;
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = (1.0 - Math.pow(2.0 / items, 1.0 - theta)) / (1.0 - zeta2 / zetaN);
+            this.half = 1.0 + Math.pow(0.5, theta);
+        }
+
+        @Override
+        public long next() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            double uz = u * zetaN;
+            long rank;
+            if (1.0 > uz) {
+                rank = 0L;
+            } else if (half > uz) {
+                rank = 1L;
+            } else {
+                rank = Math.min(items - 1, (long)(items * Math.pow(eta * u - eta + 1.0, alpha)));
+            }
+            return Long.remainderUnsigned(fnvHash64(rank), items);
+        }
+
+    }
+
+}
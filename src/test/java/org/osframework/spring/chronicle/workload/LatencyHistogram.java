@@ -0,0 +1,168 @@
+package org.osframework.spring.chronicle.workload;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of operation latencies in nanoseconds, with log-linear buckets: exact below
+ * 128 ns, and 64 buckets per power of two above, for a relative error under 1.6%. Not
+ * thread-safe; each client thread records into its own histogram, merged afterwards.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int LINEAR_LIMIT = 128;
+    private static final int LINEAR_MAGNITUDE = 7;
+    private static final int BUCKETS = LINEAR_LIMIT + (64 - LINEAR_MAGNITUDE) * (1 << SUB_BUCKET_BITS);
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0L;
+    private long sum = 0L;
+    private long max = 0L;
+
+    /**
+     * Record the specified latency.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add the recorded latencies of the specified histogram to this one.
+     *
+     * @param other histogram to be merged
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Get the mean latency.
+     *
+     * @return mean latency in nanoseconds, or {@code 0} if none recorded
+     */
+    public double getMean() {
+        return (0L == count) ? 0.0 : (double)sum / count;
+    }
+
+    /**
+     * Get the latency at the specified percentile: the upper bound of the bucket holding
+     * the latency ranked at that percentile, capped at the maximum recorded.
+     *
+     * @param percentile percentile in {@code (0, 100]}
+     * @return latency in nanoseconds, or {@code 0} if none recorded
+     */
+    public long getPercentile(double percentile) {
+        if (0L == count) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long)Math.ceil(count * percentile / 100.0));
+        long cumulative = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Write this histogram as a line of text, read by {@link #parse(String)}.
+     *
+     * @return histogram text
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append(count).append(' ').append(sum).append(' ').append(max);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (0L != counts[i]) {
+                text.append(' ').append(i).append(':').append(counts[i]);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Read a histogram written by {@link #format()}.
+     *
+     * @param text histogram text
+     * @return histogram
+     */
+    public static LatencyHistogram parse(String text) {
+        String[] fields = text.trim().split(" ");
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.count = Long.parseLong(fields[0]);
+        histogram.sum = Long.parseLong(fields[1]);
+        histogram.max = Long.parseLong(fields[2]);
+        for (int i = 3; i < fields.length; i++) {
+            int colon = fields[i].indexOf(':');
+            histogram.counts[Integer.parseInt(fields[i].substring(0, colon))] = Long.parseLong(fields[i].substring(colon + 1));
+        }
+        return histogram;
+    }
+
+    static int index(long value) {
+        if (LINEAR_LIMIT > value) {
+            return (int)value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (magnitude - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        return LINEAR_LIMIT + ((magnitude - LINEAR_MAGNITUDE) << SUB_BUCKET_BITS) + sub;
+    }
+
+    static long upperBound(int index) {
+        if (LINEAR_LIMIT > index) {
+            return index;
+        }
+        int magnitude = ((index - LINEAR_LIMIT) >>> SUB_BUCKET_BITS) + LINEAR_MAGNITUDE;
+        long sub = (index - LINEAR_LIMIT) & ((1 << SUB_BUCKET_BITS) - 1);
+        long lower = (1L << magnitude) | (sub << (magnitude - SUB_BUCKET_BITS));
+        return lower + (1L << (magnitude - SUB_BUCKET_BITS)) - 1L;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[count=" + count + ", p50=" + getPercentile(50.0)
+               + ", p99=" + getPercentile(99.0) + ", max=" + max + "]";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LatencyHistogram)) {
+            return false;
+        }
+        LatencyHistogram other = (LatencyHistogram)o;
+        return count == other.count && sum == other.sum && max == other.max && Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+}
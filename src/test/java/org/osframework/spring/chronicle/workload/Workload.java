@@ -0,0 +1,211 @@
+package org.osframework.spring.chronicle.workload;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Definition of a mixed workload run against a {@code ChronicleMap}, in the style of the
+ * Yahoo! Cloud Serving Benchmark. A workload is read from properties with the YCSB core
+ * workload names:
+ * <ul>
+ *   <li>{@code recordcount} - records loaded before the run (default 100000)</li>
+ *   <li>{@code operationcount} - operations of the run, per process (default 100000)</li>
+ *   <li>{@code threadcount} - client threads per process (default 1)</li>
+ *   <li>{@code readproportion}, {@code updateproportion}, {@code insertproportion},
+ *       {@code scanproportion} - operation mix (default 0.95 read, 0.05 update)</li>
+ *   <li>{@code requestdistribution} - {@code zipfian} or {@code uniform} key choice
+ *       (default zipfian)</li>
+ *   <li>{@code fieldlength} - value size in bytes (default 100)</li>
+ *   <li>{@code scanlength} - records read by a scan (default 10)</li>
+ *   <li>{@code processes} - local JVMs sharing one map file (default 1)</li>
+ *   <li>{@code persistedto} - map file; required to share the map between
+ *       processes, a temporary file is used if absent</li>
+ * </ul>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public final class Workload {
+
+    /**
+     * Key distributions of operations.
+     */
+    public enum Distribution {
+        UNIFORM, ZIPFIAN
+    }
+
+    /**
+     * Operation types of a workload.
+     */
+    public enum Operation {
+        READ, UPDATE, INSERT, SCAN
+    }
+
+    private final String name;
+    private final long recordCount;
+    private final long operationCount;
+    private final int threadCount;
+    private final double[] proportions;
+    private final Distribution distribution;
+    private final int fieldLength;
+    private final int scanLength;
+    private final int processes;
+    private final File persistedTo;
+
+    private Workload(String name, Properties p) {
+        this.name = name;
+        this.recordCount = Long.parseLong(p.getProperty("recordcount", "100000"));
+        this.operationCount = Long.parseLong(p.getProperty("operationcount", "100000"));
+        this.threadCount = Integer.parseInt(p.getProperty("threadcount", "1"));
+        this.proportions = new double[] {
+            Double.parseDouble(p.getProperty("readproportion", "0.95")),
+            Double.parseDouble(p.getProperty("updateproportion", "0.05")),
+            Double.parseDouble(p.getProperty("insertproportion", "0")),
+            Double.parseDouble(p.getProperty("scanproportion", "0"))
+        };
+        this.distribution = Distribution.valueOf(p.getProperty("requestdistribution", "zipfian").toUpperCase(Locale.ROOT));
+        this.fieldLength = Integer.parseInt(p.getProperty("fieldlength", "100"));
+        this.scanLength = Integer.parseInt(p.getProperty("scanlength", "10"));
+        this.processes = Integer.parseInt(p.getProperty("processes", "1"));
+        String file = p.getProperty("persistedto");
+        this.persistedTo = (null != file && !file.isEmpty()) ? new File(file) : null;
+        validate();
+    }
+
+    /**
+     * Create a workload from the specified properties.
+     *
+     * @param name workload name, as reported
+     * @param properties workload properties
+     * @return workload
+     * @throws IllegalArgumentException if any property is invalid
+     */
+    public static Workload of(String name, Properties properties) {
+        return new Workload(name, properties);
+    }
+
+    /**
+     * Load workload properties from the specified file, or from the classpath resource
+     * of that name if no such file exists.
+     *
+     * @param location file path or classpath resource name
+     * @return loaded properties
+     * @throws IOException if properties cannot be read
+     * @throws IllegalArgumentException if neither file nor resource exists
+     */
+    public static Properties load(String location) throws IOException {
+        File file = new File(location);
+        InputStream in = file.isFile()
+                         ? new FileInputStream(file)
+                         : Workload.class.getClassLoader().getResourceAsStream(location);
+        if (null == in) {
+            throw new IllegalArgumentException("No workload file or resource '" + location + "'");
+        }
+        Properties properties = new Properties();
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        return properties;
+    }
+
+    private void validate() {
+        if (1 > recordCount || 0 > operationCount || 1 > threadCount || 1 > processes) {
+            throw new IllegalArgumentException("Record, thread and process counts must be positive; operation count must not be negative");
+        }
+        if (1 > fieldLength || 1 > scanLength) {
+            throw new IllegalArgumentException("Field and scan lengths must be positive");
+        }
+        double total = 0.0;
+        for (double proportion : proportions) {
+            if (0.0 > proportion) {
+                throw new IllegalArgumentException("Operation proportions cannot be negative");
+            }
+            total += proportion;
+        }
+        if (0.0 == total) {
+            throw new IllegalArgumentException("At least one operation proportion must be positive");
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getOperationCount() {
+        return operationCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    public int getFieldLength() {
+        return fieldLength;
+    }
+
+    public int getScanLength() {
+        return scanLength;
+    }
+
+    public int getProcesses() {
+        return processes;
+    }
+
+    public File getPersistedTo() {
+        return persistedTo;
+    }
+
+    /**
+     * Get the expected number of inserts of the run, across all processes.
+     *
+     * @return expected insert count
+     */
+    public long getExpectedInserts() {
+        return (long)Math.ceil(operationCount * processes * proportions[Operation.INSERT.ordinal()] / total());
+    }
+
+    /**
+     * Choose the type of the next operation, from a uniform random number.
+     *
+     * @param random number in {@code [0, 1)}
+     * @return operation type
+     */
+    public Operation choose(double random) {
+        double threshold = random * total();
+        double cumulative = 0.0;
+        Operation last = null;
+        for (Operation operation : Operation.values()) {
+            if (0.0 < proportions[operation.ordinal()]) {
+                cumulative += proportions[operation.ordinal()];
+                last = operation;
+                if (threshold < cumulative) {
+                    return operation;
+                }
+            }
+        }
+        return last;
+    }
+
+    private double total() {
+        double total = 0.0;
+        for (double proportion : proportions) {
+            total += proportion;
+        }
+        return total;
+    }
+
+}
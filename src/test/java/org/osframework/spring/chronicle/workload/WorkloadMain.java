@@ -0,0 +1,173 @@
+package org.osframework.spring.chronicle.workload;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line entry point of the workload harness, run by the {@code workload} Maven
+ * profile:
+ * <pre>
+ * mvn -Pworkload verify -Dworkload=workloads/workloada.properties -Dworkload.processes=4
+ * </pre>
+ * Arguments are a workload properties file or classpath resource, followed by
+ * {@code name=value} overrides of its properties. The {@code output} property names the
+ * JSON report file; the report is printed if absent.
+ * <p>The records are loaded by this process. With more than one process, the map is
+ * then closed, and worker JVMs sharing its file are started on the classpath of this
+ * one; they run concurrently from a common start time, and their results are merged
+ * into one report.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public final class WorkloadMain {
+
+    private static final String WORKER_INDEX = "worker.index";
+    private static final String WORKER_RESULT = "worker.result";
+    private static final String WORKER_START = "worker.start";
+    private static final long WORKER_STARTUP_MILLIS = 3000L;
+
+    private WorkloadMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (1 > args.length) {
+            System.err.println("Usage: WorkloadMain <workload properties> [name=value ...]");
+            System.exit(2);
+        }
+        Properties properties = Workload.load(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if (1 > equals) {
+                throw new IllegalArgumentException("Override '" + args[i] + "' is not of the form name=value");
+            }
+            properties.setProperty(args[i].substring(0, equals), args[i].substring(equals + 1));
+        }
+        if (properties.containsKey(WORKER_INDEX)) {
+            runWorker(args[0], properties);
+            System.exit(0);
+        }
+        Workload workload = Workload.of(args[0], properties);
+        WorkloadResult result = run(workload, args[0], properties);
+        String json = result.toJson(workload);
+        String output = properties.getProperty("output");
+        if (null == output || output.isEmpty()) {
+            System.out.print(json);
+        } else {
+            File file = new File(output);
+            if (null != file.getParentFile()) {
+                file.getParentFile().mkdirs();
+            }
+            Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Load and run the specified workload, in this JVM or across worker JVMs.
+     *
+     * @param workload workload to run
+     * @param location workload properties location, passed to workers
+     * @param properties workload properties, passed to workers
+     * @return merged result
+     * @throws Exception if the run fails
+     */
+    static WorkloadResult run(Workload workload, String location, Properties properties) throws Exception {
+        WorkloadRunner runner = new WorkloadRunner(workload);
+        File persistedTo = workload.getPersistedTo();
+        boolean temporary = (null == persistedTo && 1 < workload.getProcesses());
+        if (temporary) {
+            persistedTo = File.createTempFile("workload", ".dat");
+        }
+        try {
+            WorkloadResult result = null;
+            ChronicleMapBuilderBean<CharSequence, byte[]> builderBean = runner.createBuilderBean(persistedTo);
+            try {
+                ChronicleMap<CharSequence, byte[]> map = builderBean.getObject();
+                runner.load(map);
+                if (1 == workload.getProcesses()) {
+                    result = runner.run(map, 0);
+                }
+            } finally {
+                builderBean.destroy();
+            }
+            return (null != result) ? result : runWorkers(workload, location, properties, persistedTo);
+        } finally {
+            if (temporary) {
+                persistedTo.delete();
+            }
+        }
+    }
+
+    private static WorkloadResult runWorkers(Workload workload, String location, Properties properties, File persistedTo)
+            throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        long startAt = System.currentTimeMillis() + WORKER_STARTUP_MILLIS;
+        List<Process> workers = new ArrayList<>(workload.getProcesses());
+        List<File> results = new ArrayList<>(workload.getProcesses());
+        for (int i = 0; i < workload.getProcesses(); i++) {
+            File result = File.createTempFile("workload-" + i, ".result");
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(WorkloadMain.class.getName());
+            command.add(location);
+            for (String name : properties.stringPropertyNames()) {
+                command.add(name + "=" + properties.getProperty(name));
+            }
+            command.add("persistedto=" + persistedTo.getAbsolutePath());
+            command.add(WORKER_INDEX + "=" + i);
+            command.add(WORKER_RESULT + "=" + result.getAbsolutePath());
+            command.add(WORKER_START + "=" + startAt);
+            workers.add(new ProcessBuilder(command).redirectErrorStream(true)
+                                                   .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                                                   .start());
+            results.add(result);
+        }
+        WorkloadResult merged = null;
+        for (int i = 0; i < workers.size(); i++) {
+            int exitCode = workers.get(i).waitFor();
+            if (0 != exitCode) {
+                throw new IllegalStateException("Workload worker " + i + " exited with code " + exitCode);
+            }
+            WorkloadResult result = WorkloadResult.read(results.get(i));
+            results.get(i).delete();
+            if (null == merged) {
+                merged = result;
+            } else {
+                merged.merge(result);
+            }
+        }
+        return merged;
+    }
+
+    private static void runWorker(String location, Properties properties) throws Exception {
+        Workload workload = Workload.of(location, properties);
+        WorkloadRunner runner = new WorkloadRunner(workload);
+        ChronicleMapBuilderBean<CharSequence, byte[]> builderBean = runner.createBuilderBean(workload.getPersistedTo());
+        try {
+            ChronicleMap<CharSequence, byte[]> map = builderBean.getObject();
+            long wait = Long.parseLong(properties.getProperty(WORKER_START)) - System.currentTimeMillis();
+            if (0L < wait) {
+                TimeUnit.MILLISECONDS.sleep(wait);
+            } else {
+                System.err.println("Workload worker started " + (-wait) + " ms after the common start time");
+            }
+            WorkloadResult result = runner.run(map, Integer.parseInt(properties.getProperty(WORKER_INDEX)));
+            result.write(new File(properties.getProperty(WORKER_RESULT)));
+        } finally {
+            builderBean.destroy();
+        }
+    }
+
+}
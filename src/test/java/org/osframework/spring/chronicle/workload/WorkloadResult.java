@@ -0,0 +1,198 @@
+package org.osframework.spring.chronicle.workload;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measurements of a workload run: latency histograms per operation type, wall-clock
+ * span of the run, and failed operation count. Results of the processes of a run are
+ * merged into one, and reported as JSON by {@link #toJson(Workload)}.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public final class WorkloadResult {
+
+    private static final double[] PERCENTILES = { 50.0, 99.0, 99.9 };
+    private static final String[] PERCENTILE_NAMES = { "p50", "p99", "p999" };
+
+    private final Map<Workload.Operation, LatencyHistogram> histograms = new EnumMap<>(Workload.Operation.class);
+    private long startMillis;
+    private long endMillis;
+    private long failures = 0L;
+
+    /**
+     * Create a new, empty result of a run spanning the specified interval.
+     *
+     * @param startMillis start of run, as epoch milliseconds
+     * @param endMillis end of run, as epoch milliseconds
+     */
+    public WorkloadResult(long startMillis, long endMillis) {
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        for (Workload.Operation operation : Workload.Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Get the latency histogram of the specified operation type.
+     *
+     * @param operation operation type
+     * @return latency histogram
+     */
+    public LatencyHistogram getHistogram(Workload.Operation operation) {
+        return histograms.get(operation);
+    }
+
+    /**
+     * Get the latency histogram of all operations.
+     *
+     * @return overall latency histogram
+     */
+    public LatencyHistogram getOverall() {
+        LatencyHistogram overall = new LatencyHistogram();
+        histograms.values().forEach(overall::merge);
+        return overall;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    void addFailures(long count) {
+        failures += count;
+    }
+
+    /**
+     * Get the wall-clock duration of the run.
+     *
+     * @return duration in milliseconds, at least {@code 1}
+     */
+    public long getDurationMillis() {
+        return Math.max(1L, endMillis - startMillis);
+    }
+
+    /**
+     * Get the throughput of the run.
+     *
+     * @return operations per second
+     */
+    public double getThroughput() {
+        return getOverall().getCount() * 1000.0 / getDurationMillis();
+    }
+
+    /**
+     * Merge the specified result of a concurrent run into this one, widening the span of
+     * this run to cover both.
+     *
+     * @param other result to be merged
+     */
+    public void merge(WorkloadResult other) {
+        addMeasurements(other);
+        startMillis = Math.min(startMillis, other.startMillis);
+        endMillis = Math.max(endMillis, other.endMillis);
+    }
+
+    /**
+     * Add the latencies and failures of the specified result to this one, leaving the
+     * span of this run unchanged.
+     *
+     * @param other result of a part of this run
+     */
+    void addMeasurements(WorkloadResult other) {
+        for (Workload.Operation operation : Workload.Operation.values()) {
+            histograms.get(operation).merge(other.histograms.get(operation));
+        }
+        failures += other.failures;
+    }
+
+    /**
+     * Write this result to the specified file, to be read by {@link #read(File)}.
+     *
+     * @param file result file
+     * @throws IOException if file cannot be written
+     */
+    public void write(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            out.println(startMillis + " " + endMillis + " " + failures);
+            for (Workload.Operation operation : Workload.Operation.values()) {
+                out.println(operation.name() + " " + histograms.get(operation).format());
+            }
+        }
+    }
+
+    /**
+     * Read a result written by {@link #write(File)}.
+     *
+     * @param file result file
+     * @return result
+     * @throws IOException if file cannot be read
+     */
+    public static WorkloadResult read(File file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] span = in.readLine().split(" ");
+            WorkloadResult result = new WorkloadResult(Long.parseLong(span[0]), Long.parseLong(span[1]));
+            result.failures = Long.parseLong(span[2]);
+            String line;
+            while (null != (line = in.readLine())) {
+                int space = line.indexOf(' ');
+                result.histograms.put(Workload.Operation.valueOf(line.substring(0, space)),
+                                      LatencyHistogram.parse(line.substring(space + 1)));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Report this result of the specified workload as JSON. Latencies are reported in
+     * microseconds.
+     *
+     * @param workload workload run
+     * @return JSON report
+     */
+    public String toJson(Workload workload) {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"workload\": \"").append(workload.getName().replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+        json.append("  \"recordCount\": ").append(workload.getRecordCount()).append(",\n");
+        json.append("  \"distribution\": \"").append(workload.getDistribution().name().toLowerCase(Locale.ROOT)).append("\",\n");
+        json.append("  \"processes\": ").append(workload.getProcesses()).append(",\n");
+        json.append("  \"threadsPerProcess\": ").append(workload.getThreadCount()).append(",\n");
+        json.append("  \"durationMillis\": ").append(getDurationMillis()).append(",\n");
+        json.append("  \"throughput\": ").append(String.format(Locale.ROOT, "%.1f", getThroughput())).append(",\n");
+        json.append("  \"failures\": ").append(failures).append(",\n");
+        json.append("  \"overall\": ");
+        appendLatencies(json, getOverall());
+        json.append(",\n  \"operations\": {");
+        String separator = "\n";
+        for (Workload.Operation operation : Workload.Operation.values()) {
+            LatencyHistogram histogram = histograms.get(operation);
+            if (0L != histogram.getCount()) {
+                json.append(separator).append("    \"").append(operation.name()).append("\": ");
+                appendLatencies(json, histogram);
+                separator = ",\n";
+            }
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    private static void appendLatencies(StringBuilder json, LatencyHistogram histogram) {
+        json.append("{\"count\": ").append(histogram.getCount());
+        json.append(", \"meanMicros\": ").append(String.format(Locale.ROOT, "%.3f", histogram.getMean() / 1000.0));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            json.append(", \"").append(PERCENTILE_NAMES[i]).append("Micros\": ")
+                .append(String.format(Locale.ROOT, "%.3f", histogram.getPercentile(PERCENTILES[i]) / 1000.0));
+        }
+        json.append(", \"maxMicros\": ").append(String.format(Locale.ROOT, "%.3f", histogram.getMax() / 1000.0));
+        json.append('}');
+    }
+
+}
@@ -0,0 +1,215 @@
+package org.osframework.spring.chronicle.workload;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runner of a {@link Workload} against a {@code ChronicleMap<CharSequence, byte[]>}
+ * built by {@link ChronicleMapBuilderBean}. Records are keyed {@code user<hash>} as in
+ * YCSB. Each client thread times its operations into its own histograms.
+ * <p>Chronicle maps are unordered, so a scan reads the records of consecutive record
+ * numbers, which are scattered over the map by the key hash. Records inserted by a
+ * process are numbered apart from those of other processes sharing the map.</p>
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public final class WorkloadRunner {
+
+    private final Workload workload;
+
+    /**
+     * Create a new runner of the specified workload.
+     *
+     * @param workload workload to run
+     */
+    public WorkloadRunner(Workload workload) {
+        this.workload = workload;
+    }
+
+    /**
+     * Create a builder bean of a map sized for the workload, with room for the records
+     * inserted during the run.
+     *
+     * @param persistedTo map file, created if absent, or {@code null} for an in-memory map
+     * @return initialized builder bean
+     * @throws Exception if builder bean initialization fails
+     */
+    public ChronicleMapBuilderBean<CharSequence, byte[]> createBuilderBean(File persistedTo) throws Exception {
+        ChronicleMapBuilderBean<CharSequence, byte[]> builderBean = new ChronicleMapBuilderBean<>();
+        builderBean.setBeanName("workload");
+        builderBean.setKeyClass(CharSequence.class);
+        builderBean.setValueClass(byte[].class);
+        builderBean.setAverageKeySize(23.0);
+        builderBean.setAverageValueSize(workload.getFieldLength());
+        builderBean.setMaxEntries(Math.max(1024L, (workload.getRecordCount() + workload.getExpectedInserts()) * 5L / 4L));
+        builderBean.setPutReturnsNull(true);
+        builderBean.setRemoveReturnsNull(true);
+        if (null != persistedTo) {
+            persistedTo.createNewFile();
+            builderBean.setPersistedTo(persistedTo);
+        }
+        builderBean.afterPropertiesSet();
+        return builderBean;
+    }
+
+    /**
+     * Load the records of the workload into the specified map.
+     *
+     * @param map workload map
+     * @return load duration in milliseconds
+     * @throws InterruptedException if interrupted while loading
+     */
+    public long load(ChronicleMap<CharSequence, byte[]> map) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        int threads = workload.getThreadCount();
+        List<Thread> loaders = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            long from = workload.getRecordCount() * t / threads;
+            long to = workload.getRecordCount() * (t + 1) / threads;
+            Thread loader = new Thread(() -> {
+                StringBuilder key = new StringBuilder();
+                byte[] value = newValue();
+                for (long n = from; n < to; n++) {
+                    map.put(key(key, n), value);
+                }
+            }, "workload-load-" + t);
+            loaders.add(loader);
+            loader.start();
+        }
+        for (Thread loader : loaders) {
+            loader.join();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Run the operations of the workload against the specified map, as one of the
+     * processes sharing it.
+     *
+     * @param map workload map
+     * @param processIndex index of this process in {@code [0, processes)}
+     * @return run result
+     * @throws InterruptedException if interrupted while running
+     */
+    public WorkloadResult run(ChronicleMap<CharSequence, byte[]> map, int processIndex) throws InterruptedException {
+        int threads = workload.getThreadCount();
+        KeyChooser chooser = KeyChooser.of(workload.getDistribution(), workload.getRecordCount());
+        AtomicLong inserts = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Client> clients = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            long operations = workload.getOperationCount() * (t + 1) / threads - workload.getOperationCount() * t / threads;
+            Client client = new Client(map, chooser, inserts, processIndex, operations, start);
+            client.thread = new Thread(client, "workload-run-" + processIndex + "-" + t);
+            clients.add(client);
+            client.thread.start();
+        }
+        long startMillis = System.currentTimeMillis();
+        start.countDown();
+        for (Client client : clients) {
+            client.thread.join();
+        }
+        WorkloadResult result = new WorkloadResult(startMillis, System.currentTimeMillis());
+        for (Client client : clients) {
+            result.addMeasurements(client.result);
+        }
+        return result;
+    }
+
+    private byte[] newValue() {
+        byte[] value = new byte[workload.getFieldLength()];
+        ThreadLocalRandom.current().nextBytes(value);
+        return value;
+    }
+
+    static StringBuilder key(StringBuilder key, long recordNumber) {
+        key.setLength(0);
+        return key.append("user").append(KeyChooser.fnvHash64(recordNumber) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Client thread of a run.
+     */
+    private final class Client implements Runnable {
+
+        private final ChronicleMap<CharSequence, byte[]> map;
+        private final KeyChooser chooser;
+        private final AtomicLong inserts;
+        private final int processIndex;
+        private final long operations;
+        private final CountDownLatch start;
+        private final WorkloadResult result = new WorkloadResult(0L, 0L);
+        private Thread thread;
+
+        private Client(ChronicleMap<CharSequence, byte[]> map, KeyChooser chooser, AtomicLong inserts,
+                       int processIndex, long operations, CountDownLatch start) {
+            this.map = map;
+            this.chooser = chooser;
+            this.inserts = inserts;
+            this.processIndex = processIndex;
+            this.operations = operations;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            StringBuilder key = new StringBuilder();
+            byte[] value = newValue();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long failures = 0L;
+            try {
+                start.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (long i = 0; i < operations; i++) {
+                Workload.Operation operation = workload.choose(random.nextDouble());
+                long begin = System.nanoTime();
+                try {
+                    execute(operation, key, value, random);
+                } catch (RuntimeException re) {
+                    failures++;
+                    continue;
+                }
+                result.getHistogram(operation).record(System.nanoTime() - begin);
+            }
+            result.addFailures(failures);
+        }
+
+        private void execute(Workload.Operation operation, StringBuilder key, byte[] value, ThreadLocalRandom random) {
+            switch (operation) {
+                case READ:
+                    map.get(key(key, chooser.next()));
+                    break;
+                case UPDATE:
+                    value[0] = (byte)random.nextInt();
+                    map.put(key(key, chooser.next()), value);
+                    break;
+                case INSERT:
+                    long recordNumber = workload.getRecordCount() + processIndex
+                                        + (long)workload.getProcesses() * inserts.getAndIncrement();
+                    map.put(key(key, recordNumber), value);
+                    break;
+                case SCAN:
+                    long first = chooser.next();
+                    for (int n = 0; n < workload.getScanLength(); n++) {
+                        map.get(key(key, (first + n) % workload.getRecordCount()));
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.osframework.spring.chronicle.workload;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.osframework.spring.chronicle.map.ChronicleMapBuilderBean;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for the workload harness: {@code WorkloadRunner} and its key choosers,
+ * histograms and results.
+ *
+ * @author <a href="mailto:dave@osframework.org">Dave Joyce</a>
+ * @version 0.0.1
+ */
+public class WorkloadRunnerTest {
+
+    @Test
+    public void testZipfianKeysAreSkewed() {
+        KeyChooser zipfian = KeyChooser.of(Workload.Distribution.ZIPFIAN, 1000L);
+        long[] counts = new long[1000];
+        for (int i = 0; i < 100000; i++) {
+            long n = zipfian.next();
+            assertTrue(0L <= n && 1000L > n);
+            counts[(int)n]++;
+        }
+        long hottest = 0L;
+        for (long count : counts) {
+            hottest = Math.max(hottest, count);
+        }
+        // Uniform choice would give each record about 100
+        assertTrue(hottest > 5000L, "Hottest record chosen only " + hottest + " times");
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100000; nanos++) {
+            histogram.record(nanos);
+        }
+        assertEquals(histogram.getCount(), 100000L);
+        assertEquals(histogram.getMax(), 100000L);
+        assertWithin(histogram.getPercentile(50.0), 50000L);
+        assertWithin(histogram.getPercentile(99.0), 99000L);
+        assertWithin(histogram.getPercentile(99.9), 99900L);
+        assertEquals(LatencyHistogram.parse(histogram.format()), histogram);
+    }
+
+    @Test
+    public void testChooseOperations() {
+        Properties properties = new Properties();
+        properties.setProperty("readproportion", "0");
+        properties.setProperty("updateproportion", "0.5");
+        properties.setProperty("scanproportion", "0.5");
+        Workload workload = Workload.of("test", properties);
+        assertEquals(workload.choose(0.0), Workload.Operation.UPDATE);
+        assertEquals(workload.choose(0.75), Workload.Operation.SCAN);
+        assertEquals(workload.choose(0.9999999999), Workload.Operation.SCAN);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoOperations() {
+        Properties properties = new Properties();
+        properties.setProperty("readproportion", "0");
+        properties.setProperty("updateproportion", "0");
+        Workload.of("test", properties);
+    }
+
+    @Test
+    public void testSingleProcessRun() throws Exception {
+        Properties properties = Workload.load("workloads/workloada.properties");
+        properties.setProperty("recordcount", "1000");
+        properties.setProperty("operationcount", "5000");
+        properties.setProperty("threadcount", "2");
+        Workload workload = Workload.of("workloada", properties);
+        WorkloadResult result = WorkloadMain.run(workload, "workloads/workloada.properties", properties);
+
+        assertEquals(result.getOverall().getCount(), 5000L);
+        assertEquals(result.getFailures(), 0L);
+        assertTrue(60000L > result.getDurationMillis());
+        assertTrue(0L < result.getHistogram(Workload.Operation.READ).getCount());
+        assertTrue(0L < result.getHistogram(Workload.Operation.UPDATE).getCount());
+        String json = result.toJson(workload);
+        assertTrue(json.contains("\"READ\": {\"count\": "), json);
+        assertTrue(json.contains("\"p999Micros\": "), json);
+        assertTrue(json.contains("\"throughput\": "), json);
+    }
+
+    @Test
+    public void testMultiProcessRun() throws Exception {
+        File persistedTo = File.createTempFile("WorkloadRunnerTest", ".dat");
+        Properties properties = Workload.load("workloads/workloadu.properties");
+        properties.setProperty("recordcount", "1000");
+        properties.setProperty("operationcount", "2000");
+        properties.setProperty("threadcount", "2");
+        properties.setProperty("processes", "2");
+        properties.setProperty("persistedto", persistedTo.getAbsolutePath());
+        Workload workload = Workload.of("workloadu", properties);
+        try {
+            WorkloadResult result = WorkloadMain.run(workload, "workloads/workloadu.properties", properties);
+            assertEquals(result.getOverall().getCount(), 4000L);
+            assertEquals(result.getFailures(), 0L);
+            assertTrue(60000L > result.getDurationMillis());
+
+            ChronicleMapBuilderBean<CharSequence, byte[]> builderBean = new WorkloadRunner(workload).createBuilderBean(persistedTo);
+            ChronicleMap<CharSequence, byte[]> map = builderBean.getObject();
+            assertEquals(map.longSize(), 1000L + result.getHistogram(Workload.Operation.INSERT).getCount());
+            builderBean.destroy();
+        } finally {
+            persistedTo.delete();
+        }
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertTrue(Math.abs(actual - expected) <= expected / 50L, "Expected about " + expected + " but was " + actual);
+    }
+
+}